@@ -0,0 +1,348 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.cache;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.SIP2ResponseFactory;
+import com.pkrete.jsip2.messages.responses.SIP2ItemInformationResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is a cache of item information responses. Entries expire 
+ * after a time to live, and the least recently used entries are evicted 
+ * when the number of entries or their estimated size exceeds the limit.
+ *
+ * Responses are stored as the bytes of the message received from the ILS 
+ * SIP server instead of response objects, which keeps the entries compact 
+ * and immutable. Each {@link #get(String) get} parses a new response 
+ * object, so callers may modify the responses they get.
+ *
+ * An item is invalidated when its circulation status changes. Because the
+ * item information request may have been sent before the change, a 
+ * response is stored only if the item hasn't been invalidated after the 
+ * stamp returned by {@link #getStamp() getStamp} before sending the 
+ * request. Invalidated items are remembered until they are evicted, and
+ * evicting an entry raises the stamp below which no responses are stored,
+ * so a response to a request sent before an invalidation is never stored.
+ *
+ * This class is thread safe.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2ItemInformationCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SIP2ItemInformationCache.class);
+    /**
+     * Estimated memory used by an entry in addition to the message bytes
+     * and the item identifier.
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * Entries in access order.
+     */
+    private final LinkedHashMap<String, Entry> entries;
+    /**
+     * Time to live of the entries in nanoseconds.
+     */
+    private final long timeToLive;
+    /**
+     * Maximum number of entries, including the invalidated items.
+     */
+    private final int maxEntries;
+    /**
+     * Maximum estimated size of the entries in bytes.
+     */
+    private final long maxBytes;
+    /**
+     * Estimated size of the entries in bytes.
+     */
+    private long bytes;
+    /**
+     * Counter that's incremented whenever an item is invalidated.
+     */
+    private long stamp;
+    /**
+     * Responses to requests sent before this stamp are not stored.
+     */
+    private long floor;
+    /**
+     * Number of responses found in the cache.
+     */
+    private long hitCount;
+    /**
+     * Number of responses not found in the cache.
+     */
+    private long missCount;
+    /**
+     * Number of entries evicted because of the size limits.
+     */
+    private long evictionCount;
+
+    /**
+     * Constructs and initializes a new SIP2ItemInformationCache object.
+     * @param timeToLive time to live of the entries in milliseconds
+     * @param maxEntries maximum number of entries
+     * @param maxBytes maximum estimated size of the entries in bytes
+     * @throws IllegalArgumentException if any of the values is not positive
+     */
+    public SIP2ItemInformationCache(long timeToLive, int maxEntries, long maxBytes) {
+        if (timeToLive <= 0 || maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Time to live, maximum number of entries and maximum size must be positive.");
+        }
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the item information response of the given item, or null if 
+     * the item is not in the cache or its entry has expired. A new response
+     * object is parsed on every call.
+     * @param itemIdentifier item identifier
+     * @return item information response or null
+     */
+    public SIP2ItemInformationResponse get(String itemIdentifier) {
+        if (itemIdentifier == null) {
+            return null;
+        }
+        byte[] data;
+        synchronized (this) {
+            Entry entry = entries.get(itemIdentifier);
+            if (entry == null || entry.data == null || entry.expires - System.nanoTime() <= 0) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            data = entry.data;
+        }
+        try {
+            SIP2MessageResponse response = SIP2ResponseFactory.getInstance().create(new String(data, StandardCharsets.UTF_8));
+            if (response instanceof SIP2ItemInformationResponse) {
+                return (SIP2ItemInformationResponse) response;
+            }
+        } catch (InvalidSIP2ResponseException | InvalidSIP2ResponseValueException ex) {
+            LOGGER.warn("Parsing cached item information failed. {}", ex.getMessage());
+        }
+        invalidate(itemIdentifier);
+        return null;
+    }
+
+    /**
+     * Returns the current stamp that must be passed to the 
+     * {@link #put(String, SIP2ItemInformationResponse, long) put} method
+     * when the response to the request is received.
+     * @return current stamp
+     */
+    public synchronized long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Stores the given item information response, unless the item has 
+     * been invalidated after the given stamp was returned or the response 
+     * is larger than the maximum size of the cache.
+     * @param itemIdentifier item identifier
+     * @param response item information response
+     * @param requestStamp stamp returned by {@link #getStamp() getStamp}
+     * before the request was sent
+     * @return true if the response was stored, otherwise false
+     */
+    public boolean put(String itemIdentifier, SIP2ItemInformationResponse response, long requestStamp) {
+        if (itemIdentifier == null || response == null || response.getData() == null) {
+            return false;
+        }
+        Entry entry = new Entry(response.getData().getBytes(StandardCharsets.UTF_8), System.nanoTime() + timeToLive, requestStamp);
+        if (entry.size(itemIdentifier) > maxBytes) {
+            return false;
+        }
+        synchronized (this) {
+            if (requestStamp < floor) {
+                return false;
+            }
+            Entry old = entries.get(itemIdentifier);
+            if (old != null && old.stamp > requestStamp) {
+                return false;
+            }
+            replace(itemIdentifier, old, entry);
+            return true;
+        }
+    }
+
+    /**
+     * Stores the given item information response.
+     * @param itemIdentifier item identifier
+     * @param response item information response
+     * @return true if the response was stored, otherwise false
+     */
+    public boolean put(String itemIdentifier, SIP2ItemInformationResponse response) {
+        return put(itemIdentifier, response, getStamp());
+    }
+
+    /**
+     * Removes the response of the given item, and makes sure that responses
+     * to requests sent before this call are not stored.
+     * @param itemIdentifier item identifier
+     */
+    public void invalidate(String itemIdentifier) {
+        if (itemIdentifier == null) {
+            return;
+        }
+        synchronized (this) {
+            stamp++;
+            replace(itemIdentifier, entries.get(itemIdentifier), new Entry(null, System.nanoTime() + timeToLive, stamp));
+        }
+    }
+
+    /**
+     * Removes all the entries, and makes sure that responses to requests
+     * sent before this call are not stored.
+     */
+    public synchronized void invalidateAll() {
+        stamp++;
+        floor = stamp;
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Replaces the old entry of the given item with the given entry and 
+     * evicts the least recently used entries if the limits are exceeded.
+     * The floor is raised to the stamps of the evicted entries.
+     * Must be called while holding the lock.
+     * @param itemIdentifier item identifier
+     * @param old old entry or null
+     * @param entry new entry
+     */
+    private void replace(String itemIdentifier, Entry old, Entry entry) {
+        if (old != null) {
+            bytes -= old.size(itemIdentifier);
+        }
+        entries.put(itemIdentifier, entry);
+        bytes += entry.size(itemIdentifier);
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || bytes > maxBytes) && iterator.hasNext()) {
+            Map.Entry<String, Entry> eldest = iterator.next();
+            if (eldest.getValue() == entry) {
+                break;
+            }
+            bytes -= eldest.getValue().size(eldest.getKey());
+            // Forgetting the entry must not let older responses in
+            floor = Math.max(floor, eldest.getValue().stamp);
+            iterator.remove();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * Returns the number of entries, including the invalidated items.
+     * @return number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated size of the entries in bytes.
+     * @return estimated size in bytes
+     */
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Returns the number of responses found in the cache.
+     * @return number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of responses not found in the cache.
+     * @return number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of entries evicted because of the size limits.
+     * @return number of evicted entries
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Cache entry that holds the message bytes of a response, or null if 
+     * the item has been invalidated.
+     */
+    private static final class Entry {
+
+        /**
+         * Message bytes, or null if the item has been invalidated.
+         */
+        private final byte[] data;
+        /**
+         * Time when the entry expires as returned by System.nanoTime.
+         */
+        private final long expires;
+        /**
+         * Stamp of the request or the invalidation.
+         */
+        private final long stamp;
+
+        /**
+         * Constructs and initializes a new Entry object.
+         * @param data message bytes or null
+         * @param expires expiration time
+         * @param stamp stamp of the request or the invalidation
+         */
+        private Entry(byte[] data, long expires, long stamp) {
+            this.data = data;
+            this.expires = expires;
+            this.stamp = stamp;
+        }
+
+        /**
+         * Returns the estimated size of this entry in bytes.
+         * @param key item identifier of the entry
+         * @return estimated size in bytes
+         */
+        private long size(String key) {
+            return ENTRY_OVERHEAD + 2L * key.length() + (data == null ? 0 : data.length);
+        }
+    }
+}
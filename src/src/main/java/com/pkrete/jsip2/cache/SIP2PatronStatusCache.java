@@ -0,0 +1,385 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.cache;
+
+import com.pkrete.jsip2.messages.responses.SIP2PatronResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * This class is a short lived cache of patron validation outcomes. It's 
+ * meant for kiosk sessions where the status of the same patron is 
+ * validated repeatedly. Valid patrons are kept for a few seconds, and 
+ * patrons that don't exist are kept in a separate negative cache that
+ * can have a different time to live, so that a badly printed card that's
+ * scanned again and again doesn't cause a request every time. 
+ *
+ * Whether the patron password is valid depends on the password, so an
+ * outcome is returned only when the same password is given again. The
+ * password is not stored, only its HMAC-SHA256 computed with a random key
+ * that's generated for each cache and never leaves it.
+ *
+ * A patron is invalidated when a request changes the patron's state, 
+ * e.g. a checkout, fee paid or block patron request. Because a validation
+ * request may have been sent before the change, an outcome is stored only
+ * if the patron hasn't been invalidated after the stamp returned by 
+ * {@link #getStamp() getStamp} before sending the request. Invalidated 
+ * patrons are remembered until they are evicted, and evicting a patron 
+ * raises the stamp below which no outcomes are stored.
+ *
+ * This class is thread safe.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2PatronStatusCache {
+
+    /**
+     * Algorithm used for hashing the patron passwords.
+     */
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * Valid patrons and invalidated patrons in access order.
+     */
+    private final LinkedHashMap<String, CacheEntry> entries;
+    /**
+     * Patrons that don't exist in access order.
+     */
+    private final LinkedHashMap<String, CacheEntry> negativeEntries;
+    /**
+     * Time to live of the valid patrons in nanoseconds.
+     */
+    private final long timeToLive;
+    /**
+     * Time to live of the patrons that don't exist in nanoseconds.
+     */
+    private final long negativeTimeToLive;
+    /**
+     * Random key of the password HMAC.
+     */
+    private final SecretKeySpec key;
+    /**
+     * Counter that's incremented whenever a patron is invalidated.
+     */
+    private long stamp;
+    /**
+     * Outcomes of requests sent before this stamp are not stored.
+     */
+    private long floor;
+    /**
+     * Number of outcomes found in the cache.
+     */
+    private long hitCount;
+    /**
+     * Number of outcomes found in the negative cache.
+     */
+    private long negativeHitCount;
+    /**
+     * Number of outcomes not found in the cache.
+     */
+    private long missCount;
+
+    /**
+     * Constructs and initializes a new SIP2PatronStatusCache object.
+     * @param timeToLive time to live of the valid patrons in milliseconds
+     * @param negativeTimeToLive time to live of the patrons that don't 
+     * exist in milliseconds
+     * @param maxEntries maximum number of patrons in the cache and in the
+     * negative cache
+     * @throws IllegalArgumentException if any of the values is not positive
+     */
+    public SIP2PatronStatusCache(long timeToLive, long negativeTimeToLive, int maxEntries) {
+        if (timeToLive <= 0 || negativeTimeToLive <= 0 || maxEntries <= 0) {
+            throw new IllegalArgumentException("Times to live and maximum number of entries must be positive.");
+        }
+        this.timeToLive = TimeUnit.MILLISECONDS.toNanos(timeToLive);
+        this.negativeTimeToLive = TimeUnit.MILLISECONDS.toNanos(negativeTimeToLive);
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.key = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.entries = lru(maxEntries);
+        this.negativeEntries = lru(maxEntries);
+    }
+
+    /**
+     * Returns a map in access order that removes the eldest entry when the
+     * given size is exceeded. The floor is raised to the stamp of the 
+     * removed entry.
+     * @param maxEntries maximum number of entries
+     * @return new map
+     */
+    private LinkedHashMap<String, CacheEntry> lru(final int maxEntries) {
+        return new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                // Forgetting the entry must not let older outcomes in
+                floor = Math.max(floor, eldest.getValue().stamp);
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns the validation outcome of the given patron, or null if the
+     * patron is not in the cache, its entry has expired or it was 
+     * validated with a different password. Patrons that don't exist are
+     * returned regardless of the password.
+     * @param patronIdentifier patron identifier
+     * @param patronPassword patron password, may be null
+     * @return validation outcome or null
+     */
+    public SIP2PatronValidation get(String patronIdentifier, String patronPassword) {
+        if (patronIdentifier == null) {
+            return null;
+        }
+        byte[] digest = digest(patronPassword);
+        long now = System.nanoTime();
+        synchronized (this) {
+            CacheEntry entry = negativeEntries.get(patronIdentifier);
+            if (entry != null && entry.expires - now > 0) {
+                negativeHitCount++;
+                return entry.validation;
+            }
+            entry = entries.get(patronIdentifier);
+            if (entry == null || entry.validation == null || entry.expires - now <= 0 || !MessageDigest.isEqual(entry.digest, digest)) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            return entry.validation;
+        }
+    }
+
+    /**
+     * Returns the current stamp that must be passed to the 
+     * {@link #put(String, String, SIP2PatronResponse, long) put} method
+     * when the response to the request is received.
+     * @return current stamp
+     */
+    public synchronized long getStamp() {
+        return stamp;
+    }
+
+    /**
+     * Stores the validation outcome of the given response, unless the 
+     * patron has been invalidated after the given stamp was returned. If
+     * the response tells that the patron is not valid, the patron is
+     * stored in the negative cache.
+     * @param patronIdentifier patron identifier of the request
+     * @param patronPassword patron password of the request, may be null
+     * @param response patron status, patron information or patron enable
+     * response
+     * @param requestStamp stamp returned by {@link #getStamp() getStamp}
+     * before the request was sent
+     * @return true if the outcome was stored, otherwise false
+     */
+    public boolean put(String patronIdentifier, String patronPassword, SIP2PatronResponse response, long requestStamp) {
+        if (patronIdentifier == null || response == null) {
+            return false;
+        }
+        boolean negative = response.isValidPatronUsed() && !response.isValidPatron();
+        SIP2PatronValidation validation = negative ? SIP2PatronValidation.invalid(patronIdentifier) : SIP2PatronValidation.of(response);
+        byte[] digest = negative ? null : digest(patronPassword);
+        long now = System.nanoTime();
+        synchronized (this) {
+            if (requestStamp < floor) {
+                return false;
+            }
+            if (stampOf(entries.get(patronIdentifier)) > requestStamp || stampOf(negativeEntries.get(patronIdentifier)) > requestStamp) {
+                return false;
+            }
+            if (negative) {
+                entries.remove(patronIdentifier);
+                negativeEntries.put(patronIdentifier, new CacheEntry(validation, null, now + negativeTimeToLive, requestStamp));
+            } else {
+                negativeEntries.remove(patronIdentifier);
+                entries.put(patronIdentifier, new CacheEntry(validation, digest, now + timeToLive, requestStamp));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stores the validation outcome of the given response.
+     * @param patronIdentifier patron identifier of the request
+     * @param patronPassword patron password of the request, may be null
+     * @param response patron status, patron information or patron enable
+     * response
+     * @return true if the outcome was stored, otherwise false
+     */
+    public boolean put(String patronIdentifier, String patronPassword, SIP2PatronResponse response) {
+        return put(patronIdentifier, patronPassword, response, getStamp());
+    }
+
+    /**
+     * Removes the given patron from the cache and the negative cache, and
+     * makes sure that outcomes of requests sent before this call are not
+     * stored.
+     * @param patronIdentifier patron identifier
+     */
+    public void invalidate(String patronIdentifier) {
+        if (patronIdentifier == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (this) {
+            stamp++;
+            negativeEntries.remove(patronIdentifier);
+            entries.put(patronIdentifier, new CacheEntry(null, null, now + timeToLive, stamp));
+        }
+    }
+
+    /**
+     * Removes all the patrons, and makes sure that outcomes of requests 
+     * sent before this call are not stored.
+     */
+    public synchronized void invalidateAll() {
+        stamp++;
+        floor = stamp;
+        entries.clear();
+        negativeEntries.clear();
+    }
+
+    /**
+     * Returns the stamp of the given entry.
+     * @param entry cache entry or null
+     * @return stamp of the entry, or -1 if the entry is null
+     */
+    private static long stampOf(CacheEntry entry) {
+        return entry == null ? -1 : entry.stamp;
+    }
+
+    /**
+     * Returns the HMAC-SHA256 of the given password computed with the 
+     * key of this cache.
+     * @param patronPassword patron password, may be null
+     * @return HMAC of the password, or null if the password is null
+     */
+    private byte[] digest(String patronPassword) {
+        if (patronPassword == null) {
+            return null;
+        }
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(patronPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException ex) {
+            // Every Java platform is required to support HmacSHA256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Returns the number of patrons in the cache, including the 
+     * invalidated patrons.
+     * @return number of patrons
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the number of patrons in the negative cache.
+     * @return number of patrons that don't exist
+     */
+    public synchronized int negativeSize() {
+        return negativeEntries.size();
+    }
+
+    /**
+     * Returns the number of outcomes found in the cache.
+     * @return number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of outcomes found in the negative cache.
+     * @return number of negative cache hits
+     */
+    public synchronized long getNegativeHitCount() {
+        return negativeHitCount;
+    }
+
+    /**
+     * Returns the number of outcomes not found in the cache.
+     * @return number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Cache entry that holds a validation outcome, or null if the patron
+     * has been invalidated.
+     */
+    private static final class CacheEntry {
+
+        /**
+         * Validation outcome, or null if the patron has been invalidated.
+         */
+        private final SIP2PatronValidation validation;
+        /**
+         * HMAC of the patron password, or null if there was no password.
+         */
+        private final byte[] digest;
+        /**
+         * Time when the entry expires as returned by System.nanoTime.
+         */
+        private final long expires;
+        /**
+         * Stamp of the request or the invalidation.
+         */
+        private final long stamp;
+
+        /**
+         * Constructs and initializes a new CacheEntry object.
+         * @param validation validation outcome or null
+         * @param digest digest of the patron password or null
+         * @param expires expiration time
+         * @param stamp stamp of the request or the invalidation
+         */
+        private CacheEntry(SIP2PatronValidation validation, byte[] digest, long expires, long stamp) {
+            this.validation = validation;
+            this.digest = digest;
+            this.expires = expires;
+            this.stamp = stamp;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.cache;
+
+import com.pkrete.jsip2.messages.responses.SIP2PatronResponse;
+import com.pkrete.jsip2.variables.PatronStatus;
+
+/**
+ * This class represents the outcome of validating a patron: the patron 
+ * status flags and the valid patron and valid patron password values of
+ * a patron status, patron information or patron enable response. 
+ * Instances of this class are immutable.
+ *
+ * @author Petteri Kivimäki
+ */
+public final class SIP2PatronValidation {
+
+    /**
+     * Patron identifier.
+     */
+    private final String patronIdentifier;
+    /**
+     * Patron status flags, one bit per flag in the order of the message.
+     */
+    private final int statusFlags;
+    /**
+     * Tells if the patron is valid.
+     */
+    private final boolean validPatron;
+    /**
+     * Tells if the valid patron field was present in the response.
+     */
+    private final boolean validPatronUsed;
+    /**
+     * Tells if the patron password is valid.
+     */
+    private final boolean validPatronPassword;
+    /**
+     * Tells if the valid patron password field was present in the response.
+     */
+    private final boolean validPatronPasswordUsed;
+
+    /**
+     * Constructs and initializes a new SIP2PatronValidation object.
+     * @param patronIdentifier patron identifier
+     * @param statusFlags patron status flags
+     * @param validPatron true if the patron is valid
+     * @param validPatronUsed true if the valid patron field was present
+     * @param validPatronPassword true if the patron password is valid
+     * @param validPatronPasswordUsed true if the valid patron password
+     * field was present
+     */
+    private SIP2PatronValidation(String patronIdentifier, int statusFlags, boolean validPatron, boolean validPatronUsed, boolean validPatronPassword, boolean validPatronPasswordUsed) {
+        this.patronIdentifier = patronIdentifier;
+        this.statusFlags = statusFlags;
+        this.validPatron = validPatron;
+        this.validPatronUsed = validPatronUsed;
+        this.validPatronPassword = validPatronPassword;
+        this.validPatronPasswordUsed = validPatronPasswordUsed;
+    }
+
+    /**
+     * Returns a new SIP2PatronValidation object that holds the validation 
+     * outcome of the given response.
+     * @param response patron status, patron information or patron enable
+     * response
+     * @return validation outcome of the response
+     */
+    public static SIP2PatronValidation of(SIP2PatronResponse response) {
+        return new SIP2PatronValidation(response.getPatronIdentifier(), toFlags(response.getStatus()), response.isValidPatron(), response.isValidPatronUsed(), response.isValidPatronPassword(), response.isValidPatronPasswordUsed());
+    }
+
+    /**
+     * Returns a validation outcome of a patron that doesn't exist.
+     * @param patronIdentifier patron identifier
+     * @return validation outcome of an invalid patron
+     */
+    static SIP2PatronValidation invalid(String patronIdentifier) {
+        return new SIP2PatronValidation(patronIdentifier, 0, false, true, false, false);
+    }
+
+    /**
+     * Returns the given patron status as bit flags.
+     * @param status patron status, may be null
+     * @return patron status flags
+     */
+    private static int toFlags(PatronStatus status) {
+        if (status == null) {
+            return 0;
+        }
+        boolean[] flags = {
+            status.isChargePrivilegesDenied(), status.isRenewalPrivilegesDenied(),
+            status.isRecallPrivilegesDenied(), status.isHoldPrivilegesDenied(),
+            status.isCardReportedLost(), status.isTooManyItemsCharged(),
+            status.isTooManyItemsOverdue(), status.isTooManyRenewals(),
+            status.isTooManyClaimsOfItemsReturned(), status.isTooManyItemsLost(),
+            status.isExcessiveOutstandingFines(), status.isExcessiveOutstandingFees(),
+            status.isRecallOverdue(), status.isTooManyItemsBilled()
+        };
+        int result = 0;
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i]) {
+                result |= 1 << i;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns true if and only if the given patron status flag is set.
+     * @param index index of the flag in the message
+     * @return true if the flag is set, otherwise false
+     */
+    private boolean flag(int index) {
+        return (statusFlags & (1 << index)) != 0;
+    }
+
+    /**
+     * Returns the patron identifier.
+     * @return patron identifier
+     */
+    public String getPatronIdentifier() {
+        return patronIdentifier;
+    }
+
+    /**
+     * Returns the patron status. A new object is returned on every call.
+     * @return patron status
+     */
+    public PatronStatus getStatus() {
+        PatronStatus status = new PatronStatus();
+        status.setChargePrivilegesDenied(flag(0));
+        status.setRenewalPrivilegesDenied(flag(1));
+        status.setRecallPrivilegesDenied(flag(2));
+        status.setHoldPrivilegesDenied(flag(3));
+        status.setCardReportedLost(flag(4));
+        status.setTooManyItemsCharged(flag(5));
+        status.setTooManyItemsOverdue(flag(6));
+        status.setTooManyRenewals(flag(7));
+        status.setTooManyClaimsOfItemsReturned(flag(8));
+        status.setTooManyItemsLost(flag(9));
+        status.setExcessiveOutstandingFines(flag(10));
+        status.setExcessiveOutstandingFees(flag(11));
+        status.setRecallOverdue(flag(12));
+        status.setTooManyItemsBilled(flag(13));
+        return status;
+    }
+
+    /**
+     * Returns true if and only if the patron is valid.
+     * @return true if the patron is valid, otherwise false
+     */
+    public boolean isValidPatron() {
+        return validPatron;
+    }
+
+    /**
+     * Returns true if and only if the valid patron field was present in
+     * the response.
+     * @return true if the valid patron field was present, otherwise false
+     */
+    public boolean isValidPatronUsed() {
+        return validPatronUsed;
+    }
+
+    /**
+     * Returns true if and only if the patron password is valid.
+     * @return true if the patron password is valid, otherwise false
+     */
+    public boolean isValidPatronPassword() {
+        return validPatronPassword;
+    }
+
+    /**
+     * Returns true if and only if the valid patron password field was 
+     * present in the response.
+     * @return true if the valid patron password field was present, 
+     * otherwise false
+     */
+    public boolean isValidPatronPasswordUsed() {
+        return validPatronPasswordUsed;
+    }
+}
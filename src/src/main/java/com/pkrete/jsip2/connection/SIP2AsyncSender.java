@@ -0,0 +1,49 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.messages.SIP2MessageRequest;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * This interface is implemented by the connections and clients that send
+ * requests to the ILS SIP server asynchronously. It makes it possible to
+ * write utilities, such as {@link SIP2PatronItemIterator}, that work with
+ * all of them.
+ *
+ * @author Petteri Kivimäki
+ */
+public interface SIP2AsyncSender {
+
+    /**
+     * Sends the given SIP2MessageRequest to the ILS SIP server without
+     * blocking the calling thread.
+     * @param request SIP2MessageRequest to be sent
+     * @return future that's completed with the SIP2MessageResponse, or 
+     * exceptionally if sending the request fails
+     */
+    CompletableFuture<SIP2MessageResponse> sendAsync(SIP2MessageRequest request);
+}
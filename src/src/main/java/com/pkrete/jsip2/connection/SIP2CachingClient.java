@@ -0,0 +1,289 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.cache.SIP2ItemInformationCache;
+import com.pkrete.jsip2.cache.SIP2PatronStatusCache;
+import com.pkrete.jsip2.cache.SIP2PatronValidation;
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import com.pkrete.jsip2.messages.SIP2MessageRequest;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.requests.SIP2ItemInformationRequest;
+import com.pkrete.jsip2.messages.requests.SIP2PatronInformationRequest;
+import com.pkrete.jsip2.messages.requests.SIP2PatronRequest;
+import com.pkrete.jsip2.messages.requests.SIP2PatronStatusRequest;
+import com.pkrete.jsip2.messages.requests.SIP2RenewAllRequest;
+import com.pkrete.jsip2.messages.responses.SIP2CirculationTransactionResponse;
+import com.pkrete.jsip2.messages.responses.SIP2ItemInformationResponse;
+import com.pkrete.jsip2.messages.responses.SIP2ItemStatusUpdateResponse;
+import com.pkrete.jsip2.messages.responses.SIP2PatronResponse;
+import com.pkrete.jsip2.messages.responses.SIP2RenewAllResponse;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+/**
+ * This class sends requests using another sender and answers item 
+ * information requests from a cache when possible. Responses that change
+ * the circulation status of an item, i.e. checkout, checkin, renew, hold
+ * and item status update responses, invalidate the cached item. A renew 
+ * all response invalidates the renewed items, or all the items if the 
+ * response doesn't list every renewed item. The item of a request that 
+ * changes the circulation status is invalidated also when sending the 
+ * request fails, because the request may still have been processed by 
+ * the ILS SIP server.
+ *
+ * Optionally the client keeps also a {@link SIP2PatronStatusCache}, 
+ * which is filled by patron status and patron information responses and
+ * used by the {@link #validatePatron(SIP2PatronRequest) validatePatron} 
+ * method. Requests that are not idempotent, e.g. checkout, fee paid and 
+ * block patron requests, invalidate the patron of the request and the 
+ * response.
+ *
+ * Only the changes made through this client are seen by the cache, so the
+ * time to live of the cache limits how long the changes made by other
+ * systems may go unnoticed.
+ *
+ * <pre>
+ * SIP2ItemInformationCache cache = new SIP2ItemInformationCache(60000, 100000, 64L * 1024 * 1024);
+ * SIP2CachingClient client = new SIP2CachingClient(new SIP2ThreadPerRequestClient(pool), cache);
+ * SIP2ItemInformationResponse response = (SIP2ItemInformationResponse) client.send(new SIP2ItemInformationRequest("itemId"));
+ * </pre>
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2CachingClient implements SIP2AsyncSender {
+
+    /**
+     * Sender that sends the requests to the ILS SIP server.
+     */
+    private final SIP2AsyncSender sender;
+    /**
+     * Cache of item information responses.
+     */
+    private final SIP2ItemInformationCache itemCache;
+    /**
+     * Cache of patron validation outcomes, or null if not used.
+     */
+    private volatile SIP2PatronStatusCache patronCache;
+
+    /**
+     * Constructs and initializes a new SIP2CachingClient object.
+     * @param sender sender that sends the requests to the ILS SIP server
+     * @param itemCache cache of item information responses
+     */
+    public SIP2CachingClient(SIP2AsyncSender sender, SIP2ItemInformationCache itemCache) {
+        if (sender == null || itemCache == null) {
+            throw new IllegalArgumentException("Sender and cache can't be null.");
+        }
+        this.sender = sender;
+        this.itemCache = itemCache;
+    }
+
+    /**
+     * Returns the cache of item information responses.
+     * @return item information cache
+     */
+    public SIP2ItemInformationCache getItemCache() {
+        return itemCache;
+    }
+
+    /**
+     * Returns the cache of patron validation outcomes.
+     * @return patron status cache or null if not used
+     */
+    public SIP2PatronStatusCache getPatronCache() {
+        return patronCache;
+    }
+
+    /**
+     * Sets the cache of patron validation outcomes. By default patron
+     * validation outcomes are not cached.
+     * @param patronCache patron status cache or null
+     */
+    public void setPatronCache(SIP2PatronStatusCache patronCache) {
+        this.patronCache = patronCache;
+    }
+
+    /**
+     * Validates the patron of the given patron status or patron information
+     * request. The outcome is returned from the patron status cache if 
+     * possible, otherwise the request is sent to the ILS SIP server.
+     * @param request patron status or patron information request
+     * @return validation outcome of the patron
+     * @throws SIP2ConnectionException if sending the request fails or the
+     * calling thread is interrupted
+     * @throws InvalidSIP2ResponseException if the response is not a patron
+     * response
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public SIP2PatronValidation validatePatron(SIP2PatronRequest request) throws SIP2ConnectionException, InvalidSIP2ResponseException, InvalidSIP2ResponseValueException {
+        SIP2PatronStatusCache cache = patronCache;
+        if (cache != null) {
+            SIP2PatronValidation cached = cache.get(request.getPatronIdentifier(), request.getPatronPassword());
+            if (cached != null) {
+                return cached;
+            }
+        }
+        SIP2MessageResponse response = send(request);
+        if (!(response instanceof SIP2PatronResponse)) {
+            throw new InvalidSIP2ResponseException("Unexpected response to a patron request: " + response.getData());
+        }
+        return SIP2PatronValidation.of((SIP2PatronResponse) response);
+    }
+
+    /**
+     * Sends the given SIP2MessageRequest to the ILS SIP server and waits
+     * for the response, unless the response is found in the cache.
+     * @param request SIP2MessageRequest to be sent
+     * @return SIP2MessageResponse received from the ILS SIP server or 
+     * the cache
+     * @throws SIP2ConnectionException if sending the request fails or the
+     * calling thread is interrupted
+     * @throws InvalidSIP2ResponseException
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public SIP2MessageResponse send(SIP2MessageRequest request) throws SIP2ConnectionException, InvalidSIP2ResponseException, InvalidSIP2ResponseValueException {
+        try {
+            return sendAsync(request).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SIP2ConnectionException("Waiting for the response was interrupted.", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof SIP2ConnectionException) {
+                throw (SIP2ConnectionException) cause;
+            } else if (cause instanceof InvalidSIP2ResponseException) {
+                throw (InvalidSIP2ResponseException) cause;
+            } else if (cause instanceof InvalidSIP2ResponseValueException) {
+                throw (InvalidSIP2ResponseValueException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SIP2ConnectionException("Sending the request to the ILS SIP server failed.", cause);
+        }
+    }
+
+    /**
+     * Sends the given SIP2MessageRequest to the ILS SIP server without 
+     * blocking the calling thread. If the request is an item information 
+     * request and the item is found in the cache, the returned future is 
+     * already completed.
+     * @param request SIP2MessageRequest to be sent
+     * @return future that's completed with the SIP2MessageResponse
+     */
+    @Override
+    public CompletableFuture<SIP2MessageResponse> sendAsync(final SIP2MessageRequest request) {
+        final boolean itemInformation = request instanceof SIP2ItemInformationRequest;
+        if (itemInformation) {
+            SIP2ItemInformationResponse cached = itemCache.get(request.getItemIdentifier());
+            if (cached != null) {
+                return CompletableFuture.<SIP2MessageResponse>completedFuture(cached);
+            }
+        }
+        final long stamp = itemCache.getStamp();
+        final SIP2PatronStatusCache patrons = patronCache;
+        final long patronStamp = patrons == null ? 0 : patrons.getStamp();
+        return sender.sendAsync(request).whenComplete(new BiConsumer<SIP2MessageResponse, Throwable>() {
+            @Override
+            public void accept(SIP2MessageResponse response, Throwable failure) {
+                if (patrons != null) {
+                    updatePatron(patrons, patronStamp, request, response);
+                }
+                if (itemInformation) {
+                    if (response instanceof SIP2ItemInformationResponse) {
+                        itemCache.put(request.getItemIdentifier(), (SIP2ItemInformationResponse) response, stamp);
+                    }
+                } else if (response instanceof SIP2CirculationTransactionResponse || response instanceof SIP2ItemStatusUpdateResponse) {
+                    itemCache.invalidate(response.getItemIdentifier());
+                    invalidateRequestItem(request);
+                } else if (request instanceof SIP2RenewAllRequest) {
+                    invalidateRenewedItems(response);
+                } else if (failure != null) {
+                    invalidateRequestItem(request);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stores the validation outcome of a patron status or patron 
+     * information response, or invalidates the patron of a request that
+     * is not idempotent.
+     * @param patrons patron status cache
+     * @param patronStamp stamp of the patron status cache before the 
+     * request was sent
+     * @param request request
+     * @param response response, or null if sending the request failed
+     */
+    private static void updatePatron(SIP2PatronStatusCache patrons, long patronStamp, SIP2MessageRequest request, SIP2MessageResponse response) {
+        if (request instanceof SIP2PatronStatusRequest || request instanceof SIP2PatronInformationRequest) {
+            if (response instanceof SIP2PatronResponse) {
+                patrons.put(request.getPatronIdentifier(), request.getPatronPassword(), (SIP2PatronResponse) response, patronStamp);
+            }
+        } else if (!request.isIdempotent()) {
+            patrons.invalidate(request.getPatronIdentifier());
+            if (response != null) {
+                patrons.invalidate(response.getPatronIdentifier());
+            }
+        }
+    }
+
+    /**
+     * Invalidates the items renewed by a renew all request. All the items 
+     * are invalidated if sending the request failed or the response 
+     * doesn't list every renewed item.
+     * @param response response, or null if sending the request failed
+     */
+    private void invalidateRenewedItems(SIP2MessageResponse response) {
+        if (!(response instanceof SIP2RenewAllResponse)) {
+            itemCache.invalidateAll();
+            return;
+        }
+        SIP2RenewAllResponse renewAll = (SIP2RenewAllResponse) response;
+        List<String> renewed = renewAll.getRenewedItems();
+        if (renewed == null || renewed.size() < renewAll.getRenewedCount()) {
+            itemCache.invalidateAll();
+            return;
+        }
+        for (String itemIdentifier : renewed) {
+            itemCache.invalidate(itemIdentifier);
+        }
+    }
+
+    /**
+     * Invalidates the item of the given request if it has one.
+     * @param request request
+     */
+    private void invalidateRequestItem(SIP2MessageRequest request) {
+        String itemIdentifier = request.getItemIdentifier();
+        if (itemIdentifier != null && !itemIdentifier.isEmpty()) {
+            itemCache.invalidate(itemIdentifier);
+        }
+    }
+}
@@ -0,0 +1,813 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import com.pkrete.jsip2.exceptions.SIP2UnsupportedMessageException;
+import com.pkrete.jsip2.messages.SIP2MessageRequest;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.requests.SIP2LoginRequest;
+import com.pkrete.jsip2.messages.requests.SIP2SCStatusRequest;
+import com.pkrete.jsip2.messages.responses.SIP2ACSStatusResponse;
+import com.pkrete.jsip2.messages.responses.SIP2LoginResponse;
+import com.pkrete.jsip2.metrics.SIP2Metrics;
+import com.pkrete.jsip2.metrics.SIP2PoolMetrics;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class maintains a pool of connections to the ILS SIP server.
+ * Each connection is logged in and the status of the ILS SIP server is
+ * checked with the SC Status request before the connection is handed out,
+ * which means that borrowed connections are ready for normal operation.
+ * 
+ * A connection is borrowed from the pool by calling the {@link #borrow()}
+ * method and it must be returned to the pool by calling the
+ * {@link #release(SIP2SocketConnection)} method after use. If the
+ * connection is broken, it should be returned by calling the
+ * {@link #invalidate(SIP2SocketConnection)} method instead, and the
+ * connection is then closed. A connection must not be used by more than
+ * one thread at a time.
+ * 
+ * Idle connections are closed after the maximum idle time has passed,
+ * unless the pool contains only the minimum number of connections.
+ * All the connections are closed after the maximum lifetime has passed.
+ * Idle connections are checked periodically after the pool has been 
+ * started by calling the {@link #start()} method.
+ * 
+ * When keep-alive is enabled, an SC Status request is sent on each 
+ * connection that has been idle longer than the keep-alive interval. This
+ * prevents the ILS SIP server from dropping idle connections and keeps the
+ * ACS Status returned by {@link #getAcsStatus()} up-to-date. If the ILS
+ * SIP server reports that it's offline, borrowing can be made to fail
+ * immediately instead of waiting for the requests to time out.
+ * 
+ * When message gating is enabled, requests that the ILS SIP server has
+ * reported as unsupported in the latest ACS Status response are rejected
+ * locally with a {@link SIP2UnsupportedMessageException}. The supported
+ * messages are refreshed whenever the ACS Status is checked.
+ * 
+ * @author Petteri Kivimäki
+ */
+public class SIP2ConnectionPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SIP2ConnectionPool.class);
+
+    /**
+     * The address of the ILS SIP server.
+     */
+    private final String host;
+    /**
+     * Port number of the ILS SIP server.
+     */
+    private final int port;
+    /**
+     * Login request that's sent when a new connection is created. If null,
+     * login is not used.
+     */
+    private final SIP2LoginRequest loginRequest;
+    /**
+     * Minimum number of connections in the pool.
+     */
+    private final int minSize;
+    /**
+     * Maximum number of connections in the pool.
+     */
+    private final int maxSize;
+    /**
+     * Connection timeout in milliseconds.
+     */
+    private int timeout = 10000;
+    /**
+     * Maximum time in milliseconds to wait for a connection.
+     */
+    private long borrowTimeout = 5000;
+    /**
+     * If a connection has been idle longer than this, the connection
+     * is validated before it's borrowed. Zero means that a connection is
+     * validated every time it's borrowed and a negative value disables 
+     * the validation. Value in milliseconds.
+     */
+    private long validationInterval = 30000;
+    /**
+     * Maximum time in milliseconds that a connection can be idle in 
+     * the pool.
+     */
+    private long maxIdleTime = 300000;
+    /**
+     * Maximum lifetime of a connection in milliseconds. Zero means that
+     * the lifetime is unlimited.
+     */
+    private long maxLifetime = 1800000;
+    /**
+     * Interval of the idle connection checks in milliseconds.
+     */
+    private long evictionInterval = 30000;
+    /**
+     * Interval of the keep-alive requests in milliseconds. Zero means that
+     * the interval is derived from the timeout period of the ACS Status 
+     * response and a negative value disables keep-alive.
+     */
+    private long keepAliveInterval = -1;
+    /**
+     * If true, borrowing fails immediately when the ILS SIP server has 
+     * reported that it's offline.
+     */
+    private boolean failFastWhenOffline;
+    /**
+     * Keep-alive interval used when the timeout period of the ILS SIP 
+     * server is not known.
+     */
+    private static final long DEFAULT_KEEP_ALIVE_INTERVAL = 60000;
+    /**
+     * Shortest keep-alive interval derived from the timeout period.
+     */
+    private static final long MIN_KEEP_ALIVE_INTERVAL = 1000;
+    /**
+     * Idle connections, the most recently used first.
+     */
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<PooledConnection>();
+    /**
+     * Borrowed connections.
+     */
+    private final Map<SIP2SocketConnection, PooledConnection> borrowed = new ConcurrentHashMap<SIP2SocketConnection, PooledConnection>();
+    /**
+     * Permits for borrowing connections.
+     */
+    private final Semaphore permits;
+    /**
+     * Number of open connections, including the connections that are being
+     * created.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+    /**
+     * The latest ACS status response received.
+     */
+    private volatile SIP2ACSStatusResponse acsStatus;
+    /**
+     * Rejects the requests that the ILS SIP server doesn't support.
+     * Updated from the ACS status responses.
+     */
+    private final SIP2MessageGate gate = new SIP2MessageGate();
+    /**
+     * Registry where the metrics are recorded, or null if the metrics are
+     * not recorded.
+     */
+    private volatile SIP2Metrics metrics;
+    private volatile boolean closed;
+    private ScheduledExecutorService evictor;
+
+    /**
+     * Constructs and initializes a new SIP2ConnectionPool object with
+     * the given host, port and login request. If login request is null,
+     * new connections are not logged in.
+     * @param host address of the ILS SIP server
+     * @param port port number of the ILS SIP server
+     * @param loginRequest login request sent for each new connection or null
+     * @param minSize minimum number of connections in the pool
+     * @param maxSize maximum number of connections in the pool
+     */
+    public SIP2ConnectionPool(String host, int port, SIP2LoginRequest loginRequest, int minSize, int maxSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size. Min size: " + minSize + ", max size: " + maxSize + ".");
+        }
+        this.host = host;
+        this.port = port;
+        this.loginRequest = loginRequest;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Creates the minimum number of connections and starts the periodical
+     * check of the idle connections.
+     * @throws SIP2ConnectionException if creating a connection fails
+     */
+    public synchronized void start() throws SIP2ConnectionException {
+        if (evictor != null) {
+            return;
+        }
+        evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "jsip2-pool-" + host + ":" + port);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        fill();
+        evictor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                evict();
+            }
+        }, evictionInterval, evictionInterval, TimeUnit.MILLISECONDS);
+        if (keepAliveInterval >= 0) {
+            scheduleKeepAlive();
+        }
+    }
+
+    /**
+     * Borrows a connection from the pool. If there are no idle connections
+     * available, a new connection is created, unless the pool already
+     * contains the maximum number of connections. In that case this method
+     * blocks until a connection is released or the borrow timeout is reached.
+     * @return connection that's logged in to the ILS SIP server
+     * @throws SIP2ConnectionException if no connection is available within
+     * the borrow timeout or if creating a new connection fails
+     */
+    public SIP2SocketConnection borrow() throws SIP2ConnectionException {
+        SIP2Metrics registry = metrics;
+        if (registry == null) {
+            return acquire();
+        }
+        SIP2PoolMetrics poolMetrics = registry.getPoolMetrics(host + ":" + port);
+        long start = System.nanoTime();
+        try {
+            SIP2SocketConnection connection = acquire();
+            poolMetrics.recordBorrow(System.nanoTime() - start);
+            return connection;
+        } catch (SIP2ConnectionException ex) {
+            poolMetrics.recordBorrowFailure();
+            throw ex;
+        } catch (RuntimeException ex) {
+            poolMetrics.recordBorrowFailure();
+            throw ex;
+        }
+    }
+
+    /**
+     * Takes an idle connection or creates a new one, waiting at most the
+     * borrow timeout.
+     * @return connection that's logged in to the ILS SIP server
+     * @throws SIP2ConnectionException if no connection is available within
+     * the borrow timeout or if creating a new connection fails
+     */
+    private SIP2SocketConnection acquire() throws SIP2ConnectionException {
+        if (closed) {
+            throw new SIP2ConnectionException("Connection pool is closed.");
+        }
+        if (failFastWhenOffline && acsStatus != null && !acsStatus.isOnLineStatus()) {
+            throw new SIP2ConnectionException("ILS SIP server " + host + ":" + port + " is offline.");
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeout);
+        try {
+            if (!permits.tryAcquire(borrowTimeout, TimeUnit.MILLISECONDS)) {
+                throw new SIP2ConnectionException("Timeout while waiting for a connection. Borrow timeout: " + borrowTimeout + " ms.");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SIP2ConnectionException("Interrupted while waiting for a connection.", ex);
+        }
+        try {
+            while (true) {
+                PooledConnection entry = idle.pollFirst();
+                if (entry == null && reserve()) {
+                    entry = create();
+                } else {
+                    if (entry == null) {
+                        long remaining = deadline - System.nanoTime();
+                        entry = idle.pollFirst(remaining, TimeUnit.NANOSECONDS);
+                        if (entry == null) {
+                            throw new SIP2ConnectionException("Timeout while waiting for a connection. Borrow timeout: " + borrowTimeout + " ms.");
+                        }
+                    }
+                    if (!isUsable(entry)) {
+                        destroy(entry);
+                        continue;
+                    }
+                }
+                borrowed.put(entry.connection, entry);
+                return entry.connection;
+            }
+        } catch (InterruptedException ex) {
+            permits.release();
+            Thread.currentThread().interrupt();
+            throw new SIP2ConnectionException("Interrupted while waiting for a connection.", ex);
+        } catch (SIP2ConnectionException ex) {
+            permits.release();
+            throw ex;
+        } catch (RuntimeException ex) {
+            permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the given connection to the pool. If the connection has been
+     * closed or its maximum lifetime has passed, it's removed from the pool.
+     * @param connection connection borrowed from this pool
+     */
+    public void release(SIP2SocketConnection connection) {
+        PooledConnection entry = borrowed.remove(connection);
+        if (entry == null) {
+            LOGGER.warn("Released connection doesn't belong to the pool.");
+            return;
+        }
+        if (closed || connection.closed() || isExpired(entry, System.currentTimeMillis())) {
+            destroy(entry);
+        } else {
+            entry.lastUsed = System.currentTimeMillis();
+            idle.offerFirst(entry);
+        }
+        permits.release();
+    }
+
+    /**
+     * Closes the given connection and removes it from the pool. This
+     * method should be called instead of the
+     * {@link #release(SIP2SocketConnection)} method when the connection
+     * is broken.
+     * @param connection connection borrowed from this pool
+     */
+    public void invalidate(SIP2SocketConnection connection) {
+        PooledConnection entry = borrowed.remove(connection);
+        if (entry == null) {
+            LOGGER.warn("Invalidated connection doesn't belong to the pool.");
+            return;
+        }
+        destroy(entry);
+        permits.release();
+    }
+
+    /**
+     * Closes the pool and all the idle connections. Borrowed connections
+     * are closed when they're returned to the pool.
+     */
+    public synchronized void close() {
+        closed = true;
+        if (evictor != null) {
+            evictor.shutdownNow();
+        }
+        PooledConnection entry;
+        while ((entry = idle.pollFirst()) != null) {
+            destroy(entry);
+        }
+    }
+
+    /**
+     * Reserves a place for a new connection, if the pool doesn't contain
+     * the maximum number of connections.
+     * @return true if a place was reserved, otherwise false
+     */
+    private boolean reserve() {
+        while (true) {
+            int current = size.get();
+            if (current >= maxSize) {
+                return false;
+            }
+            if (size.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Creates a new connection, logs in to the ILS SIP server and checks
+     * the status of the ILS SIP server. A place for the connection must have
+     * been reserved before calling this method.
+     * @return new connection
+     * @throws SIP2ConnectionException if creating the connection fails
+     */
+    private PooledConnection create() throws SIP2ConnectionException {
+        SIP2SocketConnection connection = new SIP2SocketConnection(host, port, timeout);
+        connection.setMessageGatingEnabled(gate.isEnabled());
+        connection.setMetrics(metrics);
+        try {
+            if (!connection.connect()) {
+                throw new SIP2ConnectionException("Unable to connect to the ILS SIP server " + host + ":" + port + ".");
+            }
+            if (loginRequest != null) {
+                SIP2MessageResponse response = connection.send(loginRequest);
+                if (!(response instanceof SIP2LoginResponse) || !response.isOk()) {
+                    throw new SIP2ConnectionException("Login to the ILS SIP server " + host + ":" + port + " failed.");
+                }
+            }
+            checkStatus(connection);
+        } catch (InvalidSIP2ResponseException ex) {
+            size.decrementAndGet();
+            connection.close();
+            throw new SIP2ConnectionException(ex.getMessage(), ex);
+        } catch (InvalidSIP2ResponseValueException ex) {
+            size.decrementAndGet();
+            connection.close();
+            throw new SIP2ConnectionException(ex.getMessage(), ex);
+        } catch (SIP2ConnectionException ex) {
+            size.decrementAndGet();
+            connection.close();
+            throw ex;
+        }
+        LOGGER.debug("New connection to the ILS SIP server {}:{} created.", host, port);
+        return new PooledConnection(connection);
+    }
+
+    /**
+     * Sends the SC Status request using the given connection and stores
+     * the ACS Status response.
+     * @param connection connection to be used
+     * @throws SIP2ConnectionException if no valid response is received
+     * @throws InvalidSIP2ResponseException
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    private void checkStatus(SIP2SocketConnection connection) throws SIP2ConnectionException, InvalidSIP2ResponseException, InvalidSIP2ResponseValueException {
+        SIP2MessageResponse response = connection.send(new SIP2SCStatusRequest());
+        if (!(response instanceof SIP2ACSStatusResponse)) {
+            throw new SIP2ConnectionException("SC Status request to the ILS SIP server " + host + ":" + port + " failed.");
+        }
+        acsStatus = (SIP2ACSStatusResponse) response;
+        gate.update(response);
+        if (!acsStatus.isOnLineStatus()) {
+            LOGGER.warn("ILS SIP server {}:{} is offline.", host, port);
+        }
+    }
+
+    /**
+     * Returns true if and only if the given idle connection can be borrowed.
+     * The connection is validated by sending the SC Status request, if it
+     * has been idle longer than the validation interval.
+     * @param entry idle connection
+     * @return true if the connection can be borrowed, otherwise false
+     */
+    private boolean isUsable(PooledConnection entry) {
+        long now = System.currentTimeMillis();
+        if (entry.connection.closed() || isExpired(entry, now)) {
+            return false;
+        }
+        if (validationInterval < 0 || now - Math.max(entry.lastUsed, entry.lastChecked) < validationInterval) {
+            return true;
+        }
+        try {
+            checkStatus(entry.connection);
+            entry.lastChecked = System.currentTimeMillis();
+            return true;
+        } catch (Exception ex) {
+            LOGGER.debug("Connection validation failed: {}", ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Returns true if and only if the maximum lifetime of the given 
+     * connection has passed.
+     * @param entry connection
+     * @param now current time in milliseconds
+     * @return true if the connection has expired, otherwise false
+     */
+    private boolean isExpired(PooledConnection entry, long now) {
+        return maxLifetime > 0 && now - entry.created >= maxLifetime;
+    }
+
+    /**
+     * Closes the given connection and removes it from the pool.
+     * @param entry connection to be closed
+     */
+    private void destroy(PooledConnection entry) {
+        size.decrementAndGet();
+        entry.connection.close();
+        LOGGER.debug("Connection to the ILS SIP server {}:{} closed.", host, port);
+    }
+
+    /**
+     * Closes the idle connections that have been idle longer than the
+     * maximum idle time or that have expired, and creates new connections
+     * if the pool contains less than the minimum number of connections.
+     */
+    private void evict() {
+        long now = System.currentTimeMillis();
+        for (PooledConnection entry : idle) {
+            boolean idleTooLong = now - entry.lastUsed >= maxIdleTime && size.get() > minSize;
+            if ((idleTooLong || isExpired(entry, now) || entry.connection.closed()) && idle.remove(entry)) {
+                destroy(entry);
+            }
+        }
+        try {
+            fill();
+        } catch (SIP2ConnectionException ex) {
+            LOGGER.warn("Unable to create a connection to the ILS SIP server: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Schedules the next keep-alive run after half of the keep-alive 
+     * interval, which means that a connection is idle at most one and a 
+     * half times the interval.
+     */
+    private void scheduleKeepAlive() {
+        try {
+            evictor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    keepAlive();
+                    scheduleKeepAlive();
+                }
+            }, getKeepAliveInterval() / 2, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // The pool has been closed
+        }
+    }
+
+    /**
+     * Sends the SC Status request on the idle connections that have been
+     * idle longer than the keep-alive interval. A connection is removed
+     * from the pool while it's checked, and it's closed if the check fails.
+     * If the ILS SIP server is offline and there are no idle connections,
+     * a new connection is created for checking the status.
+     */
+    private void keepAlive() {
+        long interval = getKeepAliveInterval();
+        long now = System.currentTimeMillis();
+        for (PooledConnection entry : idle) {
+            if (closed) {
+                return;
+            }
+            if (now - Math.max(entry.lastUsed, entry.lastChecked) < interval) {
+                continue;
+            }
+            if (!permits.tryAcquire()) {
+                break;
+            }
+            try {
+                if (!idle.remove(entry)) {
+                    continue;
+                }
+                try {
+                    checkStatus(entry.connection);
+                    entry.lastChecked = System.currentTimeMillis();
+                    idle.offerLast(entry);
+                } catch (Exception ex) {
+                    LOGGER.debug("Keep-alive request failed: {}", ex.getMessage());
+                    destroy(entry);
+                }
+            } finally {
+                permits.release();
+            }
+        }
+        if (!closed && acsStatus != null && !acsStatus.isOnLineStatus() && idle.isEmpty() && reserve()) {
+            try {
+                idle.offerFirst(create());
+            } catch (SIP2ConnectionException ex) {
+                LOGGER.warn("Unable to check the status of the ILS SIP server: {}", ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the keep-alive interval in milliseconds. If the interval has 
+     * not been set, it's half of the timeout period of the ILS SIP server.
+     * @return keep-alive interval in milliseconds
+     */
+    private long getKeepAliveInterval() {
+        if (keepAliveInterval > 0) {
+            return keepAliveInterval;
+        }
+        SIP2ACSStatusResponse status = acsStatus;
+        if (status == null || status.getTimeoutPeriod() <= 0 || status.getTimeoutPeriod() >= 999) {
+            return DEFAULT_KEEP_ALIVE_INTERVAL;
+        }
+        // Timeout period is expressed in tenths of a second
+        return Math.max(status.getTimeoutPeriod() * 100L / 2, MIN_KEEP_ALIVE_INTERVAL);
+    }
+
+    /**
+     * Creates new idle connections until the pool contains the minimum
+     * number of connections.
+     * @throws SIP2ConnectionException if creating a connection fails
+     */
+    private void fill() throws SIP2ConnectionException {
+        while (!closed && size.get() < minSize && reserve()) {
+            idle.offerLast(create());
+        }
+    }
+
+    /**
+     * Sets the connection timeout in milliseconds. The default value is 
+     * 10 seconds.
+     * @param timeout timeout value in milliseconds
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds to wait for a connection when
+     * borrowing a connection from the pool. The default value is 5 seconds.
+     * @param borrowTimeout timeout in milliseconds
+     */
+    public void setBorrowTimeout(long borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    /**
+     * Sets the validation interval in milliseconds. If a connection has 
+     * been idle longer than the validation interval, the connection is 
+     * validated by sending the SC Status request before it's borrowed. 
+     * Zero means that a connection is validated every time it's borrowed
+     * and a negative value disables the validation. The default value
+     * is 30 seconds.
+     * @param validationInterval validation interval in milliseconds
+     */
+    public void setValidationInterval(long validationInterval) {
+        this.validationInterval = validationInterval;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds that a connection can be idle
+     * in the pool. The default value is 5 minutes.
+     * @param maxIdleTime maximum idle time in milliseconds
+     */
+    public void setMaxIdleTime(long maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    /**
+     * Sets the maximum lifetime of a connection in milliseconds. Zero means
+     * that the lifetime is unlimited. The default value is 30 minutes.
+     * @param maxLifetime maximum lifetime in milliseconds
+     */
+    public void setMaxLifetime(long maxLifetime) {
+        this.maxLifetime = maxLifetime;
+    }
+
+    /**
+     * Sets the interval of the idle connection checks in milliseconds.
+     * Must be set before the pool is started. The default value is 
+     * 30 seconds.
+     * @param evictionInterval interval in milliseconds
+     */
+    public void setEvictionInterval(long evictionInterval) {
+        this.evictionInterval = evictionInterval;
+    }
+
+    /**
+     * Sets the keep-alive interval in milliseconds. An SC Status request 
+     * is sent on each connection that has been idle longer than the 
+     * interval. Zero means that the interval is half of the timeout period
+     * reported by the ILS SIP server, or 60 seconds if the timeout period
+     * is unknown. A negative value disables keep-alive. Must be set before
+     * the pool is started. The default value is -1.
+     * @param keepAliveInterval interval in milliseconds
+     */
+    public void setKeepAliveInterval(long keepAliveInterval) {
+        this.keepAliveInterval = keepAliveInterval;
+    }
+
+    /**
+     * Sets the value that defines if borrowing a connection fails 
+     * immediately when the latest ACS Status response says that the ILS 
+     * SIP server is offline. The status is refreshed by the keep-alive
+     * requests, which should be enabled when this option is used. The 
+     * default value is false.
+     * @param failFastWhenOffline true or false
+     */
+    public void setFailFastWhenOffline(boolean failFastWhenOffline) {
+        this.failFastWhenOffline = failFastWhenOffline;
+    }
+
+    /**
+     * Sets the value that tells if the requests that the ILS SIP server has
+     * reported as unsupported in the latest ACS Status response are 
+     * rejected. The value is also set to the connections created after 
+     * this call. The default value is false.
+     * @param messageGating new value
+     */
+    public void setMessageGatingEnabled(boolean messageGating) {
+        gate.setEnabled(messageGating);
+    }
+
+    /**
+     * Returns true if and only if the requests that the ILS SIP server has
+     * reported as unsupported are rejected.
+     * @return true if message gating is enabled, otherwise false
+     */
+    public boolean isMessageGatingEnabled() {
+        return gate.isEnabled();
+    }
+
+    /**
+     * Sets the registry where the metrics are recorded. The time spent 
+     * waiting for a connection is recorded by the pool, and the metrics of
+     * the requests by the connections created after this call. By default
+     * the metrics are not recorded.
+     * @param metrics metrics registry or null
+     */
+    public void setMetrics(SIP2Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the registry where the metrics are recorded.
+     * @return metrics registry or null
+     */
+    public SIP2Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Throws an exception if message gating is enabled and the ILS SIP 
+     * server has reported in the latest ACS Status response that it doesn't
+     * support the given request. Requests are not checked before the first 
+     * ACS Status response has been received.
+     * @param request request to be sent
+     * @throws SIP2UnsupportedMessageException if the request is not 
+     * supported
+     */
+    public void checkSupported(SIP2MessageRequest request) {
+        gate.check(request);
+    }
+
+    /**
+     * Returns the number of idle connections in the pool.
+     * @return number of idle connections
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Returns the number of borrowed connections.
+     * @return number of borrowed connections
+     */
+    public int getActiveCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * Returns the number of open connections in the pool.
+     * @return number of open connections
+     */
+    public int getSize() {
+        return size.get();
+    }
+
+    /**
+     * Returns the latest ACS Status response received from the ILS SIP 
+     * server, or null if no connections have been created yet.
+     * @return latest ACS Status response or null
+     */
+    public SIP2ACSStatusResponse getAcsStatus() {
+        return acsStatus;
+    }
+
+    /**
+     * Returns true if and only if the latest ACS Status response says that 
+     * the ILS SIP server is online.
+     * @return true if the ILS SIP server is online, otherwise false
+     */
+    public boolean isOnline() {
+        SIP2ACSStatusResponse status = acsStatus;
+        return status != null && status.isOnLineStatus();
+    }
+
+    /**
+     * This class holds a pooled connection and its timestamps.
+     */
+    private static class PooledConnection {
+
+        private final SIP2SocketConnection connection;
+        private final long created;
+        private volatile long lastUsed;
+        private volatile long lastChecked;
+
+        PooledConnection(SIP2SocketConnection connection) {
+            this.connection = connection;
+            this.created = System.currentTimeMillis();
+            this.lastUsed = this.created;
+            this.lastChecked = this.created;
+        }
+    }
+}
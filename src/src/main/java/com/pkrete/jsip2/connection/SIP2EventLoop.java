@@ -0,0 +1,200 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class represents an event loop that drives a set of non-blocking
+ * connections to ILS SIP servers. Each event loop has its own thread,
+ * selector and timer wheel. All the I/O operations of the connections
+ * registered to the event loop are executed by the event loop thread.
+ * 
+ * @author Petteri Kivimäki
+ */
+class SIP2EventLoop implements Runnable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SIP2EventLoop.class);
+
+    /**
+     * Duration of a timer wheel tick in milliseconds.
+     */
+    private static final long TICK_DURATION = 100;
+    /**
+     * Number of slots in the timer wheel.
+     */
+    private static final int WHEEL_SIZE = 512;
+
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+    private final SIP2TimerWheel wheel;
+    private final Thread thread;
+    private volatile boolean running = true;
+    private volatile boolean terminated;
+
+    /**
+     * Constructs and initializes a new SIP2EventLoop object and starts
+     * the event loop thread.
+     * @param name name of the event loop thread
+     * @throws IOException if opening the selector fails
+     */
+    SIP2EventLoop(String name) throws IOException {
+        this.selector = Selector.open();
+        this.wheel = new SIP2TimerWheel(TICK_DURATION, WHEEL_SIZE, now());
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Returns the current time in milliseconds.
+     * @return current time in milliseconds
+     */
+    private static long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    /**
+     * Executes the given task in the event loop thread. The task is 
+     * rejected, if the event loop has already been stopped.
+     * @param task task to be executed
+     * @return true if the task is executed, false if it was rejected
+     */
+    boolean execute(Runnable task) {
+        tasks.add(task);
+        // The task is either run by the final drain of the event loop 
+        // or removed here, never both
+        if (terminated && tasks.remove(task)) {
+            return false;
+        }
+        if (Thread.currentThread() != thread) {
+            selector.wakeup();
+        }
+        return true;
+    }
+
+    /**
+     * Schedules the given task to be run in the event loop thread after
+     * the given delay. This method must be called by the event loop thread.
+     * @param task task to be run
+     * @param delay delay in milliseconds
+     * @return timeout that can be used for cancelling the task
+     */
+    SIP2TimerWheel.Timeout schedule(Runnable task, long delay) {
+        return wheel.schedule(task, delay, now());
+    }
+
+    /**
+     * Returns the selector of this event loop.
+     * @return selector
+     */
+    Selector selector() {
+        return selector;
+    }
+
+    /**
+     * Stops the event loop and closes all the connections registered to it.
+     * The tasks submitted after the event loop has stopped are rejected.
+     */
+    void shutdown() {
+        running = false;
+        selector.wakeup();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                // Tasks submitted by the event loop thread itself, e.g. by
+                // timeout callbacks, don't wake up the selector
+                if (tasks.isEmpty()) {
+                    selector.select(wheel.isEmpty() ? 0 : TICK_DURATION);
+                } else {
+                    selector.selectNow();
+                }
+                processSelectedKeys();
+                runTasks();
+                wheel.advance(now());
+            } catch (IOException ex) {
+                LOGGER.error(ex.getMessage(), ex);
+            } catch (RuntimeException ex) {
+                LOGGER.error(ex.getMessage(), ex);
+            }
+        }
+        terminated = true;
+        runTasks();
+        for (SelectionKey key : selector.keys()) {
+            ((SIP2NioConnection) key.attachment()).closeNow(null);
+        }
+        try {
+            selector.close();
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Handles the I/O events of the selected keys.
+     */
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+        while (iterator.hasNext()) {
+            SelectionKey key = iterator.next();
+            iterator.remove();
+            SIP2NioConnection connection = (SIP2NioConnection) key.attachment();
+            if (key.isValid() && key.isConnectable()) {
+                connection.handleConnect();
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.handleRead();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.handleWrite();
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks submitted to this event loop.
+     */
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (RuntimeException ex) {
+                LOGGER.error(ex.getMessage(), ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+
+/**
+ * This class emits the Java Flight Recorder events of SIP2SocketConnection. 
+ * This version is used on Java 8, where the events are not available, and
+ * it never begins an event. The multi-release JAR contains another version 
+ * of this class for Java 11 and later, which emits the events when they're
+ * enabled in a recording.
+ * 
+ * @author Petteri Kivimäki
+ */
+final class SIP2Events {
+
+    private SIP2Events() {
+    }
+
+    /**
+     * Begins a new exchange event, if the event is enabled.
+     * @return trace of the exchange or null if the event isn't enabled
+     */
+    static SIP2ExchangeTrace beginExchange() {
+        return null;
+    }
+
+    /**
+     * Commits the event of the given exchange.
+     * @param trace trace of the exchange
+     * @param host host of the ILS SIP server
+     * @param port port of the ILS SIP server
+     * @param code command identifier of the request
+     * @param response response received or null if the exchange failed
+     */
+    static void commitExchange(SIP2ExchangeTrace trace, String host, int port, String code, SIP2MessageResponse response) {
+    }
+
+    /**
+     * Begins a new connect event, if the event is enabled.
+     * @return event or null if the event isn't enabled
+     */
+    static Object beginConnect() {
+        return null;
+    }
+
+    /**
+     * Commits the given connect event.
+     * @param event event returned by {@link #beginConnect() beginConnect}
+     * @param host host of the ILS SIP server
+     * @param port port of the ILS SIP server
+     * @param connected true if the connection was established
+     */
+    static void commitConnect(Object event, String host, int port, boolean connected) {
+    }
+
+    /**
+     * Begins a new login event, if the event is enabled.
+     * @return event or null if the event isn't enabled
+     */
+    static Object beginLogin() {
+        return null;
+    }
+
+    /**
+     * Commits the given login event.
+     * @param event event returned by {@link #beginLogin() beginLogin}
+     * @param host host of the ILS SIP server
+     * @param port port of the ILS SIP server
+     * @param ok true if the login succeeded
+     * @param reconnect true if the login was sent after reconnecting
+     */
+    static void commitLogin(Object event, String host, int port, boolean ok, boolean reconnect) {
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+/**
+ * This class holds the details of a single request/response exchange that
+ * are collected for a Java Flight Recorder event. The phase durations and
+ * byte counts include the resend requests and responses of the exchange. 
+ * Instances are created by {@link SIP2Events SIP2Events} only when the 
+ * exchange event is enabled, and they're accessed under the lock of the 
+ * connection.
+ * 
+ * @author Petteri Kivimäki
+ */
+final class SIP2ExchangeTrace {
+
+    /**
+     * Flight Recorder event that has been begun for the exchange.
+     */
+    final Object event;
+    /**
+     * Number of bytes sent.
+     */
+    long requestBytes;
+    /**
+     * Number of bytes received.
+     */
+    long responseBytes;
+    /**
+     * Time spent writing the requests in nanoseconds.
+     */
+    long writeNanos;
+    /**
+     * Time spent waiting for and decoding the responses in nanoseconds.
+     */
+    long readNanos;
+    /**
+     * Time spent parsing the responses in nanoseconds.
+     */
+    long parseNanos;
+    /**
+     * Number of responses received with an invalid checksum.
+     */
+    int checksumFailures;
+    /**
+     * Number of resend requests sent.
+     */
+    int resends;
+
+    /**
+     * Constructs and initializes a new SIP2ExchangeTrace object.
+     * @param event Flight Recorder event that has been begun
+     */
+    SIP2ExchangeTrace(Object event) {
+        this.event = event;
+    }
+}
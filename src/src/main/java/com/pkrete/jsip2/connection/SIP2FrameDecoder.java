@@ -0,0 +1,252 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * This class splits a stream of bytes received from the ILS SIP server
+ * into SIP2 messages. Each message is terminated by a carriage return. 
+ * A line feed at the beginning of a message is ignored, because some ILS 
+ * SIP servers terminate the messages with a carriage return followed by 
+ * a line feed.
+ * 
+ * The decoder is push-style: the transport reads data into a ByteBuffer 
+ * and passes it to the {@link #decode(ByteBuffer) decode} method, which 
+ * returns the next complete message or null if more data is needed. This
+ * makes it possible to use the same decoder with blocking and non-blocking
+ * transports. Partial messages are buffered by the decoder between the
+ * calls. The size of a message is limited, which protects the client from 
+ * a misbehaving ILS SIP server. A decoder must not be shared by multiple
+ * connections.
+ * 
+ * While a message is read, the decoder sums its bytes. If the message ends 
+ * with a checksum field (AZ followed by four hexadecimal digits), the 
+ * checksum is verified against the sum of the raw bytes up to and 
+ * including AZ, which is what the ILS SIP server used for computing it. 
+ * The result is available from the {@link #isChecksumPresent()} and 
+ * {@link #isChecksumValid()} methods until the next message is decoded.
+ * 
+ * @author Petteri Kivimäki
+ */
+public class SIP2FrameDecoder {
+
+    /**
+     * Default maximum size of a message in bytes.
+     */
+    public static final int DEFAULT_MAX_FRAME_SIZE = 65536;
+
+    private final Charset charset;
+    private final int maxFrameSize;
+    private byte[] frame = new byte[256];
+    private int frameLength;
+    /**
+     * True if the rest of a message that's too long is being discarded.
+     */
+    private boolean discarding;
+    /**
+     * Sum of the bytes of the current message.
+     */
+    private int sum;
+    /**
+     * True if the last decoded message ends with a checksum field.
+     */
+    private boolean checksumPresent;
+    /**
+     * True if the checksum of the last decoded message is valid.
+     */
+    private boolean checksumValid;
+    /**
+     * Length of the last decoded message in bytes, including the 
+     * terminator.
+     */
+    private int messageLength;
+
+    /**
+     * Constructs and initializes a new SIP2FrameDecoder object with the
+     * default character set of the JVM and the default maximum message size.
+     */
+    public SIP2FrameDecoder() {
+        this(Charset.defaultCharset(), DEFAULT_MAX_FRAME_SIZE);
+    }
+
+    /**
+     * Constructs and initializes a new SIP2FrameDecoder object with the
+     * given character set and maximum message size.
+     * @param charset character set used for decoding the messages
+     * @param maxFrameSize maximum size of a message in bytes, not including
+     * the terminator
+     */
+    public SIP2FrameDecoder(Charset charset, int maxFrameSize) {
+        if (maxFrameSize < 1) {
+            throw new IllegalArgumentException("Maximum frame size must be at least 1.");
+        }
+        this.charset = charset;
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Consumes bytes from the given buffer until a whole message has been
+     * received or the buffer is empty. The bytes after the message are left
+     * in the buffer, and the method should be called again until it returns
+     * null. If a message exceeds the maximum size, an exception is thrown 
+     * and the rest of the message is discarded, after which decoding 
+     * continues from the next message.
+     * @param buffer buffer in read mode
+     * @return next message without the terminator, or null if the buffer
+     * doesn't contain the end of a message
+     * @throws InvalidSIP2ResponseException if the message is too long
+     */
+    public String decode(ByteBuffer buffer) throws InvalidSIP2ResponseException {
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            int limit = buffer.limit();
+            if (frameLength == 0 && !discarding && buffer.get(start) == '\n') {
+                buffer.position(start + 1);
+                continue;
+            }
+            int end = start;
+            byte b;
+            while (end < limit && (b = buffer.get(end)) != '\r') {
+                sum += b & 0xFF;
+                end++;
+            }
+            boolean terminated = end < limit;
+            if (discarding) {
+                buffer.position(terminated ? end + 1 : end);
+                discarding = !terminated;
+                sum = 0;
+                continue;
+            }
+            int length = end - start;
+            if (frameLength + length > maxFrameSize) {
+                int discarded = frameLength + length;
+                frameLength = 0;
+                sum = 0;
+                buffer.position(terminated ? end + 1 : end);
+                discarding = !terminated;
+                throw new InvalidSIP2ResponseException("Response message exceeds the maximum size of " + maxFrameSize + " bytes. Bytes received: " + discarded + ".");
+            }
+            append(buffer, length);
+            if (terminated) {
+                buffer.get();
+                verifyChecksum();
+                String message = new String(frame, 0, frameLength, charset);
+                messageLength = frameLength + 1;
+                frameLength = 0;
+                sum = 0;
+                return message;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if and only if the last decoded message ends with a 
+     * checksum field.
+     * @return true if the last message has a checksum, otherwise false
+     */
+    public boolean isChecksumPresent() {
+        return checksumPresent;
+    }
+
+    /**
+     * Returns true if and only if the last decoded message ends with a 
+     * checksum field that matches the raw bytes of the message.
+     * @return true if the checksum of the last message is valid, otherwise
+     * false
+     */
+    public boolean isChecksumValid() {
+        return checksumValid;
+    }
+
+    /**
+     * Verifies the checksum of the current message using the sum of its
+     * bytes. The checksum digits themselves are not included in the sum.
+     */
+    private void verifyChecksum() {
+        checksumPresent = false;
+        checksumValid = false;
+        int length = frameLength;
+        if (length < 6 || frame[length - 6] != 'A' || frame[length - 5] != 'Z') {
+            return;
+        }
+        int received = 0;
+        int digits = 0;
+        for (int i = length - 4; i < length; i++) {
+            int digit = Character.digit(frame[i], 16);
+            if (digit < 0) {
+                return;
+            }
+            received = (received << 4) | digit;
+            digits += frame[i] & 0xFF;
+        }
+        checksumPresent = true;
+        checksumValid = received == (-(sum - digits) & 0xFFFF);
+    }
+
+    /**
+     * Returns the length of the last decoded message in bytes, including
+     * the terminator.
+     * @return length of the last message in bytes
+     */
+    public int getMessageLength() {
+        return messageLength;
+    }
+
+    /**
+     * Returns the number of bytes of an incomplete message buffered by the
+     * decoder.
+     * @return number of buffered bytes
+     */
+    public int getBufferedLength() {
+        return frameLength;
+    }
+
+    /**
+     * Discards the buffered bytes of an incomplete message.
+     */
+    public void reset() {
+        frameLength = 0;
+        sum = 0;
+        discarding = false;
+    }
+
+    /**
+     * Copies the given number of bytes from the buffer to the message.
+     * @param buffer buffer in read mode
+     * @param length number of bytes
+     */
+    private void append(ByteBuffer buffer, int length) {
+        if (frameLength + length > frame.length) {
+            frame = Arrays.copyOf(frame, Math.min(Math.max(frame.length * 2, frameLength + length), maxFrameSize));
+        }
+        buffer.get(frame, frameLength, length);
+        frameLength += length;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.SIP2UnsupportedMessageException;
+import com.pkrete.jsip2.messages.SIP2MessageRequest;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.responses.SIP2ACSStatusResponse;
+import com.pkrete.jsip2.variables.SupportedMessages;
+
+/**
+ * This class keeps the supported messages of the latest ACS Status 
+ * response received from an ILS SIP server, and rejects the requests that
+ * the server doesn't support. Until the first ACS Status response is 
+ * received, all the requests are accepted. Gating is disabled by default.
+ *
+ * @author Petteri Kivimäki
+ */
+final class SIP2MessageGate {
+
+    /**
+     * Tells if unsupported requests are rejected.
+     */
+    private volatile boolean enabled;
+    /**
+     * Supported messages of the latest ACS Status response, or null if no
+     * response has been received.
+     */
+    private volatile SupportedMessages supportedMessages;
+
+    /**
+     * Returns true if and only if unsupported requests are rejected.
+     * @return true if gating is enabled, otherwise false
+     */
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Sets the value that tells if unsupported requests are rejected.
+     * @param enabled new value
+     */
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns the supported messages of the latest ACS Status response.
+     * @return supported messages or null
+     */
+    SupportedMessages getSupportedMessages() {
+        return supportedMessages;
+    }
+
+    /**
+     * Updates the supported messages if the given response is an ACS 
+     * Status response.
+     * @param response response received from the ILS SIP server
+     */
+    void update(SIP2MessageResponse response) {
+        if (response instanceof SIP2ACSStatusResponse) {
+            SupportedMessages messages = ((SIP2ACSStatusResponse) response).getSupportedMessages();
+            if (messages != null) {
+                this.supportedMessages = messages;
+            }
+        }
+    }
+
+    /**
+     * Returns true if and only if the given request may be sent.
+     * @param request request to be sent
+     * @return true if the request may be sent, otherwise false
+     */
+    boolean accepts(SIP2MessageRequest request) {
+        SupportedMessages messages = supportedMessages;
+        return !enabled || messages == null || messages.isSupported(request.getCode());
+    }
+
+    /**
+     * Throws an exception if the given request may not be sent.
+     * @param request request to be sent
+     * @throws SIP2UnsupportedMessageException if the ILS SIP server 
+     * doesn't support the request
+     */
+    void check(SIP2MessageRequest request) {
+        if (!accepts(request)) {
+            throw new SIP2UnsupportedMessageException(request.getCode());
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is a non-blocking alternative to
+ * {@link SIP2SocketConnection SIP2SocketConnection}. A small number of event 
+ * loop threads drives all the connections created by the client, which 
+ * makes it possible to keep hundreds of connections to different ILS SIP 
+ * servers open without dedicating a thread to each connection.
+ * 
+ * Requests are encoded using the {@link com.pkrete.jsip2.messages.SIP2MessageRequest#getData() getData()} method
+ * and responses are parsed using the 
+ * {@link com.pkrete.jsip2.messages.SIP2ResponseFactory SIP2ResponseFactory}, 
+ * in the same way as with SIP2SocketConnection.
+ * 
+ * @author Petteri Kivimäki
+ */
+public class SIP2NioClient {
+
+    private static final AtomicInteger CLIENT_COUNT = new AtomicInteger();
+
+    private final SIP2EventLoop[] loops;
+    private final AtomicInteger next = new AtomicInteger();
+    /**
+     * Connection timeout in milliseconds.
+     */
+    private long connectTimeout = 10000;
+    /**
+     * Request timeout in milliseconds.
+     */
+    private long requestTimeout = 10000;
+    /**
+     * Maximum number of requests per connection waiting for a response.
+     */
+    private int pipelineDepth = 1;
+    /**
+     * Character set used for encoding and decoding the messages.
+     */
+    private Charset charset = Charset.defaultCharset();
+    /**
+     * Maximum size of a response message in bytes.
+     */
+    private int maxFrameSize = SIP2FrameDecoder.DEFAULT_MAX_FRAME_SIZE;
+
+    /**
+     * Constructs and initializes a new SIP2NioClient object with the given
+     * number of event loop threads.
+     * @param threads number of event loop threads
+     * @throws IOException if opening a selector fails
+     */
+    public SIP2NioClient(int threads) throws IOException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least 1.");
+        }
+        int id = CLIENT_COUNT.incrementAndGet();
+        this.loops = new SIP2EventLoop[threads];
+        for (int i = 0; i < threads; i++) {
+            loops[i] = new SIP2EventLoop("jsip2-nio-" + id + "-" + i);
+        }
+    }
+
+    /**
+     * Opens a new connection to the given ILS SIP server. The returned
+     * future is completed when the connection has been established.
+     * @param host address of the ILS SIP server
+     * @param port port number of the ILS SIP server
+     * @return future that's completed with the new connection
+     */
+    public CompletableFuture<SIP2NioConnection> connect(String host, int port) {
+        final CompletableFuture<SIP2NioConnection> future = new CompletableFuture<SIP2NioConnection>();
+        InetSocketAddress address = new InetSocketAddress(host, port);
+        if (address.isUnresolved()) {
+            future.completeExceptionally(new SIP2ConnectionException("Unable to resolve the ILS SIP server address " + host + "."));
+            return future;
+        }
+        SIP2EventLoop loop = loops[Math.abs(next.getAndIncrement() % loops.length)];
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            final SIP2NioConnection connection = new SIP2NioConnection(loop, channel, address, charset, new SIP2FrameDecoder(charset, maxFrameSize), requestTimeout, pipelineDepth, future);
+            final long timeout = connectTimeout;
+            boolean accepted = loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    connection.start(timeout);
+                }
+            });
+            if (!accepted) {
+                connection.closeNow(new SIP2ConnectionException("Client is closed."));
+            }
+        } catch (IOException ex) {
+            future.completeExceptionally(new SIP2ConnectionException("Unable to connect to the ILS SIP server " + address + ".", ex));
+        }
+        return future;
+    }
+
+    /**
+     * Stops the event loop threads and closes all the connections. The
+     * connections opened and the requests sent after calling this method
+     * are completed exceptionally with a SIP2ConnectionException.
+     */
+    public void close() {
+        for (SIP2EventLoop loop : loops) {
+            loop.shutdown();
+        }
+    }
+
+    /**
+     * Sets the connection timeout in milliseconds. Affects only connections
+     * opened after calling this method. The default value is 10 seconds.
+     * @param connectTimeout timeout in milliseconds
+     */
+    public void setConnectTimeout(long connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * Sets the request timeout in milliseconds. If no response is received
+     * within the timeout, the connection is closed. Affects only connections
+     * opened after calling this method. The default value is 10 seconds.
+     * @param requestTimeout timeout in milliseconds
+     */
+    public void setRequestTimeout(long requestTimeout) {
+        this.requestTimeout = requestTimeout;
+    }
+
+    /**
+     * Sets the maximum number of requests per connection that are written
+     * to the ILS SIP server without waiting for the responses. Values
+     * greater than one enable pipelining, which assigns rotating sequence
+     * numbers to the requests and uses them for checking that the responses
+     * are matched with the correct requests. The value must be between 1 
+     * and 10, because there are ten sequence numbers. Affects only 
+     * connections opened after calling this method. The default value is 1.
+     * @param pipelineDepth maximum number of requests in flight
+     */
+    public void setPipelineDepth(int pipelineDepth) {
+        if (pipelineDepth < 1 || pipelineDepth > 10) {
+            throw new IllegalArgumentException("Pipeline depth must be between 1 and 10.");
+        }
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    /**
+     * Sets the maximum size of a response message in bytes. A response
+     * that exceeds the size completes the request exceptionally with an 
+     * InvalidSIP2ResponseException. Affects only connections opened after
+     * calling this method. The default value is 64 KiB.
+     * @param maxFrameSize maximum size in bytes
+     */
+    public void setMaxFrameSize(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Sets the character set used for encoding the requests and decoding
+     * the responses. Affects only connections opened after calling this 
+     * method. The default value is the default character set of the JVM,
+     * which is also used by SIP2SocketConnection.
+     * @param charset character set
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+}
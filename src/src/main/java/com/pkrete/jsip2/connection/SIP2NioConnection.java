@@ -0,0 +1,532 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import com.pkrete.jsip2.exceptions.SIP2UnsupportedMessageException;
+import com.pkrete.jsip2.messages.SIP2MessageRequest;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.SIP2ResponseFactory;
+import com.pkrete.jsip2.variables.SupportedMessages;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class represents a non-blocking connection to the ILS SIP server.
+ * Connections are created by {@link SIP2NioClient SIP2NioClient} and all
+ * their I/O operations are executed by an event loop thread of the client.
+ * 
+ * Requests sent using the same connection are queued and by default 
+ * written to the ILS SIP server one at a time, waiting for the response 
+ * to each request before sending the next one. When the pipeline depth is 
+ * greater than one, up to that many requests are written back-to-back 
+ * without waiting for the responses. In that case error detection is 
+ * enabled on the requests and they're given rotating sequence numbers 
+ * 0-9. The ILS SIP server answers the requests in the order they were 
+ * sent, and the sequence number of each response is checked against the
+ * oldest unanswered request. A mismatch closes the connection.
+ * 
+ * The returned future is completed
+ * by the event loop thread when the response has been received, which
+ * means that the dependent actions should not block. If no response is 
+ * received within the request timeout, the future is completed 
+ * exceptionally with a TimeoutException and the connection is closed, 
+ * because a late response couldn't be matched with the correct request.
+ * 
+ * When message gating is enabled, requests that the ILS SIP server has 
+ * reported as unsupported in the latest SIP2ACSStatusResponse are completed
+ * exceptionally with a {@link SIP2UnsupportedMessageException} without 
+ * sending them.
+ * 
+ * @author Petteri Kivimäki
+ */
+public class SIP2NioConnection implements SIP2AsyncSender {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SIP2NioConnection.class);
+
+    /**
+     * Size of the read buffer in bytes.
+     */
+    private static final int READ_BUFFER_SIZE = 8192;
+
+    private final SIP2EventLoop loop;
+    private final SocketChannel channel;
+    private final InetSocketAddress address;
+    private final Charset charset;
+    private final long requestTimeout;
+    private final int pipelineDepth;
+    private final CompletableFuture<SIP2NioConnection> connectFuture;
+    private final ArrayDeque<PendingRequest> queue = new ArrayDeque<PendingRequest>();
+    private final ArrayDeque<PendingRequest> inFlight = new ArrayDeque<PendingRequest>();
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER_SIZE);
+    private final SIP2FrameDecoder decoder;
+    /**
+     * Rejects the requests that the ILS SIP server doesn't support.
+     */
+    private final SIP2MessageGate gate = new SIP2MessageGate();
+    private SelectionKey key;
+    private SIP2TimerWheel.Timeout connectTimeout;
+    private ByteBuffer writeBuffer;
+    /**
+     * Buffer that the requests are encoded into. Reused for each request,
+     * because a request is encoded only after the previous request has 
+     * been written. Grown when a request doesn't fit in it.
+     */
+    private ByteBuffer encodeBuffer = ByteBuffer.allocate(512);
+    private int nextSequence;
+    private boolean connected;
+    private volatile boolean open = true;
+
+    /**
+     * Constructs and initializes a new SIP2NioConnection object.
+     * @param loop event loop that drives the connection
+     * @param channel socket channel in non-blocking mode
+     * @param address address of the ILS SIP server
+     * @param charset character set used for encoding messages
+     * @param decoder decoder that splits the received data into messages
+     * @param requestTimeout request timeout in milliseconds
+     * @param pipelineDepth maximum number of requests waiting for a response
+     * @param connectFuture future that's completed when the connection has
+     * been established
+     */
+    SIP2NioConnection(SIP2EventLoop loop, SocketChannel channel, InetSocketAddress address, Charset charset, SIP2FrameDecoder decoder, long requestTimeout, int pipelineDepth, CompletableFuture<SIP2NioConnection> connectFuture) {
+        this.loop = loop;
+        this.channel = channel;
+        this.address = address;
+        this.charset = charset;
+        this.decoder = decoder;
+        this.requestTimeout = requestTimeout;
+        this.pipelineDepth = pipelineDepth;
+        this.connectFuture = connectFuture;
+    }
+
+    /**
+     * Sends the given SIP2MessageRequest to the ILS SIP server. This method
+     * is the same as {@link #send(SIP2MessageRequest)}.
+     * @param request SIP2MessageRequest to be sent
+     * @return future that's completed with the SIP2MessageResponse
+     */
+    @Override
+    public CompletableFuture<SIP2MessageResponse> sendAsync(SIP2MessageRequest request) {
+        return send(request);
+    }
+
+    /**
+     * Sends the given SIP2MessageRequest to the ILS SIP server. The request
+     * is queued, if the pipeline is full. When pipelining is used, the 
+     * sequence number and error detection of the request are set by the 
+     * connection, and the request must not be modified or sent again 
+     * before the future has been completed. The returned future is completed with the 
+     * SIP2MessageResponse received from the ILS SIP server, or exceptionally 
+     * if the response is invalid, the request times out or the connection is
+     * closed. Cancelling the future before the request has been written 
+     * removes the request from the queue.
+     * @param request SIP2MessageRequest to be sent
+     * @return future that's completed with the SIP2MessageResponse
+     */
+    public CompletableFuture<SIP2MessageResponse> send(SIP2MessageRequest request) {
+        final PendingRequest pending = new PendingRequest(request);
+        if (!open) {
+            pending.future.completeExceptionally(new SIP2ConnectionException("Connection is closed."));
+            return pending.future;
+        }
+        if (!gate.accepts(request)) {
+            pending.future.completeExceptionally(new SIP2UnsupportedMessageException(request.getCode()));
+            return pending.future;
+        }
+        boolean accepted = loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                enqueue(pending);
+            }
+        });
+        if (!accepted) {
+            pending.future.completeExceptionally(new SIP2ConnectionException("Connection is closed."));
+        }
+        return pending.future;
+    }
+
+    /**
+     * Closes the connection. The requests that have not been answered yet
+     * are completed exceptionally.
+     */
+    public void close() {
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                closeNow(new SIP2ConnectionException("Connection is closed."));
+            }
+        });
+    }
+
+    /**
+     * Returns true if and only if the connection is open.
+     * @return true if the connection is open, otherwise false
+     */
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Returns true if and only if the requests that the ILS SIP server has
+     * reported as unsupported are rejected.
+     * @return true if message gating is enabled, otherwise false
+     */
+    public boolean isMessageGatingEnabled() {
+        return gate.isEnabled();
+    }
+
+    /**
+     * Sets the value that tells if the requests that the ILS SIP server has
+     * reported as unsupported in the latest SIP2ACSStatusResponse are 
+     * rejected. All the requests are sent until the first 
+     * SIP2ACSStatusResponse is received. The default value is false.
+     * @param messageGating new value
+     */
+    public void setMessageGatingEnabled(boolean messageGating) {
+        gate.setEnabled(messageGating);
+    }
+
+    /**
+     * Returns the supported messages of the latest SIP2ACSStatusResponse
+     * received.
+     * @return supported messages or null if no SIP2ACSStatusResponse has
+     * been received
+     */
+    public SupportedMessages getSupportedMessages() {
+        return gate.getSupportedMessages();
+    }
+
+    /**
+     * Returns the address of the ILS SIP server.
+     * @return address of the ILS SIP server
+     */
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * Registers the channel to the event loop and starts connecting to the
+     * ILS SIP server. Called by the event loop thread.
+     * @param timeout connection timeout in milliseconds
+     */
+    void start(long timeout) {
+        try {
+            key = channel.register(loop.selector(), 0, this);
+            if (channel.connect(address)) {
+                connected();
+            } else {
+                key.interestOps(SelectionKey.OP_CONNECT);
+                connectTimeout = loop.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        closeNow(new TimeoutException("Timeout while connecting to the ILS SIP server " + address + "."));
+                    }
+                }, timeout);
+            }
+        } catch (IOException ex) {
+            closeNow(new SIP2ConnectionException("Unable to connect to the ILS SIP server " + address + ".", ex));
+        }
+    }
+
+    /**
+     * Completes the connection when the channel is ready to connect. 
+     * Called by the event loop thread.
+     */
+    void handleConnect() {
+        try {
+            if (channel.finishConnect()) {
+                connected();
+            }
+        } catch (IOException ex) {
+            closeNow(new SIP2ConnectionException("Unable to connect to the ILS SIP server " + address + ".", ex));
+        }
+    }
+
+    /**
+     * Starts reading from the channel after the connection has been 
+     * established.
+     */
+    private void connected() {
+        if (connectTimeout != null) {
+            connectTimeout.cancel();
+        }
+        connected = true;
+        key.interestOps(SelectionKey.OP_READ);
+        LOGGER.debug("Connected to the ILS SIP server {}.", address);
+        connectFuture.complete(this);
+        sendNext();
+    }
+
+    /**
+     * Reads the available data from the channel and completes the request
+     * in flight when a whole response message has been received. Called by
+     * the event loop thread.
+     */
+    void handleRead() {
+        try {
+            int count = channel.read(readBuffer);
+            if (count == -1) {
+                closeNow(new SIP2ConnectionException("Connection closed by the ILS SIP server."));
+                return;
+            }
+            readBuffer.flip();
+            while (open) {
+                String data;
+                try {
+                    data = decoder.decode(readBuffer);
+                } catch (InvalidSIP2ResponseException ex) {
+                    frameFailed(ex);
+                    continue;
+                }
+                if (data == null) {
+                    break;
+                }
+                frameReceived(data);
+            }
+            readBuffer.clear();
+        } catch (IOException ex) {
+            closeNow(new SIP2ConnectionException(ex.getMessage(), ex));
+        }
+    }
+
+    /**
+     * Writes the pending data to the channel. Called by the event loop
+     * thread.
+     */
+    void handleWrite() {
+        if (write()) {
+            sendNext();
+        }
+    }
+
+    /**
+     * Writes as much of the pending data to the channel as possible.
+     * @return true if the connection is still open, otherwise false
+     */
+    private boolean write() {
+        try {
+            channel.write(writeBuffer);
+            if (writeBuffer.hasRemaining()) {
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } else {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+            return true;
+        } catch (IOException ex) {
+            closeNow(new SIP2ConnectionException(ex.getMessage(), ex));
+            return false;
+        }
+    }
+
+    /**
+     * Adds the given request to the queue. Called by the event loop thread.
+     * @param pending request to be sent
+     */
+    private void enqueue(PendingRequest pending) {
+        if (!open) {
+            pending.future.completeExceptionally(new SIP2ConnectionException("Connection is closed."));
+            return;
+        }
+        queue.add(pending);
+        if (connected) {
+            sendNext();
+        }
+    }
+
+    /**
+     * Writes requests from the queue until the pipeline is full, the queue
+     * is empty or the channel can't accept more data. Requests that have 
+     * been cancelled are skipped.
+     */
+    private void sendNext() {
+        while (open && inFlight.size() < pipelineDepth && (writeBuffer == null || !writeBuffer.hasRemaining())) {
+            final PendingRequest request = queue.poll();
+            if (request == null) {
+                return;
+            }
+            if (request.future.isDone()) {
+                continue;
+            }
+            if (pipelineDepth > 1) {
+                request.sequence = nextSequence;
+                request.request.setErrorDetectionEnabled(true);
+                request.request.setSequence(nextSequence);
+                nextSequence = (nextSequence + 1) % 10;
+            }
+            writeBuffer = encode(request.request);
+            inFlight.add(request);
+            request.timeout = loop.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (inFlight.contains(request)) {
+                        closeNow(new TimeoutException("No response received from the ILS SIP server " + address + " within " + requestTimeout + " ms."));
+                    }
+                }
+            }, requestTimeout);
+            if (!write()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Encodes the given request into the reusable encode buffer.
+     * @param request request to be encoded
+     * @return buffer in read mode
+     */
+    private ByteBuffer encode(SIP2MessageRequest request) {
+        while (true) {
+            encodeBuffer.clear();
+            try {
+                request.encodeTo(encodeBuffer, charset);
+                encodeBuffer.flip();
+                if (LOGGER.isDebugEnabled()) {
+                    LOGGER.debug("Request: {}", new String(encodeBuffer.array(), 0, encodeBuffer.limit(), charset));
+                }
+                return encodeBuffer;
+            } catch (BufferOverflowException ex) {
+                encodeBuffer = ByteBuffer.allocate(encodeBuffer.capacity() * 2);
+            }
+        }
+    }
+
+    /**
+     * Completes the oldest request in flight with the given response 
+     * message and sends the next request. When pipelining is used and the 
+     * response contains error detection fields, the sequence number of the 
+     * response must match the sequence number of the request.
+     * @param data response message data
+     */
+    private void frameReceived(String data) {
+        PendingRequest request = inFlight.poll();
+        if (request == null) {
+            LOGGER.warn("Unexpected response from the ILS SIP server {}: {}", address, data);
+            return;
+        }
+        request.timeout.cancel();
+        SIP2MessageResponse response;
+        try {
+            response = SIP2ResponseFactory.getInstance().create(data);
+        } catch (InvalidSIP2ResponseException ex) {
+            request.future.completeExceptionally(ex);
+            sendNext();
+            return;
+        } catch (InvalidSIP2ResponseValueException ex) {
+            request.future.completeExceptionally(ex);
+            sendNext();
+            return;
+        }
+        if (decoder.isChecksumPresent()) {
+            response.setChecksumValid(decoder.isChecksumValid());
+        }
+        if (request.sequence != -1 && response.isChecksum() && response.getSequence() != request.sequence) {
+            SIP2ConnectionException ex = new SIP2ConnectionException("Response sequence number " + response.getSequence() + " doesn't match the request sequence number " + request.sequence + ".");
+            request.future.completeExceptionally(ex);
+            closeNow(ex);
+            return;
+        }
+        gate.update(response);
+        request.future.complete(response);
+        sendNext();
+    }
+
+    /**
+     * Completes the oldest request in flight exceptionally when its 
+     * response couldn't be decoded, and sends the next request.
+     * @param cause decoding error
+     */
+    private void frameFailed(InvalidSIP2ResponseException cause) {
+        PendingRequest request = inFlight.poll();
+        if (request == null) {
+            LOGGER.warn("Unexpected response from the ILS SIP server {}: {}", address, cause.getMessage());
+            return;
+        }
+        request.timeout.cancel();
+        request.future.completeExceptionally(cause);
+        sendNext();
+    }
+
+    /**
+     * Closes the channel and completes the pending requests exceptionally
+     * with the given cause. Called by the event loop thread, or by the 
+     * client if the event loop rejected the connection before it was started.
+     * @param cause cause of closing the connection or null
+     */
+    void closeNow(Throwable cause) {
+        if (!open) {
+            return;
+        }
+        open = false;
+        if (cause == null) {
+            cause = new SIP2ConnectionException("Connection is closed.");
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+        }
+        PendingRequest pending;
+        while ((pending = inFlight.poll()) != null) {
+            pending.timeout.cancel();
+            pending.future.completeExceptionally(cause);
+        }
+        while ((pending = queue.poll()) != null) {
+            pending.future.completeExceptionally(cause);
+        }
+        connectFuture.completeExceptionally(cause);
+        LOGGER.debug("Connection to the ILS SIP server {} closed.", address);
+    }
+
+    /**
+     * This class holds a request that's waiting for a response.
+     */
+    private static class PendingRequest {
+
+        private final SIP2MessageRequest request;
+        private final CompletableFuture<SIP2MessageResponse> future = new CompletableFuture<SIP2MessageResponse>();
+        private SIP2TimerWheel.Timeout timeout;
+        private int sequence = -1;
+
+        PendingRequest(SIP2MessageRequest request) {
+            this.request = request;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.requests.SIP2PatronInformationRequest;
+import com.pkrete.jsip2.messages.responses.SIP2PatronInformationResponse;
+import com.pkrete.jsip2.variables.ItemType;
+import com.pkrete.jsip2.variables.Summary;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This class iterates over the items of a patron by sending successive
+ * patron information requests. Each request asks for one page of items of 
+ * the given type using the start item (BP) and end item (BQ) fields. The
+ * number of items given in the first response is used as the total number 
+ * of items. The next page is requested as soon as the previous page has 
+ * been received, so the ILS SIP server processes the next request while
+ * the caller processes the current page.
+ * 
+ * The requests are copies of the given template request, which is not
+ * modified. Errors are thrown as CompletionExceptions whose cause is the 
+ * original exception. This class is not thread-safe.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2PatronItemIterator implements Iterator<String> {
+
+    /**
+     * Default number of items requested at a time.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    private final SIP2AsyncSender sender;
+    private final SIP2PatronInformationRequest template;
+    private final ItemType type;
+    private final int pageSize;
+    /**
+     * Number of the first item of the next page, starting from 1.
+     */
+    private int nextStart;
+    /**
+     * Total number of items or -1 if not known yet.
+     */
+    private int total;
+    /**
+     * Request of the next page or null if there are no more pages.
+     */
+    private CompletableFuture<SIP2MessageResponse> pending;
+    /**
+     * Items of the current page.
+     */
+    private Iterator<String> page;
+
+    /**
+     * Constructs and initializes a new SIP2PatronItemIterator object that
+     * requests the default number of items at a time.
+     * @param sender connection or client that sends the requests
+     * @param template request containing the institution id, patron 
+     * identifier and passwords
+     * @param type type of the items
+     */
+    public SIP2PatronItemIterator(SIP2AsyncSender sender, SIP2PatronInformationRequest template, ItemType type) {
+        this(sender, template, type, DEFAULT_PAGE_SIZE);
+    }
+
+    /**
+     * Constructs and initializes a new SIP2PatronItemIterator object. The
+     * first page is requested immediately.
+     * @param sender connection or client that sends the requests
+     * @param template request containing the institution id, patron 
+     * identifier and passwords
+     * @param type type of the items
+     * @param pageSize number of items requested at a time
+     */
+    public SIP2PatronItemIterator(SIP2AsyncSender sender, SIP2PatronInformationRequest template, ItemType type, int pageSize) {
+        if (sender == null || template == null || type == null) {
+            throw new IllegalArgumentException("Sender, template and type can't be null.");
+        }
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1. Page size: " + pageSize);
+        }
+        this.sender = sender;
+        this.template = template;
+        this.type = type;
+        this.pageSize = pageSize;
+        this.nextStart = 1;
+        this.total = -1;
+        this.page = Collections.<String>emptyList().iterator();
+        this.pending = request(1);
+    }
+
+    /**
+     * Returns true if there are more items. Blocks until the next page has 
+     * been received, if all the items of the current page have been 
+     * returned.
+     * @return true if there are more items, otherwise false
+     */
+    @Override
+    public boolean hasNext() {
+        while (!page.hasNext()) {
+            if (pending == null) {
+                return false;
+            }
+            load();
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next item.
+     * @return barcode of the next item
+     */
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+
+    /**
+     * Returns the total number of items given in the first response. Blocks
+     * until the first response has been received.
+     * @return total number of items
+     */
+    public int getTotal() {
+        if (total == -1 && pending != null) {
+            load();
+        }
+        return total;
+    }
+
+    /**
+     * Returns a sequential stream of the remaining items.
+     * @return stream of item barcodes
+     */
+    public Stream<String> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Waits for the pending page, requests the following page and makes the
+     * received items the current page.
+     */
+    private void load() {
+        SIP2MessageResponse message = pending.join();
+        pending = null;
+        if (!(message instanceof SIP2PatronInformationResponse)) {
+            throw new CompletionException(new InvalidSIP2ResponseException("Unexpected response to a patron information request: " + (message == null ? null : message.getData())));
+        }
+        SIP2PatronInformationResponse response = (SIP2PatronInformationResponse) message;
+        if (total == -1) {
+            total = count(response);
+        }
+        List<String> items = response.getItems(type);
+        if (items.size() > pageSize) {
+            // The ILS SIP server ignored the start and end item, all the 
+            // items were returned at once
+            page = items.subList(Math.min(nextStart - 1, items.size()), items.size()).iterator();
+            return;
+        }
+        nextStart += items.size();
+        if (!items.isEmpty() && nextStart <= total) {
+            pending = request(nextStart);
+        }
+        page = items.iterator();
+    }
+
+    /**
+     * Sends a request for the page starting from the given item.
+     * @param start number of the first item, starting from 1
+     * @return future that's completed with the response
+     */
+    private CompletableFuture<SIP2MessageResponse> request(int start) {
+        SIP2PatronInformationRequest request = new SIP2PatronInformationRequest(template.getInstitutionId(), template.getTerminalPassword(), template.getPatronIdentifier(), template.getPatronPassword());
+        request.setLanguage(template.getLanguage());
+        request.setErrorDetectionEnabled(template.isErrorDetectionEnabled());
+        request.setSequence(template.getSequence());
+        request.setSummary(summary());
+        request.setStartItem(Integer.toString(start));
+        request.setEndItem(Integer.toString(start + pageSize - 1));
+        return sender.sendAsync(request);
+    }
+
+    /**
+     * Returns a summary that selects the items of the iterated type.
+     * @return summary selecting the item type
+     */
+    private Summary summary() {
+        Summary summary = new Summary();
+        switch (type) {
+            case HOLD:
+                summary.setHoldItems(true);
+                break;
+            case OVERDUE:
+                summary.setOverdueItems(true);
+                break;
+            case CHARGED:
+                summary.setChargedItems(true);
+                break;
+            case FINE:
+                summary.setFineItems(true);
+                break;
+            case RECALL:
+                summary.setRecallItems(true);
+                break;
+            default:
+                summary.setUnavailableHolds(true);
+                break;
+        }
+        return summary;
+    }
+
+    /**
+     * Returns the number of items of the iterated type given in the
+     * response.
+     * @param response patron information response
+     * @return number of items
+     */
+    private int count(SIP2PatronInformationResponse response) {
+        switch (type) {
+            case HOLD:
+                return response.getHoldItemsCount();
+            case OVERDUE:
+                return response.getOverdueItemsCount();
+            case CHARGED:
+                return response.getChargedItemsCount();
+            case FINE:
+                return response.getFineItemsCount();
+            case RECALL:
+                return response.getRecallItemsCount();
+            default:
+                return response.getUnavailableHoldsCount();
+        }
+    }
+}
@@ -26,15 +26,41 @@ package com.pkrete.jsip2.connection;
 
 import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
 import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import com.pkrete.jsip2.exceptions.SIP2UnsupportedMessageException;
 import com.pkrete.jsip2.messages.SIP2MessageRequest;
 import com.pkrete.jsip2.messages.SIP2MessageResponse;
 import com.pkrete.jsip2.messages.SIP2ResponseFactory;
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import com.pkrete.jsip2.messages.requests.SIP2LoginRequest;
+import com.pkrete.jsip2.messages.requests.SIP2RequestResend;
+import com.pkrete.jsip2.messages.requests.SIP2SCStatusRequest;
+import com.pkrete.jsip2.messages.responses.SIP2ACSStatusResponse;
+import com.pkrete.jsip2.messages.responses.SIP2LoginResponse;
+import com.pkrete.jsip2.metrics.SIP2MessageMetrics;
+import com.pkrete.jsip2.metrics.SIP2Metrics;
+import com.pkrete.jsip2.variables.SupportedMessages;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,10 +75,36 @@ import org.slf4j.LoggerFactory;
  * irrespoective of any previous or future pair. However, in practise there
  * are depencies between the message pairs. For example, in most cases the system
  * must first log in to the ILS SIP server before sending any other messages.
+ * 
+ * If a response contains a checksum that doesn't match the response, the
+ * connection asks the ILS SIP server to re-transmit the response by
+ * sending a {@link SIP2RequestResend SIP2RequestResend} message. The number 
+ * of retries is limited by the retries allowed value, which is updated 
+ * from each SIP2ACSStatusResponse received.
+ * 
+ * When message gating is enabled, requests that the ILS SIP server has 
+ * reported as unsupported in the latest SIP2ACSStatusResponse are rejected
+ * with a {@link SIP2UnsupportedMessageException} without sending them.
+ * 
+ * When reconnecting is enabled, a connection that has been closed by the
+ * ILS SIP server is re-established transparently. The connection is 
+ * retried with exponential backoff and random jitter, so that a large 
+ * number of clients don't reconnect at the same time. After reconnecting,
+ * the stored login request and an SC status request are sent, and the 
+ * failed request is sent again if it's 
+ * {@link SIP2MessageRequest#isIdempotent() idempotent}. Only the end of
+ * the stream and socket errors are treated as a lost connection: read 
+ * timeouts and responses that exceed the maximum message size are 
+ * reported to the caller, and the connection is kept open.
+ * 
+ * On Java 11 and later, the connection emits Java Flight Recorder events
+ * of connecting, logging in and each request/response exchange, when the 
+ * events are enabled in a recording. The events don't contain any message
+ * fields.
  *  
  * @author Petteri Kivimäki
  */
-public class SIP2SocketConnection {
+public class SIP2SocketConnection implements SIP2AsyncSender {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SIP2SocketConnection.class);
 
@@ -69,8 +121,107 @@ public class SIP2SocketConnection {
      */ 
     private int timeout;
     private Socket socket = null;
-    private BufferedWriter out = null;
-    private BufferedReader in = null;
+    private OutputStream out = null;
+    private InputStream in = null;
+    /**
+     * Character set used for encoding and decoding the messages.
+     */
+    private Charset charset = Charset.defaultCharset();
+    /**
+     * Maximum size of a response message in bytes.
+     */
+    private int maxFrameSize = SIP2FrameDecoder.DEFAULT_MAX_FRAME_SIZE;
+    /**
+     * Splits the data read from the socket into messages. Created when
+     * connecting.
+     */
+    private SIP2FrameDecoder decoder;
+    /**
+     * Data read from the socket that hasn't been decoded yet.
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+    /**
+     * Buffer that the requests are encoded into. Grown when a request
+     * doesn't fit in it.
+     */
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(512);
+    /**
+     * Guarantees that only one request/response pair is in progress 
+     * at a time.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Maximum number of asynchronous requests waiting to be sent.
+     */
+    private int asyncQueueSize = 100;
+    /**
+     * Executor that completes the futures returned by the sendAsync method.
+     * If null, the futures are completed by the thread that sends the
+     * requests.
+     */
+    private Executor completionExecutor;
+    /**
+     * Sends the asynchronous requests. Created when the sendAsync method is
+     * called for the first time.
+     */
+    private ThreadPoolExecutor asyncExecutor;
+    /**
+     * Number of times a response with an invalid checksum is re-requested
+     * before the response is returned to the caller. Updated from the 
+     * SIP2ACSStatusResponse messages.
+     */
+    private volatile int retriesAllowed;
+    /**
+     * Number of responses received with an invalid checksum.
+     */
+    private final AtomicLong checksumFailureCount = new AtomicLong();
+    /**
+     * Number of SIP2RequestResend messages sent.
+     */
+    private final AtomicLong resendCount = new AtomicLong();
+    /**
+     * Rejects the requests that the ILS SIP server doesn't support.
+     * Updated from the SIP2ACSStatusResponse messages.
+     */
+    private final SIP2MessageGate gate = new SIP2MessageGate();
+    /**
+     * Registry where the metrics of the requests are recorded, or null if 
+     * the metrics are not recorded.
+     */
+    private volatile SIP2Metrics metrics;
+    /**
+     * Metrics of the request that's being sent. Accessed only while 
+     * holding the lock.
+     */
+    private SIP2MessageMetrics current;
+    /**
+     * Flight Recorder trace of the request that's being sent, or null if 
+     * the exchange event isn't enabled. Guarded by the lock.
+     */
+    private SIP2ExchangeTrace trace;
+    /**
+     * Login request that's sent after reconnecting. If null, login is
+     * not sent.
+     */
+    private SIP2LoginRequest loginRequest;
+    /**
+     * Maximum number of reconnect attempts after the connection has been
+     * lost. Zero disables reconnecting.
+     */
+    private int maxReconnectAttempts;
+    /**
+     * Upper limit of the first backoff delay in milliseconds. The limit 
+     * is doubled after each failed attempt.
+     */
+    private long reconnectBaseDelay = 500;
+    /**
+     * Maximum backoff delay in milliseconds.
+     */
+    private long reconnectMaxDelay = 30000;
+    /**
+     * Number of successful reconnects.
+     */
+    private final AtomicLong reconnectCount = new AtomicLong();
 
     /**
      * Constructs and initializes a new SIP2SocketConnection object with
@@ -102,13 +253,21 @@ public class SIP2SocketConnection {
      * @return true if the socket successfuly connected to a server
      */
     public boolean connect() {
+        Object event = SIP2Events.beginConnect();
         try {
             socket = new Socket();
             socket.connect(new InetSocketAddress(host, port), timeout);
-            out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream()));
-            in = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+            out = socket.getOutputStream();
+            in = socket.getInputStream();
+            decoder = new SIP2FrameDecoder(charset, maxFrameSize);
+            readBuffer.clear();
+            readBuffer.flip();
         } finally {
-            return socket.isConnected();
+            boolean connected = socket.isConnected();
+            if (event != null) {
+                SIP2Events.commitConnect(event, host, port, connected);
+            }
+            return connected;
         }      
     }
 
@@ -117,10 +276,12 @@ public class SIP2SocketConnection {
      * @return true if the socket has been closed
      */
     public boolean close() {
+        shutdownAsyncExecutor();
         try {
+            // Close the socket first to release a thread blocked in reading
+            socket.close();
             in.close();
             out.close();
-            socket.close();
         } finally {
             return socket.isClosed();
         }     
@@ -133,7 +294,7 @@ public class SIP2SocketConnection {
      */
     public boolean write(String data) {
         try {
-            out.write(data);
+            out.write(data.getBytes(charset));
             out.flush();
         } catch (java.io.IOException ex) {
             LOGGER.error(ex.getMessage(), ex);
@@ -143,41 +304,589 @@ public class SIP2SocketConnection {
     }
 
     /**
-     * Read a line of text. A line is considered to be terminated by 
-     * any one of a line feed ('\n'), a carriage return ('\r'), or a 
-     * carriage return followed immediately by a linefeed. The connection
-     * blocks until there's data available in the socket.
-     * @return A String containing the contents of the line, not including 
-     * any line-termination characters, or null if the end of the stream 
-     * has been reached 
+     * Encodes the given request into the reusable write buffer and sends
+     * it to the ILS SIP server using a single write operation.
+     * @param request request to be sent
+     * @return true if the operation succeeded
      */
-    public String read() {
+    private boolean write(SIP2MessageRequest request) {
+        while (true) {
+            writeBuffer.clear();
+            try {
+                request.encodeTo(writeBuffer, charset);
+                break;
+            } catch (BufferOverflowException ex) {
+                writeBuffer = ByteBuffer.allocate(writeBuffer.capacity() * 2);
+            }
+        }
+        long start = trace != null ? System.nanoTime() : 0;
         try {
-            return in.readLine();
+            out.write(writeBuffer.array(), 0, writeBuffer.position());
+            out.flush();
         } catch (java.io.IOException ex) {
             LOGGER.error(ex.getMessage(), ex);
+            return false;
+        }
+        if (current != null) {
+            current.addBytesSent(writeBuffer.position());
+        }
+        if (trace != null) {
+            trace.writeNanos += System.nanoTime() - start;
+            trace.requestBytes += writeBuffer.position();
+        }
+        return true;
+    }
+
+    /**
+     * Reads the next message. A message is terminated by a carriage 
+     * return ('\r'), and a line feed ('\n') following the carriage return 
+     * is ignored. The connection blocks until there's data available in 
+     * the socket. If the message exceeds the maximum message size, the
+     * message is discarded and null is returned.
+     * @return A String containing the message, not including the 
+     * terminator, or null if the end of the stream has been reached or 
+     * reading fails
+     */
+    public String read() {
+        try {
+            return readMessage();
+        } catch (InvalidSIP2ResponseException ex) {
+            LOGGER.error(ex.getMessage());
             return null;
         }
     }
+
+    /**
+     * Reads the next message like {@link #read() read}, but a read timeout
+     * and a message that exceeds the maximum message size are reported 
+     * with an exception. Only those failures that mean the connection has
+     * been lost return null.
+     * @return A String containing the message, not including the 
+     * terminator, or null if the end of the stream has been reached or 
+     * reading from the socket fails
+     * @throws InvalidSIP2ResponseException if reading times out or the 
+     * message is too long
+     */
+    private String readMessage() throws InvalidSIP2ResponseException {
+        long start = trace != null ? System.nanoTime() : 0;
+        try {
+            while (true) {
+                String message = decoder.decode(readBuffer);
+                if (message != null) {
+                    if (current != null) {
+                        current.addBytesReceived(decoder.getMessageLength());
+                    }
+                    if (trace != null) {
+                        trace.readNanos += System.nanoTime() - start;
+                        trace.responseBytes += decoder.getMessageLength();
+                    }
+                    return message;
+                }
+                int count = in.read(readBuffer.array(), 0, readBuffer.capacity());
+                if (count == -1) {
+                    return null;
+                }
+                readBuffer.position(0);
+                readBuffer.limit(count);
+            }
+        } catch (SocketTimeoutException ex) {
+            throw new InvalidSIP2ResponseException("Reading the response from the ILS SIP server " + host + ":" + port + " timed out.");
+        } catch (IOException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            return null;
+        }
+    }
+
     /**
      * Sends the given SIP2MessageRequest to the ILS SIP server and returns
      * the SIP2MessageResponse received. The connection blocks until 
-     * the response is received or an error occurs. 
+     * the response is received or an error occurs. If the checksum of the
+     * response doesn't match, the response is re-requested until a valid
+     * response is received or the retries allowed are used. After that
+     * the last response is returned. If reconnecting is enabled and the
+     * connection has been lost, the connection is re-established and 
+     * idempotent requests are sent again. A read timeout or a response
+     * that exceeds the maximum message size doesn't mean that the 
+     * connection has been lost, and they're reported to the caller 
+     * without reconnecting.
      * @param request SIP2MessageRequest to be sent
      * @return SIP2MessageResponse received from the ILS SIP server
-     * @throws InvalidSIP2ResponseException
+     * @throws InvalidSIP2ResponseException if reading the response times
+     * out, the response exceeds the maximum message size or it's invalid
      * @throws InvalidSIP2ResponseValueException 
+     * @throws SIP2UnsupportedMessageException if message gating is enabled
+     * and the ILS SIP server doesn't support the request
      */
     public SIP2MessageResponse send(SIP2MessageRequest request) throws InvalidSIP2ResponseException, InvalidSIP2ResponseValueException {
-        String data = request.getData();
-        LOGGER.debug("Request: {}", data);
-        if(write(data)) {
-            String response = read();
-            return SIP2ResponseFactory.getInstance().create(response);
+        gate.check(request);
+        if (LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Request: {}", request.getData());
+        }
+        lock.lock();
+        SIP2MessageResponse result = null;
+        long start = 0;
+        Object login = request instanceof SIP2LoginRequest ? SIP2Events.beginLogin() : null;
+        trace = SIP2Events.beginExchange();
+        try {
+            SIP2Metrics registry = metrics;
+            if (registry != null) {
+                current = registry.getMessageMetrics(host + ":" + port, request.getCode());
+                current.recordRequest();
+                start = System.nanoTime();
+            }
+            boolean sent = write(request);
+            String response = sent ? readMessage() : null;
+            if (response == null && recover(request)) {
+                sent = write(request);
+                response = sent ? readMessage() : null;
+            }
+            if (!sent) {
+                return null;
+            }
+            result = receive(response);
+            return result;
+        } finally {
+            if (current != null) {
+                if (result != null) {
+                    current.recordResponse(System.nanoTime() - start);
+                } else {
+                    current.recordError();
+                }
+                current = null;
+            }
+            if (trace != null) {
+                SIP2Events.commitExchange(trace, host, port, request.getCode(), result);
+                trace = null;
+            }
+            if (login != null) {
+                SIP2Events.commitLogin(login, host, port, result != null && result.isOk(), false);
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Parses the given response. If the checksum of the response doesn't
+     * match, the response is re-requested until a valid response is 
+     * received or the retries allowed are used.
+     * @param data response message data
+     * @return SIP2MessageResponse or null if sending a resend request fails
+     * @throws InvalidSIP2ResponseException
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    private SIP2MessageResponse receive(String data) throws InvalidSIP2ResponseException, InvalidSIP2ResponseValueException {
+        SIP2MessageResponse response = parse(data);
+        int retries = 0;
+        while (response.isChecksum() && !response.isValid()) {
+            checksumFailureCount.incrementAndGet();
+            if (current != null) {
+                current.recordChecksumFailure();
+            }
+            if (trace != null) {
+                trace.checksumFailures++;
+            }
+            if (retries >= retriesAllowed) {
+                LOGGER.warn("Invalid checksum in the response. No retries left. Response: {}", response.getData());
+                break;
+            }
+            retries++;
+            LOGGER.warn("Invalid checksum in the response. Requesting resend {}/{}.", retries, retriesAllowed);
+            SIP2RequestResend resend = new SIP2RequestResend();
+            resend.setErrorDetectionEnabled(true);
+            if (!write(resend)) {
+                return null;
+            }
+            resendCount.incrementAndGet();
+            if (current != null) {
+                current.recordResend();
+            }
+            if (trace != null) {
+                trace.resends++;
+            }
+            response = parse(readMessage());
+        }
+        if (response instanceof SIP2ACSStatusResponse) {
+            updateRetriesAllowed((SIP2ACSStatusResponse) response);
+            gate.update(response);
+        }
+        return response;
+    }
+
+    /**
+     * Parses the given response and attaches to it the result of the 
+     * checksum verification done by the decoder over the raw bytes of the
+     * message.
+     * @param data response message data
+     * @return SIP2MessageResponse
+     * @throws InvalidSIP2ResponseException
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    private SIP2MessageResponse parse(String data) throws InvalidSIP2ResponseException, InvalidSIP2ResponseValueException {
+        long start = trace != null ? System.nanoTime() : 0;
+        SIP2MessageResponse response = SIP2ResponseFactory.getInstance().create(data);
+        if (decoder.isChecksumPresent()) {
+            response.setChecksumValid(decoder.isChecksumValid());
+        }
+        if (trace != null) {
+            trace.parseNanos += System.nanoTime() - start;
         }
-        return null;
+        return response;
+    }
+
+    /**
+     * Re-establishes the connection after sending the given request has 
+     * failed, if reconnecting is enabled.
+     * @param request request that failed
+     * @return true if the connection was re-established and the request
+     * can be sent again, otherwise false
+     */
+    private boolean recover(SIP2MessageRequest request) {
+        if (maxReconnectAttempts <= 0) {
+            return false;
+        }
+        LOGGER.warn("Connection to the ILS SIP server {}:{} lost.", host, port);
+        if (!reconnect()) {
+            return false;
+        }
+        if (!request.isIdempotent()) {
+            LOGGER.warn("Request \"{}\" isn't idempotent and it's not sent again.", request.getCode());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reconnects to the ILS SIP server and repeats the login and SC status
+     * handshake. The delay before each attempt is chosen randomly between 
+     * zero and an upper limit that's doubled after each attempt.
+     * @return true if the connection was re-established, otherwise false
+     */
+    private boolean reconnect() {
+        long limit = reconnectBaseDelay;
+        for (int attempt = 1; attempt <= maxReconnectAttempts; attempt++) {
+            long delay = ThreadLocalRandom.current().nextLong(limit + 1);
+            LOGGER.info("Reconnecting to the ILS SIP server {}:{} in {} ms. Attempt {}/{}.", host, port, delay, attempt, maxReconnectAttempts);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            closeSocket();
+            if (connect() && handshake()) {
+                reconnectCount.incrementAndGet();
+                LOGGER.info("Reconnected to the ILS SIP server {}:{}.", host, port);
+                return true;
+            }
+            limit = Math.min(limit * 2, reconnectMaxDelay);
+        }
+        LOGGER.error("Unable to reconnect to the ILS SIP server {}:{}.", host, port);
+        return false;
+    }
+
+    /**
+     * Sends the stored login request and an SC status request after
+     * reconnecting.
+     * @return true if the login succeeded, otherwise false
+     */
+    private boolean handshake() {
+        try {
+            if (loginRequest != null) {
+                Object login = SIP2Events.beginLogin();
+                SIP2MessageResponse response = write(loginRequest) ? receive(readMessage()) : null;
+                boolean ok = response instanceof SIP2LoginResponse && response.isOk();
+                if (login != null) {
+                    SIP2Events.commitLogin(login, host, port, ok, true);
+                }
+                if (!ok) {
+                    LOGGER.warn("Login to the ILS SIP server {}:{} failed.", host, port);
+                    return false;
+                }
+            }
+            SIP2MessageResponse status = write(new SIP2SCStatusRequest()) ? receive(readMessage()) : null;
+            if (status instanceof SIP2ACSStatusResponse && !((SIP2ACSStatusResponse) status).isOnLineStatus()) {
+                LOGGER.warn("The ILS SIP server {}:{} is offline.", host, port);
+            }
+            return status != null;
+        } catch (InvalidSIP2ResponseException ex) {
+            LOGGER.warn(ex.getMessage());
+        } catch (InvalidSIP2ResponseValueException ex) {
+            LOGGER.warn(ex.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Closes the socket without stopping the asynchronous requests.
+     */
+    private void closeSocket() {
+        if (socket == null) {
+            return;
+        }
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            LOGGER.debug(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Updates the retries allowed from the given status response. The value
+     * 999 means that the number of retries is unknown, and it doesn't 
+     * change the current value.
+     * @param status status response
+     */
+    private void updateRetriesAllowed(SIP2ACSStatusResponse status) {
+        if (status.getRetriesAllowed() != 999) {
+            this.retriesAllowed = status.getRetriesAllowed();
+        }
+    }
+
+    /**
+     * Sends the given SIP2MessageRequest to the ILS SIP server without
+     * blocking the calling thread. The requests are queued and sent one at 
+     * a time in the order they were given. The returned future is completed
+     * with the SIP2MessageResponse received from the ILS SIP server, or 
+     * exceptionally if sending the request fails or the response is invalid.
+     * If the queue is full, the future is completed exceptionally with a
+     * SIP2ConnectionException. Cancelling the future before the request
+     * has been sent removes the request from the queue, so that it no 
+     * longer takes space in the queue and it's never sent. The futures are
+     * completed by the completion executor, if one has been set.
+     * @param request SIP2MessageRequest to be sent
+     * @return future that's completed with the SIP2MessageResponse
+     */
+    @Override
+    public CompletableFuture<SIP2MessageResponse> sendAsync(SIP2MessageRequest request) {
+        final AsyncRequest task = new AsyncRequest(request);
+        if (!gate.accepts(request)) {
+            task.future.completeExceptionally(new SIP2UnsupportedMessageException(request.getCode()));
+            return task.future;
+        }
+        final ThreadPoolExecutor executor = getAsyncExecutor();
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException ex) {
+            task.future.completeExceptionally(new SIP2ConnectionException("Request queue is full. Queue size: " + asyncQueueSize + ".", ex));
+            return task.future;
+        }
+        task.future.whenComplete(new BiConsumer<SIP2MessageResponse, Throwable>() {
+            @Override
+            public void accept(SIP2MessageResponse response, Throwable error) {
+                if (error instanceof CancellationException) {
+                    executor.remove(task);
+                }
+            }
+        });
+        return task.future;
+    }
+
+    /**
+     * Returns the executor that sends the asynchronous requests. The 
+     * executor is created when this method is called for the first time.
+     * @return executor that sends the asynchronous requests
+     */
+    private synchronized ThreadPoolExecutor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(asyncQueueSize), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "jsip2-async-" + host + ":" + port);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * Stops the executor that sends the asynchronous requests. The requests
+     * that have not been sent yet are completed exceptionally.
+     */
+    private synchronized void shutdownAsyncExecutor() {
+        if (asyncExecutor == null) {
+            return;
+        }
+        List<Runnable> pending = asyncExecutor.shutdownNow();
+        for (Runnable task : pending) {
+            ((AsyncRequest) task).complete(null, new SIP2ConnectionException("Connection is closed."));
+        }
+        asyncExecutor = null;
+    }
+
+    /**
+     * Sets the maximum number of asynchronous requests waiting to be sent.
+     * Must be set before the sendAsync method is called for the first time.
+     * The default value is 100.
+     * @param asyncQueueSize maximum number of queued requests
+     */
+    public void setAsyncQueueSize(int asyncQueueSize) {
+        this.asyncQueueSize = asyncQueueSize;
+    }
+
+    /**
+     * Sets the executor that completes the futures returned by the 
+     * sendAsync method. If the executor is not set, the futures are 
+     * completed by the thread that sends the requests, and the dependent
+     * actions should not block.
+     * @param completionExecutor executor or null
+     */
+    public void setCompletionExecutor(Executor completionExecutor) {
+        this.completionExecutor = completionExecutor;
     }
     
+    /**
+     * Sets the character set used for encoding the requests and decoding
+     * the responses. Must be set before connecting. The default value is 
+     * the default character set of the JVM.
+     * @param charset character set
+     */
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * Sets the maximum size of a response message in bytes. Must be set
+     * before connecting. The default value is 64 KiB.
+     * @param maxFrameSize maximum size in bytes
+     */
+    public void setMaxFrameSize(int maxFrameSize) {
+        this.maxFrameSize = maxFrameSize;
+    }
+
+    /**
+     * Returns the number of times a response with an invalid checksum is
+     * re-requested before it's returned to the caller.
+     * @return number of retries allowed
+     */
+    public int getRetriesAllowed() {
+        return retriesAllowed;
+    }
+
+    /**
+     * Sets the number of times a response with an invalid checksum is 
+     * re-requested before it's returned to the caller. The value is 
+     * overridden by each SIP2ACSStatusResponse received. The default 
+     * value is 0.
+     * @param retriesAllowed number of retries allowed
+     */
+    public void setRetriesAllowed(int retriesAllowed) {
+        this.retriesAllowed = retriesAllowed;
+    }
+
+    /**
+     * Returns true if and only if the requests that the ILS SIP server has
+     * reported as unsupported are rejected.
+     * @return true if message gating is enabled, otherwise false
+     */
+    public boolean isMessageGatingEnabled() {
+        return gate.isEnabled();
+    }
+
+    /**
+     * Sets the value that tells if the requests that the ILS SIP server has
+     * reported as unsupported in the latest SIP2ACSStatusResponse are 
+     * rejected with a {@link SIP2UnsupportedMessageException}. All the 
+     * requests are sent until the first SIP2ACSStatusResponse is received.
+     * The default value is false.
+     * @param messageGating new value
+     */
+    public void setMessageGatingEnabled(boolean messageGating) {
+        gate.setEnabled(messageGating);
+    }
+
+    /**
+     * Returns the supported messages of the latest SIP2ACSStatusResponse
+     * received.
+     * @return supported messages or null if no SIP2ACSStatusResponse has
+     * been received
+     */
+    public SupportedMessages getSupportedMessages() {
+        return gate.getSupportedMessages();
+    }
+
+    /**
+     * Returns the registry where the metrics of the requests are recorded.
+     * @return metrics registry or null
+     */
+    public SIP2Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets the registry where the metrics of the requests are recorded. 
+     * The metrics are kept per command identifier of the request and per 
+     * host:port of the ILS SIP server. By default the metrics are not 
+     * recorded.
+     * @param metrics metrics registry or null
+     */
+    public void setMetrics(SIP2Metrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns the number of responses received with an invalid checksum.
+     * @return number of responses with an invalid checksum
+     */
+    public long getChecksumFailureCount() {
+        return checksumFailureCount.get();
+    }
+
+    /**
+     * Returns the number of SIP2RequestResend messages sent.
+     * @return number of resend requests sent
+     */
+    public long getResendCount() {
+        return resendCount.get();
+    }
+
+    /**
+     * Sets the login request that's sent after reconnecting to the ILS 
+     * SIP server. If the login request is not set, the connection is 
+     * assumed not to require a login.
+     * @param loginRequest login request or null
+     */
+    public void setLoginRequest(SIP2LoginRequest loginRequest) {
+        this.loginRequest = loginRequest;
+    }
+
+    /**
+     * Sets the maximum number of reconnect attempts after the connection
+     * has been lost. Zero disables reconnecting. The default value is 0.
+     * @param maxReconnectAttempts maximum number of attempts
+     */
+    public void setMaxReconnectAttempts(int maxReconnectAttempts) {
+        this.maxReconnectAttempts = maxReconnectAttempts;
+    }
+
+    /**
+     * Sets the upper limit of the random delay before the first reconnect
+     * attempt in milliseconds. The limit is doubled after each failed 
+     * attempt. The default value is 500 milliseconds.
+     * @param reconnectBaseDelay delay in milliseconds
+     */
+    public void setReconnectBaseDelay(long reconnectBaseDelay) {
+        this.reconnectBaseDelay = reconnectBaseDelay;
+    }
+
+    /**
+     * Sets the maximum delay before a reconnect attempt in milliseconds.
+     * The default value is 30 seconds.
+     * @param reconnectMaxDelay delay in milliseconds
+     */
+    public void setReconnectMaxDelay(long reconnectMaxDelay) {
+        this.reconnectMaxDelay = reconnectMaxDelay;
+    }
+
+    /**
+     * Returns the number of times the connection has been re-established.
+     * @return number of successful reconnects
+     */
+    public long getReconnectCount() {
+        return reconnectCount.get();
+    }
+
     /**
      * Returns true if and only if the socket is connected to a server.
      * @return true if the socket is connected to a server, otherwise false
@@ -185,6 +894,15 @@ public class SIP2SocketConnection {
     public boolean connected() {
         return this.socket.isConnected();
     }
+
+    /**
+     * Returns true if and only if the socket has been closed or it
+     * hasn't been created yet.
+     * @return true if the socket is closed, otherwise false
+     */
+    public boolean closed() {
+        return this.socket == null || this.socket.isClosed();
+    }
     
     /**
      * Returns the socket used for the connection with the ILS SIP server.
@@ -201,4 +919,63 @@ public class SIP2SocketConnection {
     public void setSocket(Socket socket) {
         this.socket = socket;
     }
+
+    /**
+     * This class represents a request that's sent asynchronously.
+     */
+    private class AsyncRequest implements Runnable {
+
+        private final SIP2MessageRequest request;
+        private final CompletableFuture<SIP2MessageResponse> future = new CompletableFuture<SIP2MessageResponse>();
+
+        AsyncRequest(SIP2MessageRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                SIP2MessageResponse response = send(request);
+                if (response == null) {
+                    complete(null, new SIP2ConnectionException("Sending the request to the ILS SIP server failed."));
+                } else {
+                    complete(response, null);
+                }
+            } catch (Exception ex) {
+                complete(null, ex);
+            }
+        }
+
+        /**
+         * Completes the future using the completion executor, if it's set.
+         * @param response response or null
+         * @param error error or null
+         */
+        void complete(final SIP2MessageResponse response, final Throwable error) {
+            Runnable completion = new Runnable() {
+                @Override
+                public void run() {
+                    if (error == null) {
+                        future.complete(response);
+                    } else {
+                        future.completeExceptionally(error);
+                    }
+                }
+            };
+            Executor executor = completionExecutor;
+            if (executor == null) {
+                completion.run();
+                return;
+            }
+            try {
+                executor.execute(completion);
+            } catch (RejectedExecutionException ex) {
+                LOGGER.warn("Completion executor rejected the task. Completing in the current thread.");
+                completion.run();
+            }
+        }
+    }
 }
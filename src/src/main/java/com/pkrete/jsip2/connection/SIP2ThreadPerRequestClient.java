@@ -0,0 +1,162 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import com.pkrete.jsip2.exceptions.SIP2UnsupportedMessageException;
+import com.pkrete.jsip2.messages.SIP2MessageRequest;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * This class sends each request in its own thread using a connection
+ * borrowed from a {@link SIP2ConnectionPool SIP2ConnectionPool}. The 
+ * requests use the blocking I/O of 
+ * {@link SIP2SocketConnection SIP2SocketConnection}. 
+ * 
+ * On Java 21 and later the requests are run in virtual threads, which
+ * makes blocking while waiting for the ILS SIP server cheap. On earlier 
+ * versions platform threads are used. The number of concurrent requests 
+ * is limited by the maximum size of the connection pool.
+ * 
+ * @author Petteri Kivimäki
+ */
+public class SIP2ThreadPerRequestClient implements SIP2AsyncSender {
+
+    private final SIP2ConnectionPool pool;
+    private final ExecutorService executor;
+
+    /**
+     * Constructs and initializes a new SIP2ThreadPerRequestClient object 
+     * that uses the given connection pool. Virtual threads are used on 
+     * Java 21 and later.
+     * @param pool connection pool
+     */
+    public SIP2ThreadPerRequestClient(SIP2ConnectionPool pool) {
+        this(pool, SIP2Threads.newThreadPerTaskExecutor("jsip2-request"));
+    }
+
+    /**
+     * Constructs and initializes a new SIP2ThreadPerRequestClient object 
+     * that uses the given connection pool and executor.
+     * @param pool connection pool
+     * @param executor executor that runs the requests
+     */
+    public SIP2ThreadPerRequestClient(SIP2ConnectionPool pool, ExecutorService executor) {
+        this.pool = pool;
+        this.executor = executor;
+    }
+
+    /**
+     * Sends the given SIP2MessageRequest to the ILS SIP server in the 
+     * calling thread and returns the SIP2MessageResponse received. A 
+     * connection is borrowed from the pool for the duration of the request.
+     * @param request SIP2MessageRequest to be sent
+     * @return SIP2MessageResponse received from the ILS SIP server
+     * @throws SIP2ConnectionException if no connection is available or 
+     * sending the request fails
+     * @throws InvalidSIP2ResponseException
+     * @throws InvalidSIP2ResponseValueException 
+     * @throws SIP2UnsupportedMessageException if message gating is enabled
+     * in the pool and the ILS SIP server doesn't support the request
+     */
+    public SIP2MessageResponse send(SIP2MessageRequest request) throws SIP2ConnectionException, InvalidSIP2ResponseException, InvalidSIP2ResponseValueException {
+        pool.checkSupported(request);
+        SIP2SocketConnection connection = pool.borrow();
+        SIP2MessageResponse response;
+        try {
+            response = connection.send(request);
+        } catch (InvalidSIP2ResponseException ex) {
+            // The connection may be out of sync with the ILS SIP server
+            pool.invalidate(connection);
+            throw ex;
+        } catch (InvalidSIP2ResponseValueException ex) {
+            pool.release(connection);
+            throw ex;
+        } catch (SIP2UnsupportedMessageException ex) {
+            // The request was rejected without sending it
+            pool.release(connection);
+            throw ex;
+        } catch (RuntimeException ex) {
+            pool.invalidate(connection);
+            throw ex;
+        }
+        if (response == null) {
+            pool.invalidate(connection);
+            throw new SIP2ConnectionException("Sending the request to the ILS SIP server failed.");
+        }
+        pool.release(connection);
+        return response;
+    }
+
+    /**
+     * Sends the given SIP2MessageRequest to the ILS SIP server in a new
+     * thread. The returned future is completed by that thread.
+     * @param request SIP2MessageRequest to be sent
+     * @return future that's completed with the SIP2MessageResponse
+     */
+    @Override
+    public CompletableFuture<SIP2MessageResponse> sendAsync(final SIP2MessageRequest request) {
+        final CompletableFuture<SIP2MessageResponse> future = new CompletableFuture<SIP2MessageResponse>();
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (future.isDone()) {
+                        return;
+                    }
+                    try {
+                        future.complete(send(request));
+                    } catch (Exception ex) {
+                        future.completeExceptionally(ex);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(new SIP2ConnectionException("Client is closed.", ex));
+        }
+        return future;
+    }
+
+    /**
+     * Returns true if and only if the requests are run in virtual threads 
+     * by default. Virtual threads are used on Java 21 and later.
+     * @return true if virtual threads are used, otherwise false
+     */
+    public static boolean isVirtualThreadsSupported() {
+        return SIP2Threads.isVirtual();
+    }
+
+    /**
+     * Stops accepting new requests. The connection pool is not closed.
+     */
+    public void close() {
+        executor.shutdown();
+    }
+}
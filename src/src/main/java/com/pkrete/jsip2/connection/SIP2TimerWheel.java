@@ -0,0 +1,203 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+/**
+ * This class implements a hashed timer wheel that is used for scheduling
+ * request timeouts in the event loop. The wheel is not thread-safe and
+ * it must be accessed by the event loop thread only.
+ * 
+ * The time is divided into ticks, and each timeout is placed in the slot
+ * of the tick when it expires. Advancing the wheel runs the timeouts
+ * of the ticks that have passed. Scheduling and cancelling a timeout are
+ * constant-time operations.
+ * 
+ * @author Petteri Kivimäki
+ */
+class SIP2TimerWheel {
+
+    /**
+     * Duration of a tick in milliseconds.
+     */
+    private final long tickDuration;
+    /**
+     * Slots of the wheel. Each slot contains a linked list of timeouts.
+     */
+    private final Timeout[] slots;
+    /**
+     * Mask for calculating the slot of a tick.
+     */
+    private final int mask;
+    /**
+     * Time when the wheel was created in milliseconds.
+     */
+    private final long startTime;
+    /**
+     * The next tick to be processed.
+     */
+    private long currentTick;
+    /**
+     * Number of timeouts in the wheel, including the cancelled timeouts
+     * that have not been removed yet.
+     */
+    private int size;
+    /**
+     * First and last timeout that have expired during the current advance 
+     * and whose tasks have not been run yet. The expired timeouts are 
+     * linked with their next field, so advancing the wheel doesn't 
+     * allocate anything.
+     */
+    private Timeout expiredHead;
+    private Timeout expiredTail;
+
+    /**
+     * Constructs and initializes a new SIP2TimerWheel object.
+     * @param tickDuration duration of a tick in milliseconds
+     * @param slotCount number of slots, must be a power of two
+     * @param now current time in milliseconds
+     */
+    SIP2TimerWheel(long tickDuration, int slotCount, long now) {
+        if (Integer.bitCount(slotCount) != 1) {
+            throw new IllegalArgumentException("Slot count must be a power of two.");
+        }
+        this.tickDuration = tickDuration;
+        this.slots = new Timeout[slotCount];
+        this.mask = slotCount - 1;
+        this.startTime = now;
+    }
+
+    /**
+     * Schedules the given task to be run after the given delay.
+     * @param task task to be run
+     * @param delay delay in milliseconds
+     * @param now current time in milliseconds
+     * @return timeout that can be used for cancelling the task
+     */
+    Timeout schedule(Runnable task, long delay, long now) {
+        long deadline = (now - startTime + delay + tickDuration - 1) / tickDuration;
+        if (deadline < currentTick) {
+            deadline = currentTick;
+        }
+        Timeout timeout = new Timeout(task, deadline);
+        int index = (int) (deadline & mask);
+        timeout.next = slots[index];
+        slots[index] = timeout;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Runs the tasks of all the timeouts that have expired before the
+     * given time.
+     * @param now current time in milliseconds
+     */
+    void advance(long now) {
+        long target = (now - startTime) / tickDuration;
+        if (target < currentTick) {
+            return;
+        }
+        long ticks = Math.min(target - currentTick + 1, slots.length);
+        for (long i = 0; i < ticks; i++) {
+            expire((int) ((currentTick + i) & mask), target);
+        }
+        currentTick = target + 1;
+        Timeout timeout = expiredHead;
+        expiredHead = null;
+        expiredTail = null;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            timeout.next = null;
+            timeout.task.run();
+            timeout = next;
+        }
+    }
+
+    /**
+     * Removes the expired and cancelled timeouts from the given slot. The
+     * expired timeouts are appended to the list of expired timeouts.
+     * @param index index of the slot
+     * @param target the latest tick that has passed
+     */
+    private void expire(int index, long target) {
+        Timeout previous = null;
+        Timeout timeout = slots[index];
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.cancelled || timeout.deadline <= target) {
+                if (previous == null) {
+                    slots[index] = next;
+                } else {
+                    previous.next = next;
+                }
+                timeout.next = null;
+                size--;
+                if (!timeout.cancelled) {
+                    timeout.cancelled = true;
+                    if (expiredTail == null) {
+                        expiredHead = timeout;
+                    } else {
+                        expiredTail.next = timeout;
+                    }
+                    expiredTail = timeout;
+                }
+            } else {
+                previous = timeout;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Returns true if and only if the wheel doesn't contain any timeouts.
+     * @return true if the wheel is empty, otherwise false
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * This class represents a scheduled task.
+     */
+    static class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private boolean cancelled;
+        private Timeout next;
+
+        Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Cancels the timeout. The task is not run after the timeout has
+         * been cancelled.
+         */
+        void cancel() {
+            this.cancelled = true;
+        }
+    }
+}
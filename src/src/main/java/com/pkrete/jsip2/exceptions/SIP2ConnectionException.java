@@ -0,0 +1,54 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.exceptions;
+
+/**
+ * This class extends the Exception class and it represents an exception
+ * that occurs when a connection to the ILS SIP server can't be established
+ * or it can't be used for sending messages.
+ * 
+ * @author Petteri Kivimäki
+ */
+public class SIP2ConnectionException extends Exception {
+
+    /**
+     * Constructs and initializes a new SIP2ConnectionException object
+     * with the given error message.
+     * @param message error message that's shown
+     */
+    public SIP2ConnectionException(String message) {
+        super(message);
+    }
+
+    /**
+     * Constructs and initializes a new SIP2ConnectionException object
+     * with the given error message and cause.
+     * @param message error message that's shown
+     * @param cause the cause of the exception
+     */
+    public SIP2ConnectionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
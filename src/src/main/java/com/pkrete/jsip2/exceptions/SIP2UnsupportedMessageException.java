@@ -0,0 +1,59 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.exceptions;
+
+/**
+ * This class extends the UnsupportedOperationException class and it 
+ * represents an exception that occurs when a request is not sent, because
+ * the ILS SIP server has reported in the ACS Status response that it 
+ * doesn't support the message.
+ * 
+ * @author Petteri Kivimäki
+ */
+public class SIP2UnsupportedMessageException extends UnsupportedOperationException {
+
+    /**
+     * Command identifier of the request.
+     */
+    private final String code;
+
+    /**
+     * Constructs and initializes a new SIP2UnsupportedMessageException 
+     * object for the request with the given command identifier.
+     * @param code command identifier of the request
+     */
+    public SIP2UnsupportedMessageException(String code) {
+        super("ILS SIP server doesn't support the message: " + code + ".");
+        this.code = code;
+    }
+
+    /**
+     * Returns the command identifier of the request that was not sent.
+     * @return command identifier
+     */
+    public String getCode() {
+        return code;
+    }
+}
@@ -24,8 +24,10 @@
 package com.pkrete.jsip2.messages;
 
 import com.pkrete.jsip2.variables.CurrencyType;
+import com.pkrete.jsip2.util.DateTimeUtil;
 import com.pkrete.jsip2.variables.FeeType;
 import java.io.Serializable;
+import java.time.LocalDateTime;
 
 /**
  * This abstract class is a base class for all the SIP2 request and
@@ -57,6 +59,10 @@ public abstract class SIP2Message implements Serializable {
      * fixed-length field: YYYYMMDDZZZZHHMMSS.
      */
     protected String transactionDate;
+    /**
+     * Transaction date parsed on demand.
+     */
+    private transient ParsedDateTime transactionDateTime;
     /**
      * An identifying value for the patron, library card's barcode
      * number for example.
@@ -101,6 +107,10 @@ public abstract class SIP2Message implements Serializable {
      * The expiration date of the hold.
      */
     protected String expirationDate;
+    /**
+     * Expiration date parsed on demand.
+     */
+    private transient ParsedDateTime expirationDateTime;
     /**
      * The pickup location of the hold.
      */
@@ -225,6 +235,18 @@ public abstract class SIP2Message implements Serializable {
         return transactionDate;
     }
 
+    /**
+     * Returns the transaction date and time. The value is parsed when this
+     * method is called for the first time after the transaction date has
+     * changed.
+     * @return transaction date and time or null, if the transaction date
+     * is not set or it is not in the SIP2 format
+     */
+    public LocalDateTime getTransactionDateTime() {
+        transactionDateTime = parse(transactionDateTime, transactionDate);
+        return transactionDateTime.getValue();
+    }
+
     /**
      * Sets the transaction date and time. 
      * @param transactionDate new value: 18-char, 
@@ -395,6 +417,18 @@ public abstract class SIP2Message implements Serializable {
         return expirationDate;
     }
 
+    /**
+     * Returns the expiration date of the hold. The value is parsed when this
+     * method is called for the first time after the expiration date has
+     * changed.
+     * @return expiration date or null, if the expiration date is not set
+     * or it is not in the SIP2 format
+     */
+    public LocalDateTime getExpirationDateTime() {
+        expirationDateTime = parse(expirationDateTime, expirationDate);
+        return expirationDateTime.getValue();
+    }
+
     /**
      * Sets the expiration date of the hold. 18-char, 
      * fixed-length field: YYYYMMDDZZZZHHMMSS.
@@ -439,4 +473,46 @@ public abstract class SIP2Message implements Serializable {
     public void setBibId(String bibId) {
         this.bibId = bibId;
     }
+
+    /**
+     * Returns the given parsed date and time, if it has been parsed from
+     * the given value. Otherwise the value is parsed.
+     * @param parsed previously parsed date and time or null
+     * @param value date and time in SIP2 format
+     * @return parsed date and time of the given value
+     */
+    protected static ParsedDateTime parse(ParsedDateTime parsed, String value) {
+        if (parsed != null && parsed.source == value) {
+            return parsed;
+        }
+        return new ParsedDateTime(value, DateTimeUtil.parse(value));
+    }
+
+    /**
+     * Date and time field value together with the String it was parsed
+     * from. The field value is parsed again only if the String changes.
+     */
+    protected static final class ParsedDateTime {
+
+        private final String source;
+        private final LocalDateTime value;
+
+        /**
+         * Constructs and initializes a new ParsedDateTime object.
+         * @param source date and time in SIP2 format
+         * @param value parsed date and time or null
+         */
+        private ParsedDateTime(String source, LocalDateTime value) {
+            this.source = source;
+            this.value = value;
+        }
+
+        /**
+         * Returns the parsed date and time.
+         * @return parsed date and time or null
+         */
+        public LocalDateTime getValue() {
+            return value;
+        }
+    }
 }
@@ -25,6 +25,14 @@
 package com.pkrete.jsip2.messages;
 
 import com.pkrete.jsip2.util.MessageUtil;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 
 /**
  * This abstract class is a base class of the SIP2 request messages
@@ -34,6 +42,30 @@ import com.pkrete.jsip2.util.MessageUtil;
  */
 public abstract class SIP2MessageRequest extends SIP2Message {
 
+    /**
+     * Builder that's reused by the encodeTo method in each thread.
+     */
+    private static final ThreadLocal<StringBuilder> ENCODE_BUILDER = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+    /**
+     * Tells for each request class if it overrides the getData method 
+     * instead of the appendFields method.
+     */
+    private static final ClassValue<Boolean> OVERRIDES_GET_DATA = new ClassValue<Boolean>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            try {
+                return type.getMethod("getData").getDeclaringClass() != SIP2MessageRequest.class;
+            } catch (NoSuchMethodException ex) {
+                return false;
+            }
+        }
+    };
+
     /**
      * Password for the system to login to the ILS. If this feature is not 
      * used by the ILS in the library then the value should be empty if it's 
@@ -170,15 +202,154 @@ public abstract class SIP2MessageRequest extends SIP2Message {
         this.useFeeAcknowledged = useFeeAcknowledged;
     }
 
+    /**
+     * Returns a String presentation of this message, that is sent
+     * to the ILS SIP server. The message contains all the variables
+     * plus sequence and checksum values when error detection is enabled.
+     * @return message terminated by a carriage return
+     */
+    @Override
+    public String getData() {
+        StringBuilder builder = new StringBuilder(128);
+        appendFields(builder);
+        appendErrorDetection(builder);
+        builder.append('\r');
+        return builder.toString();
+    }
+
+    /**
+     * Encodes this message into the given buffer starting from its current
+     * position. The message is identical to the one returned by the
+     * {@link #getData() getData} method, but no String is created: the 
+     * message is built in a builder that's reused by the current thread
+     * and its characters are written directly into the buffer. The
+     * characters are written as single bytes when the character set is
+     * US-ASCII, ISO-8859-1 or UTF-8 and the message contains only ASCII
+     * characters, which is the case with most messages.
+     * @param buffer buffer in write mode
+     * @param charset character set used for encoding the message
+     * @return number of bytes written
+     * @throws BufferOverflowException if the buffer doesn't have enough 
+     * space for the message, in which case the position of the buffer is 
+     * not changed
+     */
+    public int encodeTo(ByteBuffer buffer, Charset charset) {
+        StringBuilder builder = ENCODE_BUILDER.get();
+        builder.setLength(0);
+        appendFields(builder);
+        appendErrorDetection(builder);
+        builder.append('\r');
+        int start = buffer.position();
+        int length = builder.length();
+        if (isAsciiCompatible(charset) && buffer.remaining() >= length) {
+            int i = 0;
+            while (i < length) {
+                char c = builder.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                buffer.put((byte) c);
+                i++;
+            }
+            if (i == length) {
+                return length;
+            }
+            buffer.position(start);
+        }
+        CharsetEncoder encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CoderResult result = encoder.encode(CharBuffer.wrap(builder), buffer, true);
+        if (!result.isOverflow()) {
+            result = encoder.flush(buffer);
+        }
+        if (result.isOverflow()) {
+            buffer.position(start);
+            throw new BufferOverflowException();
+        }
+        return buffer.position() - start;
+    }
+
+    /**
+     * Returns true if and only if ASCII characters are encoded as single
+     * bytes with the same values in the given character set.
+     * @param charset character set
+     * @return true if the character set is ASCII compatible
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        return charset.equals(StandardCharsets.US_ASCII) || charset.equals(StandardCharsets.ISO_8859_1) || charset.equals(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends the variables of this message to the given builder, 
+     * starting from the command identifier. Sequence and checksum values
+     * are not included. Subclasses should override this method. The 
+     * default implementation supports subclasses that only override the
+     * {@link #getData() getData} method: it appends the message returned 
+     * by getData without the sequence, the checksum and the terminator.
+     * @param builder builder that the message is appended to
+     * @throws IllegalStateException if the subclass overrides neither
+     * this method nor getData
+     */
+    protected void appendFields(StringBuilder builder) {
+        if (!OVERRIDES_GET_DATA.get(getClass())) {
+            throw new IllegalStateException(getClass().getName() + " must override appendFields.");
+        }
+        String data = getData();
+        int end = data.length();
+        if (end > 0 && data.charAt(end - 1) == '\r') {
+            end--;
+        }
+        if (errorDetectionEnabled && end >= 6 && data.startsWith("AZ", end - 6)) {
+            end -= 6;
+            if (end >= 3 && data.startsWith("AY", end - 3)) {
+                end -= 3;
+            }
+        }
+        builder.append(data, 0, end);
+    }
+
+    /**
+     * Appends the sequence number and the checksum to the given builder
+     * when error detection is enabled. The checksum is computed over the
+     * characters in the builder, without creating a String.
+     * @param builder builder that the message is appended to
+     */
+    protected void appendErrorDetection(StringBuilder builder) {
+        if (errorDetectionEnabled) {
+            builder.append("AY");
+            builder.append(getSequence());
+            builder.append("AZ");
+            this.checkSum = MessageUtil.computeChecksum(builder);
+            builder.append(checkSum);
+        }
+    }
+
+    /**
+     * Returns true if and only if sending this request again has the same
+     * effect as sending it once. Requests that only query information from
+     * the ILS are idempotent, and they can be retried safely if the 
+     * connection fails before the response is received. By default 
+     * requests are not idempotent.
+     * @return true if the request is idempotent, otherwise false
+     */
+    public boolean isIdempotent() {
+        return false;
+    }
+
     /**
      * Returns the checksum representing the binary sum of the characters 
      * included the message. The checksum is formed with four ASCII 
-     * charater digits.
+     * charater digits. The message is built in a builder that's reused
+     * by the current thread, so no String is created for it.
      * @return the checkSum
      */
     @Override
     public String getCheckSum() {
-        getData();
+        StringBuilder builder = ENCODE_BUILDER.get();
+        builder.setLength(0);
+        appendFields(builder);
+        appendErrorDetection(builder);
         return checkSum;
     }
 }
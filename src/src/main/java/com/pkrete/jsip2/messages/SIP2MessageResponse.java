@@ -25,6 +25,7 @@
 package com.pkrete.jsip2.messages;
 
 import com.pkrete.jsip2.variables.MediaType;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -62,6 +63,10 @@ public abstract class SIP2MessageResponse extends SIP2Message {
      * it wishes.
      */
     protected String dueDate;
+    /**
+     * Due date parsed on demand.
+     */
+    private transient ParsedDateTime dueDateTime;
     /**
      * The location where the item is normally stored.
      */
@@ -70,6 +75,15 @@ public abstract class SIP2MessageResponse extends SIP2Message {
      * Media type of the item.
      */
     protected MediaType mediaType;
+    /**
+     * True if the checksum has been verified over the raw bytes of the
+     * message when it was received.
+     */
+    private boolean checksumVerified;
+    /**
+     * Result of the checksum verification done over the raw bytes.
+     */
+    private boolean checksumValid;
 
     /**
      * Returns the checksum of the message.
@@ -87,6 +101,19 @@ public abstract class SIP2MessageResponse extends SIP2Message {
         this.data = data;
     }
 
+    /**
+     * Sets the result of the checksum verification done over the raw bytes
+     * of the message when it was received. The verified result takes
+     * precedence over the checksum calculated from the parsed fields, which
+     * can't reproduce fields unknown to this library.
+     * @param valid true if the checksum of the received message is valid,
+     * otherwise false
+     */
+    public void setChecksumValid(boolean valid) {
+        this.checksumVerified = true;
+        this.checksumValid = valid;
+    }
+
     /**
      * Returns true if and only if the requested action was allowable 
      * and completed succesfully. Otherwise returns false.
@@ -115,6 +142,17 @@ public abstract class SIP2MessageResponse extends SIP2Message {
         return dueDate;
     }
 
+    /**
+     * Returns the due date of the item. The value is parsed when this
+     * method is called for the first time after the due date has changed.
+     * @return due date or null, if the due date is not set or it is not
+     * in the SIP2 format
+     */
+    public LocalDateTime getDueDateTime() {
+        dueDateTime = parse(dueDateTime, dueDate);
+        return dueDateTime.getValue();
+    }
+
     /**
      * Sets the due date for the item.
      * @param dueDate new due date
@@ -217,12 +255,19 @@ public abstract class SIP2MessageResponse extends SIP2Message {
      * two checksums match, this reponse is valid. If the response
      * doesn't include a checksum, false is returned, because in this case
      * the validity of the response cannot be guaranteed.
+     * 
+     * If the checksum was already verified over the raw bytes of the message
+     * when it was received, the result of that verification is returned
+     * without calculating the checksum again.
      * @return true if the response is valid, otherwise false
      */
     public boolean isValid() {
         if (!isChecksum()) {
             return false;
         }
+        if (checksumVerified) {
+            return checksumValid;
+        }
         if (!checkSum.equals(countChecksum())) {
             return false;
         }
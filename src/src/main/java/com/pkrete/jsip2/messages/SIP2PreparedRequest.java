@@ -0,0 +1,488 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.messages;
+
+import com.pkrete.jsip2.messages.requests.SIP2CheckinRequest;
+import com.pkrete.jsip2.messages.requests.SIP2CirculationTransactionRequest;
+import com.pkrete.jsip2.util.MessageUtil;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class represents a reusable request whose constant fields are
+ * encoded only once. It's meant for self-service kiosks that send the
+ * same request over and over again, and where only a few fields, e.g.
+ * patron and item identifiers, change between the requests.
+ *
+ * A prepared request is created from a template request and the
+ * identifiers of the fields that change between the requests. The
+ * template is encoded once and split into constant parts and slots: the
+ * transaction date, the return date of a checkin or the no block due date
+ * of a checkout or renewal, and the given fields. The constant parts are kept
+ * as bytes together with the sums of their characters, so encoding a
+ * request only copies the constant bytes, writes the slot values and
+ * adds up the characters of the slot values for the checksum.
+ *
+ * <pre>
+ * SIP2CheckoutRequest template = new SIP2CheckoutRequest("institution", "", "");
+ * template.setTerminalPassword("password");
+ * SIP2PreparedRequest checkout = new SIP2PreparedRequest(template, "AA", "AB");
+ * ...
+ * checkout.reset();
+ * checkout.setField("AA", patronId);
+ * checkout.setField("AB", itemId);
+ * SIP2CheckoutResponse response = (SIP2CheckoutResponse) connection.send(checkout);
+ * </pre>
+ *
+ * The first field after the fixed length part of the message can't be a
+ * slot. Instances of this class are not thread safe: each thread should
+ * use its own prepared request.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2PreparedRequest extends SIP2MessageRequest {
+
+    /**
+     * Slot index of the transaction date.
+     */
+    private static final int DATE_SLOT = -1;
+    /**
+     * Slot index of the return date or the no block due date.
+     */
+    private static final int ITEM_DATE_SLOT = -2;
+    /**
+     * Hexadecimal digits used in the checksum.
+     */
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * True if the template is idempotent.
+     */
+    private final boolean idempotent;
+    /**
+     * Identifiers of the fields that change between the requests.
+     */
+    private final String[] codes;
+    /**
+     * Values of the fields in the template.
+     */
+    private final String[] defaults;
+    /**
+     * Current values of the fields.
+     */
+    private final String[] values;
+    /**
+     * Constant parts of the message. There's one more constant part than
+     * there are slots, and slot i is located between the parts i and i + 1.
+     */
+    private final String[] constants;
+    /**
+     * Constant parts encoded as bytes, or null if a part contains non-ASCII
+     * characters.
+     */
+    private final byte[][] constantBytes;
+    /**
+     * Slot indexes in the order they appear in the message. The value of
+     * the transaction date slot is {@link #DATE_SLOT}.
+     */
+    private final int[] order;
+    /**
+     * Sum of the characters of the constant parts.
+     */
+    private final int constantSum;
+    /**
+     * Total length of the constant parts.
+     */
+    private final int constantLength;
+    /**
+     * Return date of a checkin or no block due date of a checkout or
+     * renewal, or null if the template doesn't have one.
+     */
+    private String itemDate;
+
+    /**
+     * Constructs and initializes a new SIP2PreparedRequest object from the
+     * given template. The transaction date and the fields with the given
+     * identifiers can be changed between the requests, all the other fields
+     * are constant, except the return date of a checkin and the no block 
+     * due date of a checkout or renewal that are refreshed together with
+     * the transaction date. A blank no block due date stays blank. The error detection and sequence settings are copied
+     * from the template.
+     * @param template request that contains the constant fields
+     * @param codes two-character identifiers of the fields that change 
+     * between the requests
+     * @throws IllegalArgumentException if the template doesn't contain 
+     * a field with one of the given identifiers, or if the field is the 
+     * first field of the variable length part of the message
+     */
+    public SIP2PreparedRequest(SIP2MessageRequest template, String... codes) {
+        super(template.getCode());
+        StringBuilder builder = new StringBuilder(128);
+        template.appendFields(builder);
+        String message = builder.toString();
+        String date = template.getTransactionDate();
+        int dateStart = date == null ? -1 : message.indexOf(date, 2);
+        if (dateStart < 0) {
+            throw new IllegalArgumentException("Transaction date not found in the template.");
+        }
+        int dateEnd = dateStart + date.length();
+        String secondDate = getItemDate(template);
+        if (secondDate != null && (secondDate.trim().isEmpty() || !message.startsWith(secondDate, dateEnd))) {
+            secondDate = null;
+        }
+        int dates = secondDate == null ? 1 : 2;
+        int slots = codes.length + dates;
+        int[] starts = new int[slots];
+        int[] ends = new int[slots];
+        int[] indexes = new int[slots];
+        this.codes = codes.clone();
+        this.defaults = new String[codes.length];
+        this.values = new String[codes.length];
+        starts[0] = dateStart;
+        ends[0] = dateEnd;
+        indexes[0] = DATE_SLOT;
+        if (secondDate != null) {
+            starts[1] = dateEnd;
+            ends[1] = dateEnd + secondDate.length();
+            indexes[1] = ITEM_DATE_SLOT;
+        }
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i] == null || codes[i].length() != 2) {
+                throw new IllegalArgumentException("Invalid field identifier: " + codes[i]);
+            }
+            int start = message.indexOf("|" + codes[i]);
+            if (start < 0) {
+                throw new IllegalArgumentException("Field not found in the template: " + codes[i]);
+            }
+            start += 3;
+            int end = message.indexOf('|', start);
+            starts[i + dates] = start;
+            ends[i + dates] = end < 0 ? message.length() : end;
+            indexes[i + dates] = i;
+            this.defaults[i] = message.substring(start, ends[i + dates]);
+            this.values[i] = this.defaults[i];
+        }
+        sort(starts, ends, indexes);
+        this.order = indexes;
+        this.constants = new String[slots + 1];
+        this.constantBytes = new byte[slots + 1][];
+        int sum = 0;
+        int length = 0;
+        int position = 0;
+        for (int i = 0; i <= slots; i++) {
+            int end = i < slots ? starts[i] : message.length();
+            if (end < position) {
+                throw new IllegalArgumentException("Overlapping fields in the template.");
+            }
+            String constant = message.substring(position, end);
+            this.constants[i] = constant;
+            this.constantBytes[i] = toAscii(constant);
+            for (int j = 0; j < constant.length(); j++) {
+                sum += constant.charAt(j);
+            }
+            length += constant.length();
+            position = i < slots ? ends[i] : end;
+        }
+        this.constantSum = sum;
+        this.constantLength = length;
+        this.idempotent = template.isIdempotent();
+        this.transactionDate = date;
+        this.itemDate = secondDate;
+        this.errorDetectionEnabled = template.isErrorDetectionEnabled();
+        this.sequence = template.getSequence();
+    }
+
+    /**
+     * Returns the return date of the given checkin request, or the no block
+     * due date of the given checkout or renewal request.
+     * @param template template request
+     * @return date or null if the request doesn't have one
+     */
+    private static String getItemDate(SIP2MessageRequest template) {
+        if (template instanceof SIP2CheckinRequest) {
+            return ((SIP2CheckinRequest) template).getReturnDate();
+        }
+        if (template instanceof SIP2CirculationTransactionRequest) {
+            return ((SIP2CirculationTransactionRequest) template).getNbDueDate();
+        }
+        return null;
+    }
+
+    /**
+     * Sorts the slots by their start positions. The number of slots is 
+     * small, so insertion sort is used.
+     * @param starts start positions of the slots
+     * @param ends end positions of the slots
+     * @param indexes slot indexes
+     */
+    private static void sort(int[] starts, int[] ends, int[] indexes) {
+        for (int i = 1; i < starts.length; i++) {
+            for (int j = i; j > 0 && starts[j - 1] > starts[j]; j--) {
+                swap(starts, j);
+                swap(ends, j);
+                swap(indexes, j);
+            }
+        }
+    }
+
+    /**
+     * Swaps the values at the given index and the previous index.
+     * @param array array
+     * @param index index
+     */
+    private static void swap(int[] array, int index) {
+        int tmp = array[index];
+        array[index] = array[index - 1];
+        array[index - 1] = tmp;
+    }
+
+    /**
+     * Returns the given string as ASCII bytes, or null if it contains
+     * non-ASCII characters.
+     * @param str string to be converted
+     * @return ASCII bytes or null
+     */
+    private static byte[] toAscii(String str) {
+        byte[] bytes = new byte[str.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            char c = str.charAt(i);
+            if (c >= 0x80) {
+                return null;
+            }
+            bytes[i] = (byte) c;
+        }
+        return bytes;
+    }
+
+    /**
+     * Restores the values of the fields from the template and sets the
+     * transaction date, and the return date or the no block due date, to
+     * the current date and time. Only the date string is created, so the 
+     * same request can be reused for every transaction.
+     */
+    public void reset() {
+        System.arraycopy(defaults, 0, values, 0, values.length);
+        this.transactionDate = MessageUtil.getSipDateTime();
+        if (itemDate != null) {
+            this.itemDate = transactionDate;
+        }
+    }
+
+    /**
+     * Returns the identifiers of the fields that change between the requests.
+     * @return field identifiers
+     */
+    public String[] getFieldCodes() {
+        return codes.clone();
+    }
+
+    /**
+     * Returns the current value of the field with the given identifier.
+     * @param code two-character field identifier
+     * @return value of the field
+     * @throws IllegalArgumentException if the field is not a slot of this
+     * request
+     */
+    public String getField(String code) {
+        return values[indexOf(code)];
+    }
+
+    /**
+     * Sets the value of the field with the given identifier. Null value is
+     * encoded as an empty value.
+     * @param code two-character field identifier
+     * @param value new value
+     * @throws IllegalArgumentException if the field is not a slot of this
+     * request
+     */
+    public void setField(String code, String value) {
+        values[indexOf(code)] = value == null ? "" : value;
+    }
+
+    /**
+     * Returns the slot index of the field with the given identifier.
+     * @param code two-character field identifier
+     * @return slot index
+     * @throws IllegalArgumentException if the field is not a slot of this
+     * request
+     */
+    private int indexOf(String code) {
+        for (int i = 0; i < codes.length; i++) {
+            if (codes[i].equals(code)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Field is not a slot of the prepared request: " + code);
+    }
+
+    /**
+     * Returns the value of the given slot.
+     * @param slot slot index
+     * @return value of the slot
+     */
+    private String valueOf(int slot) {
+        if (slot == DATE_SLOT) {
+            return transactionDate;
+        }
+        return slot == ITEM_DATE_SLOT ? itemDate : values[slot];
+    }
+
+    @Override
+    protected void appendFields(StringBuilder builder) {
+        builder.append(constants[0]);
+        for (int i = 0; i < order.length; i++) {
+            builder.append(valueOf(order[i]));
+            builder.append(constants[i + 1]);
+        }
+    }
+
+    /**
+     * Encodes this message into the given buffer starting from its current
+     * position. When the character set is ASCII compatible and the slot
+     * values contain only ASCII characters, the constant parts are copied
+     * as such and the checksum is computed from their precomputed sum and 
+     * the characters of the slot values. Otherwise the message is encoded
+     * like any other request.
+     * @param buffer buffer in write mode
+     * @param charset character set used for encoding the message
+     * @return number of bytes written
+     * @throws BufferOverflowException if the buffer doesn't have enough 
+     * space for the message, in which case the position of the buffer is 
+     * not changed
+     */
+    @Override
+    public int encodeTo(ByteBuffer buffer, Charset charset) {
+        if (!isAsciiCompatible(charset)) {
+            return super.encodeTo(buffer, charset);
+        }
+        int length = constantLength;
+        for (int i = 0; i < order.length; i++) {
+            length += valueOf(order[i]).length();
+        }
+        if (errorDetectionEnabled) {
+            length += 8 + digits(sequence);
+        }
+        length++;
+        if (buffer.remaining() < length) {
+            return super.encodeTo(buffer, charset);
+        }
+        int start = buffer.position();
+        int sum = constantSum;
+        for (int i = 0; i <= order.length; i++) {
+            if (constantBytes[i] == null) {
+                buffer.position(start);
+                return super.encodeTo(buffer, charset);
+            }
+            buffer.put(constantBytes[i]);
+            if (i == order.length) {
+                break;
+            }
+            String value = valueOf(order[i]);
+            for (int j = 0; j < value.length(); j++) {
+                char c = value.charAt(j);
+                if (c >= 0x80) {
+                    buffer.position(start);
+                    return super.encodeTo(buffer, charset);
+                }
+                buffer.put((byte) c);
+                sum += c;
+            }
+        }
+        if (errorDetectionEnabled) {
+            sum += putAscii(buffer, "AY");
+            sum += putInt(buffer, sequence);
+            sum += putAscii(buffer, "AZ");
+            int checksum = -(sum & 0xFFFF) & 0xFFFF;
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                buffer.put((byte) HEX_DIGITS[(checksum >>> shift) & 0xF]);
+            }
+        }
+        buffer.put((byte) '\r');
+        return buffer.position() - start;
+    }
+
+    /**
+     * Writes the given ASCII string into the buffer.
+     * @param buffer buffer in write mode
+     * @param str ASCII string
+     * @return sum of the characters
+     */
+    private static int putAscii(ByteBuffer buffer, String str) {
+        int sum = 0;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            buffer.put((byte) c);
+            sum += c;
+        }
+        return sum;
+    }
+
+    /**
+     * Writes the decimal digits of the given non-negative number into
+     * the buffer.
+     * @param buffer buffer in write mode
+     * @param value non-negative number
+     * @return sum of the digit characters
+     */
+    private static int putInt(ByteBuffer buffer, int value) {
+        int divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        int sum = 0;
+        for (; divisor > 0; divisor /= 10) {
+            char c = (char) ('0' + (value / divisor) % 10);
+            buffer.put((byte) c);
+            sum += c;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the number of decimal digits in the given non-negative number.
+     * @param value non-negative number
+     * @return number of digits
+     */
+    private static int digits(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    /**
+     * Returns true if and only if the template of this request is 
+     * idempotent.
+     * @return true if the request is idempotent, otherwise false
+     */
+    @Override
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+}
@@ -26,6 +26,8 @@ package com.pkrete.jsip2.messages;
 
 import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
 import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import com.pkrete.jsip2.messages.views.SIP2PatronInformationView;
+import com.pkrete.jsip2.messages.views.SIP2ResponseView;
 import com.pkrete.jsip2.parser.SIP2CheckinResponseParser;
 import com.pkrete.jsip2.parser.SIP2CheckoutResponseParser;
 import com.pkrete.jsip2.parser.SIP2EndSessionResponseParser;
@@ -41,6 +43,12 @@ import com.pkrete.jsip2.parser.SIP2RenewAllResponseParser;
 import com.pkrete.jsip2.parser.SIP2RenewResponseParser;
 import com.pkrete.jsip2.parser.SIP2ResponseParser;
 import com.pkrete.jsip2.parser.SIP2ACSStatusResponseParser;
+import com.pkrete.jsip2.parser.SIP2ResponseParserProvider;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -51,33 +59,98 @@ import org.slf4j.LoggerFactory;
  * This class implements the Singleton design pattern, which means that 
  * only one instance is created at run time.
  * 
+ * The parsers are stored in a table indexed by the command identifier and
+ * shared by all the threads. Parsers for vendor specific messages can be
+ * added with {@link #register(String, SIP2ResponseParser)} or by
+ * implementing SIP2ResponseParserProvider.
+ * 
  * @author Petteri Kivimäki
  */
 public class SIP2ResponseFactory {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SIP2ResponseFactory.class);
 
+    /**
+     * Number of different command identifiers consisting of two ASCII
+     * characters.
+     */
+    private static final int CODE_COUNT = 128 * 128;
     /**
      * Reference to the singleton object.
      */
-    private static SIP2ResponseFactory ref;
+    private static final SIP2ResponseFactory REF = new SIP2ResponseFactory();
+    /**
+     * Parsers indexed by command identifier. The parsers are stateless and
+     * shared by all the threads.
+     */
+    private final AtomicReferenceArray<SIP2ResponseParser> parsers;
 
     /**
-     * Constructs and initializes a new SIPResponseFactory object.
+     * Constructs and initializes a new SIPResponseFactory object. The
+     * parsers of this library are registered first, and then the parsers
+     * of the SIP2ResponseParserProvider implementations found with
+     * ServiceLoader.
      */
     private SIP2ResponseFactory() {
+        parsers = new AtomicReferenceArray<SIP2ResponseParser>(CODE_COUNT);
+        register("94", new SIP2LoginResponseParser());
+        register("98", new SIP2ACSStatusResponseParser());
+        register("24", new SIP2PatronStatusResponseParser());
+        register("64", new SIP2PatronInformationResponseParser());
+        register("10", new SIP2CheckinResponseParser());
+        register("12", new SIP2CheckoutResponseParser());
+        register("36", new SIP2EndSessionResponseParser());
+        register("38", new SIP2FeePaidResponseParser());
+        register("18", new SIP2ItemInformationResponseParser());
+        register("20", new SIP2ItemStatusUpdateResponseParser());
+        register("26", new SIP2PatronEnableResponseParser());
+        register("16", new SIP2HoldResponseParser());
+        register("30", new SIP2RenewResponseParser());
+        register("66", new SIP2RenewAllResponseParser());
+        loadProviders();
     }
 
     /**
-     * Returns a reference to the singleton object. The object is created when
-     * this method is called for the first time.
+     * Returns a reference to the singleton object.
      * @return reference to the singleton object
      */
     public static SIP2ResponseFactory getInstance() {
-        if (ref == null) {
-            ref = new SIP2ResponseFactory();
+        return REF;
+    }
+
+    /**
+     * Registers the given parser for the given command identifier. If
+     * another parser has already been registered for the same command
+     * identifier, it is replaced. The parser is shared by all the threads,
+     * so it must not hold any state between the parse calls.
+     * @param code 2-char command identifier consisting of ASCII characters
+     * @param parser parser for the response messages with the given 
+     * command identifier
+     */
+    public void register(String code, SIP2ResponseParser parser) {
+        if (parser == null) {
+            throw new IllegalArgumentException("Parser can't be null.");
+        }
+        int index = code == null || code.length() != 2 ? -1 : index(code);
+        if (index == -1) {
+            throw new IllegalArgumentException("Command identifier must be two ASCII characters. Command identifier: " + code);
         }
-        return ref;
+        SIP2ResponseParser previous = parsers.getAndSet(index, parser);
+        if (previous != null && previous.getClass() != parser.getClass()) {
+            LOGGER.info("Parser {} replaced with {}. Command identifier: {}", previous.getClass().getName(), parser.getClass().getName(), code);
+        }
+    }
+
+    /**
+     * Returns true if and only if a parser is registered for the given
+     * command identifier.
+     * @param code 2-char command identifier
+     * @return true if the response messages with the given command 
+     * identifier can be parsed, otherwise false
+     */
+    public boolean isSupported(String code) {
+        int index = code == null || code.length() != 2 ? -1 : index(code);
+        return index != -1 && parsers.get(index) != null;
     }
 
     /**
@@ -100,55 +173,71 @@ public class SIP2ResponseFactory {
             LOGGER.error("Response message is too short.");
             throw new InvalidSIP2ResponseException("Response message is too short.");
         }
+        // Get the parser by the command identifier
+        int index = index(data);
+        SIP2ResponseParser parser = index == -1 ? null : parsers.get(index);
+        if (parser == null) {
+            String code = data.substring(0, 2);
+            LOGGER.error("Unsupported response type! Command identifier: {}", code);
+            throw new InvalidSIP2ResponseException("Unsupported response type! Command identifier: " + code);
+        }
+        return parser.parse(data);
+    }
+
+    /**
+     * Creates a lazy view of the given response message. The fields of the
+     * message are parsed only when they're accessed. A typed view is
+     * returned for patron information responses, and a generic view for
+     * all the other messages.
+     * @param data message response data
+     * @return lazy view of the message
+     * @throws InvalidSIP2ResponseException if the message is too short
+     */
+    public SIP2ResponseView createView(String data) throws InvalidSIP2ResponseException {
+        if (data != null && data.startsWith("64")) {
+            return new SIP2PatronInformationView(data);
+        }
+        return new SIP2ResponseView(data);
+    }
 
-        SIP2ResponseParser parser = null;
-        // Get the command identifier
-        String code = data.substring(0, 2);
+    /**
+     * Registers the parsers of the SIP2ResponseParserProvider 
+     * implementations found with ServiceLoader. A provider that fails to
+     * load is skipped.
+     */
+    private void loadProviders() {
+        Iterator<SIP2ResponseParserProvider> providers = ServiceLoader.load(SIP2ResponseParserProvider.class).iterator();
+        while (true) {
+            try {
+                if (!providers.hasNext()) {
+                    return;
+                }
+                SIP2ResponseParserProvider provider = providers.next();
+                for (Map.Entry<String, SIP2ResponseParser> entry : provider.getParsers().entrySet()) {
+                    register(entry.getKey(), entry.getValue());
+                }
+                LOGGER.debug("Response parsers loaded from {}.", provider.getClass().getName());
+            } catch (ServiceConfigurationError error) {
+                LOGGER.error("Loading response parsers failed.", error);
+            } catch (IllegalArgumentException ex) {
+                LOGGER.error("Loading response parsers failed. {}", ex.getMessage());
+            }
+        }
+    }
 
-        if (code.equals("94")) {
-            parser = new SIP2LoginResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("98")) {
-            parser = new SIP2ACSStatusResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("24")) {
-            parser = new SIP2PatronStatusResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("64")) {
-            parser = new SIP2PatronInformationResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("10")) {
-            parser = new SIP2CheckinResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("12")) {
-            parser = new SIP2CheckoutResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("36")) {
-            parser = new SIP2EndSessionResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("38")) {
-            parser = new SIP2FeePaidResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("18")) {
-            parser = new SIP2ItemInformationResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("20")) {
-            parser = new SIP2ItemStatusUpdateResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("26")) {
-            parser = new SIP2PatronEnableResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("16")) {
-            parser = new SIP2HoldResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("30")) {
-            parser = new SIP2RenewResponseParser();
-            return parser.parse(data);
-        } else if (code.equals("66")) {
-            parser = new SIP2RenewAllResponseParser();
-            return parser.parse(data);
+    /**
+     * Returns the index of the command identifier in the beginning of the
+     * given characters.
+     * @param data characters starting with the command identifier
+     * @return index of the command identifier or -1 if the command 
+     * identifier contains non-ASCII characters
+     */
+    private static int index(CharSequence data) {
+        char first = data.charAt(0);
+        char second = data.charAt(1);
+        if (first >= 128 || second >= 128) {
+            return -1;
         }
-        LOGGER.error("Unsupported response type! Command identifier: {}", code);
-        throw new InvalidSIP2ResponseException("Unsupported response type! Command identifier: " + code);
+        return (first << 7) | second;
     }
 }
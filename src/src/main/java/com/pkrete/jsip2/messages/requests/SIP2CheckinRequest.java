@@ -131,14 +131,14 @@ public class SIP2CheckinRequest extends SIP2CirculationTransactionRequest {
         this.returnDate = returnDate;
     }
 
-    @Override
     /**
-     * Returns a String presentation of this message, that is sent
-     * to the ILS SIP server. The message contains all the variables
-     * plus sequence and checksum values when error detection is enabled.
+     * Appends the variables of this message to the given builder. Sequence
+     * and checksum values are appended after the variables when error 
+     * detection is enabled.
+     * @param builder builder that the message is appended to
      */
-    public String getData() {
-        StringBuilder builder = new StringBuilder();
+    @Override
+    protected void appendFields(StringBuilder builder) {
         builder.append(code);
         builder.append(StringUtil.bool2Char(this.noBlock));
         builder.append(transactionDate);
@@ -160,14 +160,5 @@ public class SIP2CheckinRequest extends SIP2CirculationTransactionRequest {
             builder.append(StringUtil.bool2Char(this.cancel));
         }
         builder.append("|");
-
-        if (errorDetectionEnabled) {
-            builder.append("AY");
-            builder.append(getSequence());
-            builder.append("AZ");
-            this.checkSum = MessageUtil.computeChecksum(builder.toString());
-            builder.append(checkSum);
-        }
-        return builder.toString() + '\r';
     }
 }
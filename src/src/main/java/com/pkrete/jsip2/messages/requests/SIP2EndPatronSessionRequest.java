@@ -25,7 +25,6 @@ package com.pkrete.jsip2.messages.requests;
 
 import com.pkrete.jsip2.messages.responses.SIP2EndSessionResponse;
 import com.pkrete.jsip2.messages.SIP2MessageRequest;
-import com.pkrete.jsip2.util.MessageUtil;
 
 /**
  * This class represents the message that is sent when a patron has completed
@@ -71,14 +70,14 @@ public class SIP2EndPatronSessionRequest extends SIP2MessageRequest {
         this.patronPassword = patronPasswd;
     }
 
-    @Override
     /**
-     * Returns a String presentation of this message, that is sent
-     * to the ILS SIP server. The message contains all the variables
-     * plus sequence and checksum values when error detection is enabled.
+     * Appends the variables of this message to the given builder. Sequence
+     * and checksum values are appended after the variables when error 
+     * detection is enabled.
+     * @param builder builder that the message is appended to
      */
-    public String getData() {
-        StringBuilder builder = new StringBuilder();
+    @Override
+    protected void appendFields(StringBuilder builder) {
         builder.append(code);
         builder.append(transactionDate);
 
@@ -96,15 +95,15 @@ public class SIP2EndPatronSessionRequest extends SIP2MessageRequest {
         }
 
         builder.append("|");
+    }
 
-        if (errorDetectionEnabled) {
-            builder.append("AY");
-            builder.append(getSequence());
-            builder.append("AZ");
-            this.checkSum = MessageUtil.computeChecksum(builder.toString());
-            builder.append(checkSum);
-        }
-        return builder.toString() + '\r';
+    /**
+     * Ending a patron session that has already been ended has no
+     * further effect.
+     * @return true
+     */
+    @Override
+    public boolean isIdempotent() {
+        return true;
     }
 }
-
@@ -25,7 +25,6 @@ package com.pkrete.jsip2.messages.requests;
 
 import com.pkrete.jsip2.messages.responses.SIP2FeePaidResponse;
 import com.pkrete.jsip2.messages.SIP2MessageRequest;
-import com.pkrete.jsip2.util.MessageUtil;
 import com.pkrete.jsip2.variables.CurrencyType;
 import com.pkrete.jsip2.variables.FeeType;
 import com.pkrete.jsip2.variables.PaymentType;
@@ -123,14 +122,14 @@ public class SIP2FeePaidRequest extends SIP2MessageRequest {
         this.feeIdentifier = feeIdentifier;
     }
 
-    @Override
     /**
-     * Returns a String presentation of this message, that is sent
-     * to the ILS SIP server. The message contains all the variables
-     * plus sequence and checksum values when error detection is enabled.
+     * Appends the variables of this message to the given builder. Sequence
+     * and checksum values are appended after the variables when error 
+     * detection is enabled.
+     * @param builder builder that the message is appended to
      */
-    public String getData() {
-        StringBuilder builder = new StringBuilder();
+    @Override
+    protected void appendFields(StringBuilder builder) {
         builder.append(code);
         builder.append(transactionDate);
         builder.append(feeType);
@@ -161,14 +160,5 @@ public class SIP2FeePaidRequest extends SIP2MessageRequest {
             builder.append(transactionId);
         }
         builder.append("|");
-
-        if (errorDetectionEnabled) {
-            builder.append("AY");
-            builder.append(getSequence());
-            builder.append("AZ");
-            this.checkSum = MessageUtil.computeChecksum(builder.toString());
-            builder.append(checkSum);
-        }
-        return builder.toString() + '\r';
     }
 }
@@ -25,7 +25,6 @@ package com.pkrete.jsip2.messages.requests;
 
 import com.pkrete.jsip2.messages.responses.SIP2ItemInformationResponse;
 import com.pkrete.jsip2.messages.SIP2MessageRequest;
-import com.pkrete.jsip2.util.MessageUtil;
 
 /**
  * This class represents the message that is used to request item information.
@@ -81,14 +80,14 @@ public class SIP2ItemInformationRequest extends SIP2MessageRequest {
         this.itemIdentifier = itemId;
     }
 
-    @Override
     /**
-     * Returns a String presentation of this message, that is sent
-     * to the ILS SIP server. The message contains all the variables
-     * plus sequence and checksum values when error detection is enabled.
+     * Appends the variables of this message to the given builder. Sequence
+     * and checksum values are appended after the variables when error 
+     * detection is enabled.
+     * @param builder builder that the message is appended to
      */
-    public String getData() {
-        StringBuilder builder = new StringBuilder();
+    @Override
+    protected void appendFields(StringBuilder builder) {
         builder.append(code);
         builder.append(transactionDate);
 
@@ -102,14 +101,15 @@ public class SIP2ItemInformationRequest extends SIP2MessageRequest {
         }
 
         builder.append("|");
+    }
 
-        if (errorDetectionEnabled) {
-            builder.append("AY");
-            builder.append(getSequence());
-            builder.append("AZ");
-            this.checkSum = MessageUtil.computeChecksum(builder.toString());
-            builder.append(checkSum);
-        }
-        return builder.toString() + '\r';
+    /**
+     * Item information request doesn't change the state of the item, and
+     * it can be sent again safely.
+     * @return true
+     */
+    @Override
+    public boolean isIdempotent() {
+        return true;
     }
 }
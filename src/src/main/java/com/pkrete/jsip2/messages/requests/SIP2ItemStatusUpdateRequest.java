@@ -25,7 +25,6 @@ package com.pkrete.jsip2.messages.requests;
 
 import com.pkrete.jsip2.messages.responses.SIP2ItemStatusUpdateResponse;
 import com.pkrete.jsip2.messages.SIP2MessageRequest;
-import com.pkrete.jsip2.util.MessageUtil;
 
 /**
  * This class represents the message that is used to send item information
@@ -88,14 +87,14 @@ public class SIP2ItemStatusUpdateRequest extends SIP2MessageRequest {
         this.itemIdentifier = itemId;
     }
 
-    @Override
     /**
-     * Returns a String presentation of this message, that is sent
-     * to the ILS SIP server. The message contains all the variables
-     * plus sequence and checksum values when error detection is enabled.
+     * Appends the variables of this message to the given builder. Sequence
+     * and checksum values are appended after the variables when error 
+     * detection is enabled.
+     * @param builder builder that the message is appended to
      */
-    public String getData() {
-        StringBuilder builder = new StringBuilder();
+    @Override
+    protected void appendFields(StringBuilder builder) {
         builder.append(code);
         builder.append(transactionDate);
 
@@ -111,14 +110,5 @@ public class SIP2ItemStatusUpdateRequest extends SIP2MessageRequest {
         builder.append(itemProperties);
 
         builder.append("|");
-
-        if (errorDetectionEnabled) {
-            builder.append("AY");
-            builder.append(getSequence());
-            builder.append("AZ");
-            this.checkSum = MessageUtil.computeChecksum(builder.toString());
-            builder.append(checkSum);
-        }
-        return builder.toString() + '\r';
     }
 }
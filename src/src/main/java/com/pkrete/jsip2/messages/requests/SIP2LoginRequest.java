@@ -25,7 +25,6 @@ package com.pkrete.jsip2.messages.requests;
 
 import com.pkrete.jsip2.messages.responses.SIP2LoginResponse;
 import com.pkrete.jsip2.messages.SIP2MessageRequest;
-import com.pkrete.jsip2.util.MessageUtil;
 
 /**
  * This class represents the message that is used to login to an ILS SIP 
@@ -141,14 +140,14 @@ public class SIP2LoginRequest extends SIP2MessageRequest {
         this.circulationLocation = circulationLocation;
     }
 
-    @Override
     /**
-     * Returns a String presentation of this message, that is sent
-     * to the ILS SIP server. The message contains all the variables
-     * plus sequence and checksum values when error detection is enabled.
+     * Appends the variables of this message to the given builder. Sequence
+     * and checksum values are appended after the variables when error 
+     * detection is enabled.
+     * @param builder builder that the message is appended to
      */
-    public String getData() {
-        StringBuilder builder = new StringBuilder();
+    @Override
+    protected void appendFields(StringBuilder builder) {
         builder.append(code);
         builder.append(UIDAlgorithm);
         builder.append(PWDAlgorithm);
@@ -161,14 +160,15 @@ public class SIP2LoginRequest extends SIP2MessageRequest {
             builder.append(circulationLocation);
         }
         builder.append("|");
+    }
 
-        if (errorDetectionEnabled) {
-            builder.append("AY");
-            builder.append(getSequence());
-            builder.append("AZ");
-            this.checkSum = MessageUtil.computeChecksum(builder.toString());
-            builder.append(checkSum);
-        }
-        return builder.toString() + '\r';
+    /**
+     * Logging in again with the same credentials has the same effect as
+     * logging in once.
+     * @return true
+     */
+    @Override
+    public boolean isIdempotent() {
+        return true;
     }
 }
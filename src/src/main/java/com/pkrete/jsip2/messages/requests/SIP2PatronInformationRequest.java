@@ -24,7 +24,6 @@
 package com.pkrete.jsip2.messages.requests;
 
 import com.pkrete.jsip2.messages.responses.SIP2PatronInformationResponse;
-import com.pkrete.jsip2.util.MessageUtil;
 import com.pkrete.jsip2.variables.Summary;
 
 /**
@@ -180,14 +179,14 @@ public class SIP2PatronInformationRequest extends SIP2PatronRequest {
         this.endItem = endItem;
     }
 
-    @Override
     /**
-     * Returns a String presentation of this message, that is sent
-     * to the ILS SIP server. The message contains all the variables
-     * plus sequence and checksum values when error detection is enabled.
+     * Appends the variables of this message to the given builder. Sequence
+     * and checksum values are appended after the variables when error 
+     * detection is enabled.
+     * @param builder builder that the message is appended to
      */
-    public String getData() {
-        StringBuilder builder = new StringBuilder();
+    @Override
+    protected void appendFields(StringBuilder builder) {
         builder.append(code);
         builder.append(language);
         builder.append(transactionDate);
@@ -209,14 +208,15 @@ public class SIP2PatronInformationRequest extends SIP2PatronRequest {
             builder.append(endItem);
         }
         builder.append("|");
+    }
 
-        if (errorDetectionEnabled) {
-            builder.append("AY");
-            builder.append(getSequence());
-            builder.append("AZ");
-            this.checkSum = MessageUtil.computeChecksum(builder.toString());
-            builder.append(checkSum);
-        }
-        return builder.toString() + '\r';
+    /**
+     * Patron information request doesn't change the state of the patron,
+     * and it can be sent again safely.
+     * @return true
+     */
+    @Override
+    public boolean isIdempotent() {
+        return true;
     }
 }
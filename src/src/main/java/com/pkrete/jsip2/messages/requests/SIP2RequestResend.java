@@ -47,22 +47,28 @@ public class SIP2RequestResend extends SIP2MessageRequest {
         super("97");
     }
 
-    @Override
     /**
-     * Returns a String presentation of this message, that is sent
-     * to the ILS SIP server. The message contains all the variables
-     * plus a checksum value when error detection is enabled. This message
-     * should never include a sequence number field.
+     * Appends the variables of this message to the given builder. Sequence
+     * and checksum values are appended after the variables when error 
+     * detection is enabled.
+     * @param builder builder that the message is appended to
      */
-    public String getData() {
-        StringBuilder builder = new StringBuilder();
+    @Override
+    protected void appendFields(StringBuilder builder) {
         builder.append(code);
-        
+    }
+
+    /**
+     * Appends the checksum to the given builder when error detection is
+     * enabled. This message should never include a sequence number field.
+     * @param builder builder that the message is appended to
+     */
+    @Override
+    protected void appendErrorDetection(StringBuilder builder) {
         if (errorDetectionEnabled) {
             builder.append("AZ");
-            this.checkSum = MessageUtil.computeChecksum(builder.toString());
+            this.checkSum = MessageUtil.computeChecksum(builder);
             builder.append(checkSum);
         }
-        return builder.toString() + '\r';
     }
 }
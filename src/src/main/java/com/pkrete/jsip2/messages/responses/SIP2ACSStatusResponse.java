@@ -364,8 +364,8 @@ public class SIP2ACSStatusResponse extends SIP2MessageResponse {
         builder.append(StringUtil.bool2Char(this.ILSRenewalPolicy));
         builder.append(StringUtil.bool2Char(this.statusUpdateOk));
         builder.append(StringUtil.bool2Char(this.offlineOk));
-        builder.append(StringUtil.intToFixedLengthString(this.timeoutPeriod, 3));
-        builder.append(StringUtil.intToFixedLengthString(this.retriesAllowed, 3));
+        StringUtil.appendFixedLength(builder, this.timeoutPeriod, 3);
+        StringUtil.appendFixedLength(builder, this.retriesAllowed, 3);
         builder.append(this.dateTimeSync);
         builder.append(this.protocolVersion);
         builder.append("AO");
@@ -416,6 +416,6 @@ public class SIP2ACSStatusResponse extends SIP2MessageResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
@@ -342,6 +342,6 @@ public class SIP2CheckinResponse extends SIP2CirculationTransactionResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
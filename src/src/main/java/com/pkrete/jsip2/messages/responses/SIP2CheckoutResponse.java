@@ -271,6 +271,6 @@ public class SIP2CheckoutResponse extends SIP2CirculationTransactionResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
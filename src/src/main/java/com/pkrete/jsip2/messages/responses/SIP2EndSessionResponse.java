@@ -100,6 +100,6 @@ public class SIP2EndSessionResponse extends SIP2MessageResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
@@ -108,6 +108,6 @@ public class SIP2FeePaidResponse extends SIP2MessageResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
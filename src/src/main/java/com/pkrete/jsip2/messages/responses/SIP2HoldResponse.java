@@ -207,6 +207,6 @@ public class SIP2HoldResponse extends SIP2CirculationTransactionResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
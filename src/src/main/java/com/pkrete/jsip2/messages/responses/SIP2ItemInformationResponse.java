@@ -28,6 +28,7 @@ import com.pkrete.jsip2.messages.SIP2MessageResponse;
 import com.pkrete.jsip2.util.MessageUtil;
 import com.pkrete.jsip2.variables.CirculationStatus;
 import com.pkrete.jsip2.variables.SecurityMarker;
+import java.time.LocalDateTime;
 
 /**
  * The ILS must send this message in response to the
@@ -59,11 +60,19 @@ public class SIP2ItemInformationResponse extends SIP2MessageResponse {
      * field: YYYYMMDDZZZZHHMMSS. Optional field.
      */
     private String recallDate;
+    /**
+     * Recall date parsed on demand.
+     */
+    private transient ParsedDateTime recallDateTime;
     /**
      * The date that the hold expires. 18-char, fixed-length 
      * field: YYYYMMDDZZZZHHMMSS. Optional field.
      */
     private String holdPickupDate;
+    /**
+     * Hold pickup date parsed on demand.
+     */
+    private transient ParsedDateTime holdPickupDateTime;
 
     /**
      * Constructs and initializes a new SIP2ItemInformationResponse object containing
@@ -147,6 +156,18 @@ public class SIP2ItemInformationResponse extends SIP2MessageResponse {
         return recallDate;
     }
 
+    /**
+     * Returns the date that the recall was issued. The value is parsed 
+     * when this method is called for the first time after the recall date
+     * has changed.
+     * @return date that the recall was issued or null, if the recall date
+     * is not set or it is not in the SIP2 format
+     */
+    public LocalDateTime getRecallDateTime() {
+        recallDateTime = parse(recallDateTime, recallDate);
+        return recallDateTime.getValue();
+    }
+
     /**
      * Sets the date that the recall was issued.
      * @param recallDate new recall date, 18-char, 
@@ -165,6 +186,18 @@ public class SIP2ItemInformationResponse extends SIP2MessageResponse {
         return holdPickupDate;
     }
 
+    /**
+     * Returns the date that the hold expires. The value is parsed when
+     * this method is called for the first time after the hold pickup date
+     * has changed.
+     * @return date that the hold expires or null, if the hold pickup date
+     * is not set or it is not in the SIP2 format
+     */
+    public LocalDateTime getHoldPickupDateTime() {
+        holdPickupDateTime = parse(holdPickupDateTime, holdPickupDate);
+        return holdPickupDateTime.getValue();
+    }
+
     /**
      * Sets the date that the hold expires.
      * @param holdPickupDate new hold pickup date, 18-char, 
@@ -259,6 +292,6 @@ public class SIP2ItemInformationResponse extends SIP2MessageResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
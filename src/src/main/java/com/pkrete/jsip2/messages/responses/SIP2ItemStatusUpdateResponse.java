@@ -109,6 +109,6 @@ public class SIP2ItemStatusUpdateResponse extends SIP2MessageResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
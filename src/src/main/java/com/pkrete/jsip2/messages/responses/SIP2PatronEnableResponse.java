@@ -89,6 +89,6 @@ public class SIP2PatronEnableResponse extends SIP2PatronResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
@@ -27,7 +27,11 @@ import com.pkrete.jsip2.messages.requests.SIP2PatronInformationRequest;
 import com.pkrete.jsip2.util.MessageUtil;
 import com.pkrete.jsip2.util.StringUtil;
 import com.pkrete.jsip2.variables.ItemType;
+import com.pkrete.jsip2.variables.ItemTypeFactory;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class represents the response message that the ILS SIP server must 
@@ -122,6 +126,10 @@ public class SIP2PatronInformationResponse extends SIP2PatronResponse {
      * Type of the items in the items list.
      */
     private ItemType itemType;
+    /**
+     * Item barcodes of all the item types included in the message.
+     */
+    private final Map<ItemType, List<String>> itemLists = new EnumMap<ItemType, List<String>>(ItemType.class);
 
     /**
      * Constructs and initializes a new SIP2PatronInformationResponse object
@@ -384,6 +392,34 @@ public class SIP2PatronInformationResponse extends SIP2PatronResponse {
         return items;
     }
 
+    /**
+     * Returns a list of item barcodes of the given item type. The ILS SIP
+     * server may return items of several types in the same message, and
+     * the items of each type are available through this method.
+     * @param type item type
+     * @return list of item barcodes of the given type or an empty list
+     */
+    public List<String> getItems(ItemType type) {
+        List<String> list = itemLists.get(type);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        return list;
+    }
+
+    /**
+     * Changes the list of item barcodes of the given item type.
+     * @param type item type
+     * @param items new value or null to remove the items of the type
+     */
+    public void setItems(ItemType type, List<String> items) {
+        if (items == null) {
+            itemLists.remove(type);
+        } else {
+            itemLists.put(type, items);
+        }
+    }
+
     /**
      * Changes the lis of item barcodes of the item type defined in the 
      * PatronInformationRequest message
@@ -485,12 +521,12 @@ public class SIP2PatronInformationResponse extends SIP2PatronResponse {
         builder.append(this.language);
         builder.append(this.transactionDate);
 
-        builder.append(StringUtil.intToFixedLengthString(this.holdItemsCount, 4));
-        builder.append(StringUtil.intToFixedLengthString(this.overdueItemsCount, 4));
-        builder.append(StringUtil.intToFixedLengthString(this.chargedItemsCount, 4));
-        builder.append(StringUtil.intToFixedLengthString(this.fineItemsCount, 4));
-        builder.append(StringUtil.intToFixedLengthString(this.recallItemsCount, 4));
-        builder.append(StringUtil.intToFixedLengthString(this.unavailableHoldsCount, 4));
+        StringUtil.appendFixedLength(builder, this.holdItemsCount, 4);
+        StringUtil.appendFixedLength(builder, this.overdueItemsCount, 4);
+        StringUtil.appendFixedLength(builder, this.chargedItemsCount, 4);
+        StringUtil.appendFixedLength(builder, this.fineItemsCount, 4);
+        StringUtil.appendFixedLength(builder, this.recallItemsCount, 4);
+        StringUtil.appendFixedLength(builder, this.unavailableHoldsCount, 4);
 
         builder.append("AO");
         builder.append(this.institutionId);
@@ -504,17 +540,17 @@ public class SIP2PatronInformationResponse extends SIP2PatronResponse {
 
         if (this.holdItemsLimit != -1) {
             builder.append("BZ");
-            builder.append(StringUtil.intToFixedLengthString(this.holdItemsLimit, 4));
+            StringUtil.appendFixedLength(builder, this.holdItemsLimit, 4);
             builder.append("|");
         }
         if (this.overdueItemsLimit != -1) {
             builder.append("CA");
-            builder.append(StringUtil.intToFixedLengthString(this.overdueItemsLimit, 4));
+            StringUtil.appendFixedLength(builder, this.overdueItemsLimit, 4);
             builder.append("|");
         }
         if (this.chargedItemsLimit != -1) {
             builder.append("CB");
-            builder.append(StringUtil.intToFixedLengthString(this.chargedItemsLimit, 4));
+            StringUtil.appendFixedLength(builder, this.chargedItemsLimit, 4);
             builder.append("|");
         }
 
@@ -546,7 +582,15 @@ public class SIP2PatronInformationResponse extends SIP2PatronResponse {
             builder.append("|");
         }
 
-        if (this.items != null) {
+        if (!this.itemLists.isEmpty()) {
+            for (ItemType type : ItemTypeFactory.getInstance().getAllItemTypes()) {
+                for (String barcode : getItems(type)) {
+                    builder.append(type);
+                    builder.append(barcode);
+                    builder.append("|");
+                }
+            }
+        } else if (this.items != null) {
             for (String barcode : items) {
                 builder.append(itemType);
                 builder.append(barcode);
@@ -605,6 +649,6 @@ public class SIP2PatronInformationResponse extends SIP2PatronResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
\ No newline at end of file
@@ -106,6 +106,6 @@ public class SIP2PatronStatusResponse extends SIP2PatronResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
\ No newline at end of file
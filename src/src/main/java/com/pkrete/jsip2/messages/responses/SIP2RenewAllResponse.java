@@ -137,8 +137,8 @@ public class SIP2RenewAllResponse extends SIP2MessageResponse {
         StringBuilder builder = new StringBuilder();
         builder.append(code);
         builder.append(StringUtil.bool2Int(this.ok));
-        builder.append(StringUtil.intToFixedLengthString(this.renewedCount, 4));
-        builder.append(StringUtil.intToFixedLengthString(this.unrenewedCount, 4));
+        StringUtil.appendFixedLength(builder, this.renewedCount, 4);
+        StringUtil.appendFixedLength(builder, this.unrenewedCount, 4);
         builder.append(this.transactionDate);
 
         builder.append("AO");
@@ -171,6 +171,6 @@ public class SIP2RenewAllResponse extends SIP2MessageResponse {
             builder.append(sequence);
         }
         builder.append("AZ");
-        return MessageUtil.computeChecksum(builder.toString());
+        return MessageUtil.computeChecksum(builder);
     }
 }
@@ -0,0 +1,498 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.messages.views;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import com.pkrete.jsip2.parser.SIP2FieldVisitor;
+import com.pkrete.jsip2.util.DateTimeUtil;
+import com.pkrete.jsip2.variables.CurrencyType;
+import com.pkrete.jsip2.variables.CurrencyTypeFactory;
+import com.pkrete.jsip2.variables.ItemType;
+import com.pkrete.jsip2.variables.ItemTypeFactory;
+import com.pkrete.jsip2.variables.Language;
+import com.pkrete.jsip2.variables.LanguageFactory;
+import com.pkrete.jsip2.variables.PatronStatus;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is a lazy, read-only view of a patron information response
+ * message. The accessors correspond to the ones of 
+ * {@link com.pkrete.jsip2.messages.responses.SIP2PatronInformationResponse},
+ * but each field is parsed only when it's accessed for the first time.
+ * Accessors of the fields that are converted to other types throw an
+ * exception if the value is invalid.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2PatronInformationView extends SIP2ResponseView {
+
+    /**
+     * Length of the fixed-length part of the message.
+     */
+    private static final int FIXED_LENGTH = 61;
+    private PatronStatus status;
+    private Language language;
+    private String transactionDate;
+    private LocalDateTime transactionDateTime;
+    private CurrencyType currencyType;
+    private ItemType itemType;
+    private List<String> items;
+    private List<String> screenMessage;
+    private List<String> printLine;
+
+    /**
+     * Constructs and initializes a new SIP2PatronInformationView object.
+     * @param data message data
+     * @throws InvalidSIP2ResponseException if the message is not a patron
+     * information response or it's too short
+     */
+    public SIP2PatronInformationView(String data) throws InvalidSIP2ResponseException {
+        super(data, FIXED_LENGTH);
+        if (!data.startsWith("64")) {
+            throw new InvalidSIP2ResponseException("Response message is not a patron information response. Response message string: \"" + data + "\"");
+        }
+    }
+
+    /**
+     * Returns the patron status.
+     * @return patron status
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public PatronStatus getStatus() throws InvalidSIP2ResponseValueException {
+        if (status == null) {
+            PatronStatus result = new PatronStatus();
+            result.setChargePrivilegesDenied(flag(2));
+            result.setRenewalPrivilegesDenied(flag(3));
+            result.setRecallPrivilegesDenied(flag(4));
+            result.setHoldPrivilegesDenied(flag(5));
+            result.setCardReportedLost(flag(6));
+            result.setTooManyItemsCharged(flag(7));
+            result.setTooManyItemsOverdue(flag(8));
+            result.setTooManyRenewals(flag(9));
+            result.setTooManyClaimsOfItemsReturned(flag(10));
+            result.setTooManyItemsLost(flag(11));
+            result.setExcessiveOutstandingFines(flag(12));
+            result.setExcessiveOutstandingFees(flag(13));
+            result.setRecallOverdue(flag(14));
+            result.setTooManyItemsBilled(flag(15));
+            status = result;
+        }
+        return status;
+    }
+
+    /**
+     * Returns the language of the patron.
+     * @return language
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public Language getLanguage() throws InvalidSIP2ResponseValueException {
+        if (language == null) {
+            language = LanguageFactory.getInstance().getLanguage(getFixed(16, 19));
+        }
+        return language;
+    }
+
+    /**
+     * Returns the transaction date in the SIP2 format.
+     * @return transaction date
+     */
+    public String getTransactionDate() {
+        if (transactionDate == null) {
+            transactionDate = getFixed(19, 37);
+        }
+        return transactionDate;
+    }
+
+    /**
+     * Returns the transaction date and time.
+     * @return transaction date and time or null, if the transaction date
+     * is not in the SIP2 format
+     */
+    public LocalDateTime getTransactionDateTime() {
+        if (transactionDateTime == null) {
+            transactionDateTime = DateTimeUtil.parse(getTransactionDate());
+        }
+        return transactionDateTime;
+    }
+
+    /**
+     * Returns the number of hold items.
+     * @return number of hold items
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public int getHoldItemsCount() throws InvalidSIP2ResponseValueException {
+        return getFixedInt(37, 4);
+    }
+
+    /**
+     * Returns the number of overdue items.
+     * @return number of overdue items
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public int getOverdueItemsCount() throws InvalidSIP2ResponseValueException {
+        return getFixedInt(41, 4);
+    }
+
+    /**
+     * Returns the number of charged items.
+     * @return number of charged items
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public int getChargedItemsCount() throws InvalidSIP2ResponseValueException {
+        return getFixedInt(45, 4);
+    }
+
+    /**
+     * Returns the number of fine items.
+     * @return number of fine items
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public int getFineItemsCount() throws InvalidSIP2ResponseValueException {
+        return getFixedInt(49, 4);
+    }
+
+    /**
+     * Returns the number of recall items.
+     * @return number of recall items
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public int getRecallItemsCount() throws InvalidSIP2ResponseValueException {
+        return getFixedInt(53, 4);
+    }
+
+    /**
+     * Returns the number of unavailable holds.
+     * @return number of unavailable holds
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public int getUnavailableHoldsCount() throws InvalidSIP2ResponseValueException {
+        return getFixedInt(57, 4);
+    }
+
+    /**
+     * Returns the institution id.
+     * @return institution id or an empty string
+     */
+    public String getInstitutionId() {
+        return getRequiredField("AO");
+    }
+
+    /**
+     * Returns the patron identifier.
+     * @return patron identifier or an empty string
+     */
+    public String getPatronIdentifier() {
+        return getRequiredField("AA");
+    }
+
+    /**
+     * Returns the personal name of the patron.
+     * @return personal name or an empty string
+     */
+    public String getPersonalName() {
+        return getRequiredField("AE");
+    }
+
+    /**
+     * Returns the hold items limit.
+     * @return hold items limit or -1 if not present
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public int getHoldItemsLimit() throws InvalidSIP2ResponseValueException {
+        return getIntField("BZ", -1);
+    }
+
+    /**
+     * Returns the overdue items limit.
+     * @return overdue items limit or -1 if not present
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public int getOverdueItemsLimit() throws InvalidSIP2ResponseValueException {
+        return getIntField("CA", -1);
+    }
+
+    /**
+     * Returns the charged items limit.
+     * @return charged items limit or -1 if not present
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public int getChargedItemsLimit() throws InvalidSIP2ResponseValueException {
+        return getIntField("CB", -1);
+    }
+
+    /**
+     * Returns true if and only if the valid patron field is present.
+     * @return true if the valid patron field is present, otherwise false
+     */
+    public boolean isValidPatronUsed() {
+        return getOptionalField("BL") != null;
+    }
+
+    /**
+     * Returns true if and only if the patron is valid. Returns false if the
+     * valid patron field is not present.
+     * @return true if the patron is valid, otherwise false
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public boolean isValidPatron() throws InvalidSIP2ResponseValueException {
+        return yesNo(getOptionalField("BL"));
+    }
+
+    /**
+     * Returns true if and only if the valid patron password field is 
+     * present.
+     * @return true if the valid patron password field is present, 
+     * otherwise false
+     */
+    public boolean isValidPatronPasswordUsed() {
+        return getOptionalField("CQ") != null;
+    }
+
+    /**
+     * Returns true if and only if the patron password is valid. Returns
+     * false if the valid patron password field is not present.
+     * @return true if the password is valid, otherwise false
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public boolean isValidPatronPassword() throws InvalidSIP2ResponseValueException {
+        return yesNo(getOptionalField("CQ"));
+    }
+
+    /**
+     * Returns the currency type of the fee amount.
+     * @return currency type or null if not present
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    public CurrencyType getCurrencyType() throws InvalidSIP2ResponseValueException {
+        if (currencyType == null) {
+            String value = getOptionalField("BH");
+            if (value != null) {
+                currencyType = CurrencyTypeFactory.getInstance().getCurrencyType(value);
+            }
+        }
+        return currencyType;
+    }
+
+    /**
+     * Returns the fee amount.
+     * @return fee amount or null if not present
+     */
+    public String getFeeAmount() {
+        return getOptionalField("BV");
+    }
+
+    /**
+     * Returns the fee limit.
+     * @return fee limit or null if not present
+     */
+    public String getFeeLimit() {
+        return getOptionalField("CC");
+    }
+
+    /**
+     * Returns the type of the items listed in the message. Only one type
+     * of items is expected, and the first type found is returned.
+     * @return item type or null if the message doesn't list any items
+     */
+    public ItemType getItemType() {
+        if (items == null) {
+            findItems();
+        }
+        return itemType;
+    }
+
+    /**
+     * Returns the items listed in the message. 
+     * @return items of the type returned by {@link #getItemType()}, or an
+     * empty list
+     */
+    public List<String> getItems() {
+        if (items == null) {
+            findItems();
+        }
+        return items;
+    }
+
+    /**
+     * Returns the items of the given type listed in the message.
+     * @param type item type
+     * @return items of the given type or an empty list
+     */
+    public List<String> getItems(ItemType type) {
+        return getFields(type.toString());
+    }
+
+    /**
+     * Passes the items of the given types to the given visitor in the order
+     * they appear in the message. The field identifier passed to the 
+     * visitor tells the type of the item. The items are not collected into
+     * lists, so this method is suitable for patrons with a large number of
+     * items.
+     * @param visitor visitor that receives the items
+     * @param types item types to be visited; if no types are given, the
+     * items of all the types are visited
+     * @return true if all the items were visited, false if the visitor
+     * stopped the scan
+     */
+    public boolean visitItems(SIP2FieldVisitor visitor, ItemType... types) {
+        List<ItemType> selected = types.length == 0 ? ItemTypeFactory.getInstance().getAllItemTypes() : Arrays.asList(types);
+        String[] codes = new String[selected.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = selected.get(i).toString();
+        }
+        return visitFields(visitor, codes);
+    }
+
+    /**
+     * Finds the first item type that has items in the message.
+     */
+    private void findItems() {
+        for (ItemType type : ItemTypeFactory.getInstance().getAllItemTypes()) {
+            List<String> values = getFields(type.toString());
+            if (!values.isEmpty()) {
+                itemType = type;
+                items = values;
+                return;
+            }
+        }
+        items = Collections.emptyList();
+    }
+
+    /**
+     * Returns the home address of the patron.
+     * @return home address or null if not present
+     */
+    public String getHomeAddress() {
+        return getOptionalField("BD");
+    }
+
+    /**
+     * Returns the e-mail address of the patron.
+     * @return e-mail address or null if not present
+     */
+    public String getEmail() {
+        return getOptionalField("BE");
+    }
+
+    /**
+     * Returns the phone number of the patron.
+     * @return phone number or null if not present
+     */
+    public String getPhone() {
+        return getOptionalField("BF");
+    }
+
+    /**
+     * Returns the birth date of the patron. This is a SIP2 extension.
+     * @return birth date or null if not present
+     */
+    public String getBirthDate() {
+        return getOptionalField("PB");
+    }
+
+    /**
+     * Returns the PAC access type. This is a SIP2 extension.
+     * @return PAC access type or null if not present
+     */
+    public String getPacAccessType() {
+        return getOptionalField("PA");
+    }
+
+    /**
+     * Returns the patron type. This is a SIP2 extension.
+     * @return patron type or null if not present
+     */
+    public String getPatronType() {
+        return getOptionalField("ZY");
+    }
+
+    /**
+     * Returns the patron group. This is a Voyager ESIP extension.
+     * @return patron group or null if not present
+     */
+    public String getPatronGroup() {
+        return getOptionalField("PT");
+    }
+
+    /**
+     * Returns the screen messages.
+     * @return screen messages or an empty list
+     */
+    public List<String> getScreenMessage() {
+        if (screenMessage == null) {
+            screenMessage = getFields("AF");
+        }
+        return screenMessage;
+    }
+
+    /**
+     * Returns the print lines.
+     * @return print lines or an empty list
+     */
+    public List<String> getPrintLine() {
+        if (printLine == null) {
+            printLine = getFields("AG");
+        }
+        return printLine;
+    }
+
+    /**
+     * Converts the character at the given position to a boolean value.
+     * The character must be 'Y' or ' '.
+     * @param position position of the character
+     * @return true if the character is 'Y', otherwise false
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    private boolean flag(int position) throws InvalidSIP2ResponseValueException {
+        char character = getData().charAt(position);
+        if (character == ' ') {
+            return false;
+        } else if (character == 'Y') {
+            return true;
+        }
+        throw invalidValue("Allowed values are: 'Y' and ' '.");
+    }
+
+    /**
+     * Converts the first character of the given value to a boolean value.
+     * The character must be 'Y' or 'N'.
+     * @param value field value or null
+     * @return true if the character is 'Y', false if it's 'N' or the value
+     * is null
+     * @throws InvalidSIP2ResponseValueException 
+     */
+    private boolean yesNo(String value) throws InvalidSIP2ResponseValueException {
+        if (value == null || value.charAt(0) == 'N') {
+            return false;
+        } else if (value.charAt(0) == 'Y') {
+            return true;
+        }
+        throw invalidValue("Allowed values are: Y and N.");
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.messages.views;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import com.pkrete.jsip2.parser.SIP2FieldScanner;
+import com.pkrete.jsip2.parser.SIP2FieldTokenizer;
+import com.pkrete.jsip2.parser.SIP2FieldVisitor;
+import com.pkrete.jsip2.util.MessageUtil;
+import java.nio.CharBuffer;
+import java.util.List;
+
+/**
+ * This class is a lazy, read-only view of a response message received from
+ * the ILS SIP server. Unlike the SIP2MessageResponse classes, a view doesn't
+ * copy the fields of the message when it's created. Only the raw message
+ * and an index of the positions of its variable-length fields are stored.
+ * A field is extracted from the message when it's accessed for the first
+ * time, and the extracted value is reused after that. This saves both
+ * parsing time and memory when only a few fields of a message are needed.
+ * 
+ * The fixed-length fields are accessed by their position with 
+ * {@link #getFixed(int, int)} and the variable-length fields by their
+ * identifier with {@link #getField(String)}. Subclasses offer typed 
+ * accessors for specific messages. A view is not thread-safe.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2ResponseView {
+
+    /**
+     * Raw message data.
+     */
+    private final String data;
+    /**
+     * Length of the fixed-length part of the message.
+     */
+    private final int fixedLength;
+    /**
+     * Index of the variable-length fields.
+     */
+    private final SIP2FieldTokenizer fields;
+    /**
+     * True if the checksum has been verified over the raw bytes of the
+     * message when it was received.
+     */
+    private boolean checksumVerified;
+    /**
+     * Result of the checksum verification.
+     */
+    private boolean checksumValid;
+
+    /**
+     * Constructs and initializes a new SIP2ResponseView object. The length
+     * of the fixed-length part of the message is defined by the command
+     * identifier. The fields of unknown messages are expected to start
+     * right after the command identifier.
+     * @param data message data
+     * @throws InvalidSIP2ResponseException if the message is shorter than
+     * its fixed-length part
+     */
+    public SIP2ResponseView(String data) throws InvalidSIP2ResponseException {
+        this(data, getFixedLength(data));
+    }
+
+    /**
+     * Constructs and initializes a new SIP2ResponseView object.
+     * @param data message data
+     * @param fixedLength length of the fixed-length part of the message,
+     * including the command identifier
+     * @throws InvalidSIP2ResponseException if the message is shorter than
+     * its fixed-length part
+     */
+    protected SIP2ResponseView(String data, int fixedLength) throws InvalidSIP2ResponseException {
+        if (data == null || data.length() < fixedLength) {
+            throw new InvalidSIP2ResponseException("Response message is too short. Response message string: \"" + data + "\"");
+        }
+        this.data = data;
+        this.fixedLength = fixedLength;
+        this.fields = new SIP2FieldTokenizer(data, fixedLength);
+    }
+
+    /**
+     * Returns the length of the fixed-length part of the given message.
+     * @param data message data
+     * @return length of the fixed-length part including the command
+     * identifier
+     * @throws InvalidSIP2ResponseException if the message doesn't contain
+     * a command identifier
+     */
+    private static int getFixedLength(String data) throws InvalidSIP2ResponseException {
+        if (data == null || data.length() < 2) {
+            throw new InvalidSIP2ResponseException("Response message is too short. Response message string: \"" + data + "\"");
+        }
+        return SIP2FieldScanner.getFixedLength(data);
+    }
+
+    /**
+     * Returns the command identifier of the message.
+     * @return command identifier
+     */
+    public String getCode() {
+        return data.substring(0, 2);
+    }
+
+    /**
+     * Returns the raw message data.
+     * @return message data
+     */
+    public String getData() {
+        return data;
+    }
+
+    /**
+     * Returns the length of the fixed-length part of the message.
+     * @return length of the fixed-length part including the command
+     * identifier
+     */
+    public int getFixedLength() {
+        return fixedLength;
+    }
+
+    /**
+     * Returns the characters of the fixed-length part between the given
+     * positions.
+     * @param start start position
+     * @param end end position (exclusive)
+     * @return characters between the given positions
+     */
+    public String getFixed(int start, int end) {
+        if (start < 0 || end > fixedLength || start > end) {
+            throw new IllegalArgumentException("Invalid position of a fixed-length field: " + start + "-" + end + ". Length of the fixed-length part: " + fixedLength + ".");
+        }
+        return data.substring(start, end);
+    }
+
+    /**
+     * Returns the value of the first variable-length field with the given
+     * identifier.
+     * @param code field identifier, 2 characters
+     * @return value of the field or null if the field isn't present
+     */
+    public String getField(String code) {
+        return fields.get(code);
+    }
+
+    /**
+     * Returns the values of all the variable-length fields with the given
+     * identifier in the order they appear in the message.
+     * @param code field identifier, 2 characters
+     * @return list of field values, an empty list if the field isn't
+     * present
+     */
+    public List<String> getFields(String code) {
+        return fields.getAll(code);
+    }
+
+    /**
+     * Passes the variable-length fields with the given identifiers to the
+     * given visitor in the order they appear in the message. The values 
+     * are not collected into lists.
+     * @param visitor visitor that receives the fields
+     * @param codes identifiers of the fields passed to the visitor; if no
+     * identifiers are given, all the fields are passed
+     * @return true if all the fields were visited, false if the visitor
+     * stopped the scan
+     */
+    public boolean visitFields(SIP2FieldVisitor visitor, String... codes) {
+        return SIP2FieldScanner.scan(data, fixedLength, visitor, codes);
+    }
+
+    /**
+     * Returns true if and only if the variable-length field with the given
+     * identifier is present in the message.
+     * @param code field identifier, 2 characters
+     * @return true if the field is present, otherwise false
+     */
+    public boolean hasField(String code) {
+        return fields.exists(code);
+    }
+
+    /**
+     * Returns the sequence number of the message.
+     * @return sequence number or -1 if the message doesn't contain sequence
+     * number
+     */
+    public int getSequence() {
+        String sequence = fields.getSequence();
+        return sequence.isEmpty() ? -1 : sequence.charAt(0) - '0';
+    }
+
+    /**
+     * Returns true if and only if the message contains a checksum.
+     * @return true if the message contains a checksum, otherwise false
+     */
+    public boolean isChecksum() {
+        return fields.getChecksumPosition() != -1;
+    }
+
+    /**
+     * Returns true if and only if the checksum of the message is valid. If
+     * the checksum was verified over the raw bytes when the message was
+     * received, the result of that verification is returned. Otherwise the
+     * checksum is calculated over the characters of the message. A message
+     * without checksum is never valid.
+     * @return true if the message is valid, otherwise false
+     */
+    public boolean isValid() {
+        if (!isChecksum()) {
+            return false;
+        }
+        if (checksumVerified) {
+            return checksumValid;
+        }
+        int position = fields.getChecksumPosition();
+        checksumValid = MessageUtil.computeChecksum(CharBuffer.wrap(data, 0, position)).equals(fields.getChecksum());
+        checksumVerified = true;
+        return checksumValid;
+    }
+
+    /**
+     * Sets the result of the checksum verification done over the raw bytes
+     * of the message when it was received.
+     * @param valid true if the checksum of the received message is valid,
+     * otherwise false
+     */
+    public void setChecksumValid(boolean valid) {
+        this.checksumVerified = true;
+        this.checksumValid = valid;
+    }
+
+    /**
+     * Returns the value of an optional variable-length field.
+     * @param code field identifier, 2 characters
+     * @return value of the field or null if the field isn't present or
+     * it's empty
+     */
+    protected String getOptionalField(String code) {
+        String value = fields.get(code);
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Returns the value of a required variable-length field.
+     * @param code field identifier, 2 characters
+     * @return value of the field or an empty string if the field isn't
+     * present
+     */
+    protected String getRequiredField(String code) {
+        String value = fields.get(code);
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Returns the value of the variable-length field with the given 
+     * identifier converted to an integer.
+     * @param code field identifier, 2 characters
+     * @param defaultValue value returned if the field isn't present
+     * @return value of the field or the default value
+     * @throws InvalidSIP2ResponseValueException if the value isn't an 
+     * integer
+     */
+    protected int getIntField(String code, int defaultValue) throws InvalidSIP2ResponseValueException {
+        String value = fields.get(code);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException nfe) {
+            throw invalidValue("Unable to parse an integer from the given string: \"" + value + "\".");
+        }
+    }
+
+    /**
+     * Parses a fixed-length number from the given position. No objects are
+     * created.
+     * @param start start position
+     * @param length number of digits
+     * @return parsed number
+     * @throws InvalidSIP2ResponseValueException if a character is not a 
+     * digit
+     */
+    protected int getFixedInt(int start, int length) throws InvalidSIP2ResponseValueException {
+        int result = 0;
+        for (int i = start; i < start + length; i++) {
+            char c = data.charAt(i);
+            if (c < '0' || c > '9') {
+                throw invalidValue("Unable to parse an integer from the given string: \"" + data.substring(start, start + length) + "\".");
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Creates an exception describing an invalid value in the message.
+     * @param message description of the invalid value
+     * @return new exception that includes the message data
+     */
+    protected InvalidSIP2ResponseValueException invalidValue(String message) {
+        return new InvalidSIP2ResponseValueException("Response message contains an invalid value. " + message + " Response message string: \"" + data + "\"");
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class is a log-linear histogram of non-negative values. Each power
+ * of two is divided into eight buckets of equal width, so the relative 
+ * error of a value is at most 12.5 % regardless of its magnitude, and the
+ * histogram has a fixed number of buckets. Values from 1 to 8 have 
+ * buckets of their own, and zero shares the bucket of one. The upper 
+ * bound of each bucket is inclusive, so every power of two is the largest
+ * value of a bucket, and the number of values at or below a power of two
+ * is exact.
+ *
+ * Recording a value is lock-free. Histograms can be merged, e.g. to 
+ * combine the histograms of several endpoints, because all the histograms
+ * have the same buckets.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2Histogram {
+
+    /**
+     * Number of bits used for the buckets within a power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+    /**
+     * Number of buckets within a power of two.
+     */
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Total number of buckets.
+     */
+    public static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Returns the index of the bucket of the given value.
+     * @param value non-negative value
+     * @return index of the bucket
+     */
+    public static int getBucket(long value) {
+        if (value <= SUB_BUCKETS) {
+            return (int) Math.max(value - 1, 0);
+        }
+        long below = value - 1;
+        int exponent = 63 - Long.numberOfLeadingZeros(below);
+        int sub = (int) (below >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the smallest value of the given bucket.
+     * @param bucket index of the bucket
+     * @return smallest value of the bucket
+     */
+    public static long getLowerBound(int bucket) {
+        return bucket == 0 ? 0 : getStart(bucket) + 1;
+    }
+
+    /**
+     * Returns the largest value of the given bucket.
+     * @param bucket index of the bucket
+     * @return inclusive upper bound of the bucket
+     */
+    public static long getUpperBound(int bucket) {
+        return bucket + 1 < BUCKETS ? getStart(bucket + 1) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Returns the largest value below the given bucket, or zero for the 
+     * first bucket.
+     * @param bucket index of the bucket
+     * @return value below the bucket
+     */
+    private static long getStart(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    /**
+     * Records the given value. Negative values are recorded as zero.
+     * @param value value to be recorded
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(getBucket(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Adds the values of the given histogram to this histogram.
+     * @param other histogram to be merged
+     */
+    public void merge(SIP2Histogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            long value = other.counts.get(i);
+            if (value != 0) {
+                counts.addAndGet(i, value);
+            }
+        }
+        count.add(other.getCount());
+        sum.add(other.getSum());
+        long value = other.getMax();
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Returns the number of values recorded in the given bucket.
+     * @param bucket index of the bucket
+     * @return number of values
+     */
+    public long getCount(int bucket) {
+        return counts.get(bucket);
+    }
+
+    /**
+     * Returns the number of values recorded.
+     * @return number of values
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the sum of the values recorded.
+     * @return sum of the values
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Returns the largest value recorded.
+     * @return largest value, or zero if no values have been recorded
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the mean of the values recorded.
+     * @return mean, or zero if no values have been recorded
+     */
+    public double getMean() {
+        long n = getCount();
+        return n == 0 ? 0 : (double) getSum() / n;
+    }
+
+    /**
+     * Returns a snapshot of the number of values recorded in each bucket.
+     * @return number of values indexed by the bucket
+     */
+    public long[] getCounts() {
+        long[] result = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of values that are smaller than or equal to the
+     * given value. The value should be the upper bound of a bucket, e.g. 
+     * a power of two, for the result to be exact.
+     * @param value inclusive upper bound
+     * @return number of values at or below the given value
+     */
+    public long getCountAtOrBelow(long value) {
+        long result = 0;
+        for (int i = 0; i < BUCKETS && getUpperBound(i) <= value; i++) {
+            result += counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns an estimate of the value at the given percentile. The 
+     * estimate is the upper bound of the bucket that contains the value,
+     * but at most the largest value recorded.
+     * @param percentile percentile between 0 and 100
+     * @return value at the percentile, or zero if no values have been 
+     * recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(total * Math.min(Math.max(percentile, 0), 100) / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target && seen > 0) {
+                return Math.min(getUpperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+}
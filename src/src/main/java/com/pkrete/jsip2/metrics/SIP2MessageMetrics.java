@@ -0,0 +1,186 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class holds the metrics of one message type sent to one ILS SIP 
+ * server: counters of requests, responses, errors, checksum failures,
+ * resends and bytes, and a histogram of the latencies in microseconds.
+ * The counters are lock-free.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2MessageMetrics implements SIP2MessageMetricsMXBean {
+
+    private final String endpoint;
+    private final String code;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder responses = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder checksumFailures = new LongAdder();
+    private final LongAdder resends = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final SIP2Histogram latency = new SIP2Histogram();
+
+    /**
+     * Constructs and initializes a new SIP2MessageMetrics object.
+     * @param endpoint address of the ILS SIP server as host:port
+     * @param code command identifier of the request
+     */
+    public SIP2MessageMetrics(String endpoint, String code) {
+        this.endpoint = endpoint;
+        this.code = code;
+    }
+
+    /**
+     * Records a request that's being sent.
+     */
+    public void recordRequest() {
+        requests.increment();
+    }
+
+    /**
+     * Records a response received after the given time.
+     * @param nanos latency in nanoseconds
+     */
+    public void recordResponse(long nanos) {
+        responses.increment();
+        latency.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Records a request that failed.
+     */
+    public void recordError() {
+        errors.increment();
+    }
+
+    /**
+     * Records a response received with an invalid checksum.
+     */
+    public void recordChecksumFailure() {
+        checksumFailures.increment();
+    }
+
+    /**
+     * Records a resend request sent.
+     */
+    public void recordResend() {
+        resends.increment();
+    }
+
+    /**
+     * Adds the given number of bytes sent.
+     * @param bytes number of bytes
+     */
+    public void addBytesSent(long bytes) {
+        bytesSent.add(bytes);
+    }
+
+    /**
+     * Adds the given number of bytes received.
+     * @param bytes number of bytes
+     */
+    public void addBytesReceived(long bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    /**
+     * Returns the histogram of the latencies in microseconds.
+     * @return latency histogram
+     */
+    public SIP2Histogram getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public String getCode() {
+        return code;
+    }
+
+    @Override
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public long getResponses() {
+        return responses.sum();
+    }
+
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getChecksumFailures() {
+        return checksumFailures.sum();
+    }
+
+    @Override
+    public long getResends() {
+        return resends.sum();
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public double getLatencyMean() {
+        return latency.getMean();
+    }
+
+    @Override
+    public long getLatency50thPercentile() {
+        return latency.getValueAtPercentile(50);
+    }
+
+    @Override
+    public long getLatency99thPercentile() {
+        return latency.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getLatencyMax() {
+        return latency.getMax();
+    }
+}
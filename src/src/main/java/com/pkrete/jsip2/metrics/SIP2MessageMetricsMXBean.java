@@ -0,0 +1,112 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.metrics;
+
+/**
+ * Management interface of the metrics of one message type sent to one
+ * ILS SIP server. Latencies are in microseconds.
+ *
+ * @author Petteri Kivimäki
+ */
+public interface SIP2MessageMetricsMXBean {
+
+    /**
+     * Returns the address of the ILS SIP server as host:port.
+     * @return endpoint
+     */
+    String getEndpoint();
+
+    /**
+     * Returns the command identifier of the request.
+     * @return command identifier
+     */
+    String getCode();
+
+    /**
+     * Returns the number of requests sent.
+     * @return number of requests
+     */
+    long getRequests();
+
+    /**
+     * Returns the number of responses received.
+     * @return number of responses
+     */
+    long getResponses();
+
+    /**
+     * Returns the number of requests that failed.
+     * @return number of errors
+     */
+    long getErrors();
+
+    /**
+     * Returns the number of responses received with an invalid checksum.
+     * @return number of checksum failures
+     */
+    long getChecksumFailures();
+
+    /**
+     * Returns the number of resend requests sent.
+     * @return number of resends
+     */
+    long getResends();
+
+    /**
+     * Returns the number of bytes sent.
+     * @return number of bytes sent
+     */
+    long getBytesSent();
+
+    /**
+     * Returns the number of bytes received.
+     * @return number of bytes received
+     */
+    long getBytesReceived();
+
+    /**
+     * Returns the mean latency in microseconds.
+     * @return mean latency
+     */
+    double getLatencyMean();
+
+    /**
+     * Returns the median latency in microseconds.
+     * @return median latency
+     */
+    long getLatency50thPercentile();
+
+    /**
+     * Returns the 99th percentile latency in microseconds.
+     * @return 99th percentile latency
+     */
+    long getLatency99thPercentile();
+
+    /**
+     * Returns the largest latency in microseconds.
+     * @return largest latency
+     */
+    long getLatencyMax();
+}
@@ -0,0 +1,453 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is a registry of the metrics of the messages sent to the 
+ * ILS SIP servers and of the connection pools. The metrics are kept per 
+ * ILS SIP server (endpoint) and per command identifier of the request. 
+ * Connections and pools record the metrics when a registry has been set
+ * to them.
+ *
+ * The metrics can be published as JMX MBeans by calling the 
+ * {@link #registerMBeans() registerMBeans} method, and exported in the 
+ * Prometheus text format by calling the {@link #toPrometheus() toPrometheus}
+ * method.
+ *
+ * <pre>
+ * SIP2Metrics metrics = new SIP2Metrics();
+ * metrics.registerMBeans();
+ * pool.setMetrics(metrics);
+ * ...
+ * String snapshot = metrics.toPrometheus();
+ * </pre>
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2Metrics {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SIP2Metrics.class);
+    /**
+     * Domain of the JMX object names.
+     */
+    public static final String JMX_DOMAIN = "com.pkrete.jsip2";
+    /**
+     * Smallest and largest exponent of the histogram buckets exported in
+     * the Prometheus format: from 16 microseconds to about 67 seconds.
+     */
+    private static final int MIN_EXPORTED_EXPONENT = 4;
+    private static final int MAX_EXPORTED_EXPONENT = 26;
+    /**
+     * Number of requests sent.
+     */
+    private static final ToLongFunction<SIP2MessageMetrics> REQUESTS = new ToLongFunction<SIP2MessageMetrics>() {
+        @Override
+        public long applyAsLong(SIP2MessageMetrics metrics) {
+            return metrics.getRequests();
+        }
+    };
+    /**
+     * Number of responses received.
+     */
+    private static final ToLongFunction<SIP2MessageMetrics> RESPONSES = new ToLongFunction<SIP2MessageMetrics>() {
+        @Override
+        public long applyAsLong(SIP2MessageMetrics metrics) {
+            return metrics.getResponses();
+        }
+    };
+    /**
+     * Number of requests that failed.
+     */
+    private static final ToLongFunction<SIP2MessageMetrics> ERRORS = new ToLongFunction<SIP2MessageMetrics>() {
+        @Override
+        public long applyAsLong(SIP2MessageMetrics metrics) {
+            return metrics.getErrors();
+        }
+    };
+    /**
+     * Number of responses received with an invalid checksum.
+     */
+    private static final ToLongFunction<SIP2MessageMetrics> CHECKSUM_FAILURES = new ToLongFunction<SIP2MessageMetrics>() {
+        @Override
+        public long applyAsLong(SIP2MessageMetrics metrics) {
+            return metrics.getChecksumFailures();
+        }
+    };
+    /**
+     * Number of resend requests sent.
+     */
+    private static final ToLongFunction<SIP2MessageMetrics> RESENDS = new ToLongFunction<SIP2MessageMetrics>() {
+        @Override
+        public long applyAsLong(SIP2MessageMetrics metrics) {
+            return metrics.getResends();
+        }
+    };
+    /**
+     * Number of bytes sent.
+     */
+    private static final ToLongFunction<SIP2MessageMetrics> BYTES_SENT = new ToLongFunction<SIP2MessageMetrics>() {
+        @Override
+        public long applyAsLong(SIP2MessageMetrics metrics) {
+            return metrics.getBytesSent();
+        }
+    };
+    /**
+     * Number of bytes received.
+     */
+    private static final ToLongFunction<SIP2MessageMetrics> BYTES_RECEIVED = new ToLongFunction<SIP2MessageMetrics>() {
+        @Override
+        public long applyAsLong(SIP2MessageMetrics metrics) {
+            return metrics.getBytesReceived();
+        }
+    };
+
+    private final ConcurrentMap<String, SIP2MessageMetrics> messages = new ConcurrentHashMap<String, SIP2MessageMetrics>();
+    private final ConcurrentMap<String, SIP2PoolMetrics> pools = new ConcurrentHashMap<String, SIP2PoolMetrics>();
+    /**
+     * MBean server that the metrics are registered to, or null if the
+     * metrics are not published as MBeans.
+     */
+    private volatile MBeanServer server;
+
+    /**
+     * Returns the metrics of the given message type sent to the given ILS
+     * SIP server. The metrics are created when this method is called for
+     * the first time.
+     * @param endpoint address of the ILS SIP server as host:port
+     * @param code command identifier of the request
+     * @return metrics of the message type
+     */
+    public SIP2MessageMetrics getMessageMetrics(String endpoint, String code) {
+        String key = endpoint + ' ' + code;
+        SIP2MessageMetrics metrics = messages.get(key);
+        if (metrics == null) {
+            metrics = new SIP2MessageMetrics(endpoint, code);
+            SIP2MessageMetrics existing = messages.putIfAbsent(key, metrics);
+            if (existing != null) {
+                return existing;
+            }
+            register(metrics, name(metrics));
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the metrics of the connection pool of the given ILS SIP 
+     * server. The metrics are created when this method is called for the
+     * first time.
+     * @param endpoint address of the ILS SIP server as host:port
+     * @return metrics of the connection pool
+     */
+    public SIP2PoolMetrics getPoolMetrics(String endpoint) {
+        SIP2PoolMetrics metrics = pools.get(endpoint);
+        if (metrics == null) {
+            metrics = new SIP2PoolMetrics(endpoint);
+            SIP2PoolMetrics existing = pools.putIfAbsent(endpoint, metrics);
+            if (existing != null) {
+                return existing;
+            }
+            register(metrics, name(metrics));
+        }
+        return metrics;
+    }
+
+    /**
+     * Returns the metrics of all the message types sorted by the endpoint
+     * and the command identifier.
+     * @return metrics of the message types
+     */
+    public List<SIP2MessageMetrics> getMessageMetrics() {
+        List<SIP2MessageMetrics> result = new ArrayList<SIP2MessageMetrics>(messages.values());
+        Collections.sort(result, new Comparator<SIP2MessageMetrics>() {
+            @Override
+            public int compare(SIP2MessageMetrics a, SIP2MessageMetrics b) {
+                int order = a.getEndpoint().compareTo(b.getEndpoint());
+                return order != 0 ? order : a.getCode().compareTo(b.getCode());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the metrics of all the connection pools sorted by the 
+     * endpoint.
+     * @return metrics of the connection pools
+     */
+    public List<SIP2PoolMetrics> getPoolMetrics() {
+        List<SIP2PoolMetrics> result = new ArrayList<SIP2PoolMetrics>(pools.values());
+        Collections.sort(result, new Comparator<SIP2PoolMetrics>() {
+            @Override
+            public int compare(SIP2PoolMetrics a, SIP2PoolMetrics b) {
+                return a.getEndpoint().compareTo(b.getEndpoint());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the latency histogram of the given message type merged over
+     * all the ILS SIP servers.
+     * @param code command identifier of the request
+     * @return merged latency histogram in microseconds
+     */
+    public SIP2Histogram getLatency(String code) {
+        SIP2Histogram result = new SIP2Histogram();
+        for (SIP2MessageMetrics metrics : messages.values()) {
+            if (metrics.getCode().equals(code)) {
+                result.merge(metrics.getLatency());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Publishes the metrics as MBeans in the platform MBean server. The 
+     * metrics created later are published too.
+     */
+    public void registerMBeans() {
+        registerMBeans(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    /**
+     * Publishes the metrics as MBeans in the given MBean server. The 
+     * metrics created later are published too.
+     * @param mbeanServer MBean server
+     */
+    public synchronized void registerMBeans(MBeanServer mbeanServer) {
+        this.server = mbeanServer;
+        for (SIP2MessageMetrics metrics : messages.values()) {
+            register(metrics, name(metrics));
+        }
+        for (SIP2PoolMetrics metrics : pools.values()) {
+            register(metrics, name(metrics));
+        }
+    }
+
+    /**
+     * Removes the MBeans of the metrics from the MBean server.
+     */
+    public synchronized void unregisterMBeans() {
+        MBeanServer mbeanServer = server;
+        server = null;
+        if (mbeanServer == null) {
+            return;
+        }
+        List<String> names = new ArrayList<String>();
+        for (SIP2MessageMetrics metrics : messages.values()) {
+            names.add(name(metrics));
+        }
+        for (SIP2PoolMetrics metrics : pools.values()) {
+            names.add(name(metrics));
+        }
+        for (String name : names) {
+            try {
+                ObjectName objectName = new ObjectName(name);
+                if (mbeanServer.isRegistered(objectName)) {
+                    mbeanServer.unregisterMBean(objectName);
+                }
+            } catch (JMException ex) {
+                LOGGER.warn("Unregistering the metrics MBean {} failed. {}", name, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the JMX object name of the given message metrics.
+     * @param metrics message metrics
+     * @return object name
+     */
+    private static String name(SIP2MessageMetrics metrics) {
+        return JMX_DOMAIN + ":type=Message,endpoint=" + ObjectName.quote(metrics.getEndpoint()) + ",code=" + ObjectName.quote(metrics.getCode());
+    }
+
+    /**
+     * Returns the JMX object name of the given pool metrics.
+     * @param metrics pool metrics
+     * @return object name
+     */
+    private static String name(SIP2PoolMetrics metrics) {
+        return JMX_DOMAIN + ":type=Pool,endpoint=" + ObjectName.quote(metrics.getEndpoint());
+    }
+
+    /**
+     * Registers the given MBean, if the metrics are published as MBeans.
+     * An MBean that's already registered with the same name is replaced.
+     * @param mbean MBean
+     * @param name object name
+     */
+    private void register(Object mbean, String name) {
+        MBeanServer mbeanServer = server;
+        if (mbeanServer == null) {
+            return;
+        }
+        try {
+            ObjectName objectName = new ObjectName(name);
+            if (mbeanServer.isRegistered(objectName)) {
+                mbeanServer.unregisterMBean(objectName);
+            }
+            mbeanServer.registerMBean(mbean, objectName);
+        } catch (JMException ex) {
+            LOGGER.warn("Registering the metrics MBean {} failed. {}", name, ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns a snapshot of the metrics in the Prometheus text exposition 
+     * format. Latencies and wait times are exported as histograms in 
+     * seconds with buckets at powers of two microseconds.
+     * @return metrics in the Prometheus text format
+     */
+    public String toPrometheus() {
+        StringBuilder builder = new StringBuilder(4096);
+        List<SIP2MessageMetrics> all = getMessageMetrics();
+        counter(builder, all, "sip2_requests_total", "Requests sent to the ILS SIP server.", REQUESTS);
+        counter(builder, all, "sip2_responses_total", "Responses received from the ILS SIP server.", RESPONSES);
+        counter(builder, all, "sip2_errors_total", "Requests that failed.", ERRORS);
+        counter(builder, all, "sip2_checksum_failures_total", "Responses received with an invalid checksum.", CHECKSUM_FAILURES);
+        counter(builder, all, "sip2_resends_total", "Resend requests sent.", RESENDS);
+        counter(builder, all, "sip2_sent_bytes_total", "Bytes sent to the ILS SIP server.", BYTES_SENT);
+        counter(builder, all, "sip2_received_bytes_total", "Bytes received from the ILS SIP server.", BYTES_RECEIVED);
+        header(builder, "sip2_latency_seconds", "histogram", "Time from sending a request to receiving its response.");
+        for (SIP2MessageMetrics metrics : all) {
+            histogram(builder, "sip2_latency_seconds", labels(metrics.getEndpoint(), metrics.getCode()), metrics.getLatency());
+        }
+        List<SIP2PoolMetrics> poolMetrics = getPoolMetrics();
+        header(builder, "sip2_pool_borrow_failures_total", "counter", "Failed attempts to borrow a connection.");
+        for (SIP2PoolMetrics metrics : poolMetrics) {
+            builder.append("sip2_pool_borrow_failures_total{").append(labels(metrics.getEndpoint(), null)).append("} ").append(metrics.getBorrowFailures()).append('\n');
+        }
+        header(builder, "sip2_pool_wait_seconds", "histogram", "Time spent waiting for a connection.");
+        for (SIP2PoolMetrics metrics : poolMetrics) {
+            histogram(builder, "sip2_pool_wait_seconds", labels(metrics.getEndpoint(), null), metrics.getWaitTime());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Appends the HELP and TYPE lines of a metric.
+     * @param builder builder
+     * @param name name of the metric
+     * @param type type of the metric
+     * @param help description of the metric
+     */
+    private static void header(StringBuilder builder, String name, String type, String help) {
+        builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Appends a counter of all the message types.
+     * @param builder builder
+     * @param all metrics of the message types
+     * @param name name of the counter
+     * @param help description of the counter
+     * @param counter function that returns the value of the counter
+     */
+    private static void counter(StringBuilder builder, List<SIP2MessageMetrics> all, String name, String help, ToLongFunction<SIP2MessageMetrics> counter) {
+        header(builder, name, "counter", help);
+        for (SIP2MessageMetrics metrics : all) {
+            long value = counter.applyAsLong(metrics);
+            builder.append(name).append('{').append(labels(metrics.getEndpoint(), metrics.getCode())).append("} ").append(value).append('\n');
+        }
+    }
+
+    /**
+     * Appends the buckets, the sum and the count of a histogram in 
+     * microseconds as seconds. The buckets and the count are taken from
+     * the same snapshot of the bucket counts, so that they're consistent
+     * with each other.
+     * @param builder builder
+     * @param name name of the histogram
+     * @param labels labels of the histogram
+     * @param histogram histogram in microseconds
+     */
+    private static void histogram(StringBuilder builder, String name, String labels, SIP2Histogram histogram) {
+        long[] counts = histogram.getCounts();
+        long count = 0;
+        int bucket = 0;
+        for (int exponent = MIN_EXPORTED_EXPONENT; exponent <= MAX_EXPORTED_EXPONENT; exponent++) {
+            long bound = 1L << exponent;
+            while (bucket < counts.length && SIP2Histogram.getUpperBound(bucket) <= bound) {
+                count += counts[bucket++];
+            }
+            builder.append(name).append("_bucket{").append(labels).append(",le=\"").append(seconds(bound)).append("\"} ");
+            builder.append(count).append('\n');
+        }
+        while (bucket < counts.length) {
+            count += counts[bucket++];
+        }
+        builder.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").append(count).append('\n');
+        builder.append(name).append("_sum{").append(labels).append("} ").append(seconds(histogram.getSum())).append('\n');
+        builder.append(name).append("_count{").append(labels).append("} ").append(count).append('\n');
+    }
+
+    /**
+     * Returns the given number of microseconds as seconds.
+     * @param micros microseconds
+     * @return seconds
+     */
+    private static String seconds(long micros) {
+        return String.format(Locale.ROOT, "%.6f", micros / 1000000.0);
+    }
+
+    /**
+     * Returns the labels of the given endpoint and command identifier.
+     * @param endpoint endpoint
+     * @param code command identifier or null
+     * @return labels
+     */
+    private static String labels(String endpoint, String code) {
+        StringBuilder builder = new StringBuilder();
+        builder.append("endpoint=\"").append(escape(endpoint)).append('"');
+        if (code != null) {
+            builder.append(",code=\"").append(escape(code)).append('"');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Escapes the given label value.
+     * @param value label value
+     * @return escaped value
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class holds the metrics of the connection pool of one ILS SIP 
+ * server: the number of connections borrowed, the number of failed 
+ * borrows and a histogram of the time spent waiting for a connection in 
+ * microseconds.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2PoolMetrics implements SIP2PoolMetricsMXBean {
+
+    private final String endpoint;
+    private final LongAdder borrowFailures = new LongAdder();
+    private final SIP2Histogram waitTime = new SIP2Histogram();
+
+    /**
+     * Constructs and initializes a new SIP2PoolMetrics object.
+     * @param endpoint address of the ILS SIP server as host:port
+     */
+    public SIP2PoolMetrics(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Records a connection borrowed after waiting for the given time.
+     * @param nanos wait time in nanoseconds
+     */
+    public void recordBorrow(long nanos) {
+        waitTime.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Records a failed attempt to borrow a connection.
+     */
+    public void recordBorrowFailure() {
+        borrowFailures.increment();
+    }
+
+    /**
+     * Returns the histogram of the wait times in microseconds.
+     * @return wait time histogram
+     */
+    public SIP2Histogram getWaitTime() {
+        return waitTime;
+    }
+
+    @Override
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    @Override
+    public long getBorrows() {
+        return waitTime.getCount();
+    }
+
+    @Override
+    public long getBorrowFailures() {
+        return borrowFailures.sum();
+    }
+
+    @Override
+    public double getWaitTimeMean() {
+        return waitTime.getMean();
+    }
+
+    @Override
+    public long getWaitTime99thPercentile() {
+        return waitTime.getValueAtPercentile(99);
+    }
+
+    @Override
+    public long getWaitTimeMax() {
+        return waitTime.getMax();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.metrics;
+
+/**
+ * Management interface of the metrics of a connection pool. Wait times 
+ * are in microseconds.
+ *
+ * @author Petteri Kivimäki
+ */
+public interface SIP2PoolMetricsMXBean {
+
+    /**
+     * Returns the address of the ILS SIP server as host:port.
+     * @return endpoint
+     */
+    String getEndpoint();
+
+    /**
+     * Returns the number of connections borrowed.
+     * @return number of connections borrowed
+     */
+    long getBorrows();
+
+    /**
+     * Returns the number of times borrowing a connection failed.
+     * @return number of failed borrows
+     */
+    long getBorrowFailures();
+
+    /**
+     * Returns the mean wait time in microseconds.
+     * @return mean wait time
+     */
+    double getWaitTimeMean();
+
+    /**
+     * Returns the 99th percentile wait time in microseconds.
+     * @return 99th percentile wait time
+     */
+    long getWaitTime99thPercentile();
+
+    /**
+     * Returns the largest wait time in microseconds.
+     * @return largest wait time
+     */
+    long getWaitTimeMax();
+}
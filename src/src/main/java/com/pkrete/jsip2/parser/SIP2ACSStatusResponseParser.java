@@ -64,11 +64,12 @@ public class SIP2ACSStatusResponseParser extends SIP2ResponseParser {
             response.setDateTimeSync(data.substring(14, 32));
             response.setProtocolVersion(data.substring(32, 36));
 
-            response.setInstitutionId(parseVariableWithoutDelimiter("AO", data.substring(36)));
-            response.setLibraryName(parseVariable("AM", data.substring(36)));
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            response.setInstitutionId(parseVariable("AO", fields));
+            response.setLibraryName(parseVariable("AM", fields));
 
             // Parse supported messages
-            String bx = parseVariable("BX", data.substring(36));
+            String bx = parseVariable("BX", fields);
             SupportedMessages messages = new SupportedMessages();
 
             messages.setPatronStatusRequest(charToBool(bx.charAt(0)));
@@ -90,13 +91,13 @@ public class SIP2ACSStatusResponseParser extends SIP2ResponseParser {
 
             response.setSupportedMessages(messages);
 
-            response.setTerminalLocation(parseVariable("AN", data.substring(36)));
-            response.setScreenMessage(parseVariableMulti("AF", data.substring(36)));
-            response.setPrintLine(parseVariableMulti("AG", data.substring(36)));
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+            response.setTerminalLocation(parseVariable("AN", fields));
+            response.setScreenMessage(parseVariableMulti("AF", fields));
+            response.setPrintLine(parseVariableMulti("AG", fields));
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
@@ -66,38 +66,39 @@ public class SIP2CheckinResponseParser extends SIP2ResponseParser {
             response.setAlert(this.charToBool(data.charAt(5)));
             response.setTransactionDate(data.substring(6, 24));
 
-            response.setInstitutionId(parseVariableWithoutDelimiter("AO", data.substring(24)));
-            response.setItemIdentifier(parseVariable("AB", data.substring(24)));
-            response.setPermanentLocation(parseVariable("AQ", data.substring(24)));
-            response.setTitleIdentifier(parseVariable("AJ", data.substring(24)));
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            response.setInstitutionId(parseVariable("AO", fields));
+            response.setItemIdentifier(parseVariable("AB", fields));
+            response.setPermanentLocation(parseVariable("AQ", fields));
+            response.setTitleIdentifier(parseVariable("AJ", fields));
 
-            response.setSortBin(parseVariable("CL", data.substring(24), false));
-            response.setPatronIdentifier(parseVariable("AA", data.substring(24), false));
+            response.setSortBin(parseVariable("CL", fields, false));
+            response.setPatronIdentifier(parseVariable("AA", fields, false));
 
-            if (existsAndNotEmpty("CK", data.substring(24))) {
-                response.setMediaType(MediaTypeFactory.getInstance().getMediaType(parseVariable("CK", data.substring(24))));
+            if (existsAndNotEmpty("CK", fields)) {
+                response.setMediaType(MediaTypeFactory.getInstance().getMediaType(parseVariable("CK", fields)));
             }
 
-            response.setItemProperties(parseVariable("CH", data.substring(24), false));
+            response.setItemProperties(parseVariable("CH", fields, false));
 
             /* SIP2 Extensions - Begin */
-            response.setCollectionCode(parseVariable("CR", data.substring(24), false));
-            response.setCallNumber(parseVariable("CS", data.substring(24), false));
-            response.setDestinationLocation(parseVariable("CT", data.substring(24), false));
-            if (existsAndNotEmpty("CV", data.substring(24))) {
-                response.setAlertType(AlertTypeFactory.getInstance().getAlertType(parseVariable("CV", data.substring(24))));
+            response.setCollectionCode(parseVariable("CR", fields, false));
+            response.setCallNumber(parseVariable("CS", fields, false));
+            response.setDestinationLocation(parseVariable("CT", fields, false));
+            if (existsAndNotEmpty("CV", fields)) {
+                response.setAlertType(AlertTypeFactory.getInstance().getAlertType(parseVariable("CV", fields)));
             }
-            response.setHoldPatronId(parseVariable("CY", data.substring(24), false));
-            response.setHoldPatronName(parseVariable("DA", data.substring(24), false));
+            response.setHoldPatronId(parseVariable("CY", fields, false));
+            response.setHoldPatronName(parseVariable("DA", fields, false));
             /* SIP2 Extensions - End */
 
-            response.setScreenMessage(parseVariableMulti("AF", data.substring(24)));
-            response.setPrintLine(parseVariableMulti("AG", data.substring(24)));
+            response.setScreenMessage(parseVariableMulti("AF", fields));
+            response.setPrintLine(parseVariableMulti("AG", fields));
 
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
@@ -56,16 +56,17 @@ public class SIP2EndSessionResponseParser extends SIP2ResponseParser {
 
             response.setTransactionDate(data.substring(3, 21));
 
-            response.setInstitutionId(parseVariableWithoutDelimiter("AO", data.substring(21)));
-            response.setPatronIdentifier(parseVariable("AA", data.substring(21)));
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            response.setInstitutionId(parseVariable("AO", fields));
+            response.setPatronIdentifier(parseVariable("AA", fields));
 
-            response.setScreenMessage(parseVariableMulti("AF", data.substring(21)));
-            response.setPrintLine(parseVariableMulti("AG", data.substring(21)));
+            response.setScreenMessage(parseVariableMulti("AF", fields));
+            response.setPrintLine(parseVariableMulti("AG", fields));
 
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
@@ -0,0 +1,177 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.parser;
+
+import java.util.Arrays;
+
+/**
+ * This class scans the variable-length fields of a response message and
+ * passes them to a {@link SIP2FieldVisitor} one by one. Unlike 
+ * SIP2FieldTokenizer, no index of the fields is built, and only the values
+ * of the requested fields are extracted from the message. This makes it
+ * possible to process messages containing thousands of repeated fields,
+ * for example the items of a patron information response, without 
+ * creating lists of all the values.
+ *
+ * @author Petteri Kivimäki
+ */
+public final class SIP2FieldScanner {
+
+    /**
+     * Field delimiter.
+     */
+    private static final char DELIMITER = '|';
+    /**
+     * Lengths of the fixed-length parts of the response messages indexed 
+     * by the command identifier. The response parsers and views use the
+     * same lengths through {@link #getFixedLength(String) getFixedLength}.
+     */
+    private static final int[] FIXED_LENGTHS = new int[100];
+
+    static {
+        Arrays.fill(FIXED_LENGTHS, 2);
+        // Login
+        FIXED_LENGTHS[94] = 3;
+        // ACS status
+        FIXED_LENGTHS[98] = 36;
+        // Patron status and patron enable
+        FIXED_LENGTHS[24] = 37;
+        FIXED_LENGTHS[26] = 37;
+        // Patron information
+        FIXED_LENGTHS[64] = 61;
+        // Checkin, checkout and renew
+        FIXED_LENGTHS[10] = 24;
+        FIXED_LENGTHS[12] = 24;
+        FIXED_LENGTHS[30] = 24;
+        // End session, fee paid and item status update
+        FIXED_LENGTHS[36] = 21;
+        FIXED_LENGTHS[38] = 21;
+        FIXED_LENGTHS[20] = 21;
+        // Item information
+        FIXED_LENGTHS[18] = 26;
+        // Hold
+        FIXED_LENGTHS[16] = 22;
+        // Renew all
+        FIXED_LENGTHS[66] = 29;
+    }
+
+    /**
+     * Private constructor prevents creating instances of this class.
+     */
+    private SIP2FieldScanner() {
+    }
+
+    /**
+     * Returns the length of the fixed-length part of the given response
+     * message, which is the position of its first variable-length field.
+     * The length is defined by the command identifier. The fields of 
+     * unknown messages are expected to start right after the command
+     * identifier.
+     * @param data message data, at least 2 characters
+     * @return length of the fixed-length part including the command
+     * identifier
+     */
+    public static int getFixedLength(String data) {
+        int first = data.charAt(0) - '0';
+        int second = data.charAt(1) - '0';
+        if (first < 0 || first > 9 || second < 0 || second > 9) {
+            return 2;
+        }
+        return FIXED_LENGTHS[first * 10 + second];
+    }
+
+    /**
+     * Scans the variable-length fields of the given response message and
+     * passes the fields with the given identifiers to the visitor. The
+     * position of the first field is defined by the command identifier of
+     * the message.
+     * @param data message data
+     * @param visitor visitor that receives the fields
+     * @param codes identifiers of the fields passed to the visitor; if no
+     * identifiers are given, all the fields are passed
+     * @return true if the whole message was scanned, false if the visitor
+     * stopped the scan
+     */
+    public static boolean scan(String data, SIP2FieldVisitor visitor, String... codes) {
+        if (data.length() < 2) {
+            return true;
+        }
+        return scan(data, getFixedLength(data), visitor, codes);
+    }
+
+    /**
+     * Scans the variable-length fields of the given data starting from the
+     * given position and passes the fields with the given identifiers to 
+     * the visitor.
+     * @param data message data
+     * @param offset position of the first variable-length field
+     * @param visitor visitor that receives the fields
+     * @param codes identifiers of the fields passed to the visitor; if no
+     * identifiers are given, all the fields are passed
+     * @return true if the whole message was scanned, false if the visitor
+     * stopped the scan
+     */
+    public static boolean scan(String data, int offset, SIP2FieldVisitor visitor, String... codes) {
+        int length = data.length();
+        int start = offset;
+        while (start < length) {
+            int end = data.indexOf(DELIMITER, start);
+            if (end == -1) {
+                end = length;
+            }
+            if (end - start >= 2) {
+                String code = match(data, start, codes);
+                if (code != null && !visitor.visit(code, data.substring(start + 2, end))) {
+                    return false;
+                }
+            }
+            start = end + 1;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the identifier of the field starting from the given position,
+     * if it's one of the given identifiers.
+     * @param data message data
+     * @param start start position of the field
+     * @param codes requested field identifiers
+     * @return the matching identifier, a new identifier if no identifiers
+     * were requested, or null if the field was not requested
+     */
+    private static String match(String data, int start, String[] codes) {
+        char first = data.charAt(start);
+        char second = data.charAt(start + 1);
+        if (codes.length == 0) {
+            return data.substring(start, start + 2);
+        }
+        for (String code : codes) {
+            if (code.charAt(0) == first && code.charAt(1) == second) {
+                return code;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class splits the variable-length part of a SIP2 response message
+ * into fields. The message is scanned only once, and the position of each
+ * field is stored in an index, which means that looking up the value of
+ * a field doesn't require scanning the message again. The values are
+ * extracted from the message only when they're requested, and the value
+ * of a field is extracted only once.
+ *
+ * Each field begins with a two character field identifier and ends with
+ * a field delimiter ('|'). The first field after the fixed-length part of
+ * the message isn't preceded by a delimiter. The sequence number (AY) and
+ * checksum (AZ) fields are not included in the index, but they can be
+ * accessed through their own methods.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2FieldTokenizer {
+
+    /**
+     * Field delimiter.
+     */
+    private static final char DELIMITER = '|';
+    /**
+     * Initial capacity of the field index.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * Message data.
+     */
+    private final String data;
+    /**
+     * Field identifiers packed into integers.
+     */
+    private int[] codes;
+    /**
+     * Start positions of the field values.
+     */
+    private int[] starts;
+    /**
+     * End positions of the field values (exclusive).
+     */
+    private int[] ends;
+    /**
+     * Number of fields in the index.
+     */
+    private int count;
+    /**
+     * Field values extracted so far, created on demand.
+     */
+    private String[] values;
+    /**
+     * Position of the sequence number or -1 if the message doesn't
+     * contain sequence number.
+     */
+    private int sequenceIndex = -1;
+    /**
+     * Position of the checksum or -1 if the message doesn't contain checksum.
+     */
+    private int checksumIndex = -1;
+
+    /**
+     * Constructs and initializes a new SIP2FieldTokenizer object, and
+     * indexes all the variable-length fields of the given response 
+     * message. The length of the fixed-length part is defined by the 
+     * command identifier of the message.
+     * @param data message data, at least 2 characters
+     * @see SIP2FieldScanner#getFixedLength(String)
+     */
+    public SIP2FieldTokenizer(String data) {
+        this(data, SIP2FieldScanner.getFixedLength(data));
+    }
+
+    /**
+     * Constructs and initializes a new SIP2FieldTokenizer object, and
+     * indexes all the fields of the given data starting from the given
+     * position.
+     * @param data message data
+     * @param offset position of the first variable-length field, which
+     * is the length of the fixed-length part of the message
+     */
+    public SIP2FieldTokenizer(String data, int offset) {
+        this.data = data;
+        this.codes = new int[INITIAL_CAPACITY];
+        this.starts = new int[INITIAL_CAPACITY];
+        this.ends = new int[INITIAL_CAPACITY];
+        this.tokenize(offset);
+    }
+
+    /**
+     * Scans the data and adds all the fields to the index.
+     * @param offset position of the first variable-length field
+     */
+    private void tokenize(int offset) {
+        int length = data.length();
+        int start = offset;
+        while (start < length) {
+            int end = data.indexOf(DELIMITER, start);
+            if (end == -1) {
+                end = length;
+            }
+            this.addField(start, end);
+            start = end + 1;
+        }
+    }
+
+    /**
+     * Adds the field between the given positions to the index. The
+     * sequence number and checksum fields are not added to the index,
+     * only their positions are stored.
+     * @param start start position of the field
+     * @param end end position of the field (exclusive)
+     */
+    private void addField(int start, int end) {
+        if (end - start < 2) {
+            return;
+        }
+        char first = data.charAt(start);
+        char second = data.charAt(start + 1);
+        if (first == 'A' && second == 'Y') {
+            if (end - start > 2 && Character.isDigit(data.charAt(start + 2))) {
+                this.sequenceIndex = start + 2;
+                if (data.startsWith("AZ", start + 3)) {
+                    this.setChecksumIndex(start + 5, end);
+                }
+            }
+            return;
+        }
+        if (first == 'A' && second == 'Z') {
+            this.setChecksumIndex(start + 2, end);
+            return;
+        }
+        if (count == codes.length) {
+            int capacity = count * 2;
+            codes = Arrays.copyOf(codes, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        codes[count] = toKey(first, second);
+        starts[count] = start + 2;
+        ends[count] = end;
+        count++;
+    }
+
+    /**
+     * Stores the position of the checksum, if the checksum is four
+     * characters long.
+     * @param start start position of the checksum
+     * @param end end position of the field (exclusive)
+     */
+    private void setChecksumIndex(int start, int end) {
+        if (end - start >= 4) {
+            this.checksumIndex = start;
+        }
+    }
+
+    /**
+     * Packs the given field identifier into an integer.
+     * @param first first character of the field identifier
+     * @param second second character of the field identifier
+     * @return field identifier as an integer
+     */
+    private static int toKey(char first, char second) {
+        return (first << 16) | second;
+    }
+
+    /**
+     * Returns the position of the first field with the given identifier
+     * in the index, or -1 if the field isn't present.
+     * @param code field identifier, 2 characters
+     * @return position of the field in the index or -1
+     */
+    private int indexOf(String code) {
+        int key = toKey(code.charAt(0), code.charAt(1));
+        for (int i = 0; i < count; i++) {
+            if (codes[i] == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value of the first field with the given identifier.
+     * @param code field identifier, 2 characters
+     * @return value of the field or null if the field isn't present
+     */
+    public String get(String code) {
+        int i = this.indexOf(code);
+        if (i == -1) {
+            return null;
+        }
+        return this.value(i);
+    }
+
+    /**
+     * Returns the value of the field at the given position in the index.
+     * The value is extracted from the message when it's requested for the
+     * first time.
+     * @param i position of the field in the index
+     * @return value of the field
+     */
+    private String value(int i) {
+        if (values == null) {
+            values = new String[count];
+        }
+        String value = values[i];
+        if (value == null) {
+            value = data.substring(starts[i], ends[i]);
+            values[i] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the values of all the fields with the given identifier in
+     * the order they appear in the message. Returns an empty list if the
+     * field isn't present.
+     * @param code field identifier, 2 characters
+     * @return list of field values
+     */
+    public List<String> getAll(String code) {
+        int key = toKey(code.charAt(0), code.charAt(1));
+        List<String> results = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            if (codes[i] == key) {
+                results.add(this.value(i));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Passes the fields with the given identifiers to the given visitor in
+     * the order they appear in the message. All the requested fields are
+     * found in a single pass over the index. The identifier passed to the
+     * visitor is the matching instance from the given identifiers.
+     * @param visitor visitor that receives the fields
+     * @param identifiers identifiers of the fields to be visited, 2 
+     * characters each
+     * @return true if all the fields were visited, false if the visitor
+     * stopped
+     */
+    public boolean visit(SIP2FieldVisitor visitor, String... identifiers) {
+        int[] keys = new int[identifiers.length];
+        for (int j = 0; j < identifiers.length; j++) {
+            keys[j] = toKey(identifiers[j].charAt(0), identifiers[j].charAt(1));
+        }
+        for (int i = 0; i < count; i++) {
+            for (int j = 0; j < keys.length; j++) {
+                if (codes[i] == keys[j]) {
+                    if (!visitor.visit(identifiers[j], this.value(i))) {
+                        return false;
+                    }
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns true if and only if the field with the given identifier
+     * is present in the message.
+     * @param code field identifier, 2 characters
+     * @return true if the field is present, otherwise false
+     */
+    public boolean exists(String code) {
+        return this.indexOf(code) != -1;
+    }
+
+    /**
+     * Returns true if and only if the field with the given identifier
+     * is present in the message and its value is not empty.
+     * @param code field identifier, 2 characters
+     * @return true if the field is present and it has a value,
+     * otherwise false
+     */
+    public boolean existsAndNotEmpty(String code) {
+        int i = this.indexOf(code);
+        return i != -1 && ends[i] > starts[i];
+    }
+
+    /**
+     * Returns the sequence number of the message.
+     * @return sequence number or an empty string if the message doesn't
+     * contain sequence number
+     */
+    public String getSequence() {
+        if (sequenceIndex == -1) {
+            return "";
+        }
+        return data.substring(sequenceIndex, sequenceIndex + 1);
+    }
+
+    /**
+     * Returns the checksum of the message.
+     * @return checksum or an empty string if the message doesn't contain
+     * checksum
+     */
+    public String getChecksum() {
+        if (checksumIndex == -1) {
+            return "";
+        }
+        return data.substring(checksumIndex, checksumIndex + 4);
+    }
+
+    /**
+     * Returns the position of the checksum in the message data. The
+     * characters before this position are included in the checksum.
+     * @return position of the checksum or -1 if the message doesn't contain
+     * checksum
+     */
+    public int getChecksumPosition() {
+        return checksumIndex;
+    }
+
+    /**
+     * Returns the number of fields in the index. The sequence number and
+     * checksum fields are not included.
+     * @return number of fields
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Returns the message data.
+     * @return message data
+     */
+    public String getData() {
+        return data;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.parser;
+
+/**
+ * Callback interface for receiving the variable-length fields of a response
+ * message one by one while the message is scanned by 
+ * {@link SIP2FieldScanner}. The fields are not collected into lists, so
+ * large messages can be processed incrementally, and the scan can be 
+ * stopped as soon as the needed information has been found.
+ *
+ * @author Petteri Kivimäki
+ */
+public interface SIP2FieldVisitor {
+
+    /**
+     * Called for each field in the order the fields appear in the message.
+     * @param code field identifier, 2 characters
+     * @param value value of the field
+     * @return true if the scan should continue, false if it should stop
+     */
+    boolean visit(String code, String value);
+}
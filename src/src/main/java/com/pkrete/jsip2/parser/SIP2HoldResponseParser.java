@@ -56,28 +56,29 @@ public class SIP2HoldResponseParser extends SIP2ResponseParser {
             response.setAvailable(this.charToBool(data.charAt(3)));
             response.setTransactionDate(data.substring(4, 22));
 
-            response.setExpirationDate(parseVariableWithoutDelimiter("BW", data.substring(22), false));
-            response.setQueuePosition(parseVariableWithoutDelimiter("BR", data.substring(22), false));
-            response.setPickupLocation(parseVariableWithoutDelimiter("BS", data.substring(22), false));
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            response.setExpirationDate(parseVariable("BW", fields, false));
+            response.setQueuePosition(parseVariable("BR", fields, false));
+            response.setPickupLocation(parseVariable("BS", fields, false));
 
-            response.setInstitutionId(parseVariableWithoutDelimiter("AO", data.substring(22)));
-            response.setPatronIdentifier(parseVariable("AA", data.substring(22)));
-            response.setItemIdentifier(parseVariable("AB", data.substring(22), false));
-            response.setTitleIdentifier(parseVariable("AJ", data.substring(22), false));
+            response.setInstitutionId(parseVariable("AO", fields));
+            response.setPatronIdentifier(parseVariable("AA", fields));
+            response.setItemIdentifier(parseVariable("AB", fields, false));
+            response.setTitleIdentifier(parseVariable("AJ", fields, false));
 
             /* Voyager ESIP extensions - Begin */
-            response.setBibId(parseVariable("MA", data.substring(22), false));
-            response.setIsbn(parseVariable("MB", data.substring(22), false));
-            response.setLccn(parseVariable("MC", data.substring(22), false));
+            response.setBibId(parseVariable("MA", fields, false));
+            response.setIsbn(parseVariable("MB", fields, false));
+            response.setLccn(parseVariable("MC", fields, false));
             /* Voyager ESIP extensions - End */
 
-            response.setScreenMessage(parseVariableMulti("AF", data.substring(22)));
-            response.setPrintLine(parseVariableMulti("AG", data.substring(22)));
+            response.setScreenMessage(parseVariableMulti("AF", fields));
+            response.setPrintLine(parseVariableMulti("AG", fields));
 
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
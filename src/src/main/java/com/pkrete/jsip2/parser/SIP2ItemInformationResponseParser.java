@@ -62,33 +62,34 @@ public class SIP2ItemInformationResponseParser extends SIP2ResponseParser {
             response.setFeeType(FeeTypeFactory.getInstance().getFeeType(data.substring(6, 8)));
             response.setTransactionDate(data.substring(8, 26));
 
-            response.setHoldQueueLength(parseVariableWithoutDelimiter("CF", data.substring(26), false));
-            response.setDueDate(parseVariableWithoutDelimiter("AH", data.substring(26), false));
-            response.setRecallDate(parseVariableWithoutDelimiter("CJ", data.substring(26), false));
-            response.setHoldPickupDate(parseVariableWithoutDelimiter("CM", data.substring(26), false));
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            response.setHoldQueueLength(parseVariable("CF", fields, false));
+            response.setDueDate(parseVariable("AH", fields, false));
+            response.setRecallDate(parseVariable("CJ", fields, false));
+            response.setHoldPickupDate(parseVariable("CM", fields, false));
 
-            response.setItemIdentifier(parseVariableWithoutDelimiter("AB", data.substring(26)));
-            response.setTitleIdentifier(parseVariable("AJ", data.substring(26)));
+            response.setItemIdentifier(parseVariable("AB", fields));
+            response.setTitleIdentifier(parseVariable("AJ", fields));
 
-            response.setOwner(parseVariable("BG", data.substring(26), false));
-            if (existsAndNotEmpty("BH", data.substring(26))) {
-                response.setCurrencyType(CurrencyTypeFactory.getInstance().getCurrencyType(parseVariable("BH", data.substring(26))));
+            response.setOwner(parseVariable("BG", fields, false));
+            if (existsAndNotEmpty("BH", fields)) {
+                response.setCurrencyType(CurrencyTypeFactory.getInstance().getCurrencyType(parseVariable("BH", fields)));
             }
-            response.setFeeAmount(parseVariable("BV", data.substring(26), false));
-            if (existsAndNotEmpty("CK", data.substring(26))) {
-                response.setMediaType(MediaTypeFactory.getInstance().getMediaType(parseVariable("CK", data.substring(26))));
+            response.setFeeAmount(parseVariable("BV", fields, false));
+            if (existsAndNotEmpty("CK", fields)) {
+                response.setMediaType(MediaTypeFactory.getInstance().getMediaType(parseVariable("CK", fields)));
             }
-            response.setPermanentLocation(parseVariable("AQ", data.substring(26), false));
-            response.setCurrentLocation(parseVariable("AP", data.substring(26), false));
-            response.setItemProperties(parseVariable("CH", data.substring(26), false));
+            response.setPermanentLocation(parseVariable("AQ", fields, false));
+            response.setCurrentLocation(parseVariable("AP", fields, false));
+            response.setItemProperties(parseVariable("CH", fields, false));
 
-            response.setScreenMessage(parseVariableMulti("AF", data.substring(26)));
-            response.setPrintLine(parseVariableMulti("AG", data.substring(26)));
+            response.setScreenMessage(parseVariableMulti("AF", fields));
+            response.setPrintLine(parseVariableMulti("AG", fields));
 
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
@@ -55,18 +55,19 @@ public class SIP2ItemStatusUpdateResponseParser extends SIP2ResponseParser {
             response.setItemPropertiesOk(this.intToBool(data.charAt(2)));
             response.setTransactionDate(data.substring(3, 21));
 
-            response.setItemIdentifier(parseVariableWithoutDelimiter("AB", data.substring(21)));
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            response.setItemIdentifier(parseVariable("AB", fields));
 
-            response.setTitleIdentifier(parseVariable("AJ", data.substring(21), false));
-            response.setItemProperties(parseVariable("CH", data.substring(21), false));
+            response.setTitleIdentifier(parseVariable("AJ", fields, false));
+            response.setItemProperties(parseVariable("CH", fields, false));
 
-            response.setScreenMessage(parseVariableMulti("AF", data.substring(21)));
-            response.setPrintLine(parseVariableMulti("AG", data.substring(21)));
+            response.setScreenMessage(parseVariableMulti("AF", fields));
+            response.setPrintLine(parseVariableMulti("AG", fields));
 
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
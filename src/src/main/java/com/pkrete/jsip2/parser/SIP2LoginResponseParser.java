@@ -52,10 +52,12 @@ public class SIP2LoginResponseParser extends SIP2ResponseParser {
         SIP2LoginResponse response = new SIP2LoginResponse(data);
         try {
             response.setOk(intToBool(data.charAt(2)));
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
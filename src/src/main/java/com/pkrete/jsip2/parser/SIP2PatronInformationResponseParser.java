@@ -34,7 +34,10 @@ import com.pkrete.jsip2.variables.PatronStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class parses the data received from the ILS SIP server
@@ -46,6 +49,10 @@ import java.util.List;
 public class SIP2PatronInformationResponseParser extends SIP2ResponseParser {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SIP2PatronInformationResponseParser.class);
+    /**
+     * Field identifiers of all the item types.
+     */
+    private static final String[] ITEM_TYPE_CODES = {"AS", "AT", "AU", "AV", "BU", "CD"};
 
     /**
      * Parses a new SIP2PatronInformationResponse from the given data.
@@ -88,74 +95,102 @@ public class SIP2PatronInformationResponseParser extends SIP2ResponseParser {
             response.setRecallItemsCount(stringToInt(data.substring(53, 57)));
             response.setUnavailableHoldsCount(stringToInt(data.substring(57, 61)));
 
-            response.setInstitutionId(parseVariableWithoutDelimiter("AO", data.substring(61)));
-            response.setPatronIdentifier(parseVariable("AA", data.substring(61)));
-            response.setPersonalName(parseVariable("AE", data.substring(61)));
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            response.setInstitutionId(parseVariable("AO", fields));
+            response.setPatronIdentifier(parseVariable("AA", fields));
+            response.setPersonalName(parseVariable("AE", fields));
 
-            if (exists("BZ", data.substring(61))) {
-                String temp = parseVariable("BZ", data.substring(61));
+            if (exists("BZ", fields)) {
+                String temp = parseVariable("BZ", fields);
                 response.setHoldItemsLimit(stringToInt(temp));
             }
-            if (exists("CA", data.substring(61))) {
-                String temp = parseVariable("CA", data.substring(61));
+            if (exists("CA", fields)) {
+                String temp = parseVariable("CA", fields);
                 response.setOverdueItemsLimit(stringToInt(temp));
             }
-            if (exists("CB", data.substring(61))) {
-                String temp = parseVariable("CB", data.substring(61));
+            if (exists("CB", fields)) {
+                String temp = parseVariable("CB", fields);
                 response.setChargedItemsLimit(stringToInt(temp));
             }
-            if (existsAndNotEmpty("BL", data.substring(61))) {
-                String temp = parseVariable("BL", data.substring(61));
+            if (existsAndNotEmpty("BL", fields)) {
+                String temp = parseVariable("BL", fields);
                 response.setValidPatron(charToBool(temp.charAt(0)));
                 response.setValidPatronUsed(true);
             }
-            if (existsAndNotEmpty("CQ", data.substring(61))) {
-                String temp = parseVariable("CQ", data.substring(61));
+            if (existsAndNotEmpty("CQ", fields)) {
+                String temp = parseVariable("CQ", fields);
                 response.setValidPatronPassword(charToBool(temp.charAt(0)));
                 response.setValidPatronPasswordUsed(true);
             }
-            if (existsAndNotEmpty("BH", data.substring(61))) {
-                String temp = parseVariable("BH", data.substring(61));
+            if (existsAndNotEmpty("BH", fields)) {
+                String temp = parseVariable("BH", fields);
                 response.setCurrencyType(CurrencyTypeFactory.getInstance().getCurrencyType(temp));
             }
 
-            response.setFeeAmount(parseVariable("BV", data.substring(61), false));
-            response.setFeeLimit(parseVariable("CC", data.substring(61), false));
+            response.setFeeAmount(parseVariable("BV", fields, false));
+            response.setFeeLimit(parseVariable("CC", fields, false));
 
-            for (ItemType type : ItemTypeFactory.getInstance().getAllItemTypes()) {
-                List<String> temp = parseVariableMulti(type.toString(), data.substring(61));
-                if (!temp.isEmpty()) {
-                    response.setItems(temp);
-                    response.setItemType(type);
-                    break;
-                }
-            }
+            parseItems(response, fields);
 
-            response.setHomeAddress(parseVariable("BD", data.substring(61), false));
-            response.setEmail(parseVariable("BE", data.substring(61), false));
-            response.setPhone(parseVariable("BF", data.substring(61), false));
+            response.setHomeAddress(parseVariable("BD", fields, false));
+            response.setEmail(parseVariable("BE", fields, false));
+            response.setPhone(parseVariable("BF", fields, false));
 
             /* SIP2 Extensions - Begin */
-            response.setBirthDate(parseVariable("PB", data.substring(61), false));
-            response.setPacAccessType(parseVariable("PA", data.substring(61), false));
-            response.setPatronType(parseVariable("ZY", data.substring(61), false));
+            response.setBirthDate(parseVariable("PB", fields, false));
+            response.setPacAccessType(parseVariable("PA", fields, false));
+            response.setPatronType(parseVariable("ZY", fields, false));
             /* SIP2 Extensions - End */
 
             /* Voyager ESIP extensions - Begin */
-            response.setPatronGroup(parseVariable("PT", data.substring(61), false));
+            response.setPatronGroup(parseVariable("PT", fields, false));
             /* Voyager ESIP extensions - End */
 
-            response.setScreenMessage(parseVariableMulti("AF", data.substring(61)));
-            response.setPrintLine(parseVariableMulti("AG", data.substring(61)));
+            response.setScreenMessage(parseVariableMulti("AF", fields));
+            response.setPrintLine(parseVariableMulti("AG", fields));
 
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
         }
         return response;
     }
+
+    /**
+     * Collects the items of all the item types in a single pass over the
+     * fields. The items of the first item type found in the order of the
+     * SIP2 specification are also set as the items of the response.
+     * @param response response to be populated
+     * @param fields fields of the message
+     */
+    private void parseItems(final SIP2PatronInformationResponse response, SIP2FieldTokenizer fields) {
+        final Map<String, List<String>> lists = new HashMap<String, List<String>>();
+        fields.visit(new SIP2FieldVisitor() {
+            @Override
+            public boolean visit(String code, String value) {
+                List<String> list = lists.get(code);
+                if (list == null) {
+                    list = new ArrayList<String>();
+                    lists.put(code, list);
+                }
+                list.add(value);
+                return true;
+            }
+        }, ITEM_TYPE_CODES);
+        for (ItemType type : ItemTypeFactory.getInstance().getAllItemTypes()) {
+            List<String> list = lists.get(type.toString());
+            if (list == null) {
+                continue;
+            }
+            response.setItems(type, list);
+            if (response.getItemType() == null) {
+                response.setItems(list);
+                response.setItemType(type);
+            }
+        }
+    }
 }
@@ -77,33 +77,34 @@ public class SIP2PatronStatusResponseParser extends SIP2ResponseParser {
 
             response.setTransactionDate(data.substring(19, 37));
 
-            response.setInstitutionId(parseVariableWithoutDelimiter("AO", data.substring(37)));
-            response.setPatronIdentifier(parseVariable("AA", data.substring(37)));
-            response.setPersonalName(parseVariable("AE", data.substring(37)));
-            if (existsAndNotEmpty("BL", data.substring(37))) {
-                String temp = parseVariable("BL", data.substring(37));
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            response.setInstitutionId(parseVariable("AO", fields));
+            response.setPatronIdentifier(parseVariable("AA", fields));
+            response.setPersonalName(parseVariable("AE", fields));
+            if (existsAndNotEmpty("BL", fields)) {
+                String temp = parseVariable("BL", fields);
                 response.setValidPatron(charToBool(temp.charAt(0)));
                 response.setValidPatronUsed(true);
             }
-            if (existsAndNotEmpty("CQ", data.substring(37))) {
-                String temp = parseVariable("CQ", data.substring(37));
+            if (existsAndNotEmpty("CQ", fields)) {
+                String temp = parseVariable("CQ", fields);
                 response.setValidPatronPassword(charToBool(temp.charAt(0)));
                 response.setValidPatronPasswordUsed(true);
             }
-            if (existsAndNotEmpty("BH", data.substring(37))) {
-                String temp = parseVariable("BH", data.substring(37));
+            if (existsAndNotEmpty("BH", fields)) {
+                String temp = parseVariable("BH", fields);
                 response.setCurrencyType(CurrencyTypeFactory.getInstance().getCurrencyType(temp));
             }
 
-            response.setFeeAmount(parseVariable("BV", data.substring(37), false));
+            response.setFeeAmount(parseVariable("BV", fields, false));
 
-            response.setScreenMessage(parseVariableMulti("AF", data.substring(37)));
-            response.setPrintLine(parseVariableMulti("AG", data.substring(37)));
+            response.setScreenMessage(parseVariableMulti("AF", fields));
+            response.setPrintLine(parseVariableMulti("AG", fields));
 
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
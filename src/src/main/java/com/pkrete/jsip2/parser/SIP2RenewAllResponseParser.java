@@ -57,18 +57,19 @@ public class SIP2RenewAllResponseParser extends SIP2ResponseParser {
             response.setUnrenewedCount(stringToInt(data.substring(7, 11)));
             response.setTransactionDate(data.substring(11, 29));
 
-            response.setInstitutionId(parseVariableWithoutDelimiter("AO", data.substring(29)));
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            response.setInstitutionId(parseVariable("AO", fields));
 
-            response.setRenewedItems(parseVariableMulti("BM", data.substring(29)));
-            response.setUnrenewedItems(parseVariableMulti("BN", data.substring(29)));
+            response.setRenewedItems(parseVariableMulti("BM", fields));
+            response.setUnrenewedItems(parseVariableMulti("BN", fields));
 
-            response.setScreenMessage(parseVariableMulti("AF", data.substring(29)));
-            response.setPrintLine(parseVariableMulti("AG", data.substring(29)));
+            response.setScreenMessage(parseVariableMulti("AF", fields));
+            response.setPrintLine(parseVariableMulti("AG", fields));
 
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
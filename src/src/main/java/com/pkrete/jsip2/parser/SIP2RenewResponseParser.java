@@ -73,39 +73,40 @@ public class SIP2RenewResponseParser extends SIP2ResponseParser {
             }
             response.setTransactionDate(data.substring(6, 24));
 
-            response.setInstitutionId(parseVariableWithoutDelimiter("AO", data.substring(24)));
-            response.setPatronIdentifier(parseVariable("AA", data.substring(24)));
-            response.setItemIdentifier(parseVariable("AB", data.substring(24)));
-            response.setTitleIdentifier(parseVariable("AJ", data.substring(24)));
-            response.setDueDate(parseVariable("AH", data.substring(24)));
+            SIP2FieldTokenizer fields = new SIP2FieldTokenizer(data);
+            response.setInstitutionId(parseVariable("AO", fields));
+            response.setPatronIdentifier(parseVariable("AA", fields));
+            response.setItemIdentifier(parseVariable("AB", fields));
+            response.setTitleIdentifier(parseVariable("AJ", fields));
+            response.setDueDate(parseVariable("AH", fields));
 
-            if (existsAndNotEmpty("BT", data.substring(24))) {
-                response.setFeeType(FeeTypeFactory.getInstance().getFeeType(parseVariable("BT", data.substring(24))));
+            if (existsAndNotEmpty("BT", fields)) {
+                response.setFeeType(FeeTypeFactory.getInstance().getFeeType(parseVariable("BT", fields)));
             }
-            if (existsAndNotEmpty("CI", data.substring(24))) {
+            if (existsAndNotEmpty("CI", fields)) {
                 response.setSecurityInhibitUsed(true);
-                response.setSecurityInhibit(this.charToBool(parseVariable("CI", data.substring(24)).charAt(0)));
+                response.setSecurityInhibit(this.charToBool(parseVariable("CI", fields).charAt(0)));
             }
-            if (existsAndNotEmpty("BH", data.substring(24))) {
-                response.setCurrencyType(CurrencyTypeFactory.getInstance().getCurrencyType(parseVariable("BH", data.substring(24))));
+            if (existsAndNotEmpty("BH", fields)) {
+                response.setCurrencyType(CurrencyTypeFactory.getInstance().getCurrencyType(parseVariable("BH", fields)));
             }
 
-            response.setFeeAmount(parseVariable("BV", data.substring(24), false));
+            response.setFeeAmount(parseVariable("BV", fields, false));
 
-            if (existsAndNotEmpty("CK", data.substring(24))) {
-                response.setMediaType(MediaTypeFactory.getInstance().getMediaType(parseVariable("CK", data.substring(24))));
+            if (existsAndNotEmpty("CK", fields)) {
+                response.setMediaType(MediaTypeFactory.getInstance().getMediaType(parseVariable("CK", fields)));
             }
 
-            response.setItemProperties(parseVariable("CH", data.substring(24), false));
-            response.setTransactionId(parseVariable("BK", data.substring(24), false));
+            response.setItemProperties(parseVariable("CH", fields, false));
+            response.setTransactionId(parseVariable("BK", fields, false));
 
-            response.setScreenMessage(parseVariableMulti("AF", data.substring(24)));
-            response.setPrintLine(parseVariableMulti("AG", data.substring(24)));
+            response.setScreenMessage(parseVariableMulti("AF", fields));
+            response.setPrintLine(parseVariableMulti("AG", fields));
 
-            if (!parseSequence(data).isEmpty()) {
-                response.setSequence(Integer.parseInt(parseSequence(data)));
+            if (!parseSequence(fields).isEmpty()) {
+                response.setSequence(Integer.parseInt(parseSequence(fields)));
             }
-            response.setCheckSum(parseChecksum(data));
+            response.setCheckSum(parseChecksum(fields));
         } catch (InvalidSIP2ResponseValueException e) {
             LOGGER.error(e.getMessage(), e);
             throw new InvalidSIP2ResponseValueException(e.getMessage() + " Response message string: \"" + data + "\"");
@@ -118,6 +118,100 @@ public abstract class SIP2ResponseParser {
         }
     }
 
+    /**
+     * Parses the value of the given variable from the given fields. Returns
+     * an empty string if the variable is required, but it's not present in the 
+     * data. If the variable is optional and not present in the data,
+     * null is returned instead.
+     * @param variable code of the variable, 2 characters
+     * @param fields fields of the message
+     * @param required true if the variable is required, false if optional
+     * @return variable value, an empty string or null depending if the
+     * variable is found and if it's optional or required
+     */
+    protected String parseVariable(String variable, SIP2FieldTokenizer fields, boolean required) {
+        if (required) {
+            return parseVariable(variable, fields);
+        }
+        String result = parseVariable(variable, fields);
+        if (result.isEmpty()) {
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Parses the value of the given variable from the given fields. Returns
+     * an empty string if the given variable isn't present in the data.
+     * @param variable code of the variable, 2 characters
+     * @param fields fields of the message
+     * @return variable value
+     */
+    protected String parseVariable(String variable, SIP2FieldTokenizer fields) {
+        String result = fields.get(variable);
+        if (result == null) {
+            return "";
+        }
+        return result;
+    }
+
+    /**
+     * Parses the value of the given variable from the given fields. The
+     * variable can be repeated one or more times, or it may not be used at
+     * all. Returns a list containing all the found values, or an empty
+     * list if no mathes were found.
+     * @param variable code of the variable, 2 characters
+     * @param fields fields of the message
+     * @return list of found variable values
+     */
+    protected List<String> parseVariableMulti(String variable, SIP2FieldTokenizer fields) {
+        return fields.getAll(variable);
+    }
+
+    /**
+     * Parses the sequence from the given fields.
+     * @param fields fields of the message
+     * @return sequence number or an empty string if the data doesn't contain
+     * sequence
+     */
+    protected String parseSequence(SIP2FieldTokenizer fields) {
+        return fields.getSequence();
+    }
+
+    /**
+     * Parses the checksum from the given fields.
+     * @param fields fields of the message
+     * @return chekcsum or an empty string if the data doesn't contain
+     * checksum
+     */
+    protected String parseChecksum(SIP2FieldTokenizer fields) {
+        return fields.getChecksum();
+    }
+
+    /**
+     * Returns true if and only if the given variable is present in
+     * the given fields.
+     * @param variable code of the variable, 2 characters
+     * @param fields fields of the message
+     * @return true if the given field is present in the given fields,
+     * otherwise false
+     */
+    protected boolean exists(String variable, SIP2FieldTokenizer fields) {
+        return fields.exists(variable);
+    }
+
+    /**
+     * Returns true if and only if the given variable and a value are present in
+     * the given fields. If only code is present, false is returned.
+     * @param variable code of the variable, 2 characters
+     * @param fields fields of the message
+     * @return true if the given variable and value are present in the given
+     * fields, otherwise false
+     */
+    protected boolean existsAndNotEmpty(String variable, SIP2FieldTokenizer fields) {
+        return fields.existsAndNotEmpty(variable);
+    }
+
     /**
      * Parses the value of the given variable from the given data string. A
      * field delimiter must be found before the variable code. Returns
@@ -129,7 +223,9 @@ public abstract class SIP2ResponseParser {
      * @param required true if the variable is required, false if optional
      * @return variable value, an empty string or null depending if the
      * variable is found and if it's optional or required
+     * @deprecated replaced by the methods that take a {@link SIP2FieldTokenizer}
      */
+    @Deprecated
     protected String parseVariable(String variable, String data, boolean required) {
         if (required) {
             return parseVariable(variable, data);
@@ -148,7 +244,9 @@ public abstract class SIP2ResponseParser {
      * @param variable code of the variable, 2 characters
      * @param data data string
      * @return variable value
+     * @deprecated replaced by the methods that take a {@link SIP2FieldTokenizer}
      */
+    @Deprecated
     protected String parseVariable(String variable, String data) {
         Pattern regex = Pattern.compile("\\|" + variable + "(.*?)\\|");
         Matcher m = regex.matcher(data);
@@ -168,7 +266,9 @@ public abstract class SIP2ResponseParser {
      * @param required true if the variable is required, false if optional
      * @return variable value, an empty string or null depending if the
      * variable is found and if it's optional or required
+     * @deprecated replaced by the methods that take a {@link SIP2FieldTokenizer}
      */
+    @Deprecated
     protected String parseVariableWithoutDelimiter(String variable, String data, boolean required) {
         if (required) {
             return parseVariableWithoutDelimiter(variable, data);
@@ -186,7 +286,9 @@ public abstract class SIP2ResponseParser {
      * @param variable code of the variable, 2 characters
      * @param data data string
      * @return variable value
+     * @deprecated replaced by the methods that take a {@link SIP2FieldTokenizer}
      */
+    @Deprecated
     protected String parseVariableWithoutDelimiter(String variable, String data) {
         Pattern regex = Pattern.compile(variable + "(.*?)\\|");
         Matcher m = regex.matcher(data);
@@ -204,7 +306,9 @@ public abstract class SIP2ResponseParser {
      * @param variable code of the variable, 2 characters
      * @param data data string
      * @return list of found variable values
+     * @deprecated replaced by the methods that take a {@link SIP2FieldTokenizer}
      */
+    @Deprecated
     protected List<String> parseVariableMulti(String variable, String data) {
         List<String> results = new ArrayList<String>();
         Pattern regex = Pattern.compile("\\|(((" + variable + ".*?)\\|)+)");
@@ -223,7 +327,9 @@ public abstract class SIP2ResponseParser {
      * @param data data string
      * @return sequence number or an empty string if the data doesn't contain
      * sequence
+     * @deprecated replaced by the methods that take a {@link SIP2FieldTokenizer}
      */
+    @Deprecated
     protected String parseSequence(String data) {
         Pattern regex = Pattern.compile("\\|AY(\\d{1})");
         Matcher m = regex.matcher(data);
@@ -238,7 +344,9 @@ public abstract class SIP2ResponseParser {
      * @param data data string
      * @return chekcsum or an empty string if the data doesn't contain
      * checksum
+     * @deprecated replaced by the methods that take a {@link SIP2FieldTokenizer}
      */
+    @Deprecated
     protected String parseChecksum(String data) {
         Pattern regex = Pattern.compile("\\|(AY\\d{1}|)AZ(\\w{4})");
         Matcher m = regex.matcher(data);
@@ -255,7 +363,9 @@ public abstract class SIP2ResponseParser {
      * @param data data string
      * @return true if the given field is present in the given string,
      * otherwise false
+     * @deprecated replaced by the methods that take a {@link SIP2FieldTokenizer}
      */
+    @Deprecated
     protected boolean exists(String variable, String data) {
         Pattern regex = Pattern.compile("\\|" + variable + "(.*?)\\|");
         Matcher m = regex.matcher(data);
@@ -272,7 +382,9 @@ public abstract class SIP2ResponseParser {
      * @param data data string
      * @return true if the given variable and value are present in the given string,
      * otherwise false
+     * @deprecated replaced by the methods that take a {@link SIP2FieldTokenizer}
      */
+    @Deprecated
     protected boolean existsAndNotEmpty(String variable, String data) {
         Pattern regex = Pattern.compile("\\|" + variable + "(.*?)\\|");
         Matcher m = regex.matcher(data);
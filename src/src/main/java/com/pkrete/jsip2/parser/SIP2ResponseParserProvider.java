@@ -0,0 +1,53 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.parser;
+
+import java.util.Map;
+
+/**
+ * Service provider interface for adding response message parsers to
+ * SIP2ResponseFactory. Implementations are located with 
+ * {@link java.util.ServiceLoader}, so they must have a public no-argument
+ * constructor and they must be listed in a
+ * META-INF/services/com.pkrete.jsip2.parser.SIP2ResponseParserProvider
+ * file. This makes it possible to support vendor specific messages, such
+ * as ILS extension codes, without modifying this library.
+ * 
+ * The parsers are shared by all the threads, so they must not hold any
+ * state between the parse calls.
+ *
+ * @author Petteri Kivimäki
+ */
+public interface SIP2ResponseParserProvider {
+
+    /**
+     * Returns the parsers provided by this provider. The keys of the map
+     * are the 2-char command identifiers of the response messages. A parser
+     * registered for the command identifier of a standard response replaces
+     * the parser of this library.
+     * @return parsers indexed by command identifier
+     */
+    Map<String, SIP2ResponseParser> getParsers();
+}
@@ -0,0 +1,186 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.util;
+
+import java.time.Clock;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * This class generates and parses the date and time values used in the SIP2
+ * messages. The SIP2 format is an 18-char, fixed-length field 
+ * "YYYYMMDDZZZZHHMMSS", where ZZZZ is the timezone. The timezone is always
+ * left blank by this class.
+ * 
+ * The current date and time is formatted at most once per second, and the
+ * same String is returned for all the messages created during that second.
+ * The clock can be replaced for testing purposes.
+ *
+ * @author Petteri Kivimäki
+ */
+public final class DateTimeUtil {
+
+    /**
+     * Length of a SIP2 date and time field.
+     */
+    public static final int LENGTH = 18;
+    /**
+     * Clock used for generating the current date and time.
+     */
+    private static volatile Clock clock = Clock.systemDefaultZone();
+    /**
+     * Current date and time formatted during the last second it was needed.
+     */
+    private static volatile Timestamp cached;
+
+    /**
+     * Private constructor prevents creating instances of this class.
+     */
+    private DateTimeUtil() {
+    }
+
+    /**
+     * Returns the clock that is used for generating the current date and
+     * time.
+     * @return current clock
+     */
+    public static Clock getClock() {
+        return clock;
+    }
+
+    /**
+     * Sets the clock that is used for generating the current date and time.
+     * @param clock new clock
+     */
+    public static void setClock(Clock clock) {
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock can't be null.");
+        }
+        DateTimeUtil.clock = clock;
+    }
+
+    /**
+     * Returns the current date and time in the SIP2 format.
+     * @return current date and time in SIP2 format
+     */
+    public static String now() {
+        Clock current = clock;
+        long second = Math.floorDiv(current.millis(), 1000);
+        Timestamp timestamp = cached;
+        if (timestamp != null && timestamp.second == second && timestamp.clock == current) {
+            return timestamp.value;
+        }
+        String value = format(LocalDateTime.ofInstant(Instant.ofEpochSecond(second), current.getZone()));
+        cached = new Timestamp(current, second, value);
+        return value;
+    }
+
+    /**
+     * Converts the given date and time to the SIP2 format.
+     * @param dateTime date and time to be converted
+     * @return date and time in SIP2 format
+     */
+    public static String format(LocalDateTime dateTime) {
+        StringBuilder builder = new StringBuilder(LENGTH);
+        StringUtil.appendFixedLength(builder, dateTime.getYear(), 4);
+        StringUtil.appendFixedLength(builder, dateTime.getMonthValue(), 2);
+        StringUtil.appendFixedLength(builder, dateTime.getDayOfMonth(), 2);
+        builder.append("    ");
+        StringUtil.appendFixedLength(builder, dateTime.getHour(), 2);
+        StringUtil.appendFixedLength(builder, dateTime.getMinute(), 2);
+        StringUtil.appendFixedLength(builder, dateTime.getSecond(), 2);
+        return builder.toString();
+    }
+
+    /**
+     * Parses the date and time from the given SIP2 formatted string. The
+     * timezone characters are ignored.
+     * @param value date and time in SIP2 format
+     * @return parsed date and time or null, if the value is not a valid
+     * SIP2 date and time
+     */
+    public static LocalDateTime parse(CharSequence value) {
+        if (value == null || value.length() < LENGTH) {
+            return null;
+        }
+        int year = digits(value, 0, 4);
+        int month = digits(value, 4, 2);
+        int day = digits(value, 6, 2);
+        int hour = digits(value, 12, 2);
+        int minute = digits(value, 14, 2);
+        int second = digits(value, 16, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second);
+        } catch (DateTimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses the given number of decimal digits starting from the given
+     * index.
+     * @param value characters to be parsed
+     * @param start index of the first digit
+     * @param count number of digits
+     * @return parsed number or -1, if a character is not a digit
+     */
+    private static int digits(CharSequence value, int start, int count) {
+        int result = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Formatted date and time of a single second.
+     */
+    private static final class Timestamp {
+
+        private final Clock clock;
+        private final long second;
+        private final String value;
+
+        /**
+         * Constructs and initializes a new Timestamp object.
+         * @param clock clock that the value was generated with
+         * @param second epoch second of the value
+         * @param value formatted date and time
+         */
+        Timestamp(Clock clock, long second, String value) {
+            this.clock = clock;
+            this.second = second;
+            this.value = value;
+        }
+    }
+}
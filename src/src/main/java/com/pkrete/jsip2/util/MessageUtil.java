@@ -23,9 +23,7 @@
  */
 package com.pkrete.jsip2.util;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
+import java.time.LocalDateTime;
 import java.util.Date;
 
 /**
@@ -36,25 +34,38 @@ import java.util.Date;
  */
 public class MessageUtil {
 
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
     /**
      * Computes the checksum of the given string.
      * @param str transmission string
      * @return checksum of the given string
      */
     public static String computeChecksum(String str) {
-        char[] message = str.toCharArray();
+        return computeChecksum((CharSequence) str);
+    }
+
+    /**
+     * Computes the checksum of the given characters without copying them.
+     * @param str transmission string
+     * @return checksum of the given characters
+     */
+    public static String computeChecksum(CharSequence str) {
         int checksum = 0;
-        int i = 0;
         // Count the binary sum of the characters
-        while (i < str.length()) {
-            checksum += (int) message[i];
-            i++;
+        for (int i = 0; i < str.length(); i++) {
+            checksum += str.charAt(i);
         }
         // Take the lower 16 bits of the total and
         // perform 2's complement
-        checksum = -(checksum & 0xFFFF);
+        checksum = -(checksum & 0xFFFF) & 0xFFFF;
         // Return the result represented by four hex digits
-        return Integer.toHexString(checksum).substring(4, 8).toUpperCase();
+        char[] digits = new char[4];
+        for (int i = 3; i >= 0; i--) {
+            digits[i] = HEX_DIGITS[checksum & 0xF];
+            checksum >>>= 4;
+        }
+        return new String(digits);
     }
 
     /**
@@ -63,8 +74,7 @@ public class MessageUtil {
      * @return current date and time in SIP2 format
      */
     public static String getSipDateTime() {
-        SimpleDateFormat simpleDf = new SimpleDateFormat("yyyyMMdd    HHmmss");
-        return simpleDf.format(new Date());
+        return DateTimeUtil.now();
     }
 
     /**
@@ -74,12 +84,11 @@ public class MessageUtil {
      * @return Date object
      */
     public static Date parseSipDateTime(String dateStr) {
-        SimpleDateFormat simpleDf = new SimpleDateFormat("yyyyMMdd    HHmmss");
-        try {
-            return simpleDf.parse(dateStr);
-        } catch (ParseException pe) {
+        LocalDateTime dateTime = DateTimeUtil.parse(dateStr);
+        if (dateTime == null) {
             return null;
         }
+        return Date.from(dateTime.atZone(DateTimeUtil.getClock().getZone()).toInstant());
     }
 
     /**
@@ -89,8 +98,7 @@ public class MessageUtil {
      * @return SIP2 formatted date/time string
      */
     public static String toSipDateTime(Date date) {
-        SimpleDateFormat simpleDf = new SimpleDateFormat("yyyyMMdd    HHmmss");
-        return simpleDf.format(date);
+        return DateTimeUtil.format(LocalDateTime.ofInstant(date.toInstant(), DateTimeUtil.getClock().getZone()));
     }
 
     /**
@@ -104,10 +112,6 @@ public class MessageUtil {
      * SIP2 format "yyyyMMdd    HHmmss"
      */
     public static String createFutureDate(int days, int months) {
-        Calendar date = Calendar.getInstance();
-        date.setTime(new Date());
-        date.add(Calendar.DATE, days);
-        date.add(Calendar.MONTH, months);
-        return toSipDateTime(date.getTime());
+        return DateTimeUtil.format(LocalDateTime.now(DateTimeUtil.getClock()).plusDays(days).plusMonths(months));
     }
 }
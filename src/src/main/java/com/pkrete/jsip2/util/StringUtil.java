@@ -75,6 +75,35 @@ public class StringUtil {
      * @return string presentation of the given integer
      */
     public static String intToFixedLengthString(int value, int length) {
-        return String.format("%0" + length + "d", value);
+        StringBuilder builder = new StringBuilder(length);
+        appendFixedLength(builder, value, length);
+        return builder.toString();
+    }
+
+    /**
+     * Appends the given integer to the given builder adding leading zeros,
+     * so that the number of appended characters equals to the given 
+     * length. If the number has more digits than the given length, all 
+     * the digits are appended. The result is the same as with 
+     * intToFixedLengthString, but no intermediate strings are created.
+     * @param builder builder that the integer is appended to
+     * @param value integer value to be appended
+     * @param length minimum number of characters appended
+     */
+    public static void appendFixedLength(StringBuilder builder, int value, int length) {
+        long abs = value;
+        if (value < 0) {
+            builder.append('-');
+            abs = -abs;
+            length--;
+        }
+        int digits = 1;
+        for (long rest = abs / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = digits; i < length; i++) {
+            builder.append('0');
+        }
+        builder.append(abs);
     }
 }
@@ -33,7 +33,7 @@ public enum AlertType {
 
     UNKNONW("00"), HOLD_FOR_THIS_LIBRARY("01"), HOLD_FOR_OTHER_BRANCH("02"),
     HOLD_FOR_ILL("03"), SENT_TO_OTHER_BRANCH("04"), OTHER("99");
-    private String value;
+    private final String value;
 
     private AlertType(String value) {
         this.value = value;
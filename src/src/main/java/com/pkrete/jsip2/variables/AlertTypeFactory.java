@@ -29,7 +29,8 @@ import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
  * This class generates AlertType objects based on the alert code. 
  * 
  * This class implements the Singleton design pattern, which means that 
- * only one instance is created at run time.
+ * only one instance is created at run time. The lookups are thread-safe
+ * and they don't allocate any objects.
  * 
  * @author Petteri Kivimäki
  */
@@ -38,7 +39,11 @@ public class AlertTypeFactory {
     /**
      * Reference to the singleton object.
      */
-    private static AlertTypeFactory ref;
+    private static final AlertTypeFactory REF = new AlertTypeFactory();
+    /**
+     * AlertType values indexed by code.
+     */
+    private static final AlertType[] VALUES = CodeTable.index(AlertType.values(), 100);
 
     /**
      * Constructs and initializes a new AlertTypeFactory object.
@@ -47,15 +52,11 @@ public class AlertTypeFactory {
     }
 
     /**
-     * Returns a reference to the singleton object. The object is created when
-     * this method is called for the first time.
+     * Returns a reference to the singleton object.
      * @return reference to the singleton object
      */
     public static AlertTypeFactory getInstance() {
-        if (ref == null) {
-            ref = new AlertTypeFactory();
-        }
-        return ref;
+        return REF;
     }
 
     /**
@@ -65,20 +66,10 @@ public class AlertTypeFactory {
      * @throws InvalidSIP2ResponseValueException
      */
     public AlertType getAlertType(String code) throws InvalidSIP2ResponseValueException {
-        if (code.equals("00")) {
-            return AlertType.UNKNONW;
-        } else if (code.equals("01")) {
-            return AlertType.HOLD_FOR_THIS_LIBRARY;
-        } else if (code.equals("02")) {
-            return AlertType.HOLD_FOR_OTHER_BRANCH;
-        } else if (code.equals("03")) {
-            return AlertType.HOLD_FOR_ILL;
-        } else if (code.equals("04")) {
-            return AlertType.SENT_TO_OTHER_BRANCH;
-        } else if (code.equals("99")) {
-            return AlertType.OTHER;
-        } else {
+        AlertType value = CodeTable.get(VALUES, code, 2);
+        if (value == null) {
             throw new InvalidSIP2ResponseValueException("Invalid alert type code! The given code \"" + code + "\" doesn't match with any alert type!");
         }
+        return value;
     }
 }
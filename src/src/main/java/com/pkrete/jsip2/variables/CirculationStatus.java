@@ -37,7 +37,7 @@ public enum CirculationStatus {
     WAITING_TO_BE_RESHELVED("09"),IN_TRANSIT("10"), CLAIMED_RETURNED("11"), 
     LOST("12"), MISSING("13");
     
-    private String value;
+    private final String value;
     
     private CirculationStatus(String value) {
         this.value = value;
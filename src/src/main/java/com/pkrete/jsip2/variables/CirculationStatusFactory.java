@@ -30,7 +30,8 @@ import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
  * status code. 
  * 
  * This class implements the Singleton design pattern, which means that 
- * only one instance is created at run time.
+ * only one instance is created at run time. The lookups are thread-safe
+ * and they don't allocate any objects.
  * 
  * @author Petteri Kivimäki
  */
@@ -39,7 +40,11 @@ public class CirculationStatusFactory {
     /**
      * Reference to the singleton object.
      */
-    private static CirculationStatusFactory ref;
+    private static final CirculationStatusFactory REF = new CirculationStatusFactory();
+    /**
+     * CirculationStatus values indexed by code.
+     */
+    private static final CirculationStatus[] VALUES = CodeTable.index(CirculationStatus.values(), 14);
 
     /**
      * Constructs and initializes a new CirculationStatusFactory object.
@@ -48,15 +53,11 @@ public class CirculationStatusFactory {
     }
 
     /**
-     * Returns a reference to the singleton object. The object is created when
-     * this method is called for the first time.
+     * Returns a reference to the singleton object.
      * @return reference to the singleton object
      */
     public static CirculationStatusFactory getInstance() {
-        if (ref == null) {
-            ref = new CirculationStatusFactory();
-        }
-        return ref;
+        return REF;
     }
 
     /**
@@ -66,34 +67,10 @@ public class CirculationStatusFactory {
      * @throws InvalidSIP2ResponseValueException 
      */
     public CirculationStatus getCirculationStatus(String code) throws InvalidSIP2ResponseValueException {
-        if (code.equals("01")) {
-            return CirculationStatus.INVALID_OR_UNKNOWN_ITEM_ID;
-        } else if (code.equals("02")) {
-            return CirculationStatus.ON_ORDER;
-        } else if (code.equals("03")) {
-            return CirculationStatus.AVAILABLE;
-        } else if (code.equals("04")) {
-            return CirculationStatus.CHARGED;
-        } else if (code.equals("05")) {
-            return CirculationStatus.CHARGED_NOT_TO_BE_RECALLED_UNTIL_EARLIEST_RECALL_DATE;
-        } else if (code.equals("06")) {
-            return CirculationStatus.IN_PROCESS;
-        } else if (code.equals("07")) {
-            return CirculationStatus.RECALLED;
-        } else if (code.equals("08")) {
-            return CirculationStatus.WAITING_ON_HOLD_SHELF;
-        } else if (code.equals("09")) {
-            return CirculationStatus.WAITING_TO_BE_RESHELVED;
-        } else if (code.equals("10")) {
-            return CirculationStatus.IN_TRANSIT;
-        } else if (code.equals("11")) {
-            return CirculationStatus.CLAIMED_RETURNED;
-        } else if (code.equals("12")) {
-            return CirculationStatus.LOST;
-        } else if (code.equals("13")) {
-            return CirculationStatus.MISSING;
-        } else {
+        CirculationStatus value = CodeTable.get(VALUES, code, 2);
+        if (value == null) {
             throw new InvalidSIP2ResponseValueException("Invalid circulation status code! The given code \"" + code + "\" doesn't match with any circulation status!");
         }
+        return value;
     }
 }
@@ -0,0 +1,85 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.variables;
+
+import java.util.Arrays;
+
+/**
+ * This class builds lookup tables for the enums whose codes are fixed-length
+ * decimal numbers. The value of a code is used as an index to the table, so
+ * a lookup doesn't need any comparisons or allocations.
+ *
+ * @author Petteri Kivimäki
+ */
+final class CodeTable {
+
+    /**
+     * Private constructor prevents creating instances of this class.
+     */
+    private CodeTable() {
+    }
+
+    /**
+     * Creates a table where each of the given values is stored at the index
+     * defined by its code. The code of a value is returned by its toString
+     * method.
+     * @param <T> type of the values
+     * @param values values to be stored
+     * @param size size of the table, greater than the largest code
+     * @return table of the given values indexed by their codes
+     */
+    static <T> T[] index(T[] values, int size) {
+        T[] table = Arrays.copyOf(values, size);
+        Arrays.fill(table, null);
+        for (T value : values) {
+            table[Integer.parseInt(value.toString())] = value;
+        }
+        return table;
+    }
+
+    /**
+     * Returns the value that matches the given code from the given table.
+     * @param <T> type of the values
+     * @param table table created with {@link #index(Object[], int)}
+     * @param code code consisting of decimal digits
+     * @param length length of the code
+     * @return value that matches the given code or null, if no value
+     * matches the code
+     */
+    static <T> T get(T[] table, String code, int length) {
+        if (code == null || code.length() != length) {
+            return null;
+        }
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index < table.length ? table[index] : null;
+    }
+}
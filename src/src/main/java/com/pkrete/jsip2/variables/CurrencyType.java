@@ -35,7 +35,7 @@ public enum CurrencyType {
     US_DOLLAR("USD"), CANADIAN_DOLLAR("CAD"), POUND_STERLING("GBP"),
     YEN("JPY"), EURO("EUR");
     
-    private String value;
+    private final String value;
 
     private CurrencyType(String value) {
         this.value = value;
@@ -29,7 +29,8 @@ import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
  * This class generates CurrencyType objects based on the currency code. 
  * 
  * This class implements the Singleton design pattern, which means that 
- * only one instance is created at run time.
+ * only one instance is created at run time. The lookups are thread-safe
+ * and they don't allocate any objects.
  * 
  * @author Petteri Kivimäki
  */
@@ -37,7 +38,7 @@ public class CurrencyTypeFactory {
     /**
      * Reference to the singleton object.
      */
-    private static CurrencyTypeFactory ref;
+    private static final CurrencyTypeFactory REF = new CurrencyTypeFactory();
     /**
      * Constructs and initializes a new CurrencyTypeFactory object.
      */
@@ -45,15 +46,11 @@ public class CurrencyTypeFactory {
     }
     
     /**
-     * Returns a reference to the singleton object. The object is created when
-     * this method is called for the first time.
+     * Returns a reference to the singleton object.
      * @return reference to the singleton object
      */
     public static CurrencyTypeFactory getInstance() {
-        if (ref == null) {
-            ref = new CurrencyTypeFactory();
-        }
-        return ref;
+        return REF;
     }
 
     /**
@@ -63,18 +60,22 @@ public class CurrencyTypeFactory {
      * @throws InvalidSIP2ResponseValueException
      */
     public CurrencyType getCurrencyType(String code) throws InvalidSIP2ResponseValueException {
-        if (code.equals("USD")) {
-            return CurrencyType.US_DOLLAR;
-        } else if (code.equals("CAD")) {
-            return CurrencyType.CANADIAN_DOLLAR;
-        } else if (code.equals("GBP")) {
-            return CurrencyType.POUND_STERLING;
-        } else if (code.equals("JPY")) {
-            return CurrencyType.YEN;
-        } else if (code.equals("EUR")) {
-            return CurrencyType.EURO;
-        } else {
-            throw new InvalidSIP2ResponseValueException("Invalid currency code! The given code \"" + code + "\" doesn't match with any currency!");
+        if (code != null) {
+            switch (code) {
+                case "USD":
+                    return CurrencyType.US_DOLLAR;
+                case "CAD":
+                    return CurrencyType.CANADIAN_DOLLAR;
+                case "GBP":
+                    return CurrencyType.POUND_STERLING;
+                case "JPY":
+                    return CurrencyType.YEN;
+                case "EUR":
+                    return CurrencyType.EURO;
+                default:
+                    break;
+            }
         }
+        throw new InvalidSIP2ResponseValueException("Invalid currency code! The given code \"" + code + "\" doesn't match with any currency!");
     }
 }
\ No newline at end of file
@@ -36,7 +36,7 @@ public enum FeeType {
     OVERDUE("04"), PROCESSING("05"), RENTAL("06"),
     REPLACEMENT("07"), COMPUTER_ACCESS_CHARGE("08"),
     HOLD_FEE("09");
-    private String value;
+    private final String value;
 
     private FeeType(String value) {
         this.value = value;
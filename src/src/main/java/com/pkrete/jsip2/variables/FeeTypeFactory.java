@@ -29,7 +29,8 @@ import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
  * This class generates FeeType objects based on the fee code. 
  * 
  * This class implements the Singleton design pattern, which means that 
- * only one instance is created at run time.
+ * only one instance is created at run time. The lookups are thread-safe
+ * and they don't allocate any objects.
  * 
  * @author Petteri Kivimäki
  */
@@ -38,7 +39,11 @@ public class FeeTypeFactory {
     /**
      * Reference to the singleton object.
      */
-    private static FeeTypeFactory ref;
+    private static final FeeTypeFactory REF = new FeeTypeFactory();
+    /**
+     * FeeType values indexed by code.
+     */
+    private static final FeeType[] VALUES = CodeTable.index(FeeType.values(), 10);
 
     /**
      * Constructs and initializes a new FeeTypeFactory object.
@@ -47,15 +52,11 @@ public class FeeTypeFactory {
     }
 
     /**
-     * Returns a reference to the singleton object. The object is created when
-     * this method is called for the first time.
+     * Returns a reference to the singleton object.
      * @return reference to the singleton object
      */
     public static FeeTypeFactory getInstance() {
-        if (ref == null) {
-            ref = new FeeTypeFactory();
-        }
-        return ref;
+        return REF;
     }
 
     /**
@@ -65,26 +66,10 @@ public class FeeTypeFactory {
      * @throws InvalidSIP2ResponseValueException
      */
     public FeeType getFeeType(String code) throws InvalidSIP2ResponseValueException {
-        if (code.equals("01")) {
-            return FeeType.OTHER_UNKNONW;
-        } else if (code.equals("02")) {
-            return FeeType.ADMINISTRATIVE;
-        } else if (code.equals("03")) {
-            return FeeType.DAMAGE;
-        } else if (code.equals("04")) {
-            return FeeType.OVERDUE;
-        } else if (code.equals("05")) {
-            return FeeType.PROCESSING;
-        } else if (code.equals("06")) {
-            return FeeType.RENTAL;
-        } else if (code.equals("07")) {
-            return FeeType.REPLACEMENT;
-        } else if (code.equals("08")) {
-            return FeeType.COMPUTER_ACCESS_CHARGE;
-        } else if (code.equals("09")) {
-            return FeeType.HOLD_FEE;
-        } else {
+        FeeType value = CodeTable.get(VALUES, code, 2);
+        if (value == null) {
             throw new InvalidSIP2ResponseValueException("Invalid fee type code! The given code \"" + code + "\" doesn't match with any fee type!");
         }
+        return value;
     }
 }
@@ -35,7 +35,7 @@ import com.pkrete.jsip2.messages.requests.SIP2HoldRequest;
 public enum HoldMode {
 
     ADD("+"), DELETE("-"), CHANGE("*");
-    private String value;
+    private final String value;
 
     private HoldMode(String value) {
         this.value = value;
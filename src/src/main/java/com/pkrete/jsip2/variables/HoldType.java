@@ -36,7 +36,7 @@ public enum HoldType {
 
     OTHER("1"), ANY_COPY("2"), SPECIFIC_COPY("3"), 
     ANY_COPY_AT_SINGLE_BRANCH_OR_SUBLOCATION("4");
-    private String value;
+    private final String value;
 
     private HoldType(String value) {
         this.value = value;
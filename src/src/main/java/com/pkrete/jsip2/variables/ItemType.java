@@ -34,7 +34,7 @@ public enum ItemType {
 
     HOLD("AS"), OVERDUE("AT"), CHARGED("AU"),
     FINE("AV"), RECALL("BU"), UNAVAILABLE_HOLD("CD");
-    private String value;
+    private final String value;
 
     private ItemType(String value) {
         this.value = value;
@@ -24,14 +24,16 @@
 package com.pkrete.jsip2.variables;
 
 import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * This class generates ItemType objects based on the item code. 
  * 
  * This class implements the Singleton design pattern, which means that 
- * only one instance is created at run time.
+ * only one instance is created at run time. The lookups are thread-safe
+ * and they don't allocate any objects.
  * 
  * @author Petteri Kivimäki
  */
@@ -39,7 +41,14 @@ public class ItemTypeFactory {
     /**
      * Reference to the singleton object.
      */
-    private static ItemTypeFactory ref;
+    private static final ItemTypeFactory REF = new ItemTypeFactory();
+    /**
+     * All the item types in the order they're listed in the SIP2 
+     * specification.
+     */
+    private static final List<ItemType> ALL_ITEM_TYPES = Collections.unmodifiableList(Arrays.asList(
+            ItemType.HOLD, ItemType.OVERDUE, ItemType.CHARGED,
+            ItemType.FINE, ItemType.RECALL, ItemType.UNAVAILABLE_HOLD));
     /**
      * Constructs and initializes a new ItemTypeFactory object.
      */
@@ -47,15 +56,11 @@ public class ItemTypeFactory {
     }
     
     /**
-     * Returns a reference to the singleton object. The object is created when
-     * this method is called for the first time.
+     * Returns a reference to the singleton object.
      * @return reference to the singleton object
      */
     public static ItemTypeFactory getInstance() {
-        if (ref == null) {
-            ref = new ItemTypeFactory();
-        }
-        return ref;
+        return REF;
     }
 
     /**
@@ -65,35 +70,33 @@ public class ItemTypeFactory {
      * @throws InvalidSIP2ResponseValueException
      */
     public ItemType getItemType(String code) throws InvalidSIP2ResponseValueException {
-        if (code.equals("AS")) {
-            return ItemType.HOLD;
-        } else if (code.equals("AT")) {
-            return ItemType.OVERDUE;
-        } else if (code.equals("AU")) {
-            return ItemType.CHARGED;
-        } else if (code.equals("AV")) {
-            return ItemType.FINE;
-        } else if (code.equals("BU")) {
-            return ItemType.RECALL;
-        } else if (code.equals("CD")) {
-            return ItemType.UNAVAILABLE_HOLD;
-        }else {
-            throw new InvalidSIP2ResponseValueException("Invalid item type code! The given code \"" + code + "\" doesn't match with any item type!");
-        }        
+        if (code != null) {
+            switch (code) {
+                case "AS":
+                    return ItemType.HOLD;
+                case "AT":
+                    return ItemType.OVERDUE;
+                case "AU":
+                    return ItemType.CHARGED;
+                case "AV":
+                    return ItemType.FINE;
+                case "BU":
+                    return ItemType.RECALL;
+                case "CD":
+                    return ItemType.UNAVAILABLE_HOLD;
+                default:
+                    break;
+            }
+        }
+        throw new InvalidSIP2ResponseValueException("Invalid item type code! The given code \"" + code + "\" doesn't match with any item type!");
     }    
     
     /**
-     * Returns a list that contains all the item types.
+     * Returns an unmodifiable list that contains all the item types. The
+     * same list is returned on every call.
      * @return list of all the item types
      */
     public List<ItemType> getAllItemTypes() {
-        List<ItemType> list = new ArrayList<ItemType>();
-        list.add(ItemType.HOLD);
-        list.add(ItemType.OVERDUE);
-        list.add(ItemType.CHARGED);
-        list.add(ItemType.FINE);
-        list.add(ItemType.RECALL);
-        list.add(ItemType.UNAVAILABLE_HOLD);
-        return list;
+        return ALL_ITEM_TYPES;
     }
 }
@@ -41,7 +41,7 @@ public enum Language {
     MALAY("023"), UNITED_KINGDOM("024"), ICELANDIC("025"), BELGIAN("026"),
     TAIWANESE("027");
     
-    private String value;
+    private final String value;
 
     private Language(String value) {
         this.value = value;
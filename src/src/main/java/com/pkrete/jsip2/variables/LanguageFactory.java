@@ -29,7 +29,8 @@ import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
  * This class generates Language objects based on the language code. 
  * 
  * This class implements the Singleton design pattern, which means that 
- * only one instance is created at run time.
+ * only one instance is created at run time. The lookups are thread-safe
+ * and they don't allocate any objects.
  * 
  * @author Petteri Kivimäki
  */
@@ -38,7 +39,11 @@ public class LanguageFactory {
     /**
      * Reference to the singleton object.
      */
-    private static LanguageFactory ref;
+    private static final LanguageFactory REF = new LanguageFactory();
+    /**
+     * Language values indexed by code.
+     */
+    private static final Language[] VALUES = CodeTable.index(Language.values(), 28);
 
     /**
      * Constructs and initializes a new LanguageFactory object.
@@ -47,15 +52,11 @@ public class LanguageFactory {
     }
 
     /**
-     * Returns a reference to the singleton object. The object is created when
-     * this method is called for the first time.
+     * Returns a reference to the singleton object.
      * @return reference to the singleton object
      */
     public static LanguageFactory getInstance() {
-        if (ref == null) {
-            ref = new LanguageFactory();
-        }
-        return ref;
+        return REF;
     }
 
     /**
@@ -65,64 +66,10 @@ public class LanguageFactory {
      * @throws InvalidSIP2ResponseValueException 
      */
     public Language getLanguage(String code) throws InvalidSIP2ResponseValueException {
-        if (code.equals("000")) {
-            return Language.UNKNOWN;
-        } else if (code.equals("001")) {
-            return Language.ENGLISH;
-        } else if (code.equals("002")) {
-            return Language.FRENCH;
-        } else if (code.equals("003")) {
-            return Language.GERMAN;
-        } else if (code.equals("004")) {
-            return Language.ITALIAN;
-        } else if (code.equals("005")) {
-            return Language.DUTCH;
-        } else if (code.equals("006")) {
-            return Language.SWEDISH;
-        } else if (code.equals("007")) {
-            return Language.FINNISH;
-        } else if (code.equals("008")) {
-            return Language.SPANISH;
-        } else if (code.equals("009")) {
-            return Language.DANISH;
-        } else if (code.equals("010")) {
-            return Language.PORTUGESE;
-        } else if (code.equals("011")) {
-            return Language.CANADIAN_FRENCH;
-        } else if (code.equals("012")) {
-            return Language.NORWEGIAN;
-        } else if (code.equals("013")) {
-            return Language.HEBREW;
-        } else if (code.equals("014")) {
-            return Language.JAPANESE;
-        } else if (code.equals("015")) {
-            return Language.RUSSIAN;
-        } else if (code.equals("016")) {
-            return Language.ARABIC;
-        } else if (code.equals("017")) {
-            return Language.POLISH;
-        } else if (code.equals("018")) {
-            return Language.GREEK;
-        } else if (code.equals("019")) {
-            return Language.CHINESE;
-        } else if (code.equals("020")) {
-            return Language.KOREAN;
-        } else if (code.equals("021")) {
-            return Language.NORTH_AMERICAN_SPANISH;
-        } else if (code.equals("022")) {
-            return Language.TAMIL;
-        } else if (code.equals("023")) {
-            return Language.MALAY;
-        } else if (code.equals("024")) {
-            return Language.UNITED_KINGDOM;
-        } else if (code.equals("025")) {
-            return Language.ICELANDIC;
-        } else if (code.equals("026")) {
-            return Language.BELGIAN;
-        } else if (code.equals("027")) {
-            return Language.TAIWANESE;
-        } else {
+        Language value = CodeTable.get(VALUES, code, 3);
+        if (value == null) {
             throw new InvalidSIP2ResponseValueException("Invalid language code! The given code \"" + code + "\" doesn't match with any language!");
         }
+        return value;
     }
 }
\ No newline at end of file
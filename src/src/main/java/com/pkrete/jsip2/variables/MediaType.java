@@ -35,7 +35,7 @@ public enum MediaType {
     BOUND_JOURNAL("003"), AUDIO_TAPE("004"), VIDEO_TAPE("005"),
     CD_CDROM("006"), DISKETTE("007"), BOOK_WITH_DISKETTE("008"),
     BOOK_WITH_CD("009"), BOOK_WITH_AUDIO_TAPE("010");
-    private String value;
+    private final String value;
 
     private MediaType(String value) {
         this.value = value;
@@ -29,7 +29,8 @@ import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
  * This class generates MediaType objects based on the media code. 
  * 
  * This class implements the Singleton design pattern, which means that 
- * only one instance is created at run time.
+ * only one instance is created at run time. The lookups are thread-safe
+ * and they don't allocate any objects.
  * 
  * @author Petteri Kivimäki
  */
@@ -38,7 +39,11 @@ public class MediaTypeFactory {
     /**
      * Reference to the singleton object.
      */
-    private static MediaTypeFactory ref;
+    private static final MediaTypeFactory REF = new MediaTypeFactory();
+    /**
+     * MediaType values indexed by code.
+     */
+    private static final MediaType[] VALUES = CodeTable.index(MediaType.values(), 11);
 
     /**
      * Constructs and initializes a new MediaTypeFactory object.
@@ -47,15 +52,11 @@ public class MediaTypeFactory {
     }
 
     /**
-     * Returns a reference to the singleton object. The object is created when
-     * this method is called for the first time.
+     * Returns a reference to the singleton object.
      * @return reference to the singleton object
      */
     public static MediaTypeFactory getInstance() {
-        if (ref == null) {
-            ref = new MediaTypeFactory();
-        }
-        return ref;
+        return REF;
     }
 
     /**
@@ -65,30 +66,10 @@ public class MediaTypeFactory {
      * @throws InvalidSIP2ResponseValueException
      */
     public MediaType getMediaType(String code) throws InvalidSIP2ResponseValueException {
-        if (code.equals("000")) {
-            return MediaType.OTHER;
-        } else if (code.equals("001")) {
-            return MediaType.BOOK;
-        } else if (code.equals("002")) {
-            return MediaType.MAGAZINE;
-        } else if (code.equals("003")) {
-            return MediaType.BOUND_JOURNAL;
-        } else if (code.equals("004")) {
-            return MediaType.AUDIO_TAPE;
-        } else if (code.equals("005")) {
-            return MediaType.VIDEO_TAPE;
-        } else if (code.equals("006")) {
-            return MediaType.CD_CDROM;
-        } else if (code.equals("007")) {
-            return MediaType.DISKETTE;
-        } else if (code.equals("008")) {
-            return MediaType.BOOK_WITH_DISKETTE;
-        } else if (code.equals("009")) {
-            return MediaType.BOOK_WITH_CD;
-        } else if (code.equals("010")) {
-            return MediaType.BOOK_WITH_AUDIO_TAPE;
-        } else {
+        MediaType value = CodeTable.get(VALUES, code, 3);
+        if (value == null) {
             throw new InvalidSIP2ResponseValueException("Invalid media type code! The given code \"" + code + "\" doesn't match with any media type!");
         }
+        return value;
     }
 }
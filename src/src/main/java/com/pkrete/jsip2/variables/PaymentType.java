@@ -35,7 +35,7 @@ import com.pkrete.jsip2.messages.requests.SIP2FeePaidRequest;
 public enum PaymentType {
 
     CASH("00"), VISA("01"), CREDIT_CARD("02");
-    private String value;
+    private final String value;
 
     private PaymentType(String value) {
         this.value = value;
@@ -34,7 +34,7 @@ public enum SecurityMarker {
 
     OTHER("00"), NONE("01"), TATTLE_TAPE_SECURITY_STRIP_3M("02"),
     WHISPER_TAPE_3M("03");
-    private String value;
+    private final String value;
 
     private SecurityMarker(String value) {
         this.value = value;
@@ -29,7 +29,8 @@ import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
  * This class generates SecurityMarker objects based on the security marker code. 
  * 
  * This class implements the Singleton design pattern, which means that 
- * only one instance is created at run time.
+ * only one instance is created at run time. The lookups are thread-safe
+ * and they don't allocate any objects.
  * 
  * @author Petteri Kivimäki
  */
@@ -37,7 +38,11 @@ public class SecurityMarkerFactory {
     /**
      * Reference to the singleton object.
      */
-    private static SecurityMarkerFactory ref;
+    private static final SecurityMarkerFactory REF = new SecurityMarkerFactory();
+    /**
+     * SecurityMarker values indexed by code.
+     */
+    private static final SecurityMarker[] VALUES = CodeTable.index(SecurityMarker.values(), 4);
     /**
      * Constructs and initializes a new SecurityMarkerFactory object.
      */
@@ -45,15 +50,11 @@ public class SecurityMarkerFactory {
     }
     
     /**
-     * Returns a reference to the singleton object. The object is created when
-     * this method is called for the first time.
+     * Returns a reference to the singleton object.
      * @return reference to the singleton object
      */
     public static SecurityMarkerFactory getInstance() {
-        if (ref == null) {
-            ref = new SecurityMarkerFactory();
-        }
-        return ref;
+        return REF;
     }
 
     /**
@@ -63,17 +64,10 @@ public class SecurityMarkerFactory {
      * @throws InvalidSIP2ResponseValueException
      */
     public SecurityMarker getSecurityMarker(String code) throws InvalidSIP2ResponseValueException {
-        if (code.equals("00")) {
-            return SecurityMarker.OTHER;
-        } else if (code.equals("01")) {
-            return SecurityMarker.NONE;
-        } else if (code.equals("02")) {
-            return SecurityMarker.TATTLE_TAPE_SECURITY_STRIP_3M;
-        } else if (code.equals("03")) {
-            return SecurityMarker.WHISPER_TAPE_3M;
-        } 
-        else {
+        SecurityMarker value = CodeTable.get(VALUES, code, 2);
+        if (value == null) {
             throw new InvalidSIP2ResponseValueException("Invalid security marker code! The given code \"" + code + "\" doesn't match with any security marker!");
-        }        
-    }    
+        }
+        return value;
+    }
 }
@@ -32,7 +32,7 @@ public enum StatusCode {
 
     OK("0"), PRINTER_OUT_OF_PAPER("1"), SHUT_DOWN("2");
     
-    private String value;
+    private final String value;
 
     private StatusCode(String value) {
         this.value = value;
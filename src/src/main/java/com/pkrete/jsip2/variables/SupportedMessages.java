@@ -371,4 +371,50 @@ public class SupportedMessages {
     public void setRenewAll(boolean renewAll) {
         this.renewAll = renewAll;
     }
+
+    /**
+     * Returns true if and only if the request message with the given 
+     * command identifier is supported. SC Status, Request ACS Resend and
+     * Login requests are always supported, because they're needed for
+     * establishing the connection and finding out the supported messages.
+     * Unknown command identifiers, e.g. vendor specific messages, are 
+     * supported too.
+     * @param code command identifier of the request message
+     * @return true if the message is supported, otherwise false
+     */
+    public boolean isSupported(String code) {
+        if (code == null) {
+            return true;
+        }
+        switch (code) {
+            case "23":
+                return patronStatusRequest;
+            case "11":
+                return checkout;
+            case "09":
+                return checkin;
+            case "01":
+                return blockPatron;
+            case "63":
+                return patronInformation;
+            case "35":
+                return endPatronSession;
+            case "37":
+                return feePaid;
+            case "17":
+                return itemInformation;
+            case "19":
+                return itemStatusUpdate;
+            case "25":
+                return patronEnable;
+            case "15":
+                return hold;
+            case "29":
+                return renew;
+            case "65":
+                return renewAll;
+            default:
+                return true;
+        }
+    }
 }
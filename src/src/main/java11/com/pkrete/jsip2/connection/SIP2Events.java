@@ -0,0 +1,156 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+
+/**
+ * This class emits the Java Flight Recorder events of SIP2SocketConnection. 
+ * This version is used on Java 11 and later. The events are begun only 
+ * when they're enabled in a running recording, so that the connection 
+ * doesn't create any objects or read the clock for the events otherwise.
+ * 
+ * @author Petteri Kivimäki
+ */
+final class SIP2Events {
+
+    /**
+     * Event instances that are never committed. They're only used for 
+     * checking whether the events are enabled.
+     */
+    private static final SIP2ExchangeEvent EXCHANGE = new SIP2ExchangeEvent();
+    private static final SIP2ConnectEvent CONNECT = new SIP2ConnectEvent();
+    private static final SIP2LoginEvent LOGIN = new SIP2LoginEvent();
+
+    private SIP2Events() {
+    }
+
+    /**
+     * Begins a new exchange event, if the event is enabled.
+     * @return trace of the exchange or null if the event isn't enabled
+     */
+    static SIP2ExchangeTrace beginExchange() {
+        if (!EXCHANGE.isEnabled()) {
+            return null;
+        }
+        SIP2ExchangeEvent event = new SIP2ExchangeEvent();
+        event.begin();
+        return new SIP2ExchangeTrace(event);
+    }
+
+    /**
+     * Commits the event of the given exchange.
+     * @param trace trace of the exchange
+     * @param host host of the ILS SIP server
+     * @param port port of the ILS SIP server
+     * @param code command identifier of the request
+     * @param response response received or null if the exchange failed
+     */
+    static void commitExchange(SIP2ExchangeTrace trace, String host, int port, String code, SIP2MessageResponse response) {
+        SIP2ExchangeEvent event = (SIP2ExchangeEvent) trace.event;
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.endpoint = host + ":" + port;
+        event.command = code;
+        event.requestBytes = trace.requestBytes;
+        event.responseBytes = trace.responseBytes;
+        event.writeTime = trace.writeNanos;
+        event.readTime = trace.readNanos;
+        event.parseTime = trace.parseNanos;
+        event.checksumFailures = trace.checksumFailures;
+        event.resends = trace.resends;
+        if (response != null) {
+            event.success = true;
+            event.responseCommand = response.getCode();
+            event.checksumPresent = response.isChecksum();
+            event.checksumValid = response.isValid();
+        }
+        event.commit();
+    }
+
+    /**
+     * Begins a new connect event, if the event is enabled.
+     * @return event or null if the event isn't enabled
+     */
+    static Object beginConnect() {
+        if (!CONNECT.isEnabled()) {
+            return null;
+        }
+        SIP2ConnectEvent event = new SIP2ConnectEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits the given connect event.
+     * @param event event returned by {@link #beginConnect() beginConnect}
+     * @param host host of the ILS SIP server
+     * @param port port of the ILS SIP server
+     * @param connected true if the connection was established
+     */
+    static void commitConnect(Object event, String host, int port, boolean connected) {
+        SIP2ConnectEvent connect = (SIP2ConnectEvent) event;
+        connect.end();
+        if (connect.shouldCommit()) {
+            connect.endpoint = host + ":" + port;
+            connect.connected = connected;
+            connect.commit();
+        }
+    }
+
+    /**
+     * Begins a new login event, if the event is enabled.
+     * @return event or null if the event isn't enabled
+     */
+    static Object beginLogin() {
+        if (!LOGIN.isEnabled()) {
+            return null;
+        }
+        SIP2LoginEvent event = new SIP2LoginEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits the given login event.
+     * @param event event returned by {@link #beginLogin() beginLogin}
+     * @param host host of the ILS SIP server
+     * @param port port of the ILS SIP server
+     * @param ok true if the login succeeded
+     * @param reconnect true if the login was sent after reconnecting
+     */
+    static void commitLogin(Object event, String host, int port, boolean ok, boolean reconnect) {
+        SIP2LoginEvent login = (SIP2LoginEvent) event;
+        login.end();
+        if (login.shouldCommit()) {
+            login.endpoint = host + ":" + port;
+            login.ok = ok;
+            login.reconnect = reconnect;
+            login.commit();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of a single request/response exchange sent with
+ * SIP2SocketConnection. The duration of the event covers the whole 
+ * exchange including resend requests and reconnecting. The event doesn't
+ * contain any message fields, so patron identifiers, passwords and other 
+ * personal data are never recorded.
+ * 
+ * @author Petteri Kivimäki
+ */
+@Name("com.pkrete.jsip2.Exchange")
+@Label("SIP2 Exchange")
+@Category("SIP2")
+@Description("Request sent to an ILS SIP server and the response received")
+final class SIP2ExchangeEvent extends Event {
+
+    @Label("Endpoint")
+    @Description("Host and port of the ILS SIP server")
+    String endpoint;
+
+    @Label("Command")
+    @Description("Command identifier of the request")
+    String command;
+
+    @Label("Response Command")
+    @Description("Command identifier of the response")
+    String responseCommand;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    long responseBytes;
+
+    @Label("Write Time")
+    @Timespan
+    long writeTime;
+
+    @Label("Read Time")
+    @Description("Time spent waiting for and decoding the response")
+    @Timespan
+    long readTime;
+
+    @Label("Parse Time")
+    @Timespan
+    long parseTime;
+
+    @Label("Checksum Present")
+    boolean checksumPresent;
+
+    @Label("Checksum Valid")
+    boolean checksumValid;
+
+    @Label("Checksum Failures")
+    int checksumFailures;
+
+    @Label("Resends")
+    int resends;
+
+    @Label("Success")
+    @Description("True if a response was received")
+    boolean success;
+}
@@ -0,0 +1,63 @@
+/*
+ *  The MIT License
+ * 
+ *  Copyright 2012- Petteri Kivimäki
+ * 
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ * 
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ * 
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class creates the threads that run the blocking requests of
+ * {@link SIP2ThreadPerRequestClient SIP2ThreadPerRequestClient}. This 
+ * version is used on Java 21 and later, and it runs each request in its
+ * own virtual thread. The blocking socket I/O of SIP2SocketConnection 
+ * unmounts the virtual thread from its carrier thread, because the read 
+ * and write paths are guarded by java.util.concurrent locks instead of
+ * synchronized blocks.
+ * 
+ * @author Petteri Kivimäki
+ */
+final class SIP2Threads {
+
+    private SIP2Threads() {
+    }
+
+    /**
+     * Returns a new executor that runs each task in a new virtual thread.
+     * @param name name prefix of the threads
+     * @return new executor
+     */
+    static ExecutorService newThreadPerTaskExecutor(String name) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+    }
+
+    /**
+     * Returns true if and only if the executors created by this class use
+     * virtual threads.
+     * @return true if virtual threads are used, otherwise false
+     */
+    static boolean isVirtual() {
+        return true;
+    }
+}
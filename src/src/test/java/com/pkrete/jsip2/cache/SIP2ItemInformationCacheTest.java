@@ -0,0 +1,152 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.cache;
+
+import com.pkrete.jsip2.messages.SIP2ResponseFactory;
+import com.pkrete.jsip2.messages.responses.SIP2ItemInformationResponse;
+import com.pkrete.jsip2.util.TestUtils;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2ItemInformationCache class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2ItemInformationCacheTest extends TestCase {
+
+    private static SIP2ItemInformationResponse response(String itemId) throws Exception {
+        return (SIP2ItemInformationResponse) SIP2ResponseFactory.getInstance().create("180300" + "01" + TestUtils.SIP2_DATE_TIME + "CF2|AB" + itemId + "|AJtitle|");
+    }
+
+    @Test
+    public void testGetAndPut() throws Exception {
+        SIP2ItemInformationCache cache = new SIP2ItemInformationCache(60000, 10, 10000);
+        assertNull(cache.get("item1"));
+        cache.put("item1", response("item1"));
+        SIP2ItemInformationResponse cached = cache.get("item1");
+        assertEquals("item1", cached.getItemIdentifier());
+        assertEquals("2", cached.getHoldQueueLength());
+        assertNotSame(cached, cache.get("item1"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertTrue(cache.getBytes() > 0);
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        SIP2ItemInformationCache cache = new SIP2ItemInformationCache(20, 10, 10000);
+        cache.put("item1", response("item1"));
+        assertNotNull(cache.get("item1"));
+        Thread.sleep(50);
+        assertNull(cache.get("item1"));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEviction() throws Exception {
+        SIP2ItemInformationCache cache = new SIP2ItemInformationCache(60000, 2, 10000);
+        cache.put("item1", response("item1"));
+        cache.put("item2", response("item2"));
+        assertNotNull(cache.get("item1"));
+        cache.put("item3", response("item3"));
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("item1"));
+        assertNull(cache.get("item2"));
+        assertNotNull(cache.get("item3"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testMemoryBound() throws Exception {
+        SIP2ItemInformationCache cache = new SIP2ItemInformationCache(60000, 1000, 400);
+        for (int i = 0; i < 10; i++) {
+            cache.put("item" + i, response("item" + i));
+            assertTrue(cache.getBytes() <= 400);
+        }
+        assertTrue(cache.size() < 10);
+        assertNotNull(cache.get("item9"));
+        assertFalse(new SIP2ItemInformationCache(60000, 10, 10).put("item1", response("item1"), 0));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        SIP2ItemInformationCache cache = new SIP2ItemInformationCache(60000, 10, 10000);
+        cache.put("item1", response("item1"));
+        long stamp = cache.getStamp();
+        cache.invalidate("item1");
+        assertNull(cache.get("item1"));
+        // Response to a request sent before the invalidation is not stored
+        assertFalse(cache.put("item1", response("item1"), stamp));
+        assertNull(cache.get("item1"));
+        assertTrue(cache.put("item1", response("item1"), cache.getStamp()));
+        assertNotNull(cache.get("item1"));
+    }
+
+    @Test
+    public void testInvalidatedItemEvicted() throws Exception {
+        SIP2ItemInformationCache cache = new SIP2ItemInformationCache(60000, 2, 10000);
+        long stamp = cache.getStamp();
+        cache.invalidate("item1");
+        cache.put("item2", response("item2"));
+        cache.put("item3", response("item3"));
+        assertTrue(cache.getEvictionCount() > 0);
+        // The stale response is rejected after the invalidation is evicted
+        assertFalse(cache.put("item1", response("item1"), stamp));
+        assertNull(cache.get("item1"));
+    }
+
+    @Test
+    public void testInvalidatedItemExpired() throws Exception {
+        SIP2ItemInformationCache cache = new SIP2ItemInformationCache(20, 10, 10000);
+        long stamp = cache.getStamp();
+        cache.invalidate("item1");
+        Thread.sleep(50);
+        assertFalse(cache.put("item1", response("item1"), stamp));
+        // A newer response replaces the invalidation, and the stale one
+        // must not replace the newer response
+        assertTrue(cache.put("item1", response("item1"), cache.getStamp()));
+        assertFalse(cache.put("item1", response("item1"), stamp));
+    }
+
+    @Test
+    public void testInvalidateAll() throws Exception {
+        SIP2ItemInformationCache cache = new SIP2ItemInformationCache(60000, 10, 10000);
+        long stamp = cache.getStamp();
+        cache.put("item1", response("item1"));
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getBytes());
+        assertFalse(cache.put("item2", response("item2"), stamp));
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        try {
+            new SIP2ItemInformationCache(0, 10, 10000);
+            fail("Time to live must be positive");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+}
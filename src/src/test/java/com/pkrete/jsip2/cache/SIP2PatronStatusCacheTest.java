@@ -0,0 +1,139 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.cache;
+
+import com.pkrete.jsip2.messages.SIP2ResponseFactory;
+import com.pkrete.jsip2.messages.responses.SIP2PatronResponse;
+import com.pkrete.jsip2.util.TestUtils;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2PatronStatusCache class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2PatronStatusCacheTest extends TestCase {
+
+    private static SIP2PatronResponse response(String patronId, boolean valid, boolean validPassword) throws Exception {
+        return (SIP2PatronResponse) SIP2ResponseFactory.getInstance().create("24Y    Y       Y001" + TestUtils.SIP2_DATE_TIME
+                + "AOinstitution|AA" + patronId + "|AEname|BL" + (valid ? "Y" : "N") + "|CQ" + (validPassword ? "Y" : "N") + "|");
+    }
+
+    @Test
+    public void testValidPatron() throws Exception {
+        SIP2PatronStatusCache cache = new SIP2PatronStatusCache(60000, 60000, 10);
+        assertNull(cache.get("patron1", "1234"));
+        assertTrue(cache.put("patron1", "1234", response("patron1", true, true)));
+        SIP2PatronValidation validation = cache.get("patron1", "1234");
+        assertTrue(validation.isValidPatron());
+        assertTrue(validation.isValidPatronPassword());
+        assertTrue(validation.getStatus().isChargePrivilegesDenied());
+        assertTrue(validation.getStatus().isTooManyItemsCharged());
+        assertTrue(validation.getStatus().isTooManyItemsBilled());
+        assertFalse(validation.getStatus().isRenewalPrivilegesDenied());
+        // Different password must be validated again
+        assertNull(cache.get("patron1", "4321"));
+        assertNull(cache.get("patron1", null));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test
+    public void testNegativeCache() throws Exception {
+        SIP2PatronStatusCache cache = new SIP2PatronStatusCache(60000, 60000, 10);
+        cache.put("unknown", null, response("unknown", false, false));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.negativeSize());
+        SIP2PatronValidation validation = cache.get("unknown", "1234");
+        assertFalse(validation.isValidPatron());
+        assertEquals("unknown", validation.getPatronIdentifier());
+        assertEquals(1, cache.getNegativeHitCount());
+    }
+
+    @Test
+    public void testExpiration() throws Exception {
+        SIP2PatronStatusCache cache = new SIP2PatronStatusCache(20, 60000, 10);
+        cache.put("patron1", null, response("patron1", true, false));
+        cache.put("unknown", null, response("unknown", false, false));
+        Thread.sleep(50);
+        assertNull(cache.get("patron1", null));
+        assertNotNull(cache.get("unknown", null));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        SIP2PatronStatusCache cache = new SIP2PatronStatusCache(60000, 60000, 10);
+        cache.put("patron1", null, response("patron1", true, true));
+        cache.put("unknown", null, response("unknown", false, false));
+        long stamp = cache.getStamp();
+        cache.invalidate("patron1");
+        cache.invalidate("unknown");
+        assertNull(cache.get("patron1", null));
+        assertNull(cache.get("unknown", null));
+        assertFalse(cache.put("patron1", null, response("patron1", true, true), stamp));
+        assertTrue(cache.put("patron1", null, response("patron1", true, true)));
+        cache.invalidateAll();
+        assertNull(cache.get("patron1", null));
+        assertFalse(cache.put("patron1", null, response("patron1", true, true), stamp));
+    }
+
+    @Test
+    public void testInvalidatedPatronEvicted() throws Exception {
+        SIP2PatronStatusCache cache = new SIP2PatronStatusCache(60000, 60000, 2);
+        long stamp = cache.getStamp();
+        cache.invalidate("patron1");
+        cache.put("patron2", null, response("patron2", true, true));
+        cache.put("patron3", null, response("patron3", true, true));
+        assertEquals(2, cache.size());
+        // The stale outcome is rejected after the invalidation is evicted
+        assertFalse(cache.put("patron1", null, response("patron1", true, true), stamp));
+        assertNull(cache.get("patron1", null));
+    }
+
+    @Test
+    public void testInvalidatedPatronExpired() throws Exception {
+        SIP2PatronStatusCache cache = new SIP2PatronStatusCache(20, 60000, 10);
+        long stamp = cache.getStamp();
+        cache.invalidate("patron1");
+        Thread.sleep(50);
+        assertFalse(cache.put("patron1", null, response("patron1", true, true), stamp));
+        // A newer outcome in the negative cache keeps the stale one out
+        assertTrue(cache.put("patron1", null, response("patron1", false, false)));
+        assertFalse(cache.put("patron1", null, response("patron1", true, true), stamp));
+    }
+
+    @Test
+    public void testMaxEntries() throws Exception {
+        SIP2PatronStatusCache cache = new SIP2PatronStatusCache(60000, 60000, 2);
+        for (int i = 0; i < 5; i++) {
+            cache.put("patron" + i, null, response("patron" + i, true, true));
+            cache.put("unknown" + i, null, response("unknown" + i, false, false));
+        }
+        assertEquals(2, cache.size());
+        assertEquals(2, cache.negativeSize());
+        assertNotNull(cache.get("patron4", null));
+        assertNull(cache.get("patron0", null));
+    }
+}
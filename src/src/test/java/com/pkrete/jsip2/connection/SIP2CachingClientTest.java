@@ -0,0 +1,190 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.cache.SIP2ItemInformationCache;
+import com.pkrete.jsip2.cache.SIP2PatronStatusCache;
+import com.pkrete.jsip2.cache.SIP2PatronValidation;
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import com.pkrete.jsip2.messages.SIP2MessageRequest;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.SIP2ResponseFactory;
+import com.pkrete.jsip2.messages.requests.SIP2BlockPatronRequest;
+import com.pkrete.jsip2.messages.requests.SIP2CheckinRequest;
+import com.pkrete.jsip2.messages.requests.SIP2ItemInformationRequest;
+import com.pkrete.jsip2.messages.requests.SIP2PatronStatusRequest;
+import com.pkrete.jsip2.messages.requests.SIP2RenewAllRequest;
+import com.pkrete.jsip2.messages.responses.SIP2CheckinResponse;
+import com.pkrete.jsip2.messages.responses.SIP2ItemInformationResponse;
+import com.pkrete.jsip2.util.TestUtils;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2CachingClient class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2CachingClientTest extends TestCase {
+
+    /**
+     * Sender that answers item information, checkin and renew all 
+     * requests, and counts the requests.
+     */
+    private static class TestSender implements SIP2AsyncSender {
+        private final AtomicInteger count = new AtomicInteger();
+        private boolean fail;
+        private String renewAllResponse = "6610002" + "0001" + TestUtils.SIP2_DATE_TIME + "AOinstitution|BMitem1|BMitem2|BNitem3|";
+
+        @Override
+        public CompletableFuture<SIP2MessageResponse> sendAsync(SIP2MessageRequest request) {
+            count.incrementAndGet();
+            CompletableFuture<SIP2MessageResponse> future = new CompletableFuture<>();
+            if (fail) {
+                future.completeExceptionally(new SIP2ConnectionException("Connection failed."));
+                return future;
+            }
+            String item = request.getItemIdentifier();
+            try {
+                if (request instanceof SIP2PatronStatusRequest || request instanceof SIP2BlockPatronRequest) {
+                    String patron = request.getPatronIdentifier();
+                    future.complete(SIP2ResponseFactory.getInstance().create("24              001" + TestUtils.SIP2_DATE_TIME + "AOinstitution|AA" + patron + "|AEname|BL" + (patron.startsWith("unknown") ? "N" : "Y") + "|"));
+                } else if (request instanceof SIP2RenewAllRequest) {
+                    future.complete(SIP2ResponseFactory.getInstance().create(renewAllResponse));
+                } else if (request instanceof SIP2ItemInformationRequest) {
+                    future.complete(SIP2ResponseFactory.getInstance().create("18030001" + TestUtils.SIP2_DATE_TIME + "AB" + item + "|AJtitle|"));
+                } else {
+                    future.complete(SIP2ResponseFactory.getInstance().create("101YNN" + TestUtils.SIP2_DATE_TIME + "AOinstitution|AB" + item + "|AQlocation|"));
+                }
+            } catch (Exception ex) {
+                future.completeExceptionally(ex);
+            }
+            return future;
+        }
+    }
+
+    @Test
+    public void testItemInformationIsCached() throws Exception {
+        TestSender sender = new TestSender();
+        SIP2CachingClient client = new SIP2CachingClient(sender, new SIP2ItemInformationCache(60000, 100, 100000));
+        SIP2ItemInformationResponse first = (SIP2ItemInformationResponse) client.send(new SIP2ItemInformationRequest("item1"));
+        SIP2ItemInformationResponse second = (SIP2ItemInformationResponse) client.send(new SIP2ItemInformationRequest("item1"));
+        assertEquals("item1", first.getItemIdentifier());
+        assertEquals("item1", second.getItemIdentifier());
+        assertEquals(1, sender.count.get());
+        client.send(new SIP2ItemInformationRequest("item2"));
+        assertEquals(2, sender.count.get());
+    }
+
+    @Test
+    public void testCheckinInvalidatesItem() throws Exception {
+        TestSender sender = new TestSender();
+        SIP2CachingClient client = new SIP2CachingClient(sender, new SIP2ItemInformationCache(60000, 100, 100000));
+        client.send(new SIP2ItemInformationRequest("item1"));
+        client.send(new SIP2ItemInformationRequest("item2"));
+        SIP2MessageResponse response = client.send(new SIP2CheckinRequest("item1"));
+        assertTrue(response instanceof SIP2CheckinResponse);
+        assertNull(client.getItemCache().get("item1"));
+        assertNotNull(client.getItemCache().get("item2"));
+        client.send(new SIP2ItemInformationRequest("item1"));
+        assertEquals(4, sender.count.get());
+    }
+
+    @Test
+    public void testFailedCheckinInvalidatesItem() throws Exception {
+        TestSender sender = new TestSender();
+        SIP2CachingClient client = new SIP2CachingClient(sender, new SIP2ItemInformationCache(60000, 100, 100000));
+        client.send(new SIP2ItemInformationRequest("item1"));
+        sender.fail = true;
+        try {
+            client.send(new SIP2CheckinRequest("item1"));
+            fail("Sending the request should fail");
+        } catch (SIP2ConnectionException e) {
+            // Expected
+        }
+        assertNull(client.getItemCache().get("item1"));
+    }
+
+    @Test
+    public void testRenewAllInvalidatesRenewedItems() throws Exception {
+        TestSender sender = new TestSender();
+        SIP2CachingClient client = new SIP2CachingClient(sender, new SIP2ItemInformationCache(60000, 100, 100000));
+        for (int i = 1; i <= 3; i++) {
+            client.send(new SIP2ItemInformationRequest("item" + i));
+        }
+        client.send(new SIP2RenewAllRequest("patron1"));
+        assertNull(client.getItemCache().get("item1"));
+        assertNull(client.getItemCache().get("item2"));
+        assertNotNull(client.getItemCache().get("item3"));
+    }
+
+    @Test
+    public void testRenewAllWithoutItemsInvalidatesAll() throws Exception {
+        TestSender sender = new TestSender();
+        sender.renewAllResponse = "6610002" + "0000" + TestUtils.SIP2_DATE_TIME + "AOinstitution|";
+        SIP2CachingClient client = new SIP2CachingClient(sender, new SIP2ItemInformationCache(60000, 100, 100000));
+        client.send(new SIP2ItemInformationRequest("item1"));
+        client.send(new SIP2RenewAllRequest("patron1"));
+        assertNull(client.getItemCache().get("item1"));
+
+        client.send(new SIP2ItemInformationRequest("item1"));
+        sender.fail = true;
+        try {
+            client.send(new SIP2RenewAllRequest("patron1"));
+            fail("Sending the request should fail");
+        } catch (SIP2ConnectionException e) {
+            // Expected
+        }
+        assertNull(client.getItemCache().get("item1"));
+    }
+
+    @Test
+    public void testPatronValidationIsCached() throws Exception {
+        TestSender sender = new TestSender();
+        SIP2CachingClient client = new SIP2CachingClient(sender, new SIP2ItemInformationCache(60000, 100, 100000));
+        client.setPatronCache(new SIP2PatronStatusCache(5000, 60000, 100));
+        SIP2PatronValidation validation = client.validatePatron(new SIP2PatronStatusRequest("patron1"));
+        assertTrue(validation.isValidPatron());
+        assertSame(validation.isValidPatron(), client.validatePatron(new SIP2PatronStatusRequest("patron1")).isValidPatron());
+        assertEquals(1, sender.count.get());
+        // Patrons that don't exist are cached too
+        assertFalse(client.validatePatron(new SIP2PatronStatusRequest("unknown")).isValidPatron());
+        assertFalse(client.validatePatron(new SIP2PatronStatusRequest("unknown")).isValidPatron());
+        assertEquals(2, sender.count.get());
+    }
+
+    @Test
+    public void testBlockPatronInvalidatesPatron() throws Exception {
+        TestSender sender = new TestSender();
+        SIP2CachingClient client = new SIP2CachingClient(sender, new SIP2ItemInformationCache(60000, 100, 100000));
+        client.setPatronCache(new SIP2PatronStatusCache(5000, 60000, 100));
+        client.validatePatron(new SIP2PatronStatusRequest("patron1"));
+        client.send(new SIP2BlockPatronRequest("patron1"));
+        assertNull(client.getPatronCache().get("patron1", null));
+        client.validatePatron(new SIP2PatronStatusRequest("patron1"));
+        assertEquals(3, sender.count.get());
+    }
+}
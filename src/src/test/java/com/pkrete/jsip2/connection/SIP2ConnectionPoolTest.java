@@ -0,0 +1,214 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import com.pkrete.jsip2.exceptions.SIP2UnsupportedMessageException;
+import com.pkrete.jsip2.messages.requests.SIP2LoginRequest;
+import com.pkrete.jsip2.messages.requests.SIP2RenewAllRequest;
+import com.pkrete.jsip2.util.TestSIP2Server;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2ConnectionPool class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2ConnectionPoolTest extends TestCase {
+
+    @Test
+    public void testStartCreatesMinimumConnections() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), new SIP2LoginRequest("user", "password"), 2, 4);
+            pool.start();
+            assertEquals(2, pool.getSize());
+            assertEquals(2, pool.getIdleCount());
+            assertEquals(2, server.getConnectionCount());
+            assertTrue(server.getRequests().get(0).startsWith("93"));
+            assertTrue(server.getRequests().get(1).startsWith("99"));
+            assertNotNull(pool.getAcsStatus());
+            pool.close();
+            assertEquals(0, pool.getSize());
+        }
+    }
+
+    @Test
+    public void testBorrowAndRelease() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 0, 2);
+            SIP2SocketConnection first = pool.borrow();
+            assertEquals(1, pool.getActiveCount());
+            pool.release(first);
+            assertEquals(0, pool.getActiveCount());
+            assertEquals(1, pool.getIdleCount());
+            assertSame(first, pool.borrow());
+            assertEquals(1, server.getConnectionCount());
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testBorrowTimeout() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 0, 1);
+            pool.setBorrowTimeout(100);
+            pool.borrow();
+            try {
+                pool.borrow();
+                fail("Borrow should have timed out.");
+            } catch (SIP2ConnectionException ex) {
+                assertTrue(ex.getMessage().startsWith("Timeout"));
+            }
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 0, 1);
+            SIP2SocketConnection connection = pool.borrow();
+            pool.invalidate(connection);
+            assertTrue(connection.closed());
+            assertEquals(0, pool.getSize());
+            assertNotSame(connection, pool.borrow());
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testLoginFailure() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("93", "940");
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), new SIP2LoginRequest("user", "wrong"), 0, 1);
+            try {
+                pool.borrow();
+                fail("Login should have failed.");
+            } catch (SIP2ConnectionException ex) {
+                assertEquals(0, pool.getSize());
+            }
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testExpiredConnectionIsReplaced() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 0, 1);
+            pool.setMaxLifetime(1);
+            SIP2SocketConnection first = pool.borrow();
+            Thread.sleep(5);
+            pool.release(first);
+            assertTrue(first.closed());
+            assertEquals(0, pool.getSize());
+            pool.close();
+        }
+    }
+
+    private static int countStatusRequests(TestSIP2Server server) {
+        int count = 0;
+        for (String request : server.getRequests()) {
+            if (request.startsWith("99")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testKeepAlive() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 1, 1);
+            pool.setKeepAliveInterval(100);
+            pool.start();
+            assertEquals(1, countStatusRequests(server));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (countStatusRequests(server) < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(countStatusRequests(server) >= 3);
+            assertEquals(1, server.getConnectionCount());
+            assertTrue(pool.isOnline());
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testFailFastWhenOffline() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", TestSIP2Server.ACS_STATUS_RESPONSE.replaceFirst("^98Y", "98N"));
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 1, 1);
+            pool.setKeepAliveInterval(100);
+            pool.setFailFastWhenOffline(true);
+            pool.start();
+            assertFalse(pool.isOnline());
+            try {
+                pool.borrow();
+                fail("Borrow should have failed.");
+            } catch (SIP2ConnectionException ex) {
+                assertTrue(ex.getMessage().endsWith("is offline."));
+            }
+            server.setResponse("99", TestSIP2Server.ACS_STATUS_RESPONSE);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!pool.isOnline() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertTrue(pool.isOnline());
+            pool.release(pool.borrow());
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testMessageGating() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", TestSIP2Server.ACS_STATUS_RESPONSE.replace("BXYYYYYYYYYYYYYYYY", "BXYYYYYYYYYYYYYYYN"));
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 1, 1);
+            pool.setMessageGatingEnabled(true);
+            pool.setKeepAliveInterval(100);
+            pool.start();
+            SIP2ThreadPerRequestClient client = new SIP2ThreadPerRequestClient(pool);
+            try {
+                client.send(new SIP2RenewAllRequest("patron"));
+                fail("Renew all is not supported");
+            } catch (SIP2UnsupportedMessageException ex) {
+                assertEquals("65", ex.getCode());
+            }
+            SIP2SocketConnection connection = pool.borrow();
+            assertTrue(connection.isMessageGatingEnabled());
+            assertFalse(connection.getSupportedMessages().isRenewAll());
+            pool.release(connection);
+            // Capabilities are refreshed when the ACS status is checked again
+            server.setResponse("99", TestSIP2Server.ACS_STATUS_RESPONSE);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!pool.getAcsStatus().getSupportedMessages().isRenewAll() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            pool.checkSupported(new SIP2RenewAllRequest("patron"));
+            pool.close();
+            client.close();
+        }
+    }
+}
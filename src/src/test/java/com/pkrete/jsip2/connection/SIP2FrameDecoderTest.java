@@ -0,0 +1,161 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.util.MessageUtil;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2FrameDecoder class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2FrameDecoderTest extends TestCase {
+
+    private static ByteBuffer buffer(String data) {
+        return ByteBuffer.wrap(data.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testSingleFrame() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder();
+        ByteBuffer buffer = buffer("941\r");
+        assertEquals("941", decoder.decode(buffer));
+        assertFalse(buffer.hasRemaining());
+        assertNull(decoder.decode(buffer));
+    }
+
+    @Test
+    public void testMultipleFramesInOneBuffer() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder();
+        ByteBuffer buffer = buffer("941\r\n940\r\n");
+        assertEquals("941", decoder.decode(buffer));
+        assertEquals("940", decoder.decode(buffer));
+        assertNull(decoder.decode(buffer));
+        assertEquals(0, decoder.getBufferedLength());
+    }
+
+    @Test
+    public void testFrameSplitAcrossBuffers() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder();
+        assertNull(decoder.decode(buffer("98YYYY")));
+        assertEquals(6, decoder.getBufferedLength());
+        assertNull(decoder.decode(buffer("NN010")));
+        ByteBuffer buffer = buffer("003\r24");
+        assertEquals("98YYYYNN010003", decoder.decode(buffer));
+        assertEquals(2, buffer.remaining());
+        assertNull(decoder.decode(buffer));
+        assertEquals("24", decoder.decode(buffer("\r")));
+    }
+
+    @Test
+    public void testFrameGrowsBeyondInitialSize() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append('A');
+        }
+        assertNull(decoder.decode(buffer(builder.substring(0, 700))));
+        assertEquals(builder.toString(), decoder.decode(buffer(builder.substring(700) + "\r")));
+    }
+
+    @Test
+    public void testTooLongFrameIsDiscarded() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder(StandardCharsets.US_ASCII, 5);
+        assertNull(decoder.decode(buffer("1234")));
+        ByteBuffer buffer = buffer("56789");
+        try {
+            decoder.decode(buffer);
+            fail("Frame should have been too long.");
+        } catch (InvalidSIP2ResponseException ex) {
+            assertTrue(ex.getMessage().contains("maximum size of 5 bytes"));
+        }
+        assertNull(decoder.decode(buffer));
+        assertEquals(0, decoder.getBufferedLength());
+        assertEquals("941", decoder.decode(buffer("0000\r941\r")));
+    }
+
+    @Test
+    public void testReset() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder();
+        assertNull(decoder.decode(buffer("partial")));
+        decoder.reset();
+        assertEquals("941", decoder.decode(buffer("941\r")));
+    }
+
+    @Test
+    public void testValidChecksum() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder();
+        String message = "941AY0AZ" + MessageUtil.computeChecksum("941AY0AZ");
+        assertEquals(message, decoder.decode(buffer(message + "\r")));
+        assertTrue(decoder.isChecksumPresent());
+        assertTrue(decoder.isChecksumValid());
+    }
+
+    @Test
+    public void testInvalidChecksum() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder();
+        assertEquals("941AY0AZ0000", decoder.decode(buffer("941AY0AZ0000\r")));
+        assertTrue(decoder.isChecksumPresent());
+        assertFalse(decoder.isChecksumValid());
+    }
+
+    @Test
+    public void testNoChecksum() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder();
+        String message = "941AY0AZ" + MessageUtil.computeChecksum("941AY0AZ");
+        decoder.decode(buffer(message + "\r"));
+        assertEquals("941", decoder.decode(buffer("941\r")));
+        assertFalse(decoder.isChecksumPresent());
+        assertFalse(decoder.isChecksumValid());
+    }
+
+    @Test
+    public void testChecksumSplitAcrossBuffers() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder();
+        String message = "98YYYYNN010003AOinstitution|XXvendor field|AY1AZ";
+        message += MessageUtil.computeChecksum(message);
+        assertNull(decoder.decode(buffer(message.substring(0, 20))));
+        assertNull(decoder.decode(buffer(message.substring(20, message.length() - 2))));
+        assertEquals(message, decoder.decode(buffer(message.substring(message.length() - 2) + "\r")));
+        assertTrue(decoder.isChecksumValid());
+    }
+
+    @Test
+    public void testChecksumOverRawBytes() throws Exception {
+        SIP2FrameDecoder decoder = new SIP2FrameDecoder(StandardCharsets.UTF_8, SIP2FrameDecoder.DEFAULT_MAX_FRAME_SIZE);
+        byte[] bytes = "AFK\u00e4yt\u00e4j\u00e4|AY0AZ".getBytes(StandardCharsets.UTF_8);
+        int sum = 0;
+        for (byte b : bytes) {
+            sum += b & 0xFF;
+        }
+        String message = "AFK\u00e4yt\u00e4j\u00e4|AY0AZ" + String.format("%04X", -sum & 0xFFFF);
+        assertEquals(message, decoder.decode(ByteBuffer.wrap((message + "\r").getBytes(StandardCharsets.UTF_8))));
+        assertTrue(decoder.isChecksumValid());
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.requests.SIP2LoginRequest;
+import com.pkrete.jsip2.messages.requests.SIP2PatronStatusRequest;
+import com.pkrete.jsip2.messages.requests.SIP2SCStatusRequest;
+import com.pkrete.jsip2.messages.responses.SIP2ACSStatusResponse;
+import com.pkrete.jsip2.messages.responses.SIP2LoginResponse;
+import com.pkrete.jsip2.util.TestSIP2Server;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2NioClient class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2NioClientTest extends TestCase {
+
+    @Test
+    public void testSendQueuedRequests() throws Exception {
+        SIP2NioClient client = new SIP2NioClient(2);
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2NioConnection connection = client.connect("localhost", server.getPort()).get(5, TimeUnit.SECONDS);
+            CompletableFuture<SIP2MessageResponse> login = connection.send(new SIP2LoginRequest("user", "password"));
+            CompletableFuture<SIP2MessageResponse> status = connection.send(new SIP2SCStatusRequest());
+            assertTrue(login.get(5, TimeUnit.SECONDS) instanceof SIP2LoginResponse);
+            assertTrue(status.get(5, TimeUnit.SECONDS) instanceof SIP2ACSStatusResponse);
+            assertEquals(2, server.getRequests().size());
+            connection.close();
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testRequestTimeoutClosesConnection() throws Exception {
+        SIP2NioClient client = new SIP2NioClient(1);
+        client.setRequestTimeout(200);
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", null);
+            SIP2NioConnection connection = client.connect("localhost", server.getPort()).get(5, TimeUnit.SECONDS);
+            CompletableFuture<SIP2MessageResponse> status = connection.send(new SIP2SCStatusRequest());
+            CompletableFuture<SIP2MessageResponse> queued = connection.send(new SIP2SCStatusRequest());
+            try {
+                status.get(5, TimeUnit.SECONDS);
+                fail("Request should have timed out.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof TimeoutException);
+            }
+            try {
+                queued.get(5, TimeUnit.SECONDS);
+                fail("Queued request should have failed.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof TimeoutException);
+            }
+            assertFalse(connection.isOpen());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testConnectionClosedByServer() throws Exception {
+        SIP2NioClient client = new SIP2NioClient(1);
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", null);
+            SIP2NioConnection connection = client.connect("localhost", server.getPort()).get(5, TimeUnit.SECONDS);
+            CompletableFuture<SIP2MessageResponse> status = connection.send(new SIP2SCStatusRequest());
+            while (server.getRequests().isEmpty()) {
+                Thread.sleep(10);
+            }
+            server.dropConnections();
+            try {
+                status.get(5, TimeUnit.SECONDS);
+                fail("Request should have failed.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof SIP2ConnectionException);
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testPipelinedRequestsAreWrittenBackToBack() throws Exception {
+        SIP2NioClient client = new SIP2NioClient(1);
+        client.setPipelineDepth(3);
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("23", null);
+            SIP2NioConnection connection = client.connect("localhost", server.getPort()).get(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 4; i++) {
+                connection.send(new SIP2PatronStatusRequest("institution", "patron", "password"));
+            }
+            long deadline = System.currentTimeMillis() + 5000;
+            while (server.getRequests().size() < 3 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Thread.sleep(100);
+            assertEquals(3, server.getRequests().size());
+            assertTrue(server.getRequests().get(0).contains("AY0AZ"));
+            assertTrue(server.getRequests().get(2).contains("AY2AZ"));
+            connection.close();
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testPipelinedResponsesMatchedBySequence() throws Exception {
+        SIP2NioClient client = new SIP2NioClient(1);
+        client.setPipelineDepth(10);
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setErrorDetection(true);
+            SIP2NioConnection connection = client.connect("localhost", server.getPort()).get(5, TimeUnit.SECONDS);
+            List<CompletableFuture<SIP2MessageResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 25; i++) {
+                futures.add(connection.send(new SIP2SCStatusRequest()));
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                SIP2MessageResponse response = futures.get(i).get(5, TimeUnit.SECONDS);
+                assertEquals(i % 10, response.getSequence());
+                assertTrue(response.isValid());
+            }
+            connection.close();
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testPipelinedSequenceMismatchClosesConnection() throws Exception {
+        SIP2NioClient client = new SIP2NioClient(1);
+        client.setPipelineDepth(2);
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", TestSIP2Server.ACS_STATUS_RESPONSE + "AY7AZ0000");
+            SIP2NioConnection connection = client.connect("localhost", server.getPort()).get(5, TimeUnit.SECONDS);
+            CompletableFuture<SIP2MessageResponse> first = connection.send(new SIP2SCStatusRequest());
+            CompletableFuture<SIP2MessageResponse> second = connection.send(new SIP2SCStatusRequest());
+            try {
+                first.get(5, TimeUnit.SECONDS);
+                fail("Request should have failed.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause().getMessage().contains("sequence number 7"));
+            }
+            try {
+                second.get(5, TimeUnit.SECONDS);
+                fail("Request should have failed.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof SIP2ConnectionException);
+            }
+            assertFalse(connection.isOpen());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testRequestSentFromTimeoutCallback() throws Exception {
+        SIP2NioClient client = new SIP2NioClient(1);
+        // The cancelled connect timeouts must have left the timer wheel
+        // when the request times out
+        client.setConnectTimeout(100);
+        client.setRequestTimeout(500);
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", null);
+            SIP2NioConnection first = client.connect("localhost", server.getPort()).get(5, TimeUnit.SECONDS);
+            SIP2NioConnection second = client.connect("localhost", server.getPort()).get(5, TimeUnit.SECONDS);
+            CompletableFuture<SIP2MessageResponse> login = new CompletableFuture<>();
+            first.send(new SIP2SCStatusRequest()).whenComplete((response, ex) ->
+                    second.send(new SIP2LoginRequest("user", "password")).whenComplete((r, e) -> {
+                        if (e == null) {
+                            login.complete(r);
+                        } else {
+                            login.completeExceptionally(e);
+                        }
+                    }));
+            assertTrue(login.get(5, TimeUnit.SECONDS) instanceof SIP2LoginResponse);
+            assertFalse(first.isOpen());
+            second.close();
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testWorkAfterCloseIsRejected() throws Exception {
+        SIP2NioClient client = new SIP2NioClient(1);
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2NioConnection connection = client.connect("localhost", server.getPort()).get(5, TimeUnit.SECONDS);
+            client.close();
+            CompletableFuture<SIP2MessageResponse> status = connection.send(new SIP2SCStatusRequest());
+            try {
+                status.get(5, TimeUnit.SECONDS);
+                fail("Request should have failed.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof SIP2ConnectionException);
+            }
+            CompletableFuture<SIP2NioConnection> other = client.connect("localhost", server.getPort());
+            try {
+                other.get(5, TimeUnit.SECONDS);
+                fail("Connection should have failed.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof SIP2ConnectionException);
+            }
+            assertFalse(connection.isOpen());
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.messages.SIP2MessageRequest;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.SIP2ResponseFactory;
+import com.pkrete.jsip2.messages.requests.SIP2PatronInformationRequest;
+import com.pkrete.jsip2.util.TestUtils;
+import com.pkrete.jsip2.variables.ItemType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2PatronItemIterator class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2PatronItemIteratorTest extends TestCase {
+
+    /**
+     * Sender that answers patron information requests with the charged 
+     * items of the requested window.
+     */
+    private static class PagingSender implements SIP2AsyncSender {
+
+        private final List<SIP2PatronInformationRequest> requests = new ArrayList<>();
+        private final int total;
+        private final boolean ignoreWindow;
+
+        PagingSender(int total, boolean ignoreWindow) {
+            this.total = total;
+            this.ignoreWindow = ignoreWindow;
+        }
+
+        @Override
+        public CompletableFuture<SIP2MessageResponse> sendAsync(SIP2MessageRequest request) {
+            SIP2PatronInformationRequest patronRequest = (SIP2PatronInformationRequest) request;
+            requests.add(patronRequest);
+            int start = ignoreWindow ? 1 : Integer.parseInt(patronRequest.getStartItem());
+            int end = ignoreWindow ? total : Math.min(total, Integer.parseInt(patronRequest.getEndItem()));
+            StringBuilder builder = new StringBuilder("64              001").append(TestUtils.SIP2_DATE_TIME);
+            builder.append(String.format("00000000%04d000000000000", total)).append("AOinstitution|AApatron|AEName|");
+            for (int i = start; i <= end; i++) {
+                builder.append("AUitem").append(i).append('|');
+            }
+            CompletableFuture<SIP2MessageResponse> future = new CompletableFuture<>();
+            try {
+                future.complete(SIP2ResponseFactory.getInstance().create(builder.toString()));
+            } catch (Exception ex) {
+                future.completeExceptionally(ex);
+            }
+            return future;
+        }
+    }
+
+    @Test
+    public void testPages() {
+        PagingSender sender = new PagingSender(7, false);
+        SIP2PatronInformationRequest template = new SIP2PatronInformationRequest("institution", "patron", "password");
+        SIP2PatronItemIterator iterator = new SIP2PatronItemIterator(sender, template, ItemType.CHARGED, 3);
+        assertEquals(1, sender.requests.size());
+        assertEquals("item1", iterator.next());
+        // The second page is requested when the first one is received
+        assertEquals(2, sender.requests.size());
+        assertEquals(7, iterator.getTotal());
+        List<String> rest = iterator.stream().collect(Collectors.toList());
+        assertEquals(Arrays.asList("item2", "item3", "item4", "item5", "item6", "item7"), rest);
+        assertEquals(3, sender.requests.size());
+        assertEquals("7", sender.requests.get(2).getStartItem());
+        assertEquals("9", sender.requests.get(2).getEndItem());
+        assertTrue(sender.requests.get(0).getSummary().isChargedItems());
+        assertEquals("patron", sender.requests.get(1).getPatronIdentifier());
+        assertNull(template.getStartItem());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testNoItems() {
+        PagingSender sender = new PagingSender(0, false);
+        SIP2PatronItemIterator iterator = new SIP2PatronItemIterator(sender, new SIP2PatronInformationRequest("patron"), ItemType.CHARGED);
+        assertFalse(iterator.hasNext());
+        assertEquals(1, sender.requests.size());
+    }
+
+    @Test
+    public void testWindowIgnored() {
+        PagingSender sender = new PagingSender(5, true);
+        SIP2PatronItemIterator iterator = new SIP2PatronItemIterator(sender, new SIP2PatronInformationRequest("patron"), ItemType.CHARGED, 2);
+        assertEquals(5, iterator.stream().count());
+        assertEquals(1, sender.requests.size());
+    }
+
+    @Test
+    public void testFailure() {
+        SIP2AsyncSender sender = request -> {
+            CompletableFuture<SIP2MessageResponse> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("Failed"));
+            return future;
+        };
+        SIP2PatronItemIterator iterator = new SIP2PatronItemIterator(sender, new SIP2PatronInformationRequest("patron"), ItemType.HOLD);
+        try {
+            iterator.hasNext();
+            fail("Exception should have been thrown.");
+        } catch (CompletionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.exceptions.SIP2UnsupportedMessageException;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.requests.SIP2CheckinRequest;
+import com.pkrete.jsip2.messages.requests.SIP2HoldRequest;
+import com.pkrete.jsip2.messages.requests.SIP2LoginRequest;
+import com.pkrete.jsip2.messages.requests.SIP2RenewAllRequest;
+import com.pkrete.jsip2.messages.requests.SIP2SCStatusRequest;
+import com.pkrete.jsip2.messages.responses.SIP2ACSStatusResponse;
+import com.pkrete.jsip2.messages.responses.SIP2LoginResponse;
+import com.pkrete.jsip2.util.MessageUtil;
+import com.pkrete.jsip2.util.TestSIP2Server;
+import com.pkrete.jsip2.util.TestUtils;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2SocketConnection class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2SocketConnectionTest extends TestCase {
+
+    @Test
+    public void testSendAsync() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            assertTrue(connection.connect());
+            CompletableFuture<SIP2MessageResponse> login = connection.sendAsync(new SIP2LoginRequest("user", "password"));
+            CompletableFuture<SIP2MessageResponse> status = connection.sendAsync(new SIP2SCStatusRequest());
+            assertTrue(login.get(5, TimeUnit.SECONDS) instanceof SIP2LoginResponse);
+            assertTrue(status.get(5, TimeUnit.SECONDS) instanceof SIP2ACSStatusResponse);
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testSendAsyncCompletionExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "completion");
+            }
+        });
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            // Delay the response so that the callback is registered first
+            server.setDelay(200);
+            connection.setCompletionExecutor(executor);
+            assertTrue(connection.connect());
+            CompletableFuture<String> thread = connection.sendAsync(new SIP2SCStatusRequest()).thenApply(response -> Thread.currentThread().getName());
+            assertEquals("completion", thread.get(5, TimeUnit.SECONDS));
+            connection.close();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSendAsyncQueueFull() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", null);
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            connection.setAsyncQueueSize(1);
+            assertTrue(connection.connect());
+            // The first request blocks the sender, the second one is queued
+            CompletableFuture<SIP2MessageResponse> first = connection.sendAsync(new SIP2SCStatusRequest());
+            while (server.getRequests().isEmpty()) {
+                Thread.sleep(10);
+            }
+            CompletableFuture<SIP2MessageResponse> queued = connection.sendAsync(new SIP2SCStatusRequest());
+            CompletableFuture<SIP2MessageResponse> rejected = connection.sendAsync(new SIP2SCStatusRequest());
+            try {
+                rejected.get(5, TimeUnit.SECONDS);
+                fail("Request should have been rejected.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof SIP2ConnectionException);
+            }
+            connection.close();
+            try {
+                queued.get(5, TimeUnit.SECONDS);
+                fail("Queued request should have failed.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof SIP2ConnectionException);
+            }
+            assertTrue(first.isDone() || !first.isCancelled());
+        }
+    }
+
+    @Test
+    public void testSendAsyncCancelled() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", null);
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            assertTrue(connection.connect());
+            connection.sendAsync(new SIP2SCStatusRequest());
+            while (server.getRequests().isEmpty()) {
+                Thread.sleep(10);
+            }
+            CompletableFuture<SIP2MessageResponse> cancelled = connection.sendAsync(new SIP2LoginRequest("user", "password"));
+            assertTrue(cancelled.cancel(false));
+            server.dropConnections();
+            connection.close();
+            assertEquals(1, server.getRequests().size());
+        }
+    }
+
+    @Test
+    public void testSendAsyncCancelledFreesQueue() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", null);
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            connection.setAsyncQueueSize(1);
+            assertTrue(connection.connect());
+            connection.sendAsync(new SIP2SCStatusRequest());
+            while (server.getRequests().isEmpty()) {
+                Thread.sleep(10);
+            }
+            CompletableFuture<SIP2MessageResponse> cancelled = connection.sendAsync(new SIP2LoginRequest("user", "password"));
+            assertTrue(cancelled.cancel(false));
+            CompletableFuture<SIP2MessageResponse> queued = connection.sendAsync(new SIP2LoginRequest("user", "password"));
+            assertFalse(queued.isDone());
+            connection.close();
+            try {
+                queued.get(5, TimeUnit.SECONDS);
+                fail("Queued request should have failed.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof SIP2ConnectionException);
+                assertEquals("Connection is closed.", ex.getCause().getMessage());
+            }
+            assertEquals(1, server.getRequests().size());
+        }
+    }
+
+    private static String withChecksum(String response) {
+        return response + "AY0AZ" + MessageUtil.computeChecksum(response + "AY0AZ");
+    }
+
+    @Test
+    public void testResendOnChecksumFailure() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            String valid = withChecksum(TestSIP2Server.ACS_STATUS_RESPONSE);
+            server.setResponse("99", valid);
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            assertTrue(connection.connect());
+            assertTrue(connection.send(new SIP2SCStatusRequest()).isValid());
+            assertEquals(3, connection.getRetriesAllowed());
+
+            server.setResponse("99", TestSIP2Server.ACS_STATUS_RESPONSE + "AY0AZ0000");
+            server.setResponse("97", valid);
+            SIP2MessageResponse response = connection.send(new SIP2SCStatusRequest());
+            assertTrue(response.isValid());
+            assertEquals(1, connection.getChecksumFailureCount());
+            assertEquals(1, connection.getResendCount());
+            assertTrue(server.getRequests().get(2).startsWith("97AZ"));
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testChecksumWithExtensionField() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", withChecksum(TestSIP2Server.ACS_STATUS_RESPONSE + "XXvendor extension|"));
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            assertTrue(connection.connect());
+            SIP2MessageResponse response = connection.send(new SIP2SCStatusRequest());
+            assertTrue(response.isValid());
+            assertEquals(0, connection.getChecksumFailureCount());
+            assertEquals(1, server.getRequests().size());
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testResendRetriesExhausted() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            String invalid = TestSIP2Server.ACS_STATUS_RESPONSE + "AY0AZ0000";
+            server.setResponse("99", invalid);
+            server.setResponse("97", invalid);
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            connection.setRetriesAllowed(2);
+            assertTrue(connection.connect());
+            SIP2MessageResponse response = connection.send(new SIP2SCStatusRequest());
+            assertFalse(response.isValid());
+            assertEquals(3, connection.getChecksumFailureCount());
+            assertEquals(2, connection.getResendCount());
+            assertEquals(3, server.getRequests().size());
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testNoResendWithoutChecksum() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            connection.setRetriesAllowed(2);
+            assertTrue(connection.connect());
+            assertNotNull(connection.send(new SIP2SCStatusRequest()));
+            assertEquals(0, connection.getChecksumFailureCount());
+            assertEquals(1, server.getRequests().size());
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testReconnectAndResendIdempotentRequest() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            connection.setLoginRequest(new SIP2LoginRequest("user", "password"));
+            connection.setMaxReconnectAttempts(3);
+            connection.setReconnectBaseDelay(10);
+            assertTrue(connection.connect());
+            assertNotNull(connection.send(new SIP2SCStatusRequest()));
+            server.dropConnections();
+            assertTrue(connection.send(new SIP2SCStatusRequest()) instanceof SIP2ACSStatusResponse);
+            assertEquals(1, connection.getReconnectCount());
+            assertEquals(2, server.getConnectionCount());
+            int size = server.getRequests().size();
+            assertTrue(server.getRequests().get(size - 3).startsWith("93"));
+            assertTrue(server.getRequests().get(size - 2).startsWith("99"));
+            assertTrue(server.getRequests().get(size - 1).startsWith("99"));
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testReconnectWithoutResendingNonIdempotentRequest() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("09", "101YNN" + TestUtils.SIP2_DATE_TIME + "AOinstitution|ABitem|AQlocation|");
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            connection.setMaxReconnectAttempts(3);
+            connection.setReconnectBaseDelay(10);
+            assertTrue(connection.connect());
+            assertNotNull(connection.send(new SIP2SCStatusRequest()));
+            server.dropConnections();
+            try {
+                assertNull(connection.send(new SIP2CheckinRequest("item")));
+            } catch (InvalidSIP2ResponseException ex) {
+                // No response to the request
+            }
+            assertEquals(1, connection.getReconnectCount());
+            for (String request : server.getRequests()) {
+                assertFalse(request.startsWith("09"));
+            }
+            assertNotNull(connection.send(new SIP2SCStatusRequest()));
+            assertEquals(1, connection.getReconnectCount());
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testReconnectFails() throws Exception {
+        TestSIP2Server server = new TestSIP2Server();
+        SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort(), 1000);
+        connection.setMaxReconnectAttempts(2);
+        connection.setReconnectBaseDelay(10);
+        assertTrue(connection.connect());
+        assertNotNull(connection.send(new SIP2SCStatusRequest()));
+        server.close();
+        try {
+            assertNull(connection.send(new SIP2SCStatusRequest()));
+        } catch (InvalidSIP2ResponseException ex) {
+            // No response to the request
+        }
+        assertEquals(0, connection.getReconnectCount());
+        connection.close();
+    }
+
+    @Test
+    public void testResponseExceedsMaxFrameSize() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            connection.setMaxFrameSize(10);
+            connection.setMaxReconnectAttempts(3);
+            connection.setReconnectBaseDelay(10);
+            assertTrue(connection.connect());
+            try {
+                connection.send(new SIP2SCStatusRequest());
+                fail("Response should have been too long.");
+            } catch (InvalidSIP2ResponseException ex) {
+                assertTrue(ex.getMessage().contains("maximum size"));
+            }
+            assertTrue(connection.send(new SIP2LoginRequest("user", "password")) instanceof SIP2LoginResponse);
+            assertEquals(0, connection.getReconnectCount());
+            assertEquals(1, server.getConnectionCount());
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testReadTimeoutDoesNotReconnect() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setDelay(500);
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            connection.setMaxReconnectAttempts(3);
+            connection.setReconnectBaseDelay(10);
+            assertTrue(connection.connect());
+            connection.getSocket().setSoTimeout(100);
+            try {
+                connection.send(new SIP2SCStatusRequest());
+                fail("Reading the response should have timed out.");
+            } catch (InvalidSIP2ResponseException ex) {
+                assertTrue(ex.getMessage().endsWith("timed out."));
+            }
+            assertEquals(0, connection.getReconnectCount());
+            assertEquals(1, server.getConnectionCount());
+            assertTrue(connection.connected());
+            assertFalse(connection.closed());
+            connection.close();
+        }
+    }
+
+    @Test
+    public void testMessageGating() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setResponse("99", TestSIP2Server.ACS_STATUS_RESPONSE.replace("BXYYYYYYYYYYYYYYYY", "BXYYYYYYYYYYYYYNYN"));
+            server.setResponse("09", "101YNN" + TestUtils.SIP2_DATE_TIME + "AOinstitution|ABitem|AQlocation|");
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort());
+            connection.setMessageGatingEnabled(true);
+            assertTrue(connection.isMessageGatingEnabled());
+            assertTrue(connection.connect());
+            assertNull(connection.getSupportedMessages());
+            connection.send(new SIP2SCStatusRequest());
+            assertFalse(connection.getSupportedMessages().isHold());
+            try {
+                connection.send(new SIP2HoldRequest("patron", "item"));
+                fail("Hold is not supported");
+            } catch (SIP2UnsupportedMessageException ex) {
+                assertEquals("15", ex.getCode());
+            }
+            try {
+                connection.sendAsync(new SIP2RenewAllRequest("patron")).get(5, TimeUnit.SECONDS);
+                fail("Renew all is not supported");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof SIP2UnsupportedMessageException);
+            }
+            assertNotNull(connection.send(new SIP2CheckinRequest("item")));
+            assertEquals(2, server.getRequests().size());
+            connection.close();
+        }
+    }
+}
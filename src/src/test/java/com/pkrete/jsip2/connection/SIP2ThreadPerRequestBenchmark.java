@@ -0,0 +1,96 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.requests.SIP2SCStatusRequest;
+import com.pkrete.jsip2.util.TestSIP2Server;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares SIP2ThreadPerRequestClient running on a fixed pool of platform
+ * threads with the same client running on virtual threads. Virtual threads
+ * are available only when the benchmark is run on Java 21 or later.
+ *
+ * Usage: SIP2ThreadPerRequestBenchmark [requests] [connections] [platform 
+ * threads] [server delay ms]
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2ThreadPerRequestBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int platformThreads = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        long delay = args.length > 3 ? Long.parseLong(args[3]) : 5;
+
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setDelay(delay);
+            run("platform", Executors.newFixedThreadPool(platformThreads), server, requests, connections);
+            ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+            if (virtual == null) {
+                System.out.println("virtual: not supported by this JVM");
+            } else {
+                run("virtual", virtual, server, requests, connections);
+            }
+        }
+    }
+
+    private static void run(String name, ExecutorService executor, TestSIP2Server server, int requests, int connections) throws Exception {
+        SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, connections, connections);
+        pool.setBorrowTimeout(60000);
+        pool.start();
+        SIP2ThreadPerRequestClient client = new SIP2ThreadPerRequestClient(pool, executor);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<SIP2MessageResponse>> futures = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            futures.add(client.sendAsync(new SIP2SCStatusRequest()));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        long elapsed = (System.nanoTime() - start) / 1000000;
+
+        System.out.println(String.format("%s: %d requests in %d ms (%.0f req/s), peak platform threads %d",
+                name, requests, elapsed, requests * 1000.0 / Math.max(elapsed, 1), threads.getPeakThreadCount()));
+        client.close();
+        pool.close();
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return null;
+        }
+    }
+}
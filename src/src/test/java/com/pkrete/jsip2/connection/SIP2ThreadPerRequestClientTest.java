@@ -0,0 +1,123 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.exceptions.SIP2ConnectionException;
+import com.pkrete.jsip2.exceptions.SIP2UnsupportedMessageException;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.requests.SIP2ItemInformationRequest;
+import com.pkrete.jsip2.messages.requests.SIP2SCStatusRequest;
+import com.pkrete.jsip2.messages.responses.SIP2ACSStatusResponse;
+import com.pkrete.jsip2.util.TestSIP2Server;
+import com.pkrete.jsip2.util.TestUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2ThreadPerRequestClient class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2ThreadPerRequestClientTest extends TestCase {
+
+    @Test
+    public void testSend() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 0, 1);
+            SIP2ThreadPerRequestClient client = new SIP2ThreadPerRequestClient(pool);
+            SIP2MessageResponse response = client.send(new SIP2SCStatusRequest());
+            assertTrue(response instanceof SIP2ACSStatusResponse);
+            assertEquals(0, pool.getActiveCount());
+            assertEquals(1, pool.getIdleCount());
+            client.close();
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testSendAsyncSharesPool() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setDelay(20);
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 0, 4);
+            SIP2ThreadPerRequestClient client = new SIP2ThreadPerRequestClient(pool);
+            List<CompletableFuture<SIP2MessageResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(client.sendAsync(new SIP2SCStatusRequest()));
+            }
+            for (CompletableFuture<SIP2MessageResponse> future : futures) {
+                assertTrue(future.get(5, TimeUnit.SECONDS) instanceof SIP2ACSStatusResponse);
+            }
+            assertTrue(server.getConnectionCount() <= 4);
+            assertEquals(0, pool.getActiveCount());
+            client.close();
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testSendAsyncAfterClose() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 0, 1);
+            SIP2ThreadPerRequestClient client = new SIP2ThreadPerRequestClient(pool);
+            client.close();
+            try {
+                client.sendAsync(new SIP2SCStatusRequest()).get(5, TimeUnit.SECONDS);
+                fail("Request should have failed.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof SIP2ConnectionException);
+            }
+            pool.close();
+        }
+    }
+
+    @Test
+    public void testUnsupportedRequestReleasesConnection() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 0, 1);
+            pool.setMessageGatingEnabled(true);
+            SIP2ThreadPerRequestClient client = new SIP2ThreadPerRequestClient(pool);
+            client.send(new SIP2SCStatusRequest());
+            // The connection learns that item information is not supported
+            // before the pool does
+            server.setResponse("99", "98YYYYNN010003" + TestUtils.SIP2_DATE_TIME + "2.00AOinstitutionId|AMLibrary|BXYYYYYYYYYYNYYYYY|ANlocation|");
+            client.send(new SIP2SCStatusRequest());
+            try {
+                client.send(new SIP2ItemInformationRequest("itemId"));
+                fail("Request should have been rejected.");
+            } catch (SIP2UnsupportedMessageException ex) {
+                // Expected
+            }
+            assertEquals(0, pool.getActiveCount());
+            assertEquals(1, pool.getIdleCount());
+            assertEquals(1, server.getConnectionCount());
+            client.close();
+            pool.close();
+        }
+    }
+}
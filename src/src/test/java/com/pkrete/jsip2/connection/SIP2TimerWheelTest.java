@@ -0,0 +1,115 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.connection;
+
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2TimerWheel class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2TimerWheelTest extends TestCase {
+
+    private static Runnable record(final List<String> fired, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                fired.add(name);
+            }
+        };
+    }
+
+    @Test
+    public void testTimeoutExpires() {
+        List<String> fired = new ArrayList<String>();
+        SIP2TimerWheel wheel = new SIP2TimerWheel(10, 8, 0);
+        wheel.schedule(record(fired, "a"), 25, 0);
+        wheel.advance(20);
+        assertTrue(fired.isEmpty());
+        wheel.advance(30);
+        assertEquals(1, fired.size());
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotFire() {
+        List<String> fired = new ArrayList<String>();
+        SIP2TimerWheel wheel = new SIP2TimerWheel(10, 8, 0);
+        wheel.schedule(record(fired, "a"), 10, 0).cancel();
+        wheel.advance(100);
+        assertTrue(fired.isEmpty());
+        assertTrue(wheel.isEmpty());
+    }
+
+    @Test
+    public void testTimeoutBeyondOneRound() {
+        List<String> fired = new ArrayList<String>();
+        SIP2TimerWheel wheel = new SIP2TimerWheel(10, 8, 0);
+        wheel.schedule(record(fired, "a"), 200, 0);
+        wheel.advance(100);
+        assertTrue(fired.isEmpty());
+        wheel.advance(200);
+        assertEquals(1, fired.size());
+    }
+
+    @Test
+    public void testLongPause() {
+        List<String> fired = new ArrayList<String>();
+        SIP2TimerWheel wheel = new SIP2TimerWheel(10, 8, 0);
+        wheel.schedule(record(fired, "a"), 30, 0);
+        wheel.schedule(record(fired, "b"), 500, 0);
+        wheel.schedule(record(fired, "c"), 5000, 0);
+        wheel.advance(1000);
+        assertEquals(2, fired.size());
+        assertFalse(wheel.isEmpty());
+        wheel.advance(5000);
+        assertEquals(3, fired.size());
+    }
+
+    @Test
+    public void testScheduleFromExpiredTask() {
+        final List<String> fired = new ArrayList<String>();
+        final SIP2TimerWheel wheel = new SIP2TimerWheel(10, 8, 0);
+        wheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                fired.add("a");
+                wheel.schedule(record(fired, "c"), 10, 20);
+            }
+        }, 10, 0);
+        wheel.schedule(record(fired, "b"), 20, 0);
+        wheel.advance(20);
+        assertEquals(2, fired.size());
+        assertEquals("a", fired.get(0));
+        assertEquals("b", fired.get(1));
+        assertFalse(wheel.isEmpty());
+        wheel.advance(30);
+        assertEquals(3, fired.size());
+        assertTrue(wheel.isEmpty());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.messages;
+
+import com.pkrete.jsip2.messages.requests.SIP2CheckoutRequest;
+import com.pkrete.jsip2.messages.requests.SIP2PatronInformationRequest;
+import com.pkrete.jsip2.messages.requests.SIP2RequestResend;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for the encodeTo method of SIP2MessageRequest class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2MessageRequestTest extends TestCase {
+
+    private static byte[] encode(SIP2MessageRequest request, Charset charset) {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        int length = request.encodeTo(buffer, charset);
+        assertEquals(length, buffer.position());
+        return Arrays.copyOf(buffer.array(), length);
+    }
+
+    @Test
+    public void testEncodeToMatchesGetData() {
+        SIP2CheckoutRequest req = new SIP2CheckoutRequest("institutionId", "patronId", "itemId");
+        req.setSequence(3);
+        req.setErrorDetectionEnabled(true);
+        byte[] encoded = encode(req, StandardCharsets.US_ASCII);
+        String checkSum = req.getCheckSum();
+        assertEquals(req.getData(), new String(encoded, StandardCharsets.US_ASCII));
+        assertEquals(checkSum, req.getCheckSum());
+    }
+
+    @Test
+    public void testEncodeToWithoutErrorDetection() {
+        SIP2PatronInformationRequest req = new SIP2PatronInformationRequest("institutionId", "patronId", "password");
+        assertEquals(req.getData(), new String(encode(req, StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testEncodeToRequestResend() {
+        SIP2RequestResend req = new SIP2RequestResend();
+        req.setErrorDetectionEnabled(true);
+        assertEquals("97AZFEF5\r", new String(encode(req, StandardCharsets.US_ASCII), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testEncodeToNonAsciiCharacters() {
+        SIP2CheckoutRequest req = new SIP2CheckoutRequest("institutionId", "Pätröñ", "itemId");
+        req.setErrorDetectionEnabled(true);
+        assertEquals(req.getData(), new String(encode(req, StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+        assertEquals(req.getData(), new String(encode(req, StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1));
+    }
+
+    @Test
+    public void testEncodeToBufferTooSmall() {
+        SIP2CheckoutRequest req = new SIP2CheckoutRequest("institutionId", "patronId", "itemId");
+        ByteBuffer buffer = ByteBuffer.allocate(10);
+        buffer.put((byte) 'X');
+        try {
+            req.encodeTo(buffer, StandardCharsets.US_ASCII);
+            fail("Buffer should have been too small.");
+        } catch (BufferOverflowException ex) {
+            assertEquals(1, buffer.position());
+        }
+    }
+
+    @Test
+    public void testEncodeToSubclassOverridingGetData() {
+        SIP2MessageRequest req = new SIP2MessageRequest("99") {
+            @Override
+            public String getData() {
+                StringBuilder builder = new StringBuilder("990302.00");
+                if (errorDetectionEnabled) {
+                    builder.append("AY").append(getSequence()).append("AZ");
+                    checkSum = com.pkrete.jsip2.util.MessageUtil.computeChecksum(builder.toString());
+                    builder.append(checkSum);
+                }
+                return builder.append('\r').toString();
+            }
+        };
+        assertEquals("990302.00\r", new String(encode(req, StandardCharsets.US_ASCII), StandardCharsets.US_ASCII));
+        req.setSequence(4);
+        req.setErrorDetectionEnabled(true);
+        assertEquals(req.getData(), new String(encode(req, StandardCharsets.US_ASCII), StandardCharsets.US_ASCII));
+        assertEquals(req.getData().substring(14, 18), req.getCheckSum());
+    }
+
+    @Test
+    public void testEncodeToSubclassOverridingNothing() {
+        SIP2MessageRequest req = new SIP2MessageRequest("99") {
+        };
+        try {
+            req.getData();
+            fail("IllegalStateException should have been thrown.");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage().endsWith("must override appendFields."));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.messages;
+
+import com.pkrete.jsip2.messages.requests.SIP2CheckinRequest;
+import com.pkrete.jsip2.messages.requests.SIP2CheckoutRequest;
+import com.pkrete.jsip2.messages.requests.SIP2PatronInformationRequest;
+import com.pkrete.jsip2.util.DateTimeUtil;
+import com.pkrete.jsip2.util.MessageUtil;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import static com.pkrete.jsip2.util.TestUtils.SIP2_DATE_TIME;
+
+/**
+ * Test cases for SIP2PreparedRequest class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2PreparedRequestTest extends TestCase {
+
+    private static String encode(SIP2MessageRequest request, Charset charset) {
+        ByteBuffer buffer = ByteBuffer.allocate(512);
+        int length = request.encodeTo(buffer, charset);
+        assertEquals(buffer.position(), length);
+        return new String(buffer.array(), 0, length, charset);
+    }
+
+    @Test
+    public void testCheckout() {
+        try (MockedStatic<MessageUtil> mocked = Mockito.mockStatic(MessageUtil.class, Mockito.CALLS_REAL_METHODS)) {
+            mocked.when(MessageUtil::getSipDateTime).thenReturn(SIP2_DATE_TIME);
+            SIP2CheckoutRequest template = new SIP2CheckoutRequest("institutionId", "", "");
+            template.setTerminalPassword("terminalPassword");
+            SIP2PreparedRequest prepared = new SIP2PreparedRequest(template, "AA", "AB");
+            prepared.reset();
+            prepared.setField("AA", "patronId");
+            prepared.setField("AB", "itemId");
+
+            SIP2CheckoutRequest expected = new SIP2CheckoutRequest("institutionId", "patronId", "itemId");
+            expected.setTerminalPassword("terminalPassword");
+            assertEquals(expected.getData(), prepared.getData());
+            assertEquals(expected.getData(), encode(prepared, StandardCharsets.US_ASCII));
+            assertEquals("patronId", prepared.getField("AA"));
+            assertFalse(prepared.isIdempotent());
+            assertEquals("11", prepared.getCode());
+        }
+    }
+
+    @Test
+    public void testCheckoutWithErrorDetection() {
+        try (MockedStatic<MessageUtil> mocked = Mockito.mockStatic(MessageUtil.class, Mockito.CALLS_REAL_METHODS)) {
+            mocked.when(MessageUtil::getSipDateTime).thenReturn(SIP2_DATE_TIME);
+            SIP2CheckoutRequest template = new SIP2CheckoutRequest("institutionId", "", "");
+            template.setErrorDetectionEnabled(true);
+            template.setItemProperties("itemProperties");
+            SIP2PreparedRequest prepared = new SIP2PreparedRequest(template, "AB", "AA");
+            SIP2CheckoutRequest expected = new SIP2CheckoutRequest("institutionId", "patronId", "itemId");
+            expected.setErrorDetectionEnabled(true);
+            expected.setItemProperties("itemProperties");
+            for (int sequence = 0; sequence < 12; sequence++) {
+                prepared.reset();
+                prepared.setSequence(sequence);
+                prepared.setField("AA", "patronId");
+                prepared.setField("AB", "itemId");
+                expected.setSequence(sequence);
+                assertEquals(expected.getData(), encode(prepared, StandardCharsets.UTF_8));
+                assertEquals(expected.getCheckSum(), prepared.getCheckSum());
+            }
+        }
+    }
+
+    @Test
+    public void testCheckinWithInstitutionSlot() {
+        try (MockedStatic<MessageUtil> mocked = Mockito.mockStatic(MessageUtil.class, Mockito.CALLS_REAL_METHODS)) {
+            mocked.when(MessageUtil::getSipDateTime).thenReturn(SIP2_DATE_TIME);
+            SIP2CheckinRequest template = new SIP2CheckinRequest("location", "", "");
+            template.setErrorDetectionEnabled(true);
+            SIP2PreparedRequest prepared = new SIP2PreparedRequest(template, "AO", "AB");
+            prepared.setField("AO", "institutionId");
+            prepared.setField("AB", "itemId");
+
+            SIP2CheckinRequest expected = new SIP2CheckinRequest("location", "institutionId", "itemId");
+            expected.setErrorDetectionEnabled(true);
+            assertEquals(expected.getData(), encode(prepared, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    @Test
+    public void testReset() {
+        SIP2CheckoutRequest template = new SIP2CheckoutRequest("institutionId", "", "");
+        template.setTransactionDate("20190304    173152");
+        SIP2PreparedRequest prepared = new SIP2PreparedRequest(template, "AA", "AB");
+        assertEquals("20190304    173152", prepared.getTransactionDate());
+        prepared.setField("AA", "patronId");
+        prepared.setField("AB", null);
+        assertEquals("", prepared.getField("AB"));
+        prepared.reset();
+        assertEquals("", prepared.getField("AA"));
+        assertEquals(MessageUtil.getSipDateTime().length(), prepared.getTransactionDate().length());
+        assertTrue(prepared.getData().startsWith("11NN" + prepared.getTransactionDate()));
+        assertTrue(prepared.getData().endsWith("AOinstitutionId|AA|AB|AC|\r"));
+    }
+
+    @Test
+    public void testNonAsciiValue() {
+        SIP2CheckoutRequest template = new SIP2CheckoutRequest("institutionId", "", "");
+        template.setErrorDetectionEnabled(true);
+        SIP2PreparedRequest prepared = new SIP2PreparedRequest(template, "AA", "AB");
+        prepared.setField("AA", "pätron");
+        prepared.setField("AB", "itemId");
+        assertEquals(prepared.getData(), encode(prepared, StandardCharsets.UTF_8));
+        assertEquals(prepared.getData(), encode(prepared, Charset.forName("UTF-16")));
+    }
+
+    @Test
+    public void testIdempotent() {
+        SIP2PatronInformationRequest template = new SIP2PatronInformationRequest("institutionId", "", "");
+        SIP2PreparedRequest prepared = new SIP2PreparedRequest(template, "AA");
+        assertTrue(prepared.isIdempotent());
+    }
+
+    @Test
+    public void testInvalidField() {
+        SIP2CheckoutRequest template = new SIP2CheckoutRequest("institutionId", "", "");
+        try {
+            new SIP2PreparedRequest(template, "AO");
+            fail("The first field can't be a slot");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        try {
+            new SIP2PreparedRequest(template, "XX");
+            fail("Field not found");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+        SIP2PreparedRequest prepared = new SIP2PreparedRequest(template, "AA");
+        try {
+            prepared.setField("AB", "itemId");
+            fail("Field is not a slot");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testCheckinResetRefreshesReturnDate() {
+        Instant instant = Instant.parse("2019-03-04T17:31:52Z");
+        try {
+            DateTimeUtil.setClock(Clock.fixed(instant, ZoneOffset.UTC));
+            SIP2CheckinRequest template = new SIP2CheckinRequest("location", "institutionId", "");
+            SIP2PreparedRequest prepared = new SIP2PreparedRequest(template, "AB");
+            assertEquals(template.getData(), prepared.getData());
+
+            DateTimeUtil.setClock(Clock.fixed(instant.plusSeconds(3600), ZoneOffset.UTC));
+            prepared.reset();
+            prepared.setField("AB", "itemId");
+            SIP2CheckinRequest expected = new SIP2CheckinRequest("location", "institutionId", "itemId");
+            assertEquals("20190304    183152", expected.getReturnDate());
+            assertEquals(expected.getData(), prepared.getData());
+            assertEquals(expected.getData(), encode(prepared, StandardCharsets.US_ASCII));
+        } finally {
+            DateTimeUtil.setClock(Clock.systemDefaultZone());
+        }
+    }
+
+    @Test
+    public void testCheckoutResetRefreshesDueDate() {
+        Instant instant = Instant.parse("2019-03-04T17:31:52Z");
+        try {
+            DateTimeUtil.setClock(Clock.fixed(instant, ZoneOffset.UTC));
+            SIP2CheckoutRequest template = new SIP2CheckoutRequest("institutionId", "", "");
+            SIP2PreparedRequest prepared = new SIP2PreparedRequest(template, "AA", "AB");
+
+            DateTimeUtil.setClock(Clock.fixed(instant.plusSeconds(60), ZoneOffset.UTC));
+            prepared.reset();
+            SIP2CheckoutRequest expected = new SIP2CheckoutRequest("institutionId", "", "");
+            assertEquals(expected.getData(), prepared.getData());
+
+            template.setNbDueDate("                  ");
+            prepared = new SIP2PreparedRequest(template, "AA", "AB");
+            prepared.reset();
+            assertTrue(prepared.getData().startsWith("11NN20190304    173252                  AO"));
+        } finally {
+            DateTimeUtil.setClock(Clock.systemDefaultZone());
+        }
+    }
+
+    @Test
+    public void testEncodeIntoExactlySizedBuffer() {
+        try (MockedStatic<MessageUtil> mocked = Mockito.mockStatic(MessageUtil.class, Mockito.CALLS_REAL_METHODS)) {
+            mocked.when(MessageUtil::getSipDateTime).thenReturn(SIP2_DATE_TIME);
+            SIP2CheckoutRequest template = new SIP2CheckoutRequest("institutionId", "patronId", "itemId");
+            template.setErrorDetectionEnabled(true);
+            template.setSequence(7);
+            SIP2PreparedRequest prepared = new SIP2PreparedRequest(template, "AA");
+            String data = template.getData();
+            ByteBuffer buffer = ByteBuffer.allocate(data.length());
+            assertEquals(data.length(), prepared.encodeTo(buffer, StandardCharsets.US_ASCII));
+            assertEquals(data, new String(buffer.array(), StandardCharsets.US_ASCII));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.messages;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.messages.responses.SIP2ACSStatusResponse;
+import com.pkrete.jsip2.messages.responses.SIP2LoginResponse;
+import com.pkrete.jsip2.parser.SIP2ResponseParser;
+import com.pkrete.jsip2.parser.SIP2ResponseParserProvider;
+import com.pkrete.jsip2.util.TestSIP2Server;
+import java.util.Collections;
+import java.util.Map;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2ResponseFactory class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2ResponseFactoryTest extends TestCase {
+
+    /**
+     * Parser for a vendor specific response message.
+     */
+    public static class VendorParser extends SIP2ResponseParser {
+
+        @Override
+        public SIP2MessageResponse parse(String data) {
+            return new SIP2MessageResponse(data.substring(0, 2), data) {
+                @Override
+                public String countChecksum() {
+                    return "";
+                }
+            };
+        }
+    }
+
+    /**
+     * Provider that is listed in META-INF/services of the test resources.
+     */
+    public static class VendorParserProvider implements SIP2ResponseParserProvider {
+
+        @Override
+        public Map<String, SIP2ResponseParser> getParsers() {
+            return Collections.<String, SIP2ResponseParser>singletonMap("ZZ", new VendorParser());
+        }
+    }
+
+    @Test
+    public void testBuiltInParsers() throws Exception {
+        SIP2ResponseFactory factory = SIP2ResponseFactory.getInstance();
+        assertSame(factory, SIP2ResponseFactory.getInstance());
+        assertTrue(factory.create("941") instanceof SIP2LoginResponse);
+        assertTrue(factory.create(TestSIP2Server.ACS_STATUS_RESPONSE) instanceof SIP2ACSStatusResponse);
+    }
+
+    @Test
+    public void testServiceLoaderProvider() throws Exception {
+        assertTrue(SIP2ResponseFactory.getInstance().isSupported("ZZ"));
+        SIP2MessageResponse response = SIP2ResponseFactory.getInstance().create("ZZvendor data");
+        assertEquals("ZZ", response.getCode());
+        assertEquals("ZZvendor data", response.getData());
+    }
+
+    @Test
+    public void testRegister() throws Exception {
+        SIP2ResponseFactory factory = SIP2ResponseFactory.getInstance();
+        assertFalse(factory.isSupported("Y1"));
+        factory.register("Y1", new VendorParser());
+        assertEquals("Y1", factory.create("Y1").getCode());
+        try {
+            factory.register("Y", new VendorParser());
+            fail("Command identifier should have been invalid.");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().contains("two ASCII characters"));
+        }
+    }
+
+    @Test
+    public void testUnsupportedResponse() {
+        try {
+            SIP2ResponseFactory.getInstance().create("Xädata");
+            fail("Response should have been unsupported.");
+        } catch (Exception ex) {
+            assertTrue(ex instanceof InvalidSIP2ResponseException);
+            assertTrue(ex.getMessage().endsWith("Xä"));
+        }
+        assertFalse(SIP2ResponseFactory.getInstance().isSupported("00"));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.messages.views;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseException;
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import com.pkrete.jsip2.messages.SIP2ResponseFactory;
+import com.pkrete.jsip2.messages.responses.SIP2PatronInformationResponse;
+import com.pkrete.jsip2.util.MessageUtil;
+import com.pkrete.jsip2.util.TestSIP2Server;
+import com.pkrete.jsip2.util.TestUtils;
+import com.pkrete.jsip2.variables.CurrencyType;
+import com.pkrete.jsip2.variables.ItemType;
+import com.pkrete.jsip2.variables.Language;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2ResponseView and SIP2PatronInformationView classes.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2ResponseViewTest extends TestCase {
+
+    private static final String PATRON_INFORMATION = "64  Y           001" + TestUtils.SIP2_DATE_TIME
+            + "000200010003000000000000AOinstitution|AApatron|AEJohn Doe|BZ0005|BLY|CQN|BHEUR|BV1.50|"
+            + "AUitem1|AUitem2|ATitem3|BEjohn@example.com|AFHello|AFWorld|XXvendor|AY2AZ";
+
+    @Test
+    public void testPatronInformationView() throws Exception {
+        String data = PATRON_INFORMATION + MessageUtil.computeChecksum(PATRON_INFORMATION);
+        SIP2ResponseView view = SIP2ResponseFactory.getInstance().createView(data);
+        assertTrue(view instanceof SIP2PatronInformationView);
+        SIP2PatronInformationView patron = (SIP2PatronInformationView) view;
+        SIP2PatronInformationResponse response = (SIP2PatronInformationResponse) SIP2ResponseFactory.getInstance().create(data);
+
+        assertEquals(response.getStatus().toString(), patron.getStatus().toString());
+        assertSame(patron.getStatus(), patron.getStatus());
+        assertEquals(Language.ENGLISH, patron.getLanguage());
+        assertEquals(response.getTransactionDate(), patron.getTransactionDate());
+        assertEquals(response.getTransactionDateTime(), patron.getTransactionDateTime());
+        assertEquals(2, patron.getHoldItemsCount());
+        assertEquals(1, patron.getOverdueItemsCount());
+        assertEquals(3, patron.getChargedItemsCount());
+        assertEquals(response.getInstitutionId(), patron.getInstitutionId());
+        assertEquals("patron", patron.getPatronIdentifier());
+        assertEquals("John Doe", patron.getPersonalName());
+        assertSame(patron.getPersonalName(), patron.getPersonalName());
+        assertEquals(5, patron.getHoldItemsLimit());
+        assertEquals(-1, patron.getChargedItemsLimit());
+        assertTrue(patron.isValidPatronUsed());
+        assertTrue(patron.isValidPatron());
+        assertFalse(patron.isValidPatronPassword());
+        assertEquals(CurrencyType.EURO, patron.getCurrencyType());
+        assertEquals("1.50", patron.getFeeAmount());
+        assertNull(patron.getFeeLimit());
+        assertEquals(response.getItemType(), patron.getItemType());
+        assertEquals(response.getItems(), patron.getItems());
+        assertEquals(Arrays.asList("item1", "item2"), patron.getItems(ItemType.CHARGED));
+        assertEquals("john@example.com", patron.getEmail());
+        assertNull(patron.getPhone());
+        assertEquals(response.getScreenMessage(), patron.getScreenMessage());
+        assertEquals("vendor", patron.getField("XX"));
+        assertEquals(2, patron.getSequence());
+        assertTrue(patron.isChecksum());
+        assertTrue(patron.isValid());
+        assertEquals("64", patron.getCode());
+    }
+
+    @Test
+    public void testVisitItems() throws Exception {
+        SIP2PatronInformationView view = new SIP2PatronInformationView(PATRON_INFORMATION + "0000");
+        final List<String> visited = new ArrayList<>();
+        assertTrue(view.visitItems((code, value) -> visited.add(code + value)));
+        assertEquals(Arrays.asList("AUitem1", "AUitem2", "ATitem3"), visited);
+        visited.clear();
+        assertFalse(view.visitItems((code, value) -> !visited.add(value), ItemType.CHARGED));
+        assertEquals(Arrays.asList("item1"), visited);
+    }
+
+    @Test
+    public void testInvalidValues() throws Exception {
+        SIP2PatronInformationView view = new SIP2PatronInformationView("64  X           999" + TestUtils.SIP2_DATE_TIME + "00A200010003000000000000AOinstitution|");
+        try {
+            view.getStatus();
+            fail("Status should have been invalid.");
+        } catch (InvalidSIP2ResponseValueException ex) {
+            assertTrue(ex.getMessage().contains("'Y' and ' '"));
+        }
+        try {
+            view.getHoldItemsCount();
+            fail("Count should have been invalid.");
+        } catch (InvalidSIP2ResponseValueException ex) {
+            assertTrue(ex.getMessage().contains("\"00A2\""));
+        }
+        try {
+            view.getLanguage();
+            fail("Language should have been invalid.");
+        } catch (InvalidSIP2ResponseValueException ex) {
+            assertTrue(ex.getMessage().startsWith("Invalid language code!"));
+        }
+        assertEquals("institution", view.getInstitutionId());
+        assertFalse(view.isChecksum());
+        assertFalse(view.isValid());
+    }
+
+    @Test
+    public void testGenericView() throws Exception {
+        SIP2ResponseView view = SIP2ResponseFactory.getInstance().createView(TestSIP2Server.ACS_STATUS_RESPONSE + "AY0AZ0000");
+        assertEquals(36, view.getFixedLength());
+        assertEquals("010", view.getFixed(8, 11));
+        assertEquals("Library", view.getField("AM"));
+        assertTrue(view.hasField("BX"));
+        assertFalse(view.isValid());
+        view.setChecksumValid(true);
+        assertTrue(view.isValid());
+        try {
+            view.getFixed(30, 40);
+            fail("Position should have been invalid.");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage().contains("30-40"));
+        }
+    }
+
+    @Test
+    public void testTooShort() {
+        try {
+            SIP2ResponseFactory.getInstance().createView("64  Y");
+            fail("Message should have been too short.");
+        } catch (InvalidSIP2ResponseException ex) {
+            assertTrue(ex.getMessage().contains("too short"));
+        }
+    }
+}
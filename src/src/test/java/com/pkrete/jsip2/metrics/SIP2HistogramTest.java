@@ -0,0 +1,112 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.metrics;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2Histogram class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2HistogramTest extends TestCase {
+
+    @Test
+    public void testBuckets() {
+        for (int i = 0; i < SIP2Histogram.BUCKETS; i++) {
+            long lower = SIP2Histogram.getLowerBound(i);
+            long upper = SIP2Histogram.getUpperBound(i);
+            assertEquals(i, SIP2Histogram.getBucket(lower));
+            assertEquals(i, SIP2Histogram.getBucket(upper));
+            assertTrue(upper >= lower);
+            if (i + 1 < SIP2Histogram.BUCKETS) {
+                assertEquals(upper + 1, SIP2Histogram.getLowerBound(i + 1));
+            }
+        }
+        assertEquals(SIP2Histogram.BUCKETS - 1, SIP2Histogram.getBucket(Long.MAX_VALUE));
+        assertEquals(0, SIP2Histogram.getBucket(-1));
+        assertEquals(0, SIP2Histogram.getBucket(1));
+        for (int exponent = 0; exponent < 63; exponent++) {
+            long power = 1L << exponent;
+            assertEquals(power, SIP2Histogram.getUpperBound(SIP2Histogram.getBucket(power)));
+        }
+    }
+
+    @Test
+    public void testRelativeError() {
+        for (long value = 8; value < 1000000; value = value * 3 / 2) {
+            int bucket = SIP2Histogram.getBucket(value);
+            long width = SIP2Histogram.getUpperBound(bucket) - SIP2Histogram.getLowerBound(bucket) + 1;
+            assertTrue(width <= SIP2Histogram.getLowerBound(bucket) / 8);
+        }
+    }
+
+    @Test
+    public void testRecord() {
+        SIP2Histogram histogram = new SIP2Histogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(5050000, histogram.getSum());
+        assertEquals(100000, histogram.getMax());
+        assertEquals(50500.0, histogram.getMean(), 0.001);
+        long median = histogram.getValueAtPercentile(50);
+        assertTrue(median >= 50000 && median <= 50000 * 9 / 8);
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+        assertEquals(0, new SIP2Histogram().getValueAtPercentile(99));
+        assertEquals(100, histogram.getCountAtOrBelow(1L << 17));
+        assertEquals(0, histogram.getCountAtOrBelow(512));
+    }
+
+    @Test
+    public void testCountAtOrBelowIsInclusive() {
+        SIP2Histogram histogram = new SIP2Histogram();
+        histogram.record(1024);
+        histogram.record(1025);
+        assertEquals(0, histogram.getCountAtOrBelow(512));
+        assertEquals(1, histogram.getCountAtOrBelow(1024));
+        assertEquals(2, histogram.getCountAtOrBelow(2048));
+        long total = 0;
+        for (long value : histogram.getCounts()) {
+            total += value;
+        }
+        assertEquals(2, total);
+    }
+
+    @Test
+    public void testMerge() {
+        SIP2Histogram a = new SIP2Histogram();
+        SIP2Histogram b = new SIP2Histogram();
+        a.record(10);
+        a.record(20);
+        b.record(5000);
+        a.merge(b);
+        assertEquals(3, a.getCount());
+        assertEquals(5030, a.getSum());
+        assertEquals(5000, a.getMax());
+        assertEquals(1, a.getCount(SIP2Histogram.getBucket(5000)));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.metrics;
+
+import com.pkrete.jsip2.connection.SIP2ConnectionPool;
+import com.pkrete.jsip2.connection.SIP2SocketConnection;
+import com.pkrete.jsip2.messages.requests.SIP2SCStatusRequest;
+import com.pkrete.jsip2.util.TestSIP2Server;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2Metrics class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2MetricsTest extends TestCase {
+
+    @Test
+    public void testPrometheus() {
+        SIP2Metrics metrics = new SIP2Metrics();
+        SIP2MessageMetrics checkout = metrics.getMessageMetrics("ils:6001", "11");
+        assertSame(checkout, metrics.getMessageMetrics("ils:6001", "11"));
+        checkout.recordRequest();
+        checkout.recordResponse(3000000);
+        checkout.addBytesSent(100);
+        metrics.getPoolMetrics("ils:6001").recordBorrow(1000);
+        String text = metrics.toPrometheus();
+        assertTrue(text.contains("# TYPE sip2_requests_total counter\nsip2_requests_total{endpoint=\"ils:6001\",code=\"11\"} 1\n"));
+        assertTrue(text.contains("sip2_sent_bytes_total{endpoint=\"ils:6001\",code=\"11\"} 100\n"));
+        assertTrue(text.contains("sip2_latency_seconds_bucket{endpoint=\"ils:6001\",code=\"11\",le=\"0.002048\"} 0\n"));
+        assertTrue(text.contains("sip2_latency_seconds_bucket{endpoint=\"ils:6001\",code=\"11\",le=\"0.004096\"} 1\n"));
+        assertTrue(text.contains("sip2_latency_seconds_bucket{endpoint=\"ils:6001\",code=\"11\",le=\"+Inf\"} 1\n"));
+        assertTrue(text.contains("sip2_latency_seconds_sum{endpoint=\"ils:6001\",code=\"11\"} 0.003000\n"));
+        assertTrue(text.contains("sip2_pool_wait_seconds_count{endpoint=\"ils:6001\"} 1\n"));
+    }
+
+    @Test
+    public void testPrometheusBucketsAreInclusive() {
+        SIP2Metrics metrics = new SIP2Metrics();
+        SIP2MessageMetrics checkout = metrics.getMessageMetrics("ils:6001", "11");
+        checkout.recordResponse(2048000);
+        checkout.recordResponse(2049000);
+        String text = metrics.toPrometheus();
+        assertTrue(text.contains("sip2_latency_seconds_bucket{endpoint=\"ils:6001\",code=\"11\",le=\"0.001024\"} 0\n"));
+        assertTrue(text.contains("sip2_latency_seconds_bucket{endpoint=\"ils:6001\",code=\"11\",le=\"0.002048\"} 1\n"));
+        assertTrue(text.contains("sip2_latency_seconds_bucket{endpoint=\"ils:6001\",code=\"11\",le=\"0.004096\"} 2\n"));
+        assertTrue(text.contains("sip2_latency_seconds_bucket{endpoint=\"ils:6001\",code=\"11\",le=\"+Inf\"} 2\n"));
+        assertTrue(text.contains("sip2_latency_seconds_count{endpoint=\"ils:6001\",code=\"11\"} 2\n"));
+    }
+
+    @Test
+    public void testMergedLatency() {
+        SIP2Metrics metrics = new SIP2Metrics();
+        metrics.getMessageMetrics("ils1:6001", "63").recordResponse(1000);
+        metrics.getMessageMetrics("ils2:6001", "63").recordResponse(2000);
+        metrics.getMessageMetrics("ils2:6001", "11").recordResponse(2000);
+        assertEquals(2, metrics.getLatency("63").getCount());
+        assertEquals(3, metrics.getMessageMetrics().size());
+        assertEquals("11", metrics.getMessageMetrics().get(1).getCode());
+    }
+
+    @Test
+    public void testMBeans() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        SIP2Metrics metrics = new SIP2Metrics();
+        metrics.getMessageMetrics("ils:6001", "11").recordRequest();
+        metrics.registerMBeans(server);
+        metrics.getPoolMetrics("ils:6001").recordBorrowFailure();
+        ObjectName message = new ObjectName("com.pkrete.jsip2:type=Message,endpoint=\"ils:6001\",code=\"11\"");
+        ObjectName pool = new ObjectName("com.pkrete.jsip2:type=Pool,endpoint=\"ils:6001\"");
+        assertEquals(1L, server.getAttribute(message, "Requests"));
+        assertEquals(1L, server.getAttribute(pool, "BorrowFailures"));
+        metrics.unregisterMBeans();
+        assertFalse(server.isRegistered(message));
+        assertFalse(server.isRegistered(pool));
+    }
+
+    @Test
+    public void testPoolRecordsMetrics() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2Metrics metrics = new SIP2Metrics();
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 0, 1);
+            pool.setMetrics(metrics);
+            SIP2SocketConnection connection = pool.borrow();
+            connection.send(new SIP2SCStatusRequest());
+            pool.release(connection);
+            pool.close();
+            String endpoint = "localhost:" + server.getPort();
+            SIP2MessageMetrics status = metrics.getMessageMetrics(endpoint, "99");
+            // The pool sends an SC Status request when it creates the connection
+            assertEquals(2, status.getRequests());
+            assertEquals(2, status.getResponses());
+            assertEquals(0, status.getErrors());
+            assertTrue(status.getBytesSent() > 0);
+            assertTrue(status.getBytesReceived() > 0);
+            assertEquals(2, status.getLatency().getCount());
+            assertEquals(1, metrics.getPoolMetrics(endpoint).getBorrows());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2FieldScanner class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2FieldScannerTest extends TestCase {
+
+    private static final String RENEW_ALL = "66100020001" + "20210814    083455" + "AOinstitution|BMitem1|BNitem2|BMitem3|AFmessage|AY1AZF000";
+
+    /**
+     * Visitor that collects the visited fields and stops after the given
+     * number of fields.
+     */
+    private static class Collector implements SIP2FieldVisitor {
+
+        private final List<String> fields = new ArrayList<>();
+        private final int limit;
+
+        Collector(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public boolean visit(String code, String value) {
+            fields.add(code + value);
+            return fields.size() < limit;
+        }
+    }
+
+    @Test
+    public void testFixedLength() {
+        assertEquals(29, SIP2FieldScanner.getFixedLength(RENEW_ALL));
+        assertEquals(61, SIP2FieldScanner.getFixedLength("64"));
+        assertEquals(2, SIP2FieldScanner.getFixedLength("ZZ"));
+    }
+
+    @Test
+    public void testScanSelectedFields() {
+        Collector collector = new Collector(Integer.MAX_VALUE);
+        assertTrue(SIP2FieldScanner.scan(RENEW_ALL, collector, "BM", "BN"));
+        assertEquals(Arrays.asList("BMitem1", "BNitem2", "BMitem3"), collector.fields);
+    }
+
+    @Test
+    public void testScanAllFields() {
+        Collector collector = new Collector(Integer.MAX_VALUE);
+        assertTrue(SIP2FieldScanner.scan(RENEW_ALL, collector));
+        assertEquals(Arrays.asList("AOinstitution", "BMitem1", "BNitem2", "BMitem3", "AFmessage", "AY1AZF000"), collector.fields);
+    }
+
+    @Test
+    public void testStopEarly() {
+        Collector collector = new Collector(2);
+        assertFalse(SIP2FieldScanner.scan(RENEW_ALL, collector, "BM", "BN"));
+        assertEquals(Arrays.asList("BMitem1", "BNitem2"), collector.fields);
+    }
+
+    @Test
+    public void testGetFixedLength() {
+        assertEquals(3, SIP2FieldScanner.getFixedLength("941"));
+        assertEquals(61, SIP2FieldScanner.getFixedLength("64"));
+        assertEquals(24, SIP2FieldScanner.getFixedLength("30"));
+        assertEquals(2, SIP2FieldScanner.getFixedLength("99"));
+        assertEquals(2, SIP2FieldScanner.getFixedLength("X9"));
+        assertEquals(2, SIP2FieldScanner.getFixedLength("9ä"));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2FieldTokenizer class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2FieldTokenizerTest extends TestCase {
+
+    private static final String PATRON_INFORMATION = "64              00020210814    083455000000020000000000000000AOinstitutionId|AApatronId|AEJohn Doe|BLY|AUitem1|AUitem2|AUitem3|AFmessage|AY4AZE8E1";
+
+    @Test
+    public void testFirstFieldWithoutDelimiter() {
+        SIP2FieldTokenizer fields = new SIP2FieldTokenizer(PATRON_INFORMATION, 61);
+        assertEquals("institutionId", fields.get("AO"));
+        assertEquals("patronId", fields.get("AA"));
+        assertEquals("John Doe", fields.get("AE"));
+    }
+
+    @Test
+    public void testVisit() {
+        SIP2FieldTokenizer fields = new SIP2FieldTokenizer(PATRON_INFORMATION, 61);
+        final List<String> visited = new ArrayList<>();
+        assertTrue(fields.visit((code, value) -> visited.add(code + value), "AF", "AU"));
+        assertEquals(Arrays.asList("AUitem1", "AUitem2", "AUitem3", "AFmessage"), visited);
+        visited.clear();
+        assertFalse(fields.visit((code, value) -> !visited.add(value), "AU"));
+        assertEquals(Collections.singletonList("item1"), visited);
+    }
+
+    @Test
+    public void testMissingField() {
+        SIP2FieldTokenizer fields = new SIP2FieldTokenizer(PATRON_INFORMATION, 61);
+        assertNull(fields.get("BV"));
+        assertFalse(fields.exists("BV"));
+        assertFalse(fields.existsAndNotEmpty("BV"));
+    }
+
+    @Test
+    public void testRepeatedField() {
+        SIP2FieldTokenizer fields = new SIP2FieldTokenizer(PATRON_INFORMATION, 61);
+        assertEquals(Arrays.asList("item1", "item2", "item3"), fields.getAll("AU"));
+        assertEquals(Collections.singletonList("message"), fields.getAll("AF"));
+        assertTrue(fields.getAll("AG").isEmpty());
+    }
+
+    @Test
+    public void testEmptyField() {
+        SIP2FieldTokenizer fields = new SIP2FieldTokenizer("20020210814    083455AB|AJtitle|", 21);
+        assertTrue(fields.exists("AB"));
+        assertFalse(fields.existsAndNotEmpty("AB"));
+        assertEquals("", fields.get("AB"));
+        assertEquals("title", fields.get("AJ"));
+    }
+
+    @Test
+    public void testSequenceAndChecksum() {
+        SIP2FieldTokenizer fields = new SIP2FieldTokenizer(PATRON_INFORMATION, 61);
+        assertEquals("4", fields.getSequence());
+        assertEquals("E8E1", fields.getChecksum());
+        assertFalse(fields.exists("AY"));
+        assertEquals(8, fields.size());
+    }
+
+    @Test
+    public void testWithoutSequenceAndChecksum() {
+        SIP2FieldTokenizer fields = new SIP2FieldTokenizer("941", 3);
+        assertEquals("", fields.getSequence());
+        assertEquals("", fields.getChecksum());
+        assertEquals(0, fields.size());
+    }
+
+    @Test
+    public void testSequenceAndChecksumWithoutFields() {
+        SIP2FieldTokenizer fields = new SIP2FieldTokenizer("941|AY2AZFDFA", 3);
+        assertEquals("2", fields.getSequence());
+        assertEquals("FDFA", fields.getChecksum());
+    }
+
+    @Test
+    public void testManyFields() {
+        StringBuilder builder = new StringBuilder("6610000000020210814    083455AOinstitutionId|");
+        for (int i = 0; i < 100; i++) {
+            builder.append("BMitem").append(i).append('|');
+        }
+        SIP2FieldTokenizer fields = new SIP2FieldTokenizer(builder.toString(), 29);
+        assertEquals(100, fields.getAll("BM").size());
+        assertEquals("item99", fields.getAll("BM").get(99));
+        assertEquals("institutionId", fields.get("AO"));
+    }
+}
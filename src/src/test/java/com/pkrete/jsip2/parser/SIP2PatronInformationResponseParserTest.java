@@ -0,0 +1,68 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.parser;
+
+import com.pkrete.jsip2.messages.responses.SIP2PatronInformationResponse;
+import com.pkrete.jsip2.util.MessageUtil;
+import com.pkrete.jsip2.variables.ItemType;
+import java.util.Arrays;
+import java.util.Collections;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for SIP2PatronInformationResponseParser class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2PatronInformationResponseParserTest extends TestCase {
+
+    private static final String RESPONSE = "64              00020210814    083455000200010002000000000001"
+            + "AOinstitutionId|AApatronId|AEJohn Doe|AToverdue|ATitem3|ASitem1|AUitem4|CDitem5|ASitem2|AUitem6|AFmessage|AY4AZ";
+
+    @Test
+    public void testAllItemTypesInOnePass() throws Exception {
+        String data = RESPONSE;
+        data += MessageUtil.computeChecksum(data);
+        SIP2PatronInformationResponse response = (SIP2PatronInformationResponse) new SIP2PatronInformationResponseParser().parse(data);
+        assertEquals(Arrays.asList("item1", "item2"), response.getItems(ItemType.HOLD));
+        assertEquals(Arrays.asList("overdue", "item3"), response.getItems(ItemType.OVERDUE));
+        assertEquals(Arrays.asList("item4", "item6"), response.getItems(ItemType.CHARGED));
+        assertEquals(Collections.singletonList("item5"), response.getItems(ItemType.UNAVAILABLE_HOLD));
+        assertTrue(response.getItems(ItemType.FINE).isEmpty());
+        assertTrue(response.getItems(ItemType.RECALL).isEmpty());
+        // The first type in the order of the specification
+        assertEquals(ItemType.HOLD, response.getItemType());
+        assertEquals(response.getItems(ItemType.HOLD), response.getItems());
+        assertEquals(Collections.singletonList("message"), response.getScreenMessage());
+    }
+
+    @Test
+    public void testNoItems() throws Exception {
+        SIP2PatronInformationResponse response = (SIP2PatronInformationResponse) new SIP2PatronInformationResponseParser().parse("64              00020210814    083455000000000000000000000000AOinstitutionId|AApatronId|AEJohn Doe|");
+        assertNull(response.getItemType());
+        assertNull(response.getItems());
+        assertTrue(response.getItems(ItemType.CHARGED).isEmpty());
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.util;
+
+import com.pkrete.jsip2.messages.responses.SIP2ItemInformationResponse;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for DateTimeUtil class.
+ *
+ * @author Petteri Kivimäki
+ */
+public class DateTimeUtilTest extends TestCase {
+
+    private static final Instant INSTANT = Instant.parse("2021-08-14T08:34:55.250Z");
+
+    @Override
+    public void tearDown() {
+        DateTimeUtil.setClock(Clock.systemDefaultZone());
+    }
+
+    @Test
+    public void testNowUsesClock() {
+        DateTimeUtil.setClock(Clock.fixed(INSTANT, ZoneOffset.UTC));
+        assertEquals(TestUtils.SIP2_DATE_TIME, DateTimeUtil.now());
+        assertEquals(TestUtils.SIP2_DATE_TIME, MessageUtil.getSipDateTime());
+    }
+
+    @Test
+    public void testNowIsCachedPerSecond() {
+        DateTimeUtil.setClock(Clock.fixed(INSTANT, ZoneOffset.UTC));
+        String first = DateTimeUtil.now();
+        DateTimeUtil.setClock(Clock.fixed(INSTANT.plusMillis(700), ZoneOffset.UTC));
+        String second = DateTimeUtil.now();
+        assertEquals(first, second);
+        DateTimeUtil.setClock(Clock.fixed(INSTANT.plusMillis(750), ZoneOffset.UTC));
+        assertEquals("20210814    083456", DateTimeUtil.now());
+        DateTimeUtil.setClock(Clock.fixed(INSTANT.plusMillis(750), ZoneOffset.ofHours(3)));
+        assertEquals("20210814    113456", DateTimeUtil.now());
+    }
+
+    @Test
+    public void testParse() {
+        assertEquals(LocalDateTime.of(2021, 8, 14, 8, 34, 55), DateTimeUtil.parse(TestUtils.SIP2_DATE_TIME));
+        assertEquals(LocalDateTime.of(2021, 8, 14, 8, 34, 55), DateTimeUtil.parse("20210814   Z083455"));
+        assertNull(DateTimeUtil.parse(null));
+        assertNull(DateTimeUtil.parse("20210814"));
+        assertNull(DateTimeUtil.parse("2021O814    083455"));
+        assertNull(DateTimeUtil.parse("20210231    083455"));
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals(TestUtils.SIP2_DATE_TIME, DateTimeUtil.format(LocalDateTime.of(2021, 8, 14, 8, 34, 55)));
+    }
+
+    @Test
+    public void testMessageUtilConversions() {
+        DateTimeUtil.setClock(Clock.fixed(INSTANT, ZoneOffset.UTC));
+        Date date = MessageUtil.parseSipDateTime(TestUtils.SIP2_DATE_TIME);
+        assertEquals(INSTANT.getEpochSecond(), date.getTime() / 1000);
+        assertEquals(TestUtils.SIP2_DATE_TIME, MessageUtil.toSipDateTime(date));
+        assertEquals("20210915    083455", MessageUtil.createFutureDate(1, 1));
+    }
+
+    @Test
+    public void testLazyResponseDates() {
+        SIP2ItemInformationResponse response = new SIP2ItemInformationResponse("");
+        assertNull(response.getDueDateTime());
+        response.setDueDate("due next week");
+        assertNull(response.getDueDateTime());
+        response.setTransactionDate(TestUtils.SIP2_DATE_TIME);
+        LocalDateTime transactionDate = response.getTransactionDateTime();
+        assertEquals(LocalDateTime.of(2021, 8, 14, 8, 34, 55), transactionDate);
+        assertSame(transactionDate, response.getTransactionDateTime());
+        response.setHoldPickupDate("20210901    120000");
+        assertEquals(LocalDateTime.of(2021, 9, 1, 12, 0), response.getHoldPickupDateTime());
+        response.setHoldPickupDate(null);
+        assertNull(response.getHoldPickupDateTime());
+    }
+}
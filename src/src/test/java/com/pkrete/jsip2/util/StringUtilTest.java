@@ -0,0 +1,64 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.util;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for StringUtil and MessageUtil checksum methods.
+ *
+ * @author Petteri Kivimäki
+ */
+public class StringUtilTest extends TestCase {
+
+    @Test
+    public void testIntToFixedLengthString() {
+        assertEquals("000", StringUtil.intToFixedLengthString(0, 3));
+        assertEquals("007", StringUtil.intToFixedLengthString(7, 3));
+        assertEquals("0123", StringUtil.intToFixedLengthString(123, 4));
+        assertEquals("12345", StringUtil.intToFixedLengthString(12345, 4));
+        assertEquals("-05", StringUtil.intToFixedLengthString(-5, 3));
+        assertEquals(String.format("%04d", Integer.MIN_VALUE), StringUtil.intToFixedLengthString(Integer.MIN_VALUE, 4));
+    }
+
+    @Test
+    public void testAppendFixedLength() {
+        StringBuilder builder = new StringBuilder("AB");
+        StringUtil.appendFixedLength(builder, 42, 4);
+        assertEquals("AB0042", builder.toString());
+    }
+
+    @Test
+    public void testComputeChecksum() {
+        assertEquals("FEF5", MessageUtil.computeChecksum("97AZ"));
+        assertEquals(MessageUtil.computeChecksum("97AZ"), MessageUtil.computeChecksum(new StringBuilder("97AZ")));
+        // Sum of the characters is 0x10000, lower 16 bits are zero
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 512; i++) {
+            builder.append((char) 128);
+        }
+        assertEquals("0000", MessageUtil.computeChecksum(builder));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Minimal ILS SIP server for unit tests. The server replies to each request
+ * with the response configured for the command identifier of the request.
+ * Requests without a configured response are not answered.
+ *
+ * @author Petteri Kivimäki
+ */
+public class TestSIP2Server implements Closeable {
+
+    public static final String LOGIN_RESPONSE = "941";
+    public static final String ACS_STATUS_RESPONSE = "98YYYYNN010003" + TestUtils.SIP2_DATE_TIME + "2.00AOinstitutionId|AMLibrary|BXYYYYYYYYYYYYYYYY|ANlocation|";
+
+    private static final Pattern ERROR_DETECTION = Pattern.compile("AY(\\d)AZ[0-9A-F]{4}$");
+
+    private final ServerSocket serverSocket;
+    private final Map<String, String> responses = new ConcurrentHashMap<String, String>();
+    private final List<String> requests = new CopyOnWriteArrayList<String>();
+    private final List<Socket> sockets = new CopyOnWriteArrayList<Socket>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private volatile long delay;
+    private volatile boolean errorDetection;
+
+    public TestSIP2Server() throws IOException {
+        this.serverSocket = new ServerSocket(0);
+        this.responses.put("93", LOGIN_RESPONSE);
+        this.responses.put("99", ACS_STATUS_RESPONSE);
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                accept();
+            }
+        }, "test-sip2-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                final Socket socket = serverSocket.accept();
+                connectionCount.incrementAndGet();
+                sockets.add(socket);
+                Thread handler = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        handle(socket);
+                    }
+                }, "test-sip2-server-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException ex) {
+                return;
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        try {
+            InputStream in = socket.getInputStream();
+            OutputStream out = socket.getOutputStream();
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b != '\r') {
+                    buffer.write(b);
+                    continue;
+                }
+                String request = new String(buffer.toByteArray(), StandardCharsets.US_ASCII);
+                buffer.reset();
+                requests.add(request);
+                String response = responses.get(request.substring(0, 2));
+                if (response != null) {
+                    Matcher m = ERROR_DETECTION.matcher(request);
+                    if (errorDetection && m.find()) {
+                        response = response + "AY" + m.group(1) + "AZ";
+                        response = response + MessageUtil.computeChecksum(response);
+                    }
+                    if (delay > 0) {
+                        Thread.sleep(delay);
+                    }
+                    out.write((response + '\r').getBytes(StandardCharsets.US_ASCII));
+                    out.flush();
+                }
+            }
+        } catch (IOException ex) {
+            // Connection closed
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // Ignore
+            }
+        }
+    }
+
+    public void setResponse(String code, String response) {
+        if (response == null) {
+            responses.remove(code);
+        } else {
+            responses.put(code, response);
+        }
+    }
+
+    /**
+     * Sets the time in milliseconds the server waits before sending each
+     * response.
+     */
+    public void setDelay(long delay) {
+        this.delay = delay;
+    }
+
+    /**
+     * When enabled, the sequence number of each request that has error
+     * detection fields is echoed in the response, followed by a checksum.
+     */
+    public void setErrorDetection(boolean errorDetection) {
+        this.errorDetection = errorDetection;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    public List<String> getRequests() {
+        return requests;
+    }
+
+    /**
+     * Closes all the client connections, but keeps accepting new ones.
+     */
+    public void dropConnections() throws IOException {
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        sockets.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        dropConnections();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.variables;
+
+import com.pkrete.jsip2.exceptions.InvalidSIP2ResponseValueException;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Test cases for the variables factory classes.
+ *
+ * @author Petteri Kivimäki
+ */
+public class VariablesFactoryTest extends TestCase {
+
+    @Test
+    public void testAllCodesResolve() throws Exception {
+        for (AlertType value : AlertType.values()) {
+            assertSame(value, AlertTypeFactory.getInstance().getAlertType(value.toString()));
+        }
+        for (CirculationStatus value : CirculationStatus.values()) {
+            assertSame(value, CirculationStatusFactory.getInstance().getCirculationStatus(value.toString()));
+        }
+        for (CurrencyType value : CurrencyType.values()) {
+            assertSame(value, CurrencyTypeFactory.getInstance().getCurrencyType(value.toString()));
+        }
+        for (FeeType value : FeeType.values()) {
+            assertSame(value, FeeTypeFactory.getInstance().getFeeType(value.toString()));
+        }
+        for (ItemType value : ItemType.values()) {
+            assertSame(value, ItemTypeFactory.getInstance().getItemType(value.toString()));
+        }
+        for (Language value : Language.values()) {
+            assertSame(value, LanguageFactory.getInstance().getLanguage(value.toString()));
+        }
+        for (MediaType value : MediaType.values()) {
+            assertSame(value, MediaTypeFactory.getInstance().getMediaType(value.toString()));
+        }
+        for (SecurityMarker value : SecurityMarker.values()) {
+            assertSame(value, SecurityMarkerFactory.getInstance().getSecurityMarker(value.toString()));
+        }
+    }
+
+    @Test
+    public void testInvalidCodes() {
+        String[] codes = {"05", "98", "5", "001", "0A", "", null};
+        for (String code : codes) {
+            try {
+                AlertTypeFactory.getInstance().getAlertType(code);
+                fail("Code should have been invalid: " + code);
+            } catch (InvalidSIP2ResponseValueException ex) {
+                assertTrue(ex.getMessage().contains("\"" + code + "\""));
+            }
+        }
+        try {
+            LanguageFactory.getInstance().getLanguage("028");
+            fail("Code should have been invalid.");
+        } catch (InvalidSIP2ResponseValueException ex) {
+            assertTrue(ex.getMessage().startsWith("Invalid language code!"));
+        }
+        try {
+            CurrencyTypeFactory.getInstance().getCurrencyType("SEK");
+            fail("Code should have been invalid.");
+        } catch (InvalidSIP2ResponseValueException ex) {
+            assertTrue(ex.getMessage().startsWith("Invalid currency code!"));
+        }
+    }
+
+    @Test
+    public void testAllItemTypes() {
+        assertEquals(ItemType.values().length, ItemTypeFactory.getInstance().getAllItemTypes().size());
+        assertSame(ItemTypeFactory.getInstance().getAllItemTypes(), ItemTypeFactory.getInstance().getAllItemTypes());
+        try {
+            ItemTypeFactory.getInstance().getAllItemTypes().clear();
+            fail("List should have been unmodifiable.");
+        } catch (UnsupportedOperationException ex) {
+            assertEquals(ItemType.values().length, ItemTypeFactory.getInstance().getAllItemTypes().size());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.messages.SIP2MessageRequest;
+import com.pkrete.jsip2.messages.SIP2MessageResponse;
+import com.pkrete.jsip2.messages.requests.SIP2LoginRequest;
+import com.pkrete.jsip2.messages.requests.SIP2SCStatusRequest;
+import com.pkrete.jsip2.messages.responses.SIP2ACSStatusResponse;
+import com.pkrete.jsip2.util.MessageUtil;
+import com.pkrete.jsip2.util.TestSIP2Server;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Integration test cases for the Java 11 version of SIP2Events class. 
+ * The test cases are compiled and run by the java11 profile against the 
+ * multi-release JAR, so that the Java Flight Recorder events are emitted.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2EventsIT extends TestCase {
+
+    private static final String CONNECT = "com.pkrete.jsip2.Connect";
+    private static final String LOGIN = "com.pkrete.jsip2.Login";
+    private static final String EXCHANGE = "com.pkrete.jsip2.Exchange";
+
+    private static List<RecordedEvent> record(Runnable exchange) throws Exception {
+        Path file = Files.createTempFile("jsip2", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(CONNECT);
+            recording.enable(LOGIN);
+            recording.enable(EXCHANGE);
+            recording.start();
+            exchange.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static List<RecordedEvent> events(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> result = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private static SIP2MessageResponse send(SIP2SocketConnection connection, SIP2MessageRequest request) {
+        try {
+            return connection.send(request);
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Test
+    public void testExchangeEvents() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            server.setErrorDetection(true);
+            String endpoint = "localhost:" + server.getPort();
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort(), 5000);
+            SIP2LoginRequest login = new SIP2LoginRequest("user", "password");
+            SIP2SCStatusRequest status = new SIP2SCStatusRequest();
+            status.setErrorDetectionEnabled(true);
+            status.setSequence(3);
+            List<SIP2MessageResponse> responses = new ArrayList<>();
+            List<RecordedEvent> recorded = record(() -> {
+                assertTrue(connection.connect());
+                responses.add(send(connection, login));
+                responses.add(send(connection, status));
+            });
+            connection.close();
+            assertTrue(responses.get(1) instanceof SIP2ACSStatusResponse);
+
+            List<RecordedEvent> connects = events(recorded, CONNECT);
+            assertEquals(1, connects.size());
+            assertEquals(endpoint, connects.get(0).getString("endpoint"));
+            assertTrue(connects.get(0).getBoolean("connected"));
+
+            List<RecordedEvent> logins = events(recorded, LOGIN);
+            assertEquals(1, logins.size());
+            assertEquals(endpoint, logins.get(0).getString("endpoint"));
+            assertTrue(logins.get(0).getBoolean("ok"));
+            assertFalse(logins.get(0).getBoolean("reconnect"));
+
+            List<RecordedEvent> exchanges = events(recorded, EXCHANGE);
+            assertEquals(2, exchanges.size());
+            RecordedEvent loginExchange = exchanges.get(0);
+            assertEquals("93", loginExchange.getString("command"));
+            assertEquals("94", loginExchange.getString("responseCommand"));
+            assertEquals(login.getData().length(), loginExchange.getLong("requestBytes"));
+            assertEquals(TestSIP2Server.LOGIN_RESPONSE.length() + 1, loginExchange.getLong("responseBytes"));
+            assertFalse(loginExchange.getBoolean("checksumPresent"));
+
+            RecordedEvent statusExchange = exchanges.get(1);
+            String response = TestSIP2Server.ACS_STATUS_RESPONSE + "AY3AZ";
+            response += MessageUtil.computeChecksum(response);
+            assertEquals(endpoint, statusExchange.getString("endpoint"));
+            assertEquals("99", statusExchange.getString("command"));
+            assertEquals("98", statusExchange.getString("responseCommand"));
+            assertEquals(status.getData().length(), statusExchange.getLong("requestBytes"));
+            assertEquals(response.length() + 1, statusExchange.getLong("responseBytes"));
+            assertTrue(statusExchange.getBoolean("checksumPresent"));
+            assertTrue(statusExchange.getBoolean("checksumValid"));
+            assertEquals(0, statusExchange.getInt("checksumFailures"));
+            assertEquals(0, statusExchange.getInt("resends"));
+            assertTrue(statusExchange.getBoolean("success"));
+            assertTrue(statusExchange.getDuration("writeTime").toNanos() > 0);
+            assertTrue(statusExchange.getDuration("readTime").toNanos() > 0);
+            assertTrue(statusExchange.getDuration("parseTime").toNanos() > 0);
+        }
+    }
+
+    @Test
+    public void testChecksumFailureEvents() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            String invalid = TestSIP2Server.ACS_STATUS_RESPONSE + "AY0AZ0000";
+            server.setResponse("99", invalid);
+            server.setResponse("97", invalid);
+            SIP2SocketConnection connection = new SIP2SocketConnection("localhost", server.getPort(), 5000);
+            connection.setRetriesAllowed(2);
+            List<RecordedEvent> recorded = record(() -> {
+                assertTrue(connection.connect());
+                send(connection, new SIP2SCStatusRequest());
+            });
+            connection.close();
+
+            List<RecordedEvent> exchanges = events(recorded, EXCHANGE);
+            assertEquals(1, exchanges.size());
+            RecordedEvent exchange = exchanges.get(0);
+            assertEquals(3, exchange.getInt("checksumFailures"));
+            assertEquals(2, exchange.getInt("resends"));
+            assertEquals(3 * (invalid.length() + 1), exchange.getLong("responseBytes"));
+            assertTrue(exchange.getBoolean("checksumPresent"));
+            assertFalse(exchange.getBoolean("checksumValid"));
+            assertTrue(exchange.getBoolean("success"));
+        }
+    }
+}
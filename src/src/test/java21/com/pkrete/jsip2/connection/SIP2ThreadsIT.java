@@ -0,0 +1,65 @@
+/*
+ *  The MIT License
+ *
+ *  Copyright 2012- Petteri Kivimäki
+ *
+ *  Permission is hereby granted, free of charge, to any person obtaining a copy
+ *  of this software and associated documentation files (the "Software"), to deal
+ *  in the Software without restriction, including without limitation the rights
+ *  to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *  copies of the Software, and to permit persons to whom the Software is
+ *  furnished to do so, subject to the following conditions:
+ *
+ *  The above copyright notice and this permission notice shall be included in
+ *  all copies or substantial portions of the Software.
+ *
+ *  THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *  IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *  FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *  AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *  LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *  OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *  THE SOFTWARE.
+ */
+package com.pkrete.jsip2.connection;
+
+import com.pkrete.jsip2.messages.requests.SIP2SCStatusRequest;
+import com.pkrete.jsip2.messages.responses.SIP2ACSStatusResponse;
+import com.pkrete.jsip2.util.TestSIP2Server;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * Integration test cases for the Java 21 version of SIP2Threads class. 
+ * The test cases are compiled and run by the java21 profile against the 
+ * multi-release JAR, so that the class is loaded from META-INF/versions/21.
+ *
+ * @author Petteri Kivimäki
+ */
+public class SIP2ThreadsIT extends TestCase {
+
+    @Test
+    public void testVirtualThreads() throws Exception {
+        assertTrue(SIP2Threads.isVirtual());
+        assertTrue(SIP2ThreadPerRequestClient.isVirtualThreadsSupported());
+        ExecutorService executor = SIP2Threads.newThreadPerTaskExecutor("test");
+        Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertTrue(thread.isVirtual());
+        assertTrue(thread.getName().startsWith("test-"));
+    }
+
+    @Test
+    public void testSendOnVirtualThreads() throws Exception {
+        try (TestSIP2Server server = new TestSIP2Server()) {
+            SIP2ConnectionPool pool = new SIP2ConnectionPool("localhost", server.getPort(), null, 0, 2);
+            SIP2ThreadPerRequestClient client = new SIP2ThreadPerRequestClient(pool);
+            assertTrue(client.sendAsync(new SIP2SCStatusRequest()).get(5, TimeUnit.SECONDS) instanceof SIP2ACSStatusResponse);
+            assertEquals(0, pool.getActiveCount());
+            client.close();
+            pool.close();
+        }
+    }
+}